@@ -0,0 +1,11 @@
+package org.perf.builder;
+
+/**
+ * How arrivals are spaced in an open-model (arrival-rate) run.
+ */
+public enum ArrivalProcess {
+    /** Arrivals exactly {@code 1 / rate} apart. */
+    CONSTANT,
+    /** Exponentially distributed gaps with mean {@code 1 / rate}, like independent clients. */
+    POISSON
+}
@@ -0,0 +1,49 @@
+package org.perf.builder;
+
+import java.io.Serializable;
+import java.time.Duration;
+
+/**
+ * One segment of a closed-model load profile: either move linearly to a number of users, or keep
+ * the current number of users for a while. A ramp over {@link Duration#ZERO} is a step.
+ */
+public class LoadStage implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    public enum Type { RAMP, HOLD }
+    
+    private final Type type;
+    private final int targetUsers;
+    private final Duration duration;
+    
+    private LoadStage(Type type, int targetUsers, Duration duration) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Stage duration must not be negative: " + duration);
+        }
+        this.type = type;
+        this.targetUsers = targetUsers;
+        this.duration = duration;
+    }
+    
+    public static LoadStage rampTo(int users, Duration over) {
+        if (users < 0) {
+            throw new IllegalArgumentException("Target users must not be negative: " + users);
+        }
+        return new LoadStage(Type.RAMP, users, over);
+    }
+    
+    public static LoadStage holdFor(Duration duration) {
+        return new LoadStage(Type.HOLD, -1, duration);
+    }
+    
+    public Type getType() { return type; }
+    public int getTargetUsers() { return targetUsers; }
+    public Duration getDuration() { return duration; }
+    
+    @Override
+    public String toString() {
+        return type == Type.RAMP
+            ? "rampTo(" + targetUsers + ", " + duration + ")"
+            : "holdFor(" + duration + ")";
+    }
+}
@@ -38,6 +38,55 @@ public class PerformanceTestBuilder {
         return this;
     }
     
+    // Total run time including ramp-up; users keep iterating until it ends
+    public PerformanceTestBuilder withDuration(Duration duration) {
+        this.threadGroupBuilder.duration(duration);
+        return this;
+    }
+    
+    // Each user starts an iteration every interval, however long the responses and think times take
+    public PerformanceTestBuilder withPacing(Duration interval) {
+        this.threadGroupBuilder.pacing(interval);
+        return this;
+    }
+    
+    // Load profile stages: one run can sweep several concurrency levels
+    public PerformanceTestBuilder rampTo(int users, Duration over) {
+        this.threadGroupBuilder.stage(LoadStage.rampTo(users, over));
+        return this;
+    }
+    
+    public PerformanceTestBuilder holdFor(Duration duration) {
+        this.threadGroupBuilder.stage(LoadStage.holdFor(duration));
+        return this;
+    }
+    
+    public PerformanceTestBuilder stepTo(int users) {
+        this.threadGroupBuilder.stage(LoadStage.rampTo(users, Duration.ZERO));
+        return this;
+    }
+    
+    public PerformanceTestBuilder rampDown(Duration over) {
+        this.threadGroupBuilder.stage(LoadStage.rampTo(0, over));
+        return this;
+    }
+    
+    // Open model: a fixed offered load instead of a fixed number of users
+    public PerformanceTestBuilder withArrivalRate(double perSecond, Duration duration) {
+        this.threadGroupBuilder.arrivalRate(perSecond).duration(duration);
+        return this;
+    }
+    
+    public PerformanceTestBuilder withArrivalProcess(ArrivalProcess arrivalProcess) {
+        this.threadGroupBuilder.arrivalProcess(arrivalProcess);
+        return this;
+    }
+    
+    public PerformanceTestBuilder withMaxConcurrency(int maxConcurrency) {
+        this.threadGroupBuilder.maxConcurrency(maxConcurrency);
+        return this;
+    }
+    
     public RequestBuilder addRequest() {
         return new RequestBuilder(this);
     }
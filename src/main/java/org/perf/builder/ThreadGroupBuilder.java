@@ -1,12 +1,29 @@
 package org.perf.builder;
 
+import java.io.Serializable;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ThreadGroupBuilder {
+    public static final int DEFAULT_MAX_CONCURRENCY = 1000;
+    
     private int users = 1;
     private int iterations = 1;
     private Duration rampUp = Duration.ofSeconds(1);
     
+    // Multi-stage profile: when stages are set, users, rampUp and iterations are ignored
+    private final List<LoadStage> stages = new ArrayList<>();
+    
+    // Open model: when an arrival rate is set, users and iterations are ignored
+    private double arrivalRate = 0;
+    private ArrivalProcess arrivalProcess = ArrivalProcess.CONSTANT;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private Duration duration = Duration.ZERO;
+    
+    // Closed model: one iteration per user every pacing interval, think times included
+    private Duration pacing = Duration.ZERO;
+    
     public ThreadGroupBuilder users(int users) {
         this.users = users;
         return this;
@@ -22,23 +39,114 @@ public class ThreadGroupBuilder {
         return this;
     }
     
+    public ThreadGroupBuilder stage(LoadStage stage) {
+        this.stages.add(stage);
+        return this;
+    }
+    
+    /** Starts a new iteration of the steps {@code perSecond} times a second, however slow the server is. */
+    public ThreadGroupBuilder arrivalRate(double perSecond) {
+        if (perSecond <= 0) {
+            throw new IllegalArgumentException("Arrival rate must be positive: " + perSecond);
+        }
+        this.arrivalRate = perSecond;
+        return this;
+    }
+    
+    public ThreadGroupBuilder arrivalProcess(ArrivalProcess arrivalProcess) {
+        this.arrivalProcess = arrivalProcess;
+        return this;
+    }
+    
+    /** Most iterations in flight at once; arrivals beyond that are late or dropped. */
+    public ThreadGroupBuilder maxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be at least 1: " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+    
+    /** Run length; for a closed model users loop until it ends and iterations are ignored. */
+    public ThreadGroupBuilder duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+    
+    public ThreadGroupBuilder pacing(Duration pacing) {
+        if (pacing.isNegative()) {
+            throw new IllegalArgumentException("Pacing must not be negative: " + pacing);
+        }
+        this.pacing = pacing;
+        return this;
+    }
+    
     public ThreadGroupConfig build() {
-        return new ThreadGroupConfig(users, iterations, rampUp);
+        if (arrivalRate > 0 && (duration == null || duration.isZero() || duration.isNegative())) {
+            throw new IllegalStateException("An arrival-rate run needs a positive duration");
+        }
+        if (arrivalRate > 0 && !pacing.isZero()) {
+            throw new IllegalStateException("Pacing only applies to a fixed number of users, not to an arrival rate");
+        }
+        if (arrivalRate == 0 && stages.isEmpty() && !duration.isZero() && duration.compareTo(rampUp) < 0) {
+            throw new IllegalStateException("Duration " + duration + " is shorter than the ramp-up " + rampUp);
+        }
+        if (!stages.isEmpty()) {
+            if (arrivalRate == 0 && !duration.isZero()) {
+                throw new IllegalStateException("Load stages define their own length; drop the duration");
+            }
+            if (arrivalRate > 0) {
+                throw new IllegalStateException("Load stages cannot be combined with an arrival rate");
+            }
+            if (stages.get(0).getType() != LoadStage.Type.RAMP) {
+                throw new IllegalStateException("A load profile must start with a ramp or step, not " + stages.get(0));
+            }
+        }
+        return new ThreadGroupConfig(this);
     }
     
-    public static class ThreadGroupConfig {
+    public static class ThreadGroupConfig implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
         private final int users;
         private final int iterations;
         private final Duration rampUp;
+        private final double arrivalRate;
+        private final ArrivalProcess arrivalProcess;
+        private final int maxConcurrency;
+        private final Duration duration;
+        private final ArrayList<LoadStage> stages;
+        private final Duration pacing;
         
         public ThreadGroupConfig(int users, int iterations, Duration rampUp) {
-            this.users = users;
-            this.iterations = iterations;
-            this.rampUp = rampUp;
+            this(new ThreadGroupBuilder().users(users).iterations(iterations).rampUp(rampUp));
+        }
+        
+        private ThreadGroupConfig(ThreadGroupBuilder builder) {
+            this.users = builder.users;
+            this.iterations = builder.iterations;
+            this.rampUp = builder.rampUp;
+            this.arrivalRate = builder.arrivalRate;
+            this.arrivalProcess = builder.arrivalProcess;
+            this.maxConcurrency = builder.maxConcurrency;
+            this.duration = builder.duration;
+            this.stages = new ArrayList<>(builder.stages);
+            this.pacing = builder.pacing;
         }
         
         public int getUsers() { return users; }
         public int getIterations() { return iterations; }
         public Duration getRampUp() { return rampUp; }
+        public double getArrivalRate() { return arrivalRate; }
+        public ArrivalProcess getArrivalProcess() { return arrivalProcess; }
+        public int getMaxConcurrency() { return maxConcurrency; }
+        public Duration getDuration() { return duration; }
+        public List<LoadStage> getStages() { return stages; }
+        public Duration getPacing() { return pacing; }
+        
+        public boolean isOpenModel() { return arrivalRate > 0; }
+        public boolean hasStages() { return !stages.isEmpty(); }
+        public boolean hasPacing() { return !pacing.isZero(); }
+        public boolean isDurationBound() { return !duration.isZero(); }
     }
-}
\ No newline at end of file
+}
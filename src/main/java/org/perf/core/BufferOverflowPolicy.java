@@ -0,0 +1,17 @@
+package org.perf.core;
+
+/**
+ * What a sampler thread does when the {@link SampleRingBuffer} between it and the result writer
+ * is full, i.e. the writer has fallen a whole buffer behind.
+ */
+public enum BufferOverflowPolicy {
+    /** Wait for a free slot: no sample is lost, but a slow writer slows the load down. */
+    BLOCK,
+    /**
+     * Leave the sample out of the results file and aggregates and count it; the load is never held up.
+     * Not allowed with {@link PlanExecutionMode#FORKED}, where it would leave the sample out of the totals too.
+     */
+    DROP,
+    /** Park the sample in an unbounded overflow queue the writer drains after the buffer; costs heap instead of samples. */
+    SPILL
+}
@@ -0,0 +1,68 @@
+package org.perf.core;
+
+import org.perf.monitoring.ExecutorPhase;
+import org.perf.monitoring.ExecutorPhaseEvent;
+
+import us.abstracta.jmeter.javadsl.core.DslTestPlan;
+import us.abstracta.jmeter.javadsl.core.TestPlanStats;
+import us.abstracta.jmeter.javadsl.core.engines.EmbeddedJmeterEngine;
+import us.abstracta.jmeter.javadsl.core.engines.JmeterEnvironment;
+import us.abstracta.jmeter.javadsl.core.engines.TestStopper;
+
+import org.apache.jorphan.collections.HashTree;
+
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Embedded engine that lets several test plans run at the same time inside one JVM.
+ * <p>
+ * The stock {@link EmbeddedJmeterEngine} creates a new JMeter home and reloads
+ * {@code jmeter.properties} into JMeter's static state on every run, which is what clashed
+ * when plans overlapped. This engine creates that environment once and shares it, and only
+ * serializes the short setup phase (property merge and tree build). The load phase of each
+ * plan runs without holding any lock.
+ */
+public final class IsolatedJmeterEngine extends EmbeddedJmeterEngine {
+    private static final ReentrantLock SETUP_LOCK = new ReentrantLock();
+    private static volatile JmeterEnvironment sharedEnvironment;
+
+    @Override
+    public TestPlanStats run(DslTestPlan testPlan) throws IOException {
+        ExecutorPhaseEvent lockEvent = ExecutorPhaseEvent.begin(ExecutorPhase.LOCK_WAIT, null);
+        SETUP_LOCK.lock();
+        lockEvent.commit();
+        try {
+            return runInEnv(testPlan, getSharedEnvironment());
+        } finally {
+            // Normally released in buildTestRunner; this covers failures during setup
+            if (SETUP_LOCK.isHeldByCurrentThread()) {
+                SETUP_LOCK.unlock();
+            }
+        }
+    }
+
+    @Override
+    protected TestRunner buildTestRunner(HashTree testPlanTree, HashTree rootTree, TestStopper testStopper) {
+        try {
+            return super.buildTestRunner(testPlanTree, rootTree, testStopper);
+        } finally {
+            // Tree is built and the engine configured: the run itself does not need the lock
+            SETUP_LOCK.unlock();
+        }
+    }
+
+    private static JmeterEnvironment getSharedEnvironment() throws IOException {
+        JmeterEnvironment env = sharedEnvironment;
+        if (env == null) {
+            synchronized (IsolatedJmeterEngine.class) {
+                env = sharedEnvironment;
+                if (env == null) {
+                    env = new JmeterEnvironment();
+                    sharedEnvironment = env;
+                }
+            }
+        }
+        return env;
+    }
+}
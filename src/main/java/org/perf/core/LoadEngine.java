@@ -0,0 +1,11 @@
+package org.perf.core;
+
+/**
+ * What actually generates the load for a plan's {@link org.perf.model.TestStep}s.
+ */
+public enum LoadEngine {
+    /** JMeter HTTP samplers built through the DSL, one platform thread per user. */
+    JMETER,
+    /** {@link VirtualThreadEngine}: JDK HttpClient and one virtual thread per user, no JMeter tree. */
+    VIRTUAL_THREADS
+}
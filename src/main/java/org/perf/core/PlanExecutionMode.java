@@ -0,0 +1,13 @@
+package org.perf.core;
+
+/**
+ * How {@link TestExecutor} schedules test plans that are started from several threads.
+ */
+public enum PlanExecutionMode {
+    /** One plan at a time per JVM, guarded by the global execution lock. */
+    SERIALIZED,
+    /** Plans run side by side, each with its own engine, stats collector and JTL file. */
+    CONCURRENT,
+    /** Plans are handed to a pool of pre-started worker JVMs and samples are streamed back. */
+    FORKED
+}
@@ -0,0 +1,173 @@
+package org.perf.core;
+
+import org.apache.jmeter.assertions.AssertionResult;
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The columns of a sample that results files, aggregates and live metrics read: those of a JTL row
+ * plus the first assertion failure. Copied out of a {@link SampleResult} so the sample's response
+ * data and subresults need not be kept, handed between threads by {@link SampleRingBuffer} and
+ * between JVMs by {@link WorkerProtocol}, and turned back into a lean {@link SampleResult} at the end.
+ */
+class SampleColumns {
+    long timeStamp;
+    long elapsed;
+    String label;
+    String responseCode;
+    String responseMessage;
+    String threadName;
+    String dataType;
+    boolean success;
+    String failureMessage;
+    long bytes;
+    long sentBytes;
+    int grpThreads;
+    int allThreads;
+    URL url;
+    long latency;
+    String encoding;
+    int sampleCount;
+    int errorCount;
+    long idleTime;
+    long connect;
+
+    void fill(SampleResult sample) {
+        timeStamp = sample.getTimeStamp();
+        elapsed = sample.getTime();
+        label = sample.getSampleLabel();
+        responseCode = sample.getResponseCode();
+        responseMessage = sample.getResponseMessage();
+        threadName = sample.getThreadName();
+        dataType = sample.getDataType();
+        success = sample.isSuccessful();
+        failureMessage = sample.getFirstAssertionFailureMessage();
+        bytes = sample.getBytesAsLong();
+        sentBytes = sample.getSentBytes();
+        grpThreads = sample.getGroupThreads();
+        allThreads = sample.getAllThreads();
+        url = sample.getURL();
+        latency = sample.getLatency();
+        encoding = sample.getDataEncodingNoDefault();
+        sampleCount = sample.getSampleCount();
+        errorCount = sample.getErrorCount();
+        idleTime = sample.getIdleTime();
+        connect = sample.getConnectTime();
+    }
+
+    SampleResult toSample() {
+        SampleResult sample = new SampleResult(timeStamp, elapsed);
+        sample.setSampleLabel(label);
+        sample.setResponseCode(responseCode);
+        sample.setResponseMessage(responseMessage);
+        sample.setThreadName(threadName);
+        sample.setDataType(dataType);
+        sample.setSuccessful(success);
+        if (failureMessage != null && !failureMessage.isEmpty()) {
+            AssertionResult assertion = new AssertionResult(label);
+            assertion.setFailure(true);
+            assertion.setFailureMessage(failureMessage);
+            sample.addAssertionResult(assertion);
+        }
+        sample.setBytes(bytes);
+        sample.setSentBytes(sentBytes);
+        sample.setGroupThreads(grpThreads);
+        sample.setAllThreads(allThreads);
+        sample.setURL(url);
+        sample.setLatency(latency);
+        sample.setDataEncoding(encoding);
+        sample.setSampleCount(sampleCount);
+        sample.setErrorCount(errorCount);
+        sample.setIdleTime(idleTime);
+        sample.setConnectTime(connect);
+        return sample;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeLong(timeStamp);
+        out.writeLong(elapsed);
+        writeString(out, label);
+        writeString(out, responseCode);
+        writeString(out, responseMessage);
+        writeString(out, threadName);
+        writeString(out, dataType);
+        out.writeBoolean(success);
+        writeString(out, failureMessage);
+        out.writeLong(bytes);
+        out.writeLong(sentBytes);
+        out.writeInt(grpThreads);
+        out.writeInt(allThreads);
+        writeString(out, url != null ? url.toString() : null);
+        out.writeLong(latency);
+        writeString(out, encoding);
+        out.writeInt(sampleCount);
+        out.writeInt(errorCount);
+        out.writeLong(idleTime);
+        out.writeLong(connect);
+    }
+
+    void read(DataInputStream in) throws IOException {
+        timeStamp = in.readLong();
+        elapsed = in.readLong();
+        label = readString(in);
+        responseCode = readString(in);
+        responseMessage = readString(in);
+        threadName = readString(in);
+        dataType = readString(in);
+        success = in.readBoolean();
+        failureMessage = readString(in);
+        bytes = in.readLong();
+        sentBytes = in.readLong();
+        grpThreads = in.readInt();
+        allThreads = in.readInt();
+        url = toUrl(readString(in));
+        latency = in.readLong();
+        encoding = readString(in);
+        sampleCount = in.readInt();
+        errorCount = in.readInt();
+        idleTime = in.readLong();
+        connect = in.readLong();
+    }
+
+    /**
+     * Length-prefixed UTF-8, -1 for null. Unlike {@code writeUTF} it takes strings of any length,
+     * e.g. a response message longer than 64 KB.
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static URL toUrl(String url) {
+        if (url == null) {
+            return null;
+        }
+        try {
+            return URI.create(url).toURL();
+        } catch (IllegalArgumentException | MalformedURLException e) {
+            return null; // not expressible as a URI; the worker's own results file still has it
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.perf.core;
+
+import org.apache.jmeter.engine.util.NoThreadClone;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.testelement.AbstractTestElement;
+import org.apache.jmeter.testelement.TestElement;
+
+import us.abstracta.jmeter.javadsl.core.listeners.BaseListener;
+
+import java.util.function.Consumer;
+
+/**
+ * Test plan listener that hands every sample to a consumer as soon as JMeter reports it.
+ * <p>
+ * A plain {@link org.apache.jmeter.reporters.ResultCollector} only keeps a weak reference to its
+ * visualizer, so the consumer is held by a small element of our own instead. One instance is
+ * shared by all sampler threads; the consumer must be thread safe.
+ */
+public class SampleForwardingListener extends BaseListener {
+    private final Consumer<SampleResult> consumer;
+
+    public SampleForwardingListener(Consumer<SampleResult> consumer) {
+        super("Sample Forwarding Listener", null);
+        this.consumer = consumer;
+    }
+
+    @Override
+    protected TestElement buildTestElement() {
+        return new ForwardingElement(consumer);
+    }
+
+    private static class ForwardingElement extends AbstractTestElement implements SampleListener, NoThreadClone {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Consumer<SampleResult> consumer;
+
+        ForwardingElement(Consumer<SampleResult> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void sampleOccurred(SampleEvent event) {
+            consumer.accept(event.getResult());
+        }
+
+        @Override
+        public void sampleStarted(SampleEvent event) {
+        }
+
+        @Override
+        public void sampleStopped(SampleEvent event) {
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package org.perf.core;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded multi-producer, single-consumer ring between the sampler threads and everything that is
+ * slow or single-threaded at heart: the results file, the aggregates, the time series and the
+ * stream back to a forking parent. Sampler threads only claim a slot and fill it in; one consumer
+ * thread hands samples to a {@link ScheduledSampleConsumer} in batches, so disk and lock contention
+ * never reach the load.
+ * <p>
+ * Works like a Disruptor: slot objects are allocated once up front, producers claim sequence numbers
+ * with a CAS, and each slot carries the lap it was last published in, so the consumer can tell a
+ * filled slot from one that is claimed but not yet written without any lock. When the ring is full
+ * the {@link BufferOverflowPolicy} decides whether the producer waits, drops the sample or spills it.
+ * <p>
+ * Slots copy the sample's {@link SampleColumns} rather than keep the sample, so response data and
+ * subresults are free to go as soon as {@link #publish} returns. The consumer gets a lean
+ * {@link SampleResult} rebuilt from those columns.
+ */
+public final class SampleRingBuffer implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 65_536;
+    // Consumer back-off while the ring is empty; samples are not latency sensitive once taken
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    // Producer back-off while the ring is full under BLOCK
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Slot[] slots;
+    private final AtomicIntegerArray publishedLaps; // lap each slot was last published in
+    private final int mask;
+    private final int indexShift;
+    private final BufferOverflowPolicy policy;
+    private final ScheduledSampleConsumer consumer;
+    private final AtomicLong claimed = new AtomicLong(-1);  // highest sequence handed to a producer
+    private final AtomicLong consumed = new AtomicLong(-1); // highest sequence the consumer is done with
+    private final ConcurrentLinkedQueue<Slot> spilled = new ConcurrentLinkedQueue<>();
+    private final Thread consumerThread;
+    private volatile boolean closing;
+    private volatile RuntimeException failure;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spills = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+    private long batches; // written by the consumer thread only
+    private long largestBatch;
+
+    /**
+     * @param capacity slots in the ring, rounded up to a power of two
+     * @param consumer called on the ring's own thread for every sample, in sequence order
+     */
+    public SampleRingBuffer(String name, int capacity, BufferOverflowPolicy policy, ScheduledSampleConsumer consumer) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Ring capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.publishedLaps = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            publishedLaps.set(i, -1);
+        }
+        this.mask = size - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(size);
+        this.policy = policy;
+        this.consumer = consumer;
+        this.consumerThread = new Thread(this::consume, "sample-ring-" + name);
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    /**
+     * Hands a sample to the consumer. Safe to call from any number of threads; returns false if
+     * the ring was full and the policy dropped the sample.
+     */
+    public boolean publish(SampleResult sample, long intendedStartMillis) {
+        long sequence = tryClaim();
+        if (sequence < 0) {
+            switch (policy) {
+                case DROP -> {
+                    dropped.increment();
+                    return false;
+                }
+                case SPILL -> {
+                    spilled.add(new Slot().fill(sample, intendedStartMillis));
+                    spills.increment();
+                    accepted.increment();
+                    return true;
+                }
+                default -> sequence = claimBlocking();
+            }
+        }
+        slots[(int) sequence & mask].fill(sample, intendedStartMillis);
+        // Release store: the consumer sees the slot's fields once it sees the lap
+        publishedLaps.lazySet((int) sequence & mask, (int) (sequence >>> indexShift));
+        accepted.increment();
+        return true;
+    }
+
+    /** The next sequence if a slot is free, or -1 if the consumer is a whole ring behind. */
+    private long tryClaim() {
+        while (true) {
+            long current = claimed.get();
+            long next = current + 1;
+            if (next - slots.length > consumed.get()) {
+                return -1;
+            }
+            if (claimed.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private long claimBlocking() {
+        blocked.increment();
+        long start = System.nanoTime();
+        long sequence;
+        while ((sequence = tryClaim()) < 0) {
+            if (!consumerThread.isAlive()) {
+                throw new IllegalStateException("Sample ring consumer stopped", failure);
+            }
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        blockedNanos.add(System.nanoTime() - start);
+        return sequence;
+    }
+
+    private boolean isPublished(long sequence) {
+        return publishedLaps.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+
+    private void consume() {
+        long next = 0;
+        while (true) {
+            long available = next - 1;
+            long limit = claimed.get();
+            while (available < limit && isPublished(available + 1)) {
+                available++;
+            }
+            boolean progressed = false;
+            if (available >= next) {
+                for (long sequence = next; sequence <= available; sequence++) {
+                    deliver(slots[(int) sequence & mask]);
+                }
+                batches++;
+                largestBatch = Math.max(largestBatch, available - next + 1);
+                // Release store: producers may reuse the slots once they see it
+                consumed.lazySet(available);
+                next = available + 1;
+                progressed = true;
+            }
+            progressed |= drainSpill();
+            if (!progressed) {
+                // Producers are done once close() is called; stop when all they claimed is delivered
+                if (closing && claimed.get() < next && spilled.isEmpty()) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private boolean drainSpill() {
+        boolean any = false;
+        Slot overflow;
+        while ((overflow = spilled.poll()) != null) {
+            deliver(overflow);
+            any = true;
+        }
+        return any;
+    }
+
+    private void deliver(Slot slot) {
+        try {
+            consumer.accept(slot.toSample(), slot.intendedStartMillis);
+        } catch (RuntimeException e) {
+            // Keep draining so producers never wait on a dead consumer; close() reports the first failure
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Waits until every sample published so far has been delivered and stops the consumer. Call
+     * once no producer publishes any more; rethrows the first exception the consumer hit.
+     */
+    @Override
+    public void close() {
+        closing = true;
+        LockSupport.unpark(consumerThread);
+        try {
+            consumerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public int getCapacity() { return slots.length; }
+    public BufferOverflowPolicy getPolicy() { return policy; }
+    /** Samples accepted into the ring or its spill queue. */
+    public long getPublished() { return accepted.sum(); }
+    public long getDropped() { return dropped.sum(); }
+    public long getSpilled() { return spills.sum(); }
+    /** Publishes that found the ring full and waited for a slot (BLOCK only). */
+    public long getBlocked() { return blocked.sum(); }
+    public long getBlockedMillis() { return TimeUnit.NANOSECONDS.toMillis(blockedNanos.sum()); }
+    /** Batches the consumer handed over; read after {@link #close()}. */
+    public long getBatches() { return batches; }
+    public long getLargestBatch() { return largestBatch; }
+
+    // Preallocated for the ring; spilled samples get one each
+    private static final class Slot extends SampleColumns {
+        long intendedStartMillis;
+
+        Slot fill(SampleResult sample, long intendedStartMillis) {
+            fill(sample);
+            this.intendedStartMillis = intendedStartMillis;
+            return this;
+        }
+    }
+}
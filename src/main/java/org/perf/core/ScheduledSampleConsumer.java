@@ -0,0 +1,13 @@
+package org.perf.core;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * Receives every sample of a run together with the time its request was meant to start
+ * (epoch millis), or 0 when the run has no schedule to measure against. Forked workers use it to
+ * stream samples back to the parent JVM, and {@link SampleRingBuffer} to hand samples to its consumer.
+ */
+@FunctionalInterface
+public interface ScheduledSampleConsumer {
+    void accept(SampleResult sample, long intendedStartMillis);
+}
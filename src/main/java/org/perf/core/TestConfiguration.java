@@ -1,15 +1,36 @@
 package org.perf.core;
 
+import org.perf.reporting.LatencyHistogram;
+import org.perf.reporting.ResultFormat;
+import org.perf.reporting.TimeSeriesCollector;
+
+import java.net.InetAddress;
 import java.time.Duration;
 import java.nio.file.Path;
 
 public class TestConfiguration {
+    public static final int LIVE_METRICS_OFF = -1;
+    public static final long SAMPLE_STORE_OFF = 0;
+    
     private final String testName;
     private final String baseUrl;
     private final Path resultsDirectory;
     private final Duration connectionTimeout;
     private final Duration responseTimeout;
     private final boolean generateHtmlReport;
+    private final PlanExecutionMode executionMode;
+    private final LoadEngine engine;
+    private final boolean writeJtl;
+    private final int histogramPrecision;
+    private final ResultFormat resultFormat;
+    private final Duration timeSeriesInterval;
+    private final boolean correctCoordinatedOmission;
+    private final int liveMetricsPort;
+    private final String liveMetricsBindAddress;
+    private final boolean generatorHealth;
+    private final int resultBufferSize;
+    private final BufferOverflowPolicy bufferOverflowPolicy;
+    private final long sampleStoreCapacity;
     
     private TestConfiguration(Builder builder) {
         this.testName = builder.testName;
@@ -18,6 +39,19 @@ public class TestConfiguration {
         this.connectionTimeout = builder.connectionTimeout;
         this.responseTimeout = builder.responseTimeout;
         this.generateHtmlReport = builder.generateHtmlReport;
+        this.executionMode = builder.executionMode;
+        this.engine = builder.engine;
+        this.writeJtl = builder.writeJtl;
+        this.histogramPrecision = builder.histogramPrecision;
+        this.resultFormat = builder.resultFormat;
+        this.timeSeriesInterval = builder.timeSeriesInterval;
+        this.correctCoordinatedOmission = builder.correctCoordinatedOmission;
+        this.liveMetricsPort = builder.liveMetricsPort;
+        this.liveMetricsBindAddress = builder.liveMetricsBindAddress;
+        this.generatorHealth = builder.generatorHealth;
+        this.resultBufferSize = builder.resultBufferSize;
+        this.bufferOverflowPolicy = builder.bufferOverflowPolicy;
+        this.sampleStoreCapacity = builder.sampleStoreCapacity;
     }
     
     public static Builder builder() {
@@ -31,6 +65,21 @@ public class TestConfiguration {
     public Duration getConnectionTimeout() { return connectionTimeout; }
     public Duration getResponseTimeout() { return responseTimeout; }
     public boolean shouldGenerateHtmlReport() { return generateHtmlReport; }
+    public PlanExecutionMode getExecutionMode() { return executionMode; }
+    public LoadEngine getEngine() { return engine; }
+    public boolean shouldWriteJtl() { return writeJtl; }
+    public int getHistogramPrecision() { return histogramPrecision; }
+    public ResultFormat getResultFormat() { return resultFormat; }
+    public Duration getTimeSeriesInterval() { return timeSeriesInterval; }
+    public boolean shouldCorrectCoordinatedOmission() { return correctCoordinatedOmission; }
+    public int getLiveMetricsPort() { return liveMetricsPort; }
+    public boolean hasLiveMetrics() { return liveMetricsPort != LIVE_METRICS_OFF; }
+    public String getLiveMetricsBindAddress() { return liveMetricsBindAddress; }
+    public boolean shouldMonitorGeneratorHealth() { return generatorHealth; }
+    public int getResultBufferSize() { return resultBufferSize; }
+    public BufferOverflowPolicy getBufferOverflowPolicy() { return bufferOverflowPolicy; }
+    public long getSampleStoreCapacity() { return sampleStoreCapacity; }
+    public boolean hasSampleStore() { return sampleStoreCapacity != SAMPLE_STORE_OFF; }
     
     public static class Builder {
         private String testName = "Performance Test";
@@ -39,6 +88,19 @@ public class TestConfiguration {
         private Duration connectionTimeout = Duration.ofSeconds(10);
         private Duration responseTimeout = Duration.ofSeconds(30);
         private boolean generateHtmlReport = false; // FIXED: Default to false for parallel execution
+        private PlanExecutionMode executionMode = PlanExecutionMode.SERIALIZED;
+        private LoadEngine engine = LoadEngine.JMETER;
+        private boolean writeJtl = true;
+        private int histogramPrecision = LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS;
+        private ResultFormat resultFormat = ResultFormat.CSV;
+        private Duration timeSeriesInterval = Duration.ofMillis(TimeSeriesCollector.DEFAULT_BUCKET_MILLIS);
+        private boolean correctCoordinatedOmission = false;
+        private int liveMetricsPort = LIVE_METRICS_OFF;
+        private String liveMetricsBindAddress = InetAddress.getLoopbackAddress().getHostAddress();
+        private boolean generatorHealth = true;
+        private int resultBufferSize = SampleRingBuffer.DEFAULT_CAPACITY;
+        private BufferOverflowPolicy bufferOverflowPolicy = BufferOverflowPolicy.BLOCK;
+        private long sampleStoreCapacity = SAMPLE_STORE_OFF;
         
         public Builder testName(String testName) {
             this.testName = testName;
@@ -70,7 +132,109 @@ public class TestConfiguration {
             return this;
         }
         
+        public Builder executionMode(PlanExecutionMode executionMode) {
+            this.executionMode = executionMode;
+            return this;
+        }
+        
+        public Builder engine(LoadEngine engine) {
+            this.engine = engine;
+            return this;
+        }
+        
+        // Aggregates are always collected in memory; the raw results.jtl is only needed for
+        // the consolidated JTL and for external tools
+        public Builder writeJtl(boolean writeJtl) {
+            this.writeJtl = writeJtl;
+            return this;
+        }
+        
+        // Significant decimal digits kept by the latency histograms (1-5); more digits, more memory
+        public Builder histogramPrecision(int significantDigits) {
+            if (significantDigits < 1 || significantDigits > 5) {
+                throw new IllegalArgumentException("Histogram precision must be between 1 and 5 digits: " + significantDigits);
+            }
+            this.histogramPrecision = significantDigits;
+            return this;
+        }
+        
+        // COLUMNAR writes results.jtlc, a fraction of the CSV size; the reports read either
+        public Builder resultFormat(ResultFormat resultFormat) {
+            this.resultFormat = resultFormat;
+            return this;
+        }
+        
+        // Width of the throughput/latency-over-time buckets
+        public Builder timeSeriesInterval(Duration interval) {
+            if (interval.toMillis() <= 0) {
+                throw new IllegalArgumentException("Time series interval must be at least 1ms: " + interval);
+            }
+            this.timeSeriesInterval = interval;
+            return this;
+        }
+        
+        // Also report latencies measured from when each request should have started (by the pacing
+        // or arrival rate), so a stalled server shows up in the tail instead of slowing the load
+        public Builder coordinatedOmissionCorrection(boolean correct) {
+            this.correctCoordinatedOmission = correct;
+            return this;
+        }
+        
+        // Serve live per-label metrics on http://host:port/metrics (Prometheus) and as JMX MBeans while
+        // the plan runs; POST /abort stops it. 0 picks a free port; one exporter serves the whole JVM
+        public Builder liveMetricsPort(int port) {
+            if (port < 0 || port > 65535) {
+                throw new IllegalArgumentException("Live metrics port must be between 0 and 65535: " + port);
+            }
+            this.liveMetricsPort = port;
+            return this;
+        }
+        
+        // Interface the live metrics are served on; loopback by default, since anyone who can reach
+        // the port can also POST /abort. "0.0.0.0" serves every interface, e.g. for a remote Prometheus
+        public Builder liveMetricsBindAddress(String address) {
+            this.liveMetricsBindAddress = address;
+            return this;
+        }
+        
+        // Watch the load generator's own CPU, GC, heap, threads, sockets and scheduling lag while the
+        // plan runs, and mark the run invalid when the generator rather than the target was the bottleneck
+        public Builder generatorHealth(boolean monitor) {
+            this.generatorHealth = monitor;
+            return this;
+        }
+        
+        // Samples waiting between the sampler threads and the results writer (rounded up to a power of two)
+        public Builder resultBufferSize(int size) {
+            if (size < 1 || size > 1 << 30) {
+                throw new IllegalArgumentException("Result buffer size must be between 1 and 2^30: " + size);
+            }
+            this.resultBufferSize = size;
+            return this;
+        }
+        
+        // What sampler threads do when the results writer falls a whole buffer behind
+        public Builder bufferOverflowPolicy(BufferOverflowPolicy policy) {
+            this.bufferOverflowPolicy = policy;
+            return this;
+        }
+        
+        // Keep up to this many samples off-heap (24 bytes each) for drill-down after the run, e.g.
+        // the slowest requests of a label; SAMPLE_STORE_OFF keeps none
+        public Builder sampleStore(long maxSamples) {
+            if (maxSamples < 0) {
+                throw new IllegalArgumentException("Sample store size must not be negative: " + maxSamples);
+            }
+            this.sampleStoreCapacity = maxSamples;
+            return this;
+        }
+        
         public TestConfiguration build() {
+            // A forked plan's totals are rebuilt from what its worker streams back after the buffer
+            if (executionMode == PlanExecutionMode.FORKED && bufferOverflowPolicy == BufferOverflowPolicy.DROP) {
+                throw new IllegalArgumentException("BufferOverflowPolicy.DROP would also drop samples from the totals "
+                    + "of a FORKED plan; use BLOCK or SPILL");
+            }
             return new TestConfiguration(this);
         }
     }
@@ -8,39 +8,125 @@ import static us.abstracta.jmeter.javadsl.JmeterDsl.*;
 
 import org.perf.model.ExecutionResult;
 import org.perf.model.TestStep;
+import org.perf.builder.ArrivalProcess;
+import org.perf.builder.LoadStage;
 import org.perf.builder.ThreadGroupBuilder;
+import org.perf.monitoring.ExecutorPhase;
+import org.perf.monitoring.ExecutorPhaseEvent;
+import org.perf.monitoring.GeneratorHealthSampler;
+import org.perf.monitoring.LiveMetrics;
+import org.perf.monitoring.LiveMetricsExporter;
+import org.perf.monitoring.RequestSampleEvent;
+import org.perf.reporting.AggregateCollector;
+import org.perf.reporting.GeneratorHealth;
+import org.perf.reporting.ResultWriter;
+import org.perf.reporting.SampleStore;
+import org.perf.reporting.TimeSeriesCollector;
 
+import us.abstracta.jmeter.javadsl.core.DslJmeterEngine;
 import us.abstracta.jmeter.javadsl.core.DslTestPlan;
 import us.abstracta.jmeter.javadsl.core.TestPlanStats;
+import us.abstracta.jmeter.javadsl.core.engines.EmbeddedJmeterEngine;
 import us.abstracta.jmeter.javadsl.core.threadgroups.BaseThreadGroup;
+import us.abstracta.jmeter.javadsl.core.threadgroups.DslDefaultThreadGroup;
+import us.abstracta.jmeter.javadsl.core.threadgroups.RpsThreadGroup;
 import us.abstracta.jmeter.javadsl.http.DslHttpSampler;
 
+import org.apache.jmeter.engine.StandardJMeterEngine;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.threads.JMeterContextService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.ArrayList;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 public class TestExecutor {
     private final TestConfiguration config;
+    private ScheduledSampleConsumer sampleConsumer;
     
     // Synchronization to prevent marshalling conflicts
     private static final ReentrantLock EXECUTION_LOCK = new ReentrantLock();
     private static volatile boolean jmeterInitialized = false;
     
+    // JTL files currently written by concurrently running plans
+    private static final Set<Path> ACTIVE_JTL_FILES = ConcurrentHashMap.newKeySet();
+    
+    // Per-thread JMeter variables used by pacing
+    private static final String PACING_SLOT_VAR = "__pacingSlot";
+    private static final String PACING_DELAY_VAR = "__pacingDelay";
+    
     public TestExecutor(TestConfiguration config) {
         this.config = config;
     }
     
+    // Used by forked workers to stream every sample back to the parent JVM
+    void forwardSamplesTo(ScheduledSampleConsumer sampleConsumer) {
+        this.sampleConsumer = sampleConsumer;
+    }
+    
     public ExecutionResult execute(ThreadGroupBuilder.ThreadGroupConfig threadConfig, 
                                   List<TestStep> testSteps) throws Exception {
         
         String threadName = Thread.currentThread().getName();
+        warnIfUncorrectable(threadConfig, threadName);
+        // Aborts requested after this count, i.e. after execute() was called, stop this run
+        long abortMark = 0;
+        if (config.hasLiveMetrics()) {
+            abortMark = LiveMetrics.getInstance().getAbortCount();
+            // A forked worker's samples are served by the parent, which passes aborts on to it
+            if (sampleConsumer == null) {
+                LiveMetricsExporter.start(config.getLiveMetricsBindAddress(), config.getLiveMetricsPort());
+            }
+        }
+        
+        // Forked plans never touch JMeter in this JVM; the worker watches its own health
+        if (config.getExecutionMode() == PlanExecutionMode.FORKED) {
+            return reportGeneratorHealth(WorkerPool.getInstance().execute(config, threadConfig, testSteps), threadName);
+        }
+        
+        // Started by the engine right before the plan runs, so JMeter init and lock waits are not counted
+        GeneratorHealthSampler healthSampler = config.shouldMonitorGeneratorHealth()
+            ? new GeneratorHealthSampler(config.getTimeSeriesInterval().toMillis()) : null;
+        ExecutionResult result;
+        try {
+            result = executeLocally(threadConfig, testSteps, threadName, abortMark, healthSampler);
+        } finally {
+            if (healthSampler != null) {
+                healthSampler.stop();
+            }
+        }
+        if (healthSampler != null && result.getTimeSeries() != null) {
+            result.getTimeSeries().setGeneratorHealth(healthSampler.getHealth());
+        }
+        return reportGeneratorHealth(result, threadName);
+    }
+    
+    /**
+     * Runs the plan in this JVM. Only aborts counted after {@code abortMark} stop it; the health
+     * sampler, if any, watches it while it runs.
+     */
+    private ExecutionResult executeLocally(ThreadGroupBuilder.ThreadGroupConfig threadConfig, List<TestStep> testSteps,
+                                           String threadName, long abortMark, GeneratorHealthSampler healthSampler) throws Exception {
+        // The native engine builds no JMeter tree, so it needs neither JMeter init nor the lock
+        if (config.getEngine() == LoadEngine.VIRTUAL_THREADS) {
+            return new VirtualThreadEngine(config, sampleConsumer, healthSampler, abortMark).run(threadConfig, testSteps);
+        }
         
         // Initialize JMeter once
         synchronized (TestExecutor.class) {
             if (!jmeterInitialized) {
                 System.out.println("🔧 [" + threadName + "] Initializing JMeter environment...");
+                ExecutorPhaseEvent initEvent = ExecutorPhaseEvent.begin(ExecutorPhase.ENVIRONMENT_INIT, config.getTestName());
                 initializeJMeterEnvironment();
+                initEvent.commit();
                 jmeterInitialized = true;
                 System.out.println("✅ [" + threadName + "] JMeter environment initialized");
             }
@@ -49,26 +135,76 @@ public class TestExecutor {
             Thread.sleep(2000);
         }
         
+        if (config.getExecutionMode() == PlanExecutionMode.CONCURRENT) {
+            return executeConcurrently(threadConfig, testSteps, threadName, abortMark, healthSampler);
+        }
+        
         // Serialize execution to prevent marshalling conflicts
+        ExecutorPhaseEvent lockEvent = ExecutorPhaseEvent.begin(ExecutorPhase.LOCK_WAIT, config.getTestName());
         EXECUTION_LOCK.lock();
+        lockEvent.commit();
         try {
             System.out.println("🔒 [" + threadName + "] Acquired execution lock for: " + config.getTestName());
             
             // Stagger execution
             long delay = Math.abs(threadName.hashCode() % 1000) + 500;
-            Thread.sleep(delay);
+            stagger(delay);
             
-            return executeTestPlan(threadConfig, testSteps, threadName);
+            return executeTestPlan(threadConfig, testSteps, threadName, new EmbeddedJmeterEngine(), abortMark, healthSampler);
             
         } finally {
             System.out.println("🔓 [" + threadName + "] Released execution lock for: " + config.getTestName());
             EXECUTION_LOCK.unlock();
-            Thread.sleep(300);
+            stagger(300);
+        }
+    }
+    
+    /**
+     * Logs whether the load generator kept up. Plans running side by side in one JVM share its
+     * CPU and heap, so each of them sees the others' load too.
+     */
+    private ExecutionResult reportGeneratorHealth(ExecutionResult result, String threadName) {
+        GeneratorHealth health = result.getGeneratorHealth();
+        if (health == null) {
+            return result;
+        }
+        if (!health.isValid()) {
+            System.out.println("⛔ [" + threadName + "] Run INVALID: " + health.getVerdict()
+                + "; latencies of " + config.getTestName() + " reflect the load generator, not the target");
+        } else if (health.getSaturatedBuckets() > 0) {
+            System.out.println("⚠️ [" + threadName + "] " + health.getVerdict() + ": " + config.getTestName());
+        }
+        return result;
+    }
+    
+    private void stagger(long millis) throws InterruptedException {
+        ExecutorPhaseEvent event = ExecutorPhaseEvent.begin(ExecutorPhase.STAGGER, config.getTestName());
+        Thread.sleep(millis);
+        event.commit();
+    }
+    
+    private ExecutionResult executeConcurrently(ThreadGroupBuilder.ThreadGroupConfig threadConfig,
+                                              List<TestStep> testSteps, String threadName, long abortMark,
+                                              GeneratorHealthSampler healthSampler) throws Exception {
+        // No global lock and no stagger: the isolated engine only serializes tree setup,
+        // so the only thing that must not be shared between running plans is the JTL file
+        Path jtlFile = config.getResultFormat().resolve(config.getResultsDirectory()).toAbsolutePath().normalize();
+        if (!ACTIVE_JTL_FILES.add(jtlFile)) {
+            throw new IllegalStateException("Results directory " + config.getResultsDirectory()
+                + " is already used by a running plan; concurrent plans need their own results directory");
+        }
+        try {
+            System.out.println("🔀 [" + threadName + "] Running concurrently: " + config.getTestName());
+            return executeTestPlan(threadConfig, testSteps, threadName, new IsolatedJmeterEngine(), abortMark, healthSampler);
+        } finally {
+            ACTIVE_JTL_FILES.remove(jtlFile);
         }
     }
     
     private ExecutionResult executeTestPlan(ThreadGroupBuilder.ThreadGroupConfig threadConfig, 
-                                          List<TestStep> testSteps, String threadName) throws Exception {
+                                          List<TestStep> testSteps, String threadName, DslJmeterEngine engine,
+                                          long abortMark, GeneratorHealthSampler healthSampler) throws Exception {
+        ExecutorPhaseEvent buildEvent = ExecutorPhaseEvent.begin(ExecutorPhase.TREE_BUILD, config.getTestName());
         
         // Convert test steps to JMeter DSL samplers
         List<BaseThreadGroup.ThreadGroupChild> threadGroupChildren = new ArrayList<>();
@@ -82,44 +218,224 @@ public class TestExecutor {
             }
         }
         
+        if (threadConfig.hasPacing()) {
+            addPacing(threadGroupChildren, threadConfig.getPacing());
+        }
+        
         // Create thread group with unique name
         String uniqueGroupName = config.getTestName() + "-" + threadName + "-" + System.currentTimeMillis();
-        var threadGroup = threadGroup(
-            uniqueGroupName,
-            threadConfig.getUsers(),
-            threadConfig.getIterations(),
-            threadGroupChildren.toArray(BaseThreadGroup.ThreadGroupChild[]::new)
-        );
+        BaseThreadGroup<?> threadGroup = createThreadGroup(uniqueGroupName, threadConfig, threadGroupChildren);
         
         // Build test plan components
         List<DslTestPlan.TestPlanChild> testPlanChildren = new ArrayList<>();
         testPlanChildren.add(threadGroup);
         
-        // Add JTL writer
-        Path jtlFile = config.getResultsDirectory().resolve("results.jtl");
-        testPlanChildren.add(
-            jtlWriter(jtlFile.toString())
-                .withAllFields(true)
-                .saveAsXml(false)
-        );
+        // Aggregate in memory as samples arrive, so stats are ready when the plan returns
+        AggregateCollector aggregates = new AggregateCollector(config.getHistogramPrecision());
+        aggregates.setExpectedInterval(expectedIntervalMillis(config, threadConfig));
+        TimeSeriesCollector timeSeries = new TimeSeriesCollector(config.getTimeSeriesInterval().toMillis());
+        SampleStore sampleStore = config.hasSampleStore() ? new SampleStore(config.getSampleStoreCapacity()) : null;
+        // Every format, JMeter's CSV included, is written by our own writer off the sampler threads
+        ResultWriter resultWriter = config.shouldWriteJtl()
+            ? config.getResultFormat().openWriter(config.getResultsDirectory()) : null;
+        // JMeter gives no intended start; aggregates and a forking parent correct by the pacing instead
+        SampleRingBuffer ring = new SampleRingBuffer(config.getTestName(), config.getResultBufferSize(),
+            config.getBufferOverflowPolicy(), (sample, intendedStart) -> {
+                aggregates.add(sample, intendedStart);
+                timeSeries.add(sample);
+                if (sampleStore != null) {
+                    sampleStore.add(sample);
+                }
+                if (resultWriter != null) {
+                    writeResult(resultWriter, sample);
+                }
+                if (sampleConsumer != null) {
+                    sampleConsumer.accept(sample, intendedStart);
+                }
+            });
+        // Sampler threads only do what must be live, and hand everything else to the ring
+        Consumer<SampleResult> consumer = sample -> ring.publish(sample, 0);
+        if (config.hasLiveMetrics()) {
+            consumer = consumer.andThen(liveMetricsRecorder(threadName, abortMark));
+        }
+        consumer = consumer.andThen(RequestSampleEvent::offer);
+        testPlanChildren.add(new SampleForwardingListener(consumer));
         
         DslTestPlan testPlan = testPlan(
             testPlanChildren.toArray(DslTestPlan.TestPlanChild[]::new)
         );
         
+        buildEvent.commit();
         System.out.println("🏃 [" + threadName + "] Executing test plan: " + config.getTestName());
         
         TestPlanStats stats;
+        if (healthSampler != null) {
+            healthSampler.start();
+        }
+        ExecutorPhaseEvent runEvent = ExecutorPhaseEvent.begin(ExecutorPhase.PLAN_RUN, config.getTestName());
         try {
-            stats = testPlan.run();
+            stats = testPlan.runIn(engine);
         } catch (Exception e) {
             System.err.println("❌ [" + threadName + "] Test execution failed: " + e.getMessage());
             throw new RuntimeException("Test execution failed for " + config.getTestName(), e);
+        } finally {
+            runEvent.commit();
+            ExecutorPhaseEvent flushEvent = ExecutorPhaseEvent.begin(ExecutorPhase.JTL_FLUSH, config.getTestName());
+            try {
+                ring.close();
+            } finally {
+                if (resultWriter != null) {
+                    resultWriter.close();
+                }
+                flushEvent.commit();
+            }
         }
         
         System.out.println("✅ [" + threadName + "] Test execution completed: " + config.getTestName());
         
-        return new ExecutionResult(stats, config);
+        ExecutionResult result = new ExecutionResult(stats, config);
+        result.setAggregates(aggregates);
+        result.setTimeSeries(timeSeries);
+        result.setSampleStore(sampleStore);
+        if (threadConfig.isOpenModel()) {
+            // The RPS thread group queues arrivals internally and never says how many waited
+            result.setDroppedArrivals(ExecutionResult.UNKNOWN);
+            result.setLateArrivals(ExecutionResult.UNKNOWN);
+            System.out.println("⚠️ [" + threadName + "] Dropped and late arrivals are unknown on the JMeter engine; "
+                + "run " + config.getTestName() + " on LoadEngine.VIRTUAL_THREADS to count them");
+        }
+        recordBufferCounters(result, ring, threadName);
+        return result;
+    }
+    
+    /** Copies the result buffer's overflow counters into the result and warns if samples were held up or lost. */
+    static void recordBufferCounters(ExecutionResult result, SampleRingBuffer ring, String threadName) {
+        result.setDroppedSamples(ring.getDropped());
+        result.setSpilledSamples(ring.getSpilled());
+        result.setBlockedSamples(ring.getBlocked());
+        result.setBlockedMillis(ring.getBlockedMillis());
+        if (ring.getDropped() > 0 || ring.getSpilled() > 0 || ring.getBlocked() > 0) {
+            System.out.println("⚠️ [" + threadName + "] Result buffer of " + ring.getCapacity() + " filled up ("
+                + ring.getPolicy() + "): " + ring.getDropped() + " samples dropped, " + ring.getSpilled() + " spilled, "
+                + ring.getBlocked() + " publishes blocked for " + ring.getBlockedMillis() + "ms in total");
+        }
+    }
+    
+    /**
+     * The interval to back-fill JMeter samples with when correcting for coordinated omission: the
+     * pacing of a closed model. 0 when correction is off, the run has no pacing, or the virtual
+     * thread engine runs it (that engine passes each sample's intended start instead).
+     */
+    static long expectedIntervalMillis(TestConfiguration config, ThreadGroupBuilder.ThreadGroupConfig threadConfig) {
+        if (!config.shouldCorrectCoordinatedOmission() || config.getEngine() != LoadEngine.JMETER
+                || threadConfig.isOpenModel() || !threadConfig.hasPacing()) {
+            return 0;
+        }
+        return threadConfig.getPacing().toMillis();
+    }
+    
+    private void warnIfUncorrectable(ThreadGroupBuilder.ThreadGroupConfig threadConfig, String threadName) {
+        if (!config.shouldCorrectCoordinatedOmission()) {
+            return;
+        }
+        if (threadConfig.isOpenModel() && config.getEngine() == LoadEngine.JMETER) {
+            System.out.println("⚠️ [" + threadName + "] JMeter's RPS thread group does not expose arrival times; "
+                + "only raw latencies are reported for " + config.getTestName());
+        } else if (!threadConfig.isOpenModel() && !threadConfig.hasPacing()) {
+            System.out.println("⚠️ [" + threadName + "] Coordinated omission correction needs pacing or an arrival rate; "
+                + "only raw latencies are reported for " + config.getTestName());
+        }
+    }
+    
+    /**
+     * Feeds the live metrics and stops the plan once an abort comes in after {@code abortMark}.
+     * Listeners run on the sampler threads, whose JMeter context knows the engine running this plan.
+     */
+    private Consumer<SampleResult> liveMetricsRecorder(String threadName, long abortMark) {
+        LiveMetrics live = LiveMetrics.getInstance();
+        AtomicBoolean stopping = new AtomicBoolean();
+        return sample -> {
+            live.record(sample);
+            if (live.abortedSince(abortMark) && stopping.compareAndSet(false, true)) {
+                System.out.println("🛑 [" + threadName + "] Aborting test plan: " + config.getTestName());
+                StandardJMeterEngine engine = JMeterContextService.getContext().getEngine();
+                if (engine != null) {
+                    engine.askThreadsToStop();
+                }
+            }
+        };
+    }
+    
+    private static void writeResult(ResultWriter writer, SampleResult sample) {
+        try {
+            writer.write(sample);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write sample result", e);
+        }
+    }
+    
+    private BaseThreadGroup<?> createThreadGroup(String name, ThreadGroupBuilder.ThreadGroupConfig threadConfig,
+                                                 List<BaseThreadGroup.ThreadGroupChild> children) {
+        BaseThreadGroup.ThreadGroupChild[] childArray = children.toArray(BaseThreadGroup.ThreadGroupChild[]::new);
+        if (threadConfig.hasStages()) {
+            DslDefaultThreadGroup group = threadGroup(name);
+            for (LoadStage stage : threadConfig.getStages()) {
+                if (stage.getType() == LoadStage.Type.RAMP) {
+                    group.rampTo(stage.getTargetUsers(), stage.getDuration());
+                } else {
+                    group.holdFor(stage.getDuration());
+                }
+            }
+            return group.children(childArray);
+        }
+        if (!threadConfig.isOpenModel()) {
+            DslDefaultThreadGroup group = threadGroup(name).rampTo(threadConfig.getUsers(), threadConfig.getRampUp());
+            if (threadConfig.isDurationBound()) {
+                group.holdFor(threadConfig.getDuration().minus(threadConfig.getRampUp()));
+            } else {
+                group.holdIterating(threadConfig.getIterations());
+            }
+            return group.children(childArray);
+        }
+        
+        // JMeter's RPS thread group only paces evenly, and it queues instead of dropping
+        // when maxThreads is reached, so dropped/late counts are reported as unknown on this engine
+        if (threadConfig.getArrivalProcess() != ArrivalProcess.CONSTANT) {
+            throw new IllegalArgumentException(threadConfig.getArrivalProcess()
+                + " arrivals need LoadEngine.VIRTUAL_THREADS; the JMeter engine only supports CONSTANT");
+        }
+        return rpsThreadGroup(name)
+            .counting(RpsThreadGroup.EventType.ITERATIONS)
+            .maxThreads(threadConfig.getMaxConcurrency())
+            .rampToAndHold(threadConfig.getArrivalRate(), Duration.ZERO, threadConfig.getDuration())
+            .children(childArray);
+    }
+    
+    /**
+     * Wraps the iteration in pacing: a zero-length pause at the start fixes the thread's first slot,
+     * and one at the end waits out whatever is left of the slot. Neither produces a sample. Slots
+     * advance by the interval, and restart from now when an iteration overruns.
+     */
+    private void addPacing(List<BaseThreadGroup.ThreadGroupChild> children, Duration pacing) {
+        long pacingMillis = pacing.toMillis();
+        children.add(0, threadPause(Duration.ZERO).children(
+            jsr223PreProcessor(s -> {
+                if (s.vars.getObject(PACING_SLOT_VAR) == null) {
+                    s.vars.putObject(PACING_SLOT_VAR, System.currentTimeMillis());
+                }
+            })
+        ));
+        children.add(threadPause("${" + PACING_DELAY_VAR + "}").children(
+            jsr223PreProcessor(s -> {
+                long now = System.currentTimeMillis();
+                long slot = (Long) s.vars.getObject(PACING_SLOT_VAR) + pacingMillis;
+                if (slot < now) {
+                    slot = now;
+                }
+                s.vars.putObject(PACING_SLOT_VAR, slot);
+                s.vars.put(PACING_DELAY_VAR, String.valueOf(slot - now));
+            })
+        ));
     }
     
     private void initializeJMeterEnvironment() {
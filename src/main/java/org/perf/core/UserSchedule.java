@@ -0,0 +1,95 @@
+package org.perf.core;
+
+import org.perf.builder.LoadStage;
+import org.perf.builder.ThreadGroupBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * When each simulated user is active in a closed-model run, as offsets from the start of the run.
+ * <p>
+ * Users are numbered from 1 and the lowest numbers are kept longest, the way JMeter starts threads
+ * in order on a ramp-up. A user can have several windows if the profile goes down and up again.
+ */
+class UserSchedule {
+    /** No end: the user runs its iterations and stops on its own. */
+    static final long OPEN_END = Long.MAX_VALUE;
+
+    private final List<List<long[]>> windows = new ArrayList<>();
+    private final boolean iterationBound;
+
+    private UserSchedule(boolean iterationBound) {
+        this.iterationBound = iterationBound;
+    }
+
+    static UserSchedule of(ThreadGroupBuilder.ThreadGroupConfig threadConfig) {
+        return threadConfig.hasStages()
+            ? fromStages(threadConfig.getStages())
+            : fromRampUp(threadConfig.getUsers(), threadConfig.getRampUp().toNanos(), threadConfig.getDuration().toNanos());
+    }
+
+    /**
+     * Plain users: starts spread evenly over the ramp-up. With a duration every user stops when it
+     * ends; without one ({@code 0}) users stop after their iterations.
+     */
+    static UserSchedule fromRampUp(int users, long rampUpNanos, long durationNanos) {
+        UserSchedule schedule = new UserSchedule(durationNanos == 0);
+        for (int user = 1; user <= users; user++) {
+            schedule.start(user, rampUpNanos * (user - 1) / users);
+            if (durationNanos > 0) {
+                schedule.stop(user, durationNanos);
+            }
+        }
+        return schedule;
+    }
+
+    /** Piecewise-linear profile; every user still active when the last stage ends stops then. */
+    static UserSchedule fromStages(List<LoadStage> stages) {
+        UserSchedule schedule = new UserSchedule(false);
+        int level = 0;
+        long time = 0;
+        for (LoadStage stage : stages) {
+            long length = stage.getDuration().toNanos();
+            if (stage.getType() == LoadStage.Type.RAMP) {
+                int target = stage.getTargetUsers();
+                int change = Math.abs(target - level);
+                if (target > level) {
+                    for (int user = level + 1; user <= target; user++) {
+                        schedule.start(user, time + length * (user - level - 1) / change);
+                    }
+                } else {
+                    for (int user = level; user > target; user--) {
+                        schedule.stop(user, time + length * (level - user + 1) / change);
+                    }
+                }
+                level = target;
+            }
+            time += length;
+        }
+        for (int user = 1; user <= level; user++) {
+            schedule.stop(user, time);
+        }
+        return schedule;
+    }
+
+    int users() { return windows.size(); }
+
+    /** Windows of user {@code user} (1-based) as {@code [startNanos, endNanos]} pairs. */
+    List<long[]> windowsOf(int user) { return windows.get(user - 1); }
+
+    /** Whether users stop after their iterations rather than at the end of a window. */
+    boolean isIterationBound() { return iterationBound; }
+
+    private void start(int user, long at) {
+        while (windows.size() < user) {
+            windows.add(new ArrayList<>());
+        }
+        windows.get(user - 1).add(new long[] {at, OPEN_END});
+    }
+
+    private void stop(int user, long at) {
+        List<long[]> userWindows = windows.get(user - 1);
+        userWindows.get(userWindows.size() - 1)[1] = at;
+    }
+}
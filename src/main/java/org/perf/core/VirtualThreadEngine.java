@@ -0,0 +1,489 @@
+package org.perf.core;
+
+import org.perf.builder.ArrivalProcess;
+import org.perf.builder.ThreadGroupBuilder;
+import org.perf.model.ExecutionResult;
+import org.perf.model.TestStep;
+import org.perf.monitoring.ExecutorPhase;
+import org.perf.monitoring.ExecutorPhaseEvent;
+import org.perf.monitoring.GeneratorHealthSampler;
+import org.perf.monitoring.LiveMetrics;
+import org.perf.monitoring.RequestSampleEvent;
+import org.perf.reporting.AggregateCollector;
+import org.perf.reporting.LatencyBreakdown;
+import org.perf.reporting.ResultWriter;
+import org.perf.reporting.SampleStore;
+import org.perf.reporting.TimeSeriesCollector;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import us.abstracta.jmeter.javadsl.core.TestPlanStats;
+import us.abstracta.jmeter.javadsl.core.engines.EmbeddedStatsSummary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load engine that runs {@link TestStep}s without building a JMeter tree: one virtual thread per
+ * simulated user and a shared JDK {@link HttpClient}.
+ * <p>
+ * A user that waits on the network or on think time only holds a small heap-allocated stack, not
+ * a platform thread, so one box can hold far more mostly idle users than with JMeter's
+ * thread-per-user model. Samples are fed into a regular {@link TestPlanStats} and per-label
+ * aggregates, and optionally written to the configured {@link org.perf.reporting.ResultFormat}
+ * (by default {@code results.jtl} in JMeter's CSV layout), so the result looks the same as a JMeter run.
+ * Users only update the totals and live metrics themselves; aggregates and the results file are fed
+ * by a {@link SampleRingBuffer}, so a slow disk never holds up a user.
+ * <p>
+ * Besides the usual users &times; iterations (closed model) it can run an open model, where new
+ * iterations arrive at a fixed rate no matter how long earlier ones take.
+ * <p>
+ * With coordinated omission correction on, each iteration knows when it was meant to start: its
+ * arrival time, or its slot on the user's pacing grid. A slow response that pushes an iteration
+ * back is then also counted against the requests it delayed.
+ * <p>
+ * With live metrics on, samples are also counted in {@link LiveMetrics}, and an abort stops new
+ * iterations and requests; requests already in flight complete.
+ * <p>
+ * With generator health on, every user notes how late it woke from a pacing, arrival or think-time
+ * sleep, and every arrival how long it waited for its virtual thread: lag there means the box
+ * running the users, not the target, is falling behind.
+ * <p>
+ * {@link HttpClient} does not report connection setup, so samples carry
+ * {@link LatencyBreakdown#CONNECT_UNKNOWN} as connect time and their latency is not split into
+ * connect and server time.
+ */
+public class VirtualThreadEngine {
+    private static final int BUFFER_SIZE = 8192;
+    // An arrival that starts this much after its scheduled time counts as late
+    private static final long LATE_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    // Intended start of an iteration that has no schedule
+    private static final long UNSCHEDULED = Long.MIN_VALUE;
+    // Longest single park while live metrics are on, so a sleeping user notices an abort
+    private static final long ABORT_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final TestConfiguration config;
+    private final ScheduledSampleConsumer sampleConsumer;
+    private final AtomicInteger activeUsers = new AtomicInteger();
+    private final LiveMetrics liveMetrics; // null when live metrics are off
+    private final long abortMark;
+    private final GeneratorHealthSampler healthSampler; // null when generator health is off
+
+    public VirtualThreadEngine(TestConfiguration config) {
+        this(config, null, null, config.hasLiveMetrics() ? LiveMetrics.getInstance().getAbortCount() : 0);
+    }
+
+    // The consumer, if any, gets every sample as it completes (used by forked workers); the health
+    // sampler, if any, is started when the users are and gets their scheduling lag. Only aborts
+    // counted after abortMark stop the run
+    VirtualThreadEngine(TestConfiguration config, ScheduledSampleConsumer sampleConsumer, GeneratorHealthSampler healthSampler,
+                        long abortMark) {
+        this.config = config;
+        this.sampleConsumer = sampleConsumer;
+        this.healthSampler = healthSampler;
+        this.liveMetrics = config.hasLiveMetrics() ? LiveMetrics.getInstance() : null;
+        this.abortMark = abortMark;
+    }
+
+    public ExecutionResult run(ThreadGroupBuilder.ThreadGroupConfig threadConfig, List<TestStep> testSteps) throws Exception {
+        String threadName = Thread.currentThread().getName();
+        TestPlanStats stats = new TestPlanStats(EmbeddedStatsSummary::new);
+        ExecutionResult result = new ExecutionResult(stats, config);
+        AggregateCollector aggregates = new AggregateCollector(config.getHistogramPrecision());
+        result.setAggregates(aggregates);
+        TimeSeriesCollector timeSeries = new TimeSeriesCollector(config.getTimeSeriesInterval().toMillis());
+        result.setTimeSeries(timeSeries);
+        SampleStore sampleStore = config.hasSampleStore() ? new SampleStore(config.getSampleStoreCapacity()) : null;
+        result.setSampleStore(sampleStore);
+        List<HttpRequest> requests = testSteps.stream().map(this::buildRequest).toList();
+        // Same labelling as the JMeter samplers so reports line up across engines
+        List<String> labels = testSteps.stream().map(step -> step.getName() + "-" + threadName).toList();
+
+        // SampleResult's static init loads JMeter properties; done by a virtual thread it would pin
+        // a carrier thread and hold up every user scheduled meanwhile, so do it before the clock starts
+        new SampleResult();
+        ResultWriter jtlWriter = config.shouldWriteJtl()
+            ? config.getResultFormat().openWriter(config.getResultsDirectory()) : null;
+        SampleRingBuffer ring = new SampleRingBuffer(config.getTestName(), config.getResultBufferSize(),
+            config.getBufferOverflowPolicy(), (sample, intendedStart) -> {
+                aggregates.add(sample, intendedStart);
+                timeSeries.add(sample);
+                if (sampleStore != null) {
+                    sampleStore.add(sample);
+                }
+                if (jtlWriter != null) {
+                    try {
+                        jtlWriter.write(sample);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to write sample result", e);
+                    }
+                }
+                if (sampleConsumer != null) {
+                    sampleConsumer.accept(sample, intendedStart);
+                }
+            });
+        ExecutorPhaseEvent runEvent = ExecutorPhaseEvent.begin(ExecutorPhase.PLAN_RUN, config.getTestName());
+        try {
+            if (healthSampler != null) {
+                healthSampler.start();
+            }
+            // First exception a user died of; the others keep running and it fails the run once they are done
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            stats.setStart(Instant.now());
+            try (HttpClient client = HttpClient.newBuilder()
+                     .connectTimeout(config.getConnectionTimeout())
+                     .followRedirects(HttpClient.Redirect.NORMAL)
+                     .build();
+                 ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+                Scenario scenario = new Scenario(testSteps, requests, labels, client, stats, ring);
+                if (threadConfig.isOpenModel()) {
+                    System.out.println("🧵 [" + threadName + "] Offering " + threadConfig.getArrivalRate() + " arrivals/s ("
+                        + threadConfig.getArrivalProcess() + ") for " + threadConfig.getDuration().toSeconds() + "s: "
+                        + config.getTestName());
+                    runOpenModel(threadConfig, scenario, users, failure, result);
+                } else {
+                    System.out.println("🧵 [" + threadName + "] Running " + threadConfig.getUsers() + " virtual users: "
+                        + config.getTestName());
+                    runClosedModel(threadConfig, scenario, users, failure);
+                }
+            } // close() waits for every user to finish, then for the client's connections to shut down
+            stats.setEnd(Instant.now());
+            if (failure.get() != null) {
+                throw new IllegalStateException("Virtual user failed in " + config.getTestName(), failure.get());
+            }
+        } finally {
+            runEvent.commit();
+            ExecutorPhaseEvent flushEvent = ExecutorPhaseEvent.begin(ExecutorPhase.JTL_FLUSH, config.getTestName());
+            try {
+                ring.close();
+            } finally {
+                if (jtlWriter != null) {
+                    jtlWriter.close();
+                }
+                flushEvent.commit();
+            }
+        }
+        TestExecutor.recordBufferCounters(result, ring, threadName);
+
+        if (isAborted()) {
+            System.out.println("🛑 [" + threadName + "] Virtual-thread run aborted: " + config.getTestName());
+        }
+        if (result.getDroppedArrivals() > 0 || result.getLateArrivals() > 0) {
+            System.out.println("⚠️ [" + threadName + "] Concurrency pool exhausted: " + result.getDroppedArrivals()
+                + " arrivals dropped, " + result.getLateArrivals() + " late");
+        }
+        System.out.println("✅ [" + threadName + "] Virtual-thread run completed: " + config.getTestName());
+        return result;
+    }
+
+    /**
+     * Starts and stops users on the ramp-up or stage profile. Without stages or a duration each
+     * user runs its iterations and stops; otherwise users loop until their window closes.
+     */
+    private void runClosedModel(ThreadGroupBuilder.ThreadGroupConfig threadConfig, Scenario scenario, ExecutorService users,
+                                AtomicReference<Throwable> failure) {
+        UserSchedule schedule = UserSchedule.of(threadConfig);
+        long pacingNanos = threadConfig.getPacing().toNanos();
+        long base = System.nanoTime();
+        for (int user = 1; user <= schedule.users(); user++) {
+            String userName = config.getTestName() + " 1-" + user;
+            List<long[]> windows = schedule.windowsOf(user);
+            startUser(users, failure, () -> {
+                for (long[] window : windows) {
+                    sleepUntil(base + window[0]);
+                    if (isAborted()) {
+                        break;
+                    }
+                    long deadline = window[1] == UserSchedule.OPEN_END ? UserSchedule.OPEN_END : base + window[1];
+                    activeUsers.incrementAndGet();
+                    try {
+                        long slot = System.nanoTime();
+                        // The slot the next iteration was due in; one that starts late is charged the wait once,
+                        // then the grid restarts from when it did start, so a single stall does not shift every later sample
+                        long intended = slot;
+                        int iteration = 0;
+                        while ((schedule.isIterationBound() ? iteration++ < threadConfig.getIterations() : !isPast(deadline))
+                                && !isAborted()) {
+                            scenario.iterate(userName, deadline, pacingNanos > 0 ? intended : UNSCHEDULED);
+                            if (pacingNanos > 0) {
+                                intended = slot + pacingNanos;
+                                slot = awaitSlot(intended, deadline);
+                            }
+                        }
+                    } finally {
+                        activeUsers.decrementAndGet();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs {@code user} on its own virtual thread. An exception it dies of is kept in {@code failure}
+     * (the first one only) instead of being lost in a future nobody reads.
+     */
+    private static void startUser(ExecutorService users, AtomicReference<Throwable> failure, VirtualUser user) {
+        users.execute(() -> {
+            try {
+                user.run();
+            } catch (Throwable e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                failure.compareAndSet(null, e);
+            }
+        });
+    }
+
+    /** The body of a virtual user; unlike {@link Runnable} it may throw. */
+    private interface VirtualUser {
+        void run() throws Exception;
+    }
+
+    /**
+     * Waits for the next pacing slot, or the deadline if that comes first. A user that is already
+     * behind starts right away and its slots restart from now, so it never bursts to catch up.
+     */
+    private long awaitSlot(long slot, long deadline) throws InterruptedException {
+        long now = System.nanoTime();
+        if (now - slot >= 0) {
+            return now;
+        }
+        sleepUntil(deadline != UserSchedule.OPEN_END && deadline - slot < 0 ? deadline : slot);
+        return slot;
+    }
+
+    /**
+     * Starts one iteration per arrival on its own virtual thread, at most {@code maxConcurrency} at a time.
+     * An arrival that finds the pool full waits until the next arrival is due: if a slot frees up by then
+     * it starts late, otherwise it is dropped. Arrivals are never queued beyond that, so a slow server
+     * cannot lower the offered load.
+     */
+    private void runOpenModel(ThreadGroupBuilder.ThreadGroupConfig threadConfig, Scenario scenario,
+                              ExecutorService users, AtomicReference<Throwable> failure, ExecutionResult result)
+            throws InterruptedException {
+        Semaphore slots = new Semaphore(threadConfig.getMaxConcurrency());
+        double meanGapNanos = 1_000_000_000d / threadConfig.getArrivalRate();
+        long start = System.nanoTime();
+        long end = start + threadConfig.getDuration().toNanos();
+        long dropped = 0;
+        long late = 0;
+        int arrival = 0;
+
+        long scheduled = start;
+        while (scheduled < end && !isAborted()) {
+            long next = scheduled + nextGap(threadConfig.getArrivalProcess(), meanGapNanos);
+            sleepUntil(scheduled);
+
+            boolean acquired = slots.tryAcquire()
+                || slots.tryAcquire(Math.max(0, Math.min(next, end) - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                dropped++;
+            } else {
+                if (System.nanoTime() - scheduled > LATE_THRESHOLD_NANOS) {
+                    late++;
+                }
+                String userName = config.getTestName() + " 1-" + (++arrival);
+                long intended = scheduled;
+                long submitted = System.nanoTime();
+                startUser(users, failure, () -> {
+                    recordLag(System.nanoTime() - submitted);
+                    activeUsers.incrementAndGet();
+                    try {
+                        scenario.iterate(userName, UserSchedule.OPEN_END, intended);
+                    } finally {
+                        activeUsers.decrementAndGet();
+                        slots.release();
+                    }
+                });
+            }
+            scheduled = next;
+        }
+
+        result.setDroppedArrivals(dropped);
+        result.setLateArrivals(late);
+    }
+
+    private static long nextGap(ArrivalProcess process, double meanGapNanos) {
+        if (process == ArrivalProcess.POISSON) {
+            // Inverse transform of the exponential distribution; 1 - u keeps the log argument in (0, 1]
+            return (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanGapNanos);
+        }
+        return (long) meanGapNanos;
+    }
+
+    private static boolean isPast(long deadlineNanos) {
+        return deadlineNanos != UserSchedule.OPEN_END && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    private boolean isAborted() {
+        return liveMetrics != null && liveMetrics.abortedSince(abortMark);
+    }
+
+    /** Sleeps until {@code deadlineNanos}, or until an abort comes in. */
+    private void sleepUntil(long deadlineNanos) throws InterruptedException {
+        long remaining;
+        boolean slept = false;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0 && !isAborted()) {
+            LockSupport.parkNanos(liveMetrics != null ? Math.min(remaining, ABORT_POLL_NANOS) : remaining);
+            slept = true;
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        if (slept) {
+            recordLag(System.nanoTime() - deadlineNanos);
+        }
+    }
+
+    private void recordLag(long lagNanos) {
+        if (healthSampler != null) {
+            healthSampler.recordStartLag(TimeUnit.NANOSECONDS.toMillis(lagNanos));
+        }
+    }
+
+    /** The plan's steps plus everything needed to run one pass of them. */
+    private class Scenario {
+        final List<TestStep> testSteps;
+        final List<HttpRequest> requests;
+        final List<String> labels;
+        final HttpClient client;
+        final TestPlanStats stats;
+        final SampleRingBuffer ring; // aggregates, time series, results file and forwarding
+
+        Scenario(List<TestStep> testSteps, List<HttpRequest> requests, List<String> labels, HttpClient client,
+                 TestPlanStats stats, SampleRingBuffer ring) {
+            this.testSteps = testSteps;
+            this.requests = requests;
+            this.labels = labels;
+            this.client = client;
+            this.stats = stats;
+            this.ring = ring;
+        }
+
+        /**
+         * One pass over the steps; stops early once {@code deadline} (a {@link System#nanoTime()} value) passes.
+         * {@code intendedStart} is when the pass should have started, or {@link #UNSCHEDULED}.
+         */
+        void iterate(String userName, long deadline, long intendedStart) throws Exception {
+            // Every request of the pass is pushed back by as much as the pass started late
+            long delayMillis = -1;
+            if (intendedStart != UNSCHEDULED && config.shouldCorrectCoordinatedOmission()) {
+                delayMillis = Math.max(0, System.nanoTime() - intendedStart) / 1_000_000;
+            }
+            for (int i = 0; i < requests.size() && !isPast(deadline) && !isAborted(); i++) {
+                SampleResult sample = execute(client, requests.get(i), labels.get(i), userName);
+                long intendedStartMillis = delayMillis < 0 ? 0 : sample.getTimeStamp() - delayMillis;
+                // Totals stay exact even if the ring drops the sample on its way to the results file
+                stats.addSampleResult(sample);
+                if (liveMetrics != null) {
+                    liveMetrics.record(sample);
+                }
+                RequestSampleEvent.offer(sample);
+                ring.publish(sample, intendedStartMillis);
+
+                TestStep step = testSteps.get(i);
+                if (!step.getThinkTime().isZero()) {
+                    sleepUntil(System.nanoTime() + step.getThinkTime().toNanos());
+                }
+            }
+        }
+    }
+
+    private SampleResult execute(HttpClient client, HttpRequest request, String label, String userName) {
+        SampleResult sample = new SampleResult();
+        sample.setSampleLabel(label);
+        sample.setThreadName(userName);
+        int active = activeUsers.get();
+        sample.setGroupThreads(active);
+        sample.setAllThreads(active);
+        // HttpClient pools connections and exposes no connect timing, so setup is folded into latency
+        sample.setConnectTime(LatencyBreakdown.CONNECT_UNKNOWN);
+        try {
+            sample.setURL(request.uri().toURL());
+        } catch (IOException e) {
+            // URL is informational only
+        }
+
+        long start = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        sample.setTimeStamp(start);
+        try {
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            long latencyNanos = System.nanoTime() - startNanos; // headers received
+            long bytes = drain(response.body());
+            long elapsedNanos = System.nanoTime() - startNanos;
+
+            sample.setLatency(latencyNanos / 1_000_000);
+            sample.setStampAndTime(start, elapsedNanos / 1_000_000);
+            sample.setBytes(bytes);
+            sample.setResponseCode(String.valueOf(response.statusCode()));
+            sample.setResponseMessage("");
+            sample.setSuccessful(response.statusCode() < 400);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            sample.setStampAndTime(start, (System.nanoTime() - startNanos) / 1_000_000);
+            sample.setResponseCode("Non HTTP response code: " + e.getClass().getName());
+            sample.setResponseMessage("Non HTTP response message: " + e.getMessage());
+            sample.setSuccessful(false);
+        }
+        return sample;
+    }
+
+    private static long drain(InputStream body) throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = body) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    private HttpRequest buildRequest(TestStep step) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(config.getBaseUrl() + step.getEndpoint()))
+            .timeout(config.getResponseTimeout());
+        step.getHeaders().forEach(builder::header);
+
+        String method = step.getMethod().toUpperCase();
+        switch (method) {
+            case "POST":
+            case "PUT":
+            case "PATCH":
+                if (step.getContentType() != null) {
+                    builder.header("Content-Type", step.getContentType());
+                }
+                builder.method(method, step.getBody() != null
+                    ? HttpRequest.BodyPublishers.ofString(step.getBody())
+                    : HttpRequest.BodyPublishers.noBody());
+                break;
+            case "DELETE":
+                builder.DELETE();
+                break;
+            case "GET":
+            default:
+                builder.GET();
+                break;
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,122 @@
+package org.perf.core;
+
+import static us.abstracta.jmeter.javadsl.JmeterDsl.*;
+
+import org.perf.model.ExecutionResult;
+import org.perf.monitoring.LiveMetrics;
+import org.perf.reporting.GeneratorHealth;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point of a forked worker JVM started by {@link WorkerPool}.
+ * <p>
+ * The worker warms up JMeter once, reports {@link WorkerProtocol#READY} and then runs one
+ * request at a time until its stdin is closed, streaming every sample back as it happens. An
+ * {@link WorkerProtocol.Command#ABORT} on stdin stops the running request early.
+ */
+public class WorkerMain {
+
+    public static void main(String[] args) throws Exception {
+        // stdout carries the protocol, so everything the framework prints goes to stderr
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 64 * 1024));
+        System.setOut(System.err);
+
+        warmUp();
+        out.writeByte(WorkerProtocol.READY);
+        out.flush();
+
+        // Requests run one at a time off the main thread, which keeps reading stdin for aborts
+        ExecutorService runner = Executors.newSingleThreadExecutor(task -> new Thread(task, "worker-runner"));
+        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(System.in));
+        while (true) {
+            Object message;
+            try {
+                message = in.readObject();
+            } catch (EOFException e) {
+                break; // parent closed the pipe: pool is shutting down
+            }
+            if (message == WorkerProtocol.Command.ABORT) {
+                // Only a running plan has an abort mark below the new count, so a late abort is harmless
+                LiveMetrics.getInstance().abort();
+            } else {
+                WorkerRequest request = (WorkerRequest) message;
+                runner.execute(() -> {
+                    try {
+                        runRequest(request, out);
+                    } catch (IOException e) {
+                        // stdout is gone, so is the parent
+                        System.err.println("❌ Worker lost its parent: " + e.getMessage());
+                        System.exit(1);
+                    }
+                });
+            }
+        }
+        runner.shutdown();
+        runner.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private static void warmUp() throws Exception {
+        long start = System.currentTimeMillis();
+        testPlan(threadGroup(1, 1, dummySampler("warm-up", "OK"))).runIn(new IsolatedJmeterEngine());
+        System.err.println("🔥 Worker " + ProcessHandle.current().pid() + " warmed up in "
+            + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private static void runRequest(WorkerRequest request, DataOutputStream out) throws IOException {
+        TestExecutor executor = new TestExecutor(request.toConfiguration());
+        WorkerProtocol.SampleWriter samples = new WorkerProtocol.SampleWriter();
+        executor.forwardSamplesTo((sample, intendedStart) -> {
+            synchronized (out) {
+                try {
+                    samples.write(out, sample, intendedStart);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+
+        // Labels and group names carry the thread name, so run under the caller's to match an in-process run
+        Thread current = Thread.currentThread();
+        String workerThreadName = current.getName();
+        current.setName(request.getThreadName());
+        try {
+            ExecutionResult result = executor.execute(request.getThreadConfig(), request.getTestSteps());
+            synchronized (out) {
+                out.writeByte(WorkerProtocol.DONE);
+                out.writeLong(result.getDroppedArrivals());
+                out.writeLong(result.getLateArrivals());
+                out.writeLong(result.getDroppedSamples());
+                out.writeLong(result.getSpilledSamples());
+                out.writeLong(result.getBlockedSamples());
+                out.writeLong(result.getBlockedMillis());
+                GeneratorHealth health = result.getGeneratorHealth();
+                out.writeBoolean(health != null);
+                if (health != null) {
+                    health.write(out);
+                }
+                out.flush();
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Worker failed running " + request.getTestName() + ": " + e.getMessage());
+            synchronized (out) {
+                WorkerProtocol.writeFailure(out, e.getMessage());
+                out.flush();
+            }
+        } finally {
+            current.setName(workerThreadName);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package org.perf.core;
+
+import org.perf.builder.ThreadGroupBuilder;
+import org.perf.model.ExecutionResult;
+import org.perf.model.TestStep;
+import org.perf.monitoring.ExecutorPhase;
+import org.perf.monitoring.ExecutorPhaseEvent;
+import org.perf.monitoring.LiveMetrics;
+import org.perf.reporting.AggregateCollector;
+import org.perf.reporting.GeneratorHealth;
+import org.perf.reporting.SampleStore;
+import org.perf.reporting.TimeSeriesCollector;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import us.abstracta.jmeter.javadsl.core.TestPlanStats;
+import us.abstracta.jmeter.javadsl.core.engines.EmbeddedStatsSummary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of pre-started worker JVMs on the local host that run test plans out of process.
+ * <p>
+ * Each worker keeps its own copy of JMeter's global state, so plans never clash, and is warmed
+ * up once when it starts. Samples are streamed back while the plan runs and rebuilt into a
+ * regular {@link TestPlanStats}, so callers get the same {@link ExecutionResult} as an
+ * in-process run. JTL files are still written by the worker into the configured results
+ * directory. With live metrics on, an abort in this JVM is passed on to the worker running the plan.
+ * <p>
+ * Pool size and worker JVM options come from the {@code perf.workers} and
+ * {@code perf.worker.jvmArgs} system properties.
+ */
+public class WorkerPool {
+    private static final long WORKER_WAIT_MINUTES = 10;
+    private static final long ABORT_POLL_MILLIS = 100;
+    private static volatile WorkerPool instance;
+
+    private final BlockingQueue<Worker> idleWorkers = new LinkedBlockingQueue<>();
+    private final List<Worker> allWorkers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger workerIds = new AtomicInteger();
+    private final List<String> jvmArgs;
+    private volatile boolean shutdown = false;
+
+    private WorkerPool(int size, List<String> jvmArgs) {
+        this.jvmArgs = jvmArgs;
+        System.out.println("🏭 Starting " + size + " worker JVMs...");
+        for (int i = 0; i < size; i++) {
+            startWorkerAsync();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "worker-pool-shutdown"));
+    }
+
+    public static WorkerPool getInstance() {
+        WorkerPool pool = instance;
+        if (pool == null) {
+            synchronized (WorkerPool.class) {
+                pool = instance;
+                if (pool == null) {
+                    int size = Integer.getInteger("perf.workers",
+                        Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+                    String args = System.getProperty("perf.worker.jvmArgs", "").trim();
+                    pool = new WorkerPool(size, args.isEmpty() ? List.of() : Arrays.asList(args.split("\\s+")));
+                    instance = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    public ExecutionResult execute(TestConfiguration config, ThreadGroupBuilder.ThreadGroupConfig threadConfig,
+                                   List<TestStep> testSteps) throws Exception {
+        if (shutdown) {
+            throw new IllegalStateException("Worker pool has been shut down");
+        }
+        // Like an in-process run, only aborts requested from here on stop this plan
+        long abortMark = config.hasLiveMetrics() ? LiveMetrics.getInstance().getAbortCount() : 0;
+        ExecutorPhaseEvent waitEvent = ExecutorPhaseEvent.begin(ExecutorPhase.WORKER_WAIT, config.getTestName());
+        Worker worker = idleWorkers.poll(WORKER_WAIT_MINUTES, TimeUnit.MINUTES);
+        waitEvent.commit();
+        if (worker == null) {
+            throw new IllegalStateException("No worker JVM became available within " + WORKER_WAIT_MINUTES + " minutes");
+        }
+
+        System.out.println("📤 [" + Thread.currentThread().getName() + "] Handing " + config.getTestName()
+            + " to worker " + worker.process.pid());
+        ExecutorPhaseEvent runEvent = ExecutorPhaseEvent.begin(ExecutorPhase.PLAN_RUN, config.getTestName());
+        try {
+            ExecutionResult result = worker.run(new WorkerRequest(config, threadConfig, testSteps), config, abortMark);
+            idleWorkers.offer(worker);
+            return result;
+        } catch (IOException e) {
+            // Broken pipe or crashed JVM: the worker cannot be reused
+            System.err.println("❌ Worker " + worker.process.pid() + " lost while running " + config.getTestName()
+                + ": " + e.getMessage());
+            retire(worker);
+            startWorkerAsync();
+            throw new RuntimeException("Test execution failed for " + config.getTestName(), e);
+        } catch (RuntimeException e) {
+            // The plan failed but the worker itself is fine
+            idleWorkers.offer(worker);
+            throw e;
+        } finally {
+            runEvent.commit();
+        }
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        for (Worker worker : allWorkers) {
+            retire(worker);
+        }
+    }
+
+    private void startWorkerAsync() {
+        int id = workerIds.incrementAndGet();
+        Thread starter = new Thread(() -> {
+            try {
+                Worker worker = Worker.start(jvmArgs);
+                allWorkers.add(worker);
+                if (shutdown) {
+                    retire(worker);
+                } else {
+                    idleWorkers.offer(worker);
+                    System.out.println("✅ Worker " + id + " ready (pid " + worker.process.pid() + ")");
+                }
+            } catch (IOException e) {
+                System.err.println("❌ Failed to start worker " + id + ": " + e.getMessage());
+            }
+        }, "worker-starter-" + id);
+        starter.setDaemon(true);
+        starter.start();
+    }
+
+    private void retire(Worker worker) {
+        allWorkers.remove(worker);
+        idleWorkers.remove(worker);
+        try {
+            synchronized (worker.toWorker) {
+                worker.toWorker.close(); // EOF lets the worker exit on its own
+            }
+        } catch (IOException e) {
+            // already gone
+        }
+        worker.process.destroy();
+    }
+
+    private static class Worker {
+        final Process process;
+        final ObjectOutputStream toWorker;
+        final DataInputStream fromWorker;
+
+        private Worker(Process process) throws IOException {
+            this.process = process;
+            this.toWorker = new ObjectOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.toWorker.flush();
+            this.fromWorker = new DataInputStream(new BufferedInputStream(process.getInputStream(), 64 * 1024));
+        }
+
+        static Worker start(List<String> jvmArgs) throws IOException {
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(jvmArgs);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(WorkerMain.class.getName());
+
+            Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+            Worker worker = new Worker(process);
+            byte ready = worker.fromWorker.readByte();
+            if (ready != WorkerProtocol.READY) {
+                process.destroy();
+                throw new IOException("Unexpected handshake byte " + ready + " from worker " + process.pid());
+            }
+            return worker;
+        }
+
+        ExecutionResult run(WorkerRequest request, TestConfiguration config, long abortMark) throws IOException {
+            TestPlanStats stats = new TestPlanStats(EmbeddedStatsSummary::new);
+            AggregateCollector aggregates = new AggregateCollector(config.getHistogramPrecision());
+            aggregates.setExpectedInterval(TestExecutor.expectedIntervalMillis(config, request.getThreadConfig()));
+            // The exporter lives in this JVM, so forked samples are counted as they arrive here
+            LiveMetrics liveMetrics = config.hasLiveMetrics() ? LiveMetrics.getInstance() : null;
+            TimeSeriesCollector timeSeries = new TimeSeriesCollector(config.getTimeSeriesInterval().toMillis());
+            // Kept here rather than in the worker, which exits once the plan is done
+            SampleStore sampleStore = config.hasSampleStore() ? new SampleStore(config.getSampleStoreCapacity()) : null;
+            stats.setStart(Instant.now());
+            synchronized (toWorker) {
+                toWorker.writeObject(request);
+                toWorker.flush();
+                toWorker.reset(); // don't let the stream's back-reference table grow across requests
+            }
+            Thread abortWatch = liveMetrics != null ? watchForAbort(liveMetrics, abortMark) : null;
+            try {
+                return readFrames(config, stats, aggregates, liveMetrics, timeSeries, sampleStore);
+            } finally {
+                if (abortWatch != null) {
+                    abortWatch.interrupt();
+                }
+            }
+        }
+
+        private ExecutionResult readFrames(TestConfiguration config, TestPlanStats stats, AggregateCollector aggregates,
+                                           LiveMetrics liveMetrics, TimeSeriesCollector timeSeries,
+                                           SampleStore sampleStore) throws IOException {
+            while (true) {
+                byte frame = fromWorker.readByte();
+                switch (frame) {
+                    case WorkerProtocol.SAMPLE:
+                        SampleResult sample = WorkerProtocol.readSample(fromWorker);
+                        long intendedStart = WorkerProtocol.readIntendedStart(fromWorker);
+                        stats.addSampleResult(sample);
+                        aggregates.add(sample, intendedStart);
+                        if (liveMetrics != null) {
+                            liveMetrics.record(sample);
+                        }
+                        timeSeries.add(sample);
+                        if (sampleStore != null) {
+                            sampleStore.add(sample);
+                        }
+                        break;
+                    case WorkerProtocol.DONE:
+                        stats.setEnd(Instant.now());
+                        ExecutionResult result = new ExecutionResult(stats, config);
+                        result.setAggregates(aggregates);
+                        result.setTimeSeries(timeSeries);
+                        result.setSampleStore(sampleStore);
+                        result.setDroppedArrivals(fromWorker.readLong());
+                        result.setLateArrivals(fromWorker.readLong());
+                        result.setDroppedSamples(fromWorker.readLong());
+                        result.setSpilledSamples(fromWorker.readLong());
+                        result.setBlockedSamples(fromWorker.readLong());
+                        result.setBlockedMillis(fromWorker.readLong());
+                        if (fromWorker.readBoolean()) {
+                            timeSeries.setGeneratorHealth(GeneratorHealth.read(fromWorker));
+                        }
+                        return result;
+                    case WorkerProtocol.FAILED:
+                        throw new RuntimeException("Test execution failed for " + config.getTestName()
+                            + " in worker " + process.pid() + ": " + WorkerProtocol.readFailure(fromWorker));
+                    default:
+                        throw new IOException("Unexpected frame " + frame + " from worker " + process.pid());
+                }
+            }
+        }
+
+        /**
+         * Sends the worker an abort once one is requested here, and again every poll until the run
+         * ends: one that arrives before the worker's plan has taken its abort mark would be missed.
+         */
+        private Thread watchForAbort(LiveMetrics liveMetrics, long abortMark) {
+            Thread watch = new Thread(() -> {
+                try {
+                    while (!liveMetrics.abortedSince(abortMark)) {
+                        Thread.sleep(ABORT_POLL_MILLIS);
+                    }
+                    System.out.println("🛑 Passing abort on to worker " + process.pid());
+                    while (true) {
+                        synchronized (toWorker) {
+                            toWorker.writeObject(WorkerProtocol.Command.ABORT);
+                            toWorker.flush();
+                        }
+                        Thread.sleep(ABORT_POLL_MILLIS);
+                    }
+                } catch (InterruptedException e) {
+                    // run finished first
+                } catch (IOException e) {
+                    // worker gone; the run sees that on its own pipe
+                }
+            }, "worker-abort-watch-" + process.pid());
+            watch.setDaemon(true);
+            watch.start();
+            return watch;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.perf.core;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Frames a worker writes on its stdout. Requests travel the other way as serialized
+ * {@link WorkerRequest}s on stdin, as do {@link Command}s.
+ */
+final class WorkerProtocol {
+    /** Sent by the parent on stdin at any time, also while a request runs. */
+    enum Command {
+        /** Stop the running plan as an abort in the worker's own JVM would; it still ends with {@link #DONE}. */
+        ABORT
+    }
+
+    static final byte READY = 'R';
+    /** Followed by the sample's {@link SampleColumns} and its intended start (epoch millis, 0 for none). */
+    static final byte SAMPLE = 'S';
+    /**
+     * Followed by the dropped and late arrival counts, the result buffer's dropped, spilled and
+     * blocked samples and blocked millis as six longs, then a boolean and, if true, the worker's
+     * {@link org.perf.reporting.GeneratorHealth}.
+     */
+    static final byte DONE = 'D';
+    /** Followed by the failure's message as a length-prefixed UTF-8 string. */
+    static final byte FAILED = 'F';
+
+    private WorkerProtocol() {
+    }
+
+    /**
+     * Writes {@link #SAMPLE} frames. Each frame is built whole in a reused buffer and only then
+     * written, so a sample that cannot be encoded fails before any of its bytes reach the parent.
+     * Not thread safe; callers serialize writes to the stream anyway.
+     */
+    static final class SampleWriter {
+        private final SampleColumns columns = new SampleColumns();
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+        private final DataOutputStream frame = new DataOutputStream(buffer);
+
+        void write(DataOutputStream out, SampleResult sample, long intendedStartMillis) throws IOException {
+            buffer.reset();
+            frame.writeByte(SAMPLE);
+            columns.fill(sample);
+            columns.write(frame);
+            frame.writeLong(intendedStartMillis);
+            buffer.writeTo(out);
+        }
+    }
+
+    /**
+     * Reads the sample of a {@link #SAMPLE} frame (the type byte is already consumed); its intended
+     * start follows and is read with {@link #readIntendedStart}.
+     */
+    static SampleResult readSample(DataInputStream in) throws IOException {
+        SampleColumns columns = new SampleColumns();
+        columns.read(in);
+        return columns.toSample();
+    }
+
+    static long readIntendedStart(DataInputStream in) throws IOException {
+        return in.readLong();
+    }
+
+    /** A {@link #FAILED} frame with the failure's message, of any length. */
+    static void writeFailure(DataOutputStream out, String message) throws IOException {
+        out.writeByte(FAILED);
+        SampleColumns.writeString(out, String.valueOf(message));
+    }
+
+    static String readFailure(DataInputStream in) throws IOException {
+        return SampleColumns.readString(in);
+    }
+}
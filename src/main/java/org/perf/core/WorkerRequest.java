@@ -0,0 +1,87 @@
+package org.perf.core;
+
+import org.perf.builder.ThreadGroupBuilder;
+import org.perf.model.TestStep;
+import org.perf.reporting.ResultFormat;
+
+import java.io.Serializable;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything a forked worker needs to rebuild and run a plan. {@link TestConfiguration} holds a
+ * {@link java.nio.file.Path}, which is not serializable, so its fields are copied here.
+ */
+class WorkerRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String testName;
+    private final String threadName;
+    private final String baseUrl;
+    private final String resultsDirectory;
+    private final Duration connectionTimeout;
+    private final Duration responseTimeout;
+    private final LoadEngine engine;
+    private final boolean writeJtl;
+    private final int histogramPrecision;
+    private final ResultFormat resultFormat;
+    private final Duration timeSeriesInterval;
+    private final boolean liveMetrics;
+    private final boolean correctCoordinatedOmission;
+    private final boolean generatorHealth;
+    private final int resultBufferSize;
+    private final BufferOverflowPolicy bufferOverflowPolicy;
+    private final ThreadGroupBuilder.ThreadGroupConfig threadConfig;
+    private final ArrayList<TestStep> testSteps;
+
+    WorkerRequest(TestConfiguration config, ThreadGroupBuilder.ThreadGroupConfig threadConfig, List<TestStep> testSteps) {
+        this.testName = config.getTestName();
+        this.threadName = Thread.currentThread().getName();
+        this.baseUrl = config.getBaseUrl();
+        this.resultsDirectory = config.getResultsDirectory().toAbsolutePath().toString();
+        this.connectionTimeout = config.getConnectionTimeout();
+        this.responseTimeout = config.getResponseTimeout();
+        this.engine = config.getEngine();
+        this.writeJtl = config.shouldWriteJtl();
+        this.histogramPrecision = config.getHistogramPrecision();
+        this.resultFormat = config.getResultFormat();
+        this.timeSeriesInterval = config.getTimeSeriesInterval();
+        this.liveMetrics = config.hasLiveMetrics();
+        this.correctCoordinatedOmission = config.shouldCorrectCoordinatedOmission();
+        this.generatorHealth = config.shouldMonitorGeneratorHealth();
+        this.resultBufferSize = config.getResultBufferSize();
+        this.bufferOverflowPolicy = config.getBufferOverflowPolicy();
+        this.threadConfig = threadConfig;
+        this.testSteps = new ArrayList<>(testSteps);
+    }
+
+    /** Rebuilds the configuration inside the worker; one plan at a time runs there, so no lock is needed. */
+    TestConfiguration toConfiguration() {
+        TestConfiguration.Builder builder = TestConfiguration.builder()
+            .testName(testName)
+            .baseUrl(baseUrl)
+            .resultsDirectory(Paths.get(resultsDirectory))
+            .connectionTimeout(connectionTimeout)
+            .responseTimeout(responseTimeout)
+            .executionMode(PlanExecutionMode.CONCURRENT)
+            .engine(engine)
+            .writeJtl(writeJtl)
+            .histogramPrecision(histogramPrecision)
+            .resultFormat(resultFormat)
+            .timeSeriesInterval(timeSeriesInterval)
+            .coordinatedOmissionCorrection(correctCoordinatedOmission)
+            .generatorHealth(generatorHealth)
+            .resultBufferSize(resultBufferSize)
+            .bufferOverflowPolicy(bufferOverflowPolicy);
+        // Live metrics on in the worker only make it honour aborts; the parent serves the metrics
+        return (liveMetrics ? builder.liveMetricsPort(0) : builder).build();
+    }
+
+    String getTestName() { return testName; }
+    /** Name of the calling thread in the parent, which sampler labels carry as a suffix. */
+    String getThreadName() { return threadName; }
+    ThreadGroupBuilder.ThreadGroupConfig getThreadConfig() { return threadConfig; }
+    List<TestStep> getTestSteps() { return testSteps; }
+}
@@ -1,13 +1,42 @@
 package org.perf.model;
 
 import org.perf.core.TestConfiguration;
+import org.perf.reporting.AggregateCollector;
+import org.perf.reporting.AggregateReportParser;
+import org.perf.reporting.GeneratorHealth;
+import org.perf.reporting.SampleStore;
+import org.perf.reporting.TimeSeriesCollector;
 import us.abstracta.jmeter.javadsl.core.TestPlanStats;
 import java.time.Duration;
+import java.util.List;
 
 public class ExecutionResult {
+    /** Value of a counter the engine that ran the plan cannot observe. */
+    public static final long UNKNOWN = -1;
+    
     private final TestPlanStats stats;
     private final TestConfiguration config;
     
+    // Open-model runs only: arrivals that found the concurrency pool exhausted; UNKNOWN on the JMeter engine
+    private long droppedArrivals;
+    private long lateArrivals;
+    
+    // Result buffer between sampler threads and the results writer: samples dropped or spilled when
+    // it was full, and publishes that had to wait for a slot and for how long in total
+    private long droppedSamples;
+    private long spilledSamples;
+    private long blockedSamples;
+    private long blockedMillis;
+    
+    // Per-label aggregates collected while the plan ran
+    private AggregateCollector aggregates;
+    
+    // Per-label throughput and latency over time, collected alongside the aggregates
+    private TimeSeriesCollector timeSeries;
+    
+    // Every sample off-heap for drill-down, if the configuration asked for a sample store
+    private SampleStore sampleStore;
+    
     public ExecutionResult(TestPlanStats stats, TestConfiguration config) {
         this.stats = stats;
         this.config = config;
@@ -42,6 +71,107 @@ public class ExecutionResult {
         return (double) getErrorCount() / getTotalSamples() * 100.0;
     }
     
+    /** Arrivals dropped because the concurrency pool was exhausted, or {@link #UNKNOWN}. */
+    public long getDroppedArrivals() {
+        return droppedArrivals;
+    }
+    
+    public void setDroppedArrivals(long droppedArrivals) {
+        this.droppedArrivals = droppedArrivals;
+    }
+    
+    /** Arrivals that started late because the concurrency pool was exhausted, or {@link #UNKNOWN}. */
+    public long getLateArrivals() {
+        return lateArrivals;
+    }
+    
+    public void setLateArrivals(long lateArrivals) {
+        this.lateArrivals = lateArrivals;
+    }
+    
+    /** Whether the arrival counters were observed; false for open-model runs on the JMeter engine. */
+    public boolean hasArrivalCounts() {
+        return droppedArrivals != UNKNOWN && lateArrivals != UNKNOWN;
+    }
+    
+    public long getDroppedSamples() {
+        return droppedSamples;
+    }
+    
+    public void setDroppedSamples(long droppedSamples) {
+        this.droppedSamples = droppedSamples;
+    }
+    
+    public long getSpilledSamples() {
+        return spilledSamples;
+    }
+    
+    public void setSpilledSamples(long spilledSamples) {
+        this.spilledSamples = spilledSamples;
+    }
+    
+    public long getBlockedSamples() {
+        return blockedSamples;
+    }
+    
+    public void setBlockedSamples(long blockedSamples) {
+        this.blockedSamples = blockedSamples;
+    }
+    
+    public long getBlockedMillis() {
+        return blockedMillis;
+    }
+    
+    public void setBlockedMillis(long blockedMillis) {
+        this.blockedMillis = blockedMillis;
+    }
+    
+    public AggregateCollector getAggregates() {
+        return aggregates;
+    }
+    
+    public void setAggregates(AggregateCollector aggregates) {
+        this.aggregates = aggregates;
+    }
+    
+    public TimeSeriesCollector getTimeSeries() {
+        return timeSeries;
+    }
+    
+    public void setTimeSeries(TimeSeriesCollector timeSeries) {
+        this.timeSeries = timeSeries;
+    }
+    
+    /** The run's samples for drill-down queries, or null without a sample store; close it to free its memory early. */
+    public SampleStore getSampleStore() {
+        return sampleStore;
+    }
+    
+    public void setSampleStore(SampleStore sampleStore) {
+        this.sampleStore = sampleStore;
+    }
+    
+    /** The load generator's own CPU, GC, heap and lag per time bucket, or null if it was not watched. */
+    public GeneratorHealth getGeneratorHealth() {
+        return timeSeries != null ? timeSeries.getGeneratorHealth() : null;
+    }
+    
+    /** False when the load generator was saturated for too much of the run to trust its latencies. */
+    public boolean isValid() {
+        GeneratorHealth health = getGeneratorHealth();
+        return health == null || health.isValid();
+    }
+    
+    /** Aggregate Report rows (per label plus TOTAL), or empty if nothing was collected. */
+    public List<AggregateReportParser.SamplerStats> getSamplerStats() {
+        return aggregates != null ? aggregates.getSamplerStats() : List.of();
+    }
+    
+    /** One row across all labels with percentiles from the merged sketches, or null if nothing was collected. */
+    public AggregateReportParser.SamplerStats getOverallStats() {
+        return aggregates != null ? aggregates.getTotalStats() : null;
+    }
+    
     public TestPlanStats getRawStats() {
         return stats;
     }
@@ -1,16 +1,19 @@
 package org.perf.model;
 
+import java.io.Serializable;
 import java.time.Duration;
 import java.util.Map;
 import java.util.HashMap;
 
-public class TestStep {
+public class TestStep implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
     private final String name;
     private final String method;
     private final String endpoint;
     private final String body;
     private final String contentType;
-    private final Map<String, String> headers;
+    private final HashMap<String, String> headers;
     private final Duration thinkTime;
     
     private TestStep(Builder builder) {
@@ -0,0 +1,25 @@
+package org.perf.monitoring;
+
+/** Where the framework spends wall time around a plan, as reported by {@link ExecutorPhaseEvent}. */
+public enum ExecutorPhase {
+    ENVIRONMENT_INIT("Environment init"),
+    LOCK_WAIT("Lock wait"),
+    WORKER_WAIT("Worker wait"),
+    STAGGER("Stagger sleep"),
+    TREE_BUILD("Sampler tree build"),
+    PLAN_RUN("Plan run"),
+    JTL_FLUSH("JTL flush"),
+    REPORT_COPY("Report copy"),
+    REPORT_AGGREGATION("Report aggregation"),
+    REPORT_RENDERING("Report rendering");
+
+    private final String label;
+
+    ExecutorPhase(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
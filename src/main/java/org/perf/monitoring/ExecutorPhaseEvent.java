@@ -0,0 +1,44 @@
+package org.perf.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event spanning one {@link ExecutorPhase} of a plan, so a recording shows how
+ * much of a suite's wall time went to lock waits, stagger sleeps and reporting rather than load:
+ * <pre>
+ * ExecutorPhaseEvent event = ExecutorPhaseEvent.begin(ExecutorPhase.LOCK_WAIT, testName);
+ * lock.lock();
+ * event.commit();
+ * </pre>
+ * Enabled in the default JFR settings; without a recording, {@code commit()} does nothing.
+ */
+@Name("org.perf.ExecutorPhase")
+@Label("Executor Phase")
+@Category({"JMeter DSL", "Executor"})
+@Description("A phase of running or reporting a test plan")
+@StackTrace(false)
+public class ExecutorPhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Test")
+    String testName;
+
+    public static ExecutorPhaseEvent begin(ExecutorPhase phase, String testName) {
+        ExecutorPhaseEvent event = new ExecutorPhaseEvent();
+        if (event.isEnabled()) {
+            event.phase = phase.getLabel();
+            event.testName = testName;
+            event.begin();
+        }
+        return event;
+    }
+
+    public String getPhase() { return phase; }
+    public String getTestName() { return testName; }
+}
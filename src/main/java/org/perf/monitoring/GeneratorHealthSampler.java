@@ -0,0 +1,170 @@
+package org.perf.monitoring;
+
+import org.perf.reporting.GeneratorHealth;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Watches the load generator's own JVM while a plan runs and folds readings into a
+ * {@link GeneratorHealth}: process CPU, GC pause time, heap, live threads, open sockets and how late
+ * timers and users wake up compared to when they were due.
+ * <p>
+ * Readings come from a daemon platform thread every {@link #TICK_MILLIS} ms, so a busy carrier pool
+ * cannot starve the watcher. Open sockets are counted from {@code /proc/self/fd} and are only known
+ * on Linux.
+ * <p>
+ * GC time counts stop-the-world pauses only: ZGC and Shenandoah time their concurrent cycles on
+ * separate "... Cycles" collectors, which run alongside the load and are left out. Heap is what the
+ * latest GC of each pool left live, so garbage that is simply not yet collected never looks like
+ * pressure.
+ */
+public final class GeneratorHealthSampler {
+    public static final long TICK_MILLIS = 250;
+    private static final Path FD_DIR = Path.of("/proc/self/fd");
+
+    private final GeneratorHealth health;
+    private final LongAccumulator startLag = new LongAccumulator(Math::max, 0);
+    private final List<GarbageCollectorMXBean> pauseCollectors = ManagementFactory.getGarbageCollectorMXBeans().stream()
+        .filter(collector -> !collector.getName().endsWith(" Cycles"))
+        .toList();
+    // Pools without collection usage are not managed by a GC and have no post-GC reading
+    private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+        .filter(pool -> pool.getType() == MemoryType.HEAP && pool.getCollectionUsage() != null)
+        .toList();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    private final boolean countSockets = Files.isDirectory(FD_DIR);
+    private volatile boolean running;
+    private Thread thread;
+    private long lastGcMillis;
+
+    public GeneratorHealthSampler(long bucketMillis) {
+        this.health = new GeneratorHealth(bucketMillis);
+    }
+
+    public synchronized GeneratorHealthSampler start() {
+        if (thread != null) {
+            return this;
+        }
+        running = true;
+        lastGcMillis = totalGcMillis();
+        thread = new Thread(this::run, "generator-health");
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    /** Stops the watcher after one last reading, so short runs still get a bucket. */
+    public synchronized GeneratorHealth stop() {
+        if (thread != null) {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+        return health;
+    }
+
+    public GeneratorHealth getHealth() {
+        return health;
+    }
+
+    /**
+     * Notes that a user or timer started {@code lagMillis} after it was due. Cheap enough to call
+     * per request; only the largest lag per tick is kept.
+     */
+    public void recordStartLag(long lagMillis) {
+        if (lagMillis > 0) {
+            startLag.accumulate(lagMillis);
+        }
+    }
+
+    private void run() {
+        long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+        while (running) {
+            LockSupport.parkNanos(due - System.nanoTime());
+            long now = System.nanoTime();
+            if (running && now < due) {
+                continue;
+            }
+            long timerLag = running ? TimeUnit.NANOSECONDS.toMillis(now - due) : 0;
+            tick(timerLag);
+            due = now + TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+        }
+    }
+
+    private void tick(long timerLagMillis) {
+        long gcMillis = totalGcMillis();
+        long gcPause = Math.max(0, gcMillis - lastGcMillis);
+        lastGcMillis = gcMillis;
+        long heapMax = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+        health.record(System.currentTimeMillis(), processCpu(), gcPause, liveHeap(), heapMax,
+            threads.getThreadCount(), countSockets(), timerLagMillis, startLag.getThenReset());
+    }
+
+    private double processCpu() {
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            return Math.max(0, sunOs.getProcessCpuLoad());
+        }
+        // Without the extension the load average per core is the closest reading
+        return Math.max(0, os.getSystemLoadAverage() / os.getAvailableProcessors());
+    }
+
+    private long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : pauseCollectors) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    private long liveHeap() {
+        long live = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if (afterGc != null) {
+                live += afterGc.getUsed();
+            }
+        }
+        return live;
+    }
+
+    private int countSockets() {
+        if (!countSockets) {
+            return -1;
+        }
+        int sockets = 0;
+        try (DirectoryStream<Path> fds = Files.newDirectoryStream(FD_DIR)) {
+            for (Path fd : fds) {
+                try {
+                    if (Files.readSymbolicLink(fd).toString().startsWith("socket:")) {
+                        sockets++;
+                    }
+                } catch (IOException e) {
+                    // The descriptor was closed while listing
+                }
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+        return sockets;
+    }
+}
@@ -0,0 +1,176 @@
+package org.perf.monitoring;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters of one label, updated by every sampler thread without locking: totals are
+ * {@link LongAdder}s, which stripe contended increments over cells, and latencies go into fixed
+ * buckets so quantiles can be estimated at any time without a histogram lock.
+ * <p>
+ * The buckets are coarse on purpose; the HDR histograms of the final report stay the exact numbers.
+ */
+public final class LabelMetrics implements LabelMetricsMXBean {
+    /** Upper bounds (ms, inclusive) of the latency buckets; one more bucket takes everything above. */
+    static final long[] BUCKET_BOUNDS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000};
+    // Requests per second are averaged over this many completed seconds
+    static final int RATE_WINDOW_SECONDS = 5;
+    private static final int RATE_SLOTS = 8;
+
+    private final String label;
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder latencySum = new LongAdder();
+    private final LongAccumulator maxLatency = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length + 1];
+    private final AtomicInteger activeThreads = new AtomicInteger();
+    // Per-second sample counts in a small ring, each slot tagged with the epoch second it counts
+    private final AtomicLongArray slotSeconds = new AtomicLongArray(RATE_SLOTS);
+    private final LongAdder[] slotCounts = new LongAdder[RATE_SLOTS];
+
+    LabelMetrics(String label) {
+        this.label = label;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+        for (int i = 0; i < RATE_SLOTS; i++) {
+            slotCounts[i] = new LongAdder();
+            slotSeconds.set(i, -1);
+        }
+    }
+
+    void record(long elapsedMillis, boolean success, long responseBytes, int threads, long endMillis) {
+        samples.increment();
+        if (!success) {
+            errors.increment();
+        }
+        bytes.add(responseBytes);
+        latencySum.add(elapsedMillis);
+        maxLatency.accumulate(elapsedMillis);
+        buckets[bucketOf(elapsedMillis)].increment();
+        activeThreads.set(threads);
+        countInSecond(endMillis / 1000);
+    }
+
+    /**
+     * Moves a slot on to a new second before counting in it. A sample racing with the reset can be
+     * lost, which a live rate can afford.
+     */
+    private void countInSecond(long second) {
+        int slot = (int) (second % RATE_SLOTS);
+        long tagged = slotSeconds.get(slot);
+        if (tagged != second) {
+            if (tagged > second) {
+                return; // a straggler from a second that is already overwritten
+            }
+            if (slotSeconds.compareAndSet(slot, tagged, second)) {
+                slotCounts[slot].reset();
+            }
+        }
+        slotCounts[slot].increment();
+    }
+
+    static int bucketOf(long elapsedMillis) {
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            if (elapsedMillis <= BUCKET_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS.length;
+    }
+
+    public String getLabel() { return label; }
+
+    @Override
+    public long getSamples() { return samples.sum(); }
+
+    @Override
+    public long getErrors() { return errors.sum(); }
+
+    @Override
+    public long getBytes() { return bytes.sum(); }
+
+    @Override
+    public int getActiveThreads() { return activeThreads.get(); }
+
+    @Override
+    public long getMaxLatency() { return maxLatency.get(); }
+
+    public long getLatencySum() { return latencySum.sum(); }
+
+    @Override
+    public double getErrorRate() {
+        long count = getSamples();
+        return count == 0 ? 0 : (double) getErrors() / count;
+    }
+
+    @Override
+    public double getMeanLatency() {
+        long count = getSamples();
+        return count == 0 ? 0 : (double) getLatencySum() / count;
+    }
+
+    /** Samples per second over the last {@value #RATE_WINDOW_SECONDS} completed seconds. */
+    @Override
+    public double getRequestsPerSecond() {
+        long current = System.currentTimeMillis() / 1000;
+        long total = 0;
+        for (int i = 0; i < RATE_SLOTS; i++) {
+            long second = slotSeconds.get(i);
+            if (second < current && second >= current - RATE_WINDOW_SECONDS) {
+                total += slotCounts[i].sum();
+            }
+        }
+        return (double) total / RATE_WINDOW_SECONDS;
+    }
+
+    /** Count of samples in each bucket of {@link #BUCKET_BOUNDS}, plus the overflow bucket. */
+    public long[] getBucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Estimates the latency at {@code quantile} (0-1) by interpolating inside the bucket it falls
+     * in; the overflow bucket reaches up to the largest latency seen.
+     */
+    public double getLatencyQuantile(double quantile) {
+        long[] counts = getBucketCounts();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        double rank = quantile * total;
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 && seen + counts[i] >= rank) {
+                double lower = i == 0 ? 0 : BUCKET_BOUNDS[i - 1];
+                double upper = i < BUCKET_BOUNDS.length ? BUCKET_BOUNDS[i] : Math.max(lower, getMaxLatency());
+                return lower + (upper - lower) * Math.min(1, (rank - seen) / counts[i]);
+            }
+            seen += counts[i];
+        }
+        return getMaxLatency();
+    }
+
+    @Override
+    public double getLatencyP50() { return getLatencyQuantile(0.50); }
+
+    @Override
+    public double getLatencyP90() { return getLatencyQuantile(0.90); }
+
+    @Override
+    public double getLatencyP95() { return getLatencyQuantile(0.95); }
+
+    @Override
+    public double getLatencyP99() { return getLatencyQuantile(0.99); }
+}
@@ -0,0 +1,20 @@
+package org.perf.monitoring;
+
+/**
+ * JMX view of one label's live metrics, registered as
+ * {@code org.perf:type=LiveMetrics,label=<label>}. Latencies are in milliseconds.
+ */
+public interface LabelMetricsMXBean {
+    long getSamples();
+    long getErrors();
+    long getBytes();
+    int getActiveThreads();
+    double getErrorRate();
+    double getRequestsPerSecond();
+    double getMeanLatency();
+    long getMaxLatency();
+    double getLatencyP50();
+    double getLatencyP90();
+    double getLatencyP95();
+    double getLatencyP99();
+}
@@ -0,0 +1,137 @@
+package org.perf.monitoring;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Per-label metrics of every plan running in this JVM, updated as samples complete and read by
+ * {@link LiveMetricsExporter} and JMX while the run is still going.
+ * <p>
+ * It also carries abort requests: a run notes {@link #getAbortCount()} when it starts and stops
+ * once {@link #abortedSince} says another abort came in, so an abort never affects later runs.
+ */
+public final class LiveMetrics implements LiveMetricsMXBean {
+    static final String DOMAIN = "org.perf";
+
+    private static final LiveMetrics INSTANCE = new LiveMetrics();
+
+    private final ConcurrentHashMap<String, LabelMetrics> labels = new ConcurrentHashMap<>();
+    private final AtomicLong aborts = new AtomicLong();
+    private volatile MBeanServer mbeanServer; // set once JMX is enabled
+
+    private LiveMetrics() {
+    }
+
+    public static LiveMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public void record(SampleResult sample) {
+        String label = sample.getSampleLabel();
+        LabelMetrics metrics = labels.get(label);
+        if (metrics == null) {
+            metrics = register(label);
+        }
+        metrics.record(sample.getTime(), sample.isSuccessful(), sample.getBytesAsLong(),
+            sample.getGroupThreads(), sample.getEndTime());
+    }
+
+    private LabelMetrics register(String label) {
+        LabelMetrics created = new LabelMetrics(label);
+        LabelMetrics existing = labels.putIfAbsent(label, created);
+        if (existing != null) {
+            return existing;
+        }
+        MBeanServer server = mbeanServer;
+        if (server != null) {
+            registerMBean(server, created);
+        }
+        return created;
+    }
+
+    /** Registers this registry and every label, present and future, with the platform MBean server. */
+    synchronized void enableJmx() {
+        if (mbeanServer != null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=LiveMetrics");
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            System.err.println("⚠️ Could not register live metrics MBean: " + e.getMessage());
+            return;
+        }
+        mbeanServer = server;
+        labels.values().forEach(metrics -> registerMBean(server, metrics));
+    }
+
+    private static void registerMBean(MBeanServer server, LabelMetrics metrics) {
+        try {
+            ObjectName name = labelObjectName(metrics.getLabel());
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+        } catch (JMException e) {
+            System.err.println("⚠️ Could not register live metrics MBean for " + metrics.getLabel() + ": " + e.getMessage());
+        }
+    }
+
+    static ObjectName labelObjectName(String label) throws JMException {
+        return new ObjectName(DOMAIN + ":type=LiveMetrics,label=" + ObjectName.quote(label));
+    }
+
+    /** Labels seen so far, sorted by name. */
+    public List<LabelMetrics> getLabels() {
+        List<LabelMetrics> sorted = new ArrayList<>(labels.values());
+        sorted.sort(Comparator.comparing(LabelMetrics::getLabel));
+        return sorted;
+    }
+
+    public LabelMetrics getLabel(String label) {
+        return labels.get(label);
+    }
+
+    @Override
+    public int getLabelCount() {
+        return labels.size();
+    }
+
+    @Override
+    public long getSamples() {
+        return labels.values().stream().mapToLong(LabelMetrics::getSamples).sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return labels.values().stream().mapToLong(LabelMetrics::getErrors).sum();
+    }
+
+    @Override
+    public void abort() {
+        aborts.incrementAndGet();
+        System.out.println("🛑 Abort requested: running plans stop after their current samples");
+    }
+
+    @Override
+    public long getAbortCount() {
+        return aborts.get();
+    }
+
+    /** True if an abort was requested after {@code abortCount} was read from {@link #getAbortCount()}. */
+    public boolean abortedSince(long abortCount) {
+        return aborts.get() != abortCount;
+    }
+}
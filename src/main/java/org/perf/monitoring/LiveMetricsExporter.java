@@ -0,0 +1,211 @@
+package org.perf.monitoring;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Serves {@link LiveMetrics} over HTTP while plans run:
+ * <ul>
+ *   <li>{@code GET /metrics}: Prometheus text format (samples, errors, requests per second,
+ *       active threads, a latency histogram and quantile estimates per label),</li>
+ *   <li>{@code POST /abort}: stops every plan running in this JVM, like {@link LiveMetrics#abort()}.</li>
+ * </ul>
+ * One exporter serves the whole JVM; starting it also registers the metrics as JMX MBeans.
+ * <p>
+ * {@code /abort} takes no credentials, so the exporter only listens on the loopback interface
+ * unless another bind address is given.
+ */
+public final class LiveMetricsExporter {
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.95, 0.99};
+
+    private static LiveMetricsExporter instance;
+
+    private final HttpServer server;
+
+    private LiveMetricsExporter(HttpServer server) {
+        this.server = server;
+    }
+
+    /** Starts the exporter on the loopback interface, see {@link #start(String, int)}. */
+    public static LiveMetricsExporter start(int port) {
+        return start(InetAddress.getLoopbackAddress().getHostAddress(), port);
+    }
+
+    /**
+     * Starts the exporter on {@code bindAddress} and {@code port} (0 for any free port) if it is not
+     * running yet, and returns the running one otherwise. {@code "0.0.0.0"} serves every interface.
+     */
+    public static synchronized LiveMetricsExporter start(String bindAddress, int port) {
+        if (instance != null) {
+            if (port != 0 && port != instance.getPort()) {
+                System.out.println("⚠️ Live metrics already served on port " + instance.getPort() + ", not " + port);
+            }
+            return instance;
+        }
+        LiveMetrics metrics = LiveMetrics.getInstance();
+        HttpServer server;
+        try {
+            server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serve live metrics on " + bindAddress + ":" + port, e);
+        }
+        server.createContext("/metrics", exchange -> serveMetrics(exchange, metrics));
+        server.createContext("/abort", exchange -> serveAbort(exchange, metrics));
+        // The dispatcher thread inherits its daemon flag from the thread that starts it: started from a
+        // daemon thread, a forgotten exporter does not keep the JVM alive after the plans finish
+        Thread starter = new Thread(server::start, "live-metrics-start");
+        starter.setDaemon(true);
+        starter.start();
+        try {
+            starter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        metrics.enableJmx();
+        instance = new LiveMetricsExporter(server);
+        System.out.println("📡 Live metrics on http://" + instance.getAddress().getHostAddress() + ":" + instance.getPort() + "/metrics");
+        return instance;
+    }
+
+    /** Stops the running exporter, if any. The MBeans stay registered. */
+    public static synchronized void stop() {
+        if (instance != null) {
+            instance.server.stop(0);
+            instance = null;
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public InetAddress getAddress() {
+        return server.getAddress().getAddress();
+    }
+
+    private static void serveMetrics(HttpExchange exchange, LiveMetrics metrics) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "Use GET\n");
+            return;
+        }
+        respond(exchange, 200, render(metrics));
+    }
+
+    private static void serveAbort(HttpExchange exchange, LiveMetrics metrics) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "Use POST\n");
+            return;
+        }
+        metrics.abort();
+        respond(exchange, 202, "Abort requested\n");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /** The Prometheus exposition of every label; latencies in seconds, as Prometheus expects. */
+    static String render(LiveMetrics metrics) {
+        StringBuilder out = new StringBuilder(4096);
+        Iterable<LabelMetrics> labels = metrics.getLabels();
+
+        header(out, "perf_samples_total", "counter", "Samples completed");
+        for (LabelMetrics label : labels) {
+            line(out, "perf_samples_total", label, null, label.getSamples());
+        }
+        header(out, "perf_errors_total", "counter", "Samples that failed");
+        for (LabelMetrics label : labels) {
+            line(out, "perf_errors_total", label, null, label.getErrors());
+        }
+        header(out, "perf_received_bytes_total", "counter", "Response bytes received");
+        for (LabelMetrics label : labels) {
+            line(out, "perf_received_bytes_total", label, null, label.getBytes());
+        }
+        header(out, "perf_requests_per_second", "gauge",
+            "Samples per second over the last " + LabelMetrics.RATE_WINDOW_SECONDS + " completed seconds");
+        for (LabelMetrics label : labels) {
+            line(out, "perf_requests_per_second", label, null, label.getRequestsPerSecond());
+        }
+        header(out, "perf_error_ratio", "gauge", "Failed samples over all samples");
+        for (LabelMetrics label : labels) {
+            line(out, "perf_error_ratio", label, null, label.getErrorRate());
+        }
+        header(out, "perf_active_threads", "gauge", "Threads of the label's group at its latest sample");
+        for (LabelMetrics label : labels) {
+            line(out, "perf_active_threads", label, null, label.getActiveThreads());
+        }
+
+        header(out, "perf_latency_seconds", "histogram", "Sample elapsed time");
+        for (LabelMetrics label : labels) {
+            long[] counts = label.getBucketCounts();
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                String le = i < LabelMetrics.BUCKET_BOUNDS.length ? seconds(LabelMetrics.BUCKET_BOUNDS[i]) : "+Inf";
+                line(out, "perf_latency_seconds_bucket", label, "le=\"" + le + "\"", cumulative);
+            }
+            line(out, "perf_latency_seconds_sum", label, null, label.getLatencySum() / 1000d);
+            line(out, "perf_latency_seconds_count", label, null, cumulative);
+        }
+        header(out, "perf_latency_quantile_seconds", "gauge", "Sample elapsed time at a quantile, estimated from the histogram");
+        for (LabelMetrics label : labels) {
+            for (double quantile : QUANTILES) {
+                line(out, "perf_latency_quantile_seconds", label, "quantile=\"" + quantile + "\"",
+                    label.getLatencyQuantile(quantile) / 1000d);
+            }
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void line(StringBuilder out, String name, LabelMetrics label, String extraLabel, double value) {
+        out.append(name).append("{label=\"");
+        escapeLabelValue(out, label.getLabel());
+        out.append('"');
+        if (extraLabel != null) {
+            out.append(',').append(extraLabel);
+        }
+        out.append("} ");
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(String.format(Locale.ROOT, "%.6f", value));
+        }
+        out.append('\n');
+    }
+
+    private static String seconds(long millis) {
+        return String.format(Locale.ROOT, "%.3f", millis / 1000d);
+    }
+
+    // Label values escape backslash, double quote and line feed
+    private static void escapeLabelValue(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+}
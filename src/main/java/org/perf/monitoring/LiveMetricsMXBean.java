@@ -0,0 +1,13 @@
+package org.perf.monitoring;
+
+/**
+ * JMX view of the whole process, registered as {@code org.perf:type=LiveMetrics}. {@link #abort()}
+ * asks every plan running in this JVM to stop.
+ */
+public interface LiveMetricsMXBean {
+    int getLabelCount();
+    long getSamples();
+    long getErrors();
+    long getAbortCount();
+    void abort();
+}
@@ -0,0 +1,94 @@
+package org.perf.monitoring;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import jdk.jfr.Timestamp;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * JDK Flight Recorder event for one in every {@link #getSampleEvery()} completed requests, to line
+ * request timings up with GC, safepoints and CPU in the same recording. Off by default; turn it on
+ * with {@code -XX:StartFlightRecording:+org.perf.RequestSample#enabled=true} or a custom .jfc, and
+ * set the rate with {@code -Dperf.jfr.sampleEvery=N} or {@link #setSampleEvery}.
+ */
+@Name("org.perf.RequestSample")
+@Label("Request Sample")
+@Category({"JMeter DSL", "Samples"})
+@Description("A completed request, sampled")
+@Enabled(false)
+@StackTrace(false)
+public class RequestSampleEvent extends Event {
+    private static volatile int sampleEvery = Math.max(1, Integer.getInteger("perf.jfr.sampleEvery", 100));
+
+    @Label("Label")
+    String label;
+
+    @Label("Response Code")
+    String responseCode;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Sample Start")
+    @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+    long sampleStart;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.MILLISECONDS)
+    long elapsed;
+
+    @Label("Latency")
+    @Timespan(Timespan.MILLISECONDS)
+    long latency;
+
+    @Label("Connect")
+    @Timespan(Timespan.MILLISECONDS)
+    long connect;
+
+    @Label("Received")
+    @DataAmount
+    long bytes;
+
+    /** Emits an event for {@code sample} if the event is enabled and the sample is picked. */
+    public static void offer(SampleResult sample) {
+        RequestSampleEvent event = new RequestSampleEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        int every = sampleEvery;
+        if (every > 1 && ThreadLocalRandom.current().nextInt(every) != 0) {
+            return;
+        }
+        event.label = sample.getSampleLabel();
+        event.responseCode = sample.getResponseCode();
+        event.success = sample.isSuccessful();
+        event.sampleStart = sample.getTimeStamp();
+        event.elapsed = sample.getTime();
+        event.latency = sample.getLatency();
+        event.connect = sample.getConnectTime();
+        event.bytes = sample.getBytesAsLong();
+        event.commit();
+    }
+
+    public static int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    /** Emits one event per {@code every} requests on average; 1 emits all of them. */
+    public static void setSampleEvery(int every) {
+        if (every < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1: " + every);
+        }
+        sampleEvery = every;
+    }
+}
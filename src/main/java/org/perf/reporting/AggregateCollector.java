@@ -0,0 +1,249 @@
+package org.perf.reporting;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-label aggregators fed straight from the sampler threads (or from a JTL file), producing the
+ * same rows as JMeter's Aggregate Report without keeping the samples around.
+ */
+public class AggregateCollector {
+    private final ConcurrentHashMap<String, LabelAggregator> aggregators = new ConcurrentHashMap<>();
+    private final int significantDigits;
+    // Only filled from SampleResults; JTL replays carry no response codes
+    private final ErrorBreakdown errors = new ErrorBreakdown();
+    // Coordinated omission: when set, every sample is also recorded back-filled for this interval
+    private volatile long expectedIntervalMillis;
+
+    public AggregateCollector() {
+        this(LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    /** @param significantDigits precision of the per-label latency histograms (1-5) */
+    public AggregateCollector(int significantDigits) {
+        this.significantDigits = significantDigits;
+    }
+
+    /**
+     * Records the sample's latency both raw and corrected for coordinated omission, measured from
+     * {@code intendedStartMillis}: when the request should have started had earlier ones not been
+     * slow. A value of 0 means there was no schedule and only the raw latency is recorded.
+     */
+    public void add(SampleResult sample, long intendedStartMillis) {
+        add(sample);
+        if (intendedStartMillis > 0) {
+            long corrected = Math.max(sample.getTime(), sample.getTimeStamp() + sample.getTime() - intendedStartMillis);
+            aggregators.get(sample.getSampleLabel()).addCorrected(corrected, 0);
+        }
+    }
+
+    public void add(SampleResult sample) {
+        add(sample.getSampleLabel(), sample.getTimeStamp(), sample.getTime(), sample.isSuccessful(),
+            sample.getBytesAsLong(), sample.getSentBytes(), sample.getLatency(), sample.getConnectTime(), sample.getIdleTime());
+        errors.add(sample);
+    }
+
+    public void add(String label, long timeStamp, long elapsed, boolean success, long bytes, long sentBytes) {
+        add(label, timeStamp, elapsed, success, bytes, sentBytes, 0, 0, 0);
+    }
+
+    /** Adds a sample with its JTL {@code latency}, {@code Connect} and {@code IdleTime} values. */
+    public void add(String label, long timeStamp, long elapsed, boolean success, long bytes, long sentBytes,
+                    long latency, long connect, long idleTime) {
+        LabelAggregator aggregator = aggregators.computeIfAbsent(label, l -> new LabelAggregator(l, significantDigits));
+        aggregator.add(timeStamp, elapsed, success, bytes, sentBytes, latency, connect, idleTime);
+        long interval = expectedIntervalMillis;
+        if (interval > 0) {
+            aggregator.addCorrected(elapsed, interval);
+        }
+    }
+
+    /**
+     * Corrects every sample added from now on for coordinated omission with HdrHistogram's
+     * expected-interval back-fill, for runs where requests of a label are due every
+     * {@code millis} (e.g. the pacing). 0 turns it off.
+     */
+    public void setExpectedInterval(long millis) {
+        this.expectedIntervalMillis = millis;
+    }
+
+    public long getExpectedInterval() {
+        return expectedIntervalMillis;
+    }
+
+    /** Folds another collector's per-label aggregates into this one. */
+    public void merge(AggregateCollector other) {
+        other.aggregators.forEach((label, partial) ->
+            aggregators.computeIfAbsent(label, l -> new LabelAggregator(l, significantDigits)).merge(partial));
+        errors.merge(other.errors);
+    }
+
+    public long getSampleCount() {
+        return aggregators.values().stream().mapToLong(LabelAggregator::getSamples).sum();
+    }
+
+    public int getLabelCount() {
+        return aggregators.size();
+    }
+
+    public ErrorBreakdown getErrors() {
+        return errors;
+    }
+
+    /** One row per label sorted by name, plus a TOTAL row when there is more than one label. */
+    public List<AggregateReportParser.SamplerStats> getSamplerStats() {
+        List<AggregateReportParser.SamplerStats> stats = new ArrayList<>();
+        for (LabelAggregator aggregator : aggregators.values()) {
+            stats.add(aggregator.toSamplerStats());
+        }
+        stats.sort(Comparator.comparing(AggregateReportParser.SamplerStats::getLabel));
+        if (stats.size() > 1) {
+            stats.add(combine("TOTAL", stats));
+        }
+        return stats;
+    }
+
+    /** The single row covering every label, with percentiles from the merged sketches; null if empty. */
+    public AggregateReportParser.SamplerStats getTotalStats() {
+        if (aggregators.isEmpty()) {
+            return null;
+        }
+        List<AggregateReportParser.SamplerStats> stats = new ArrayList<>();
+        for (LabelAggregator aggregator : aggregators.values()) {
+            stats.add(aggregator.toSamplerStats());
+        }
+        return combine("TOTAL", stats);
+    }
+
+    /**
+     * Combines rows into one by merging their latency sketches, so the result has real percentiles
+     * rather than averages of averages. Works for any grouping: the TOTAL row of a test, a whole
+     * session, or the same test run on several nodes. Costs O(rows), independent of sample count.
+     * Rows without a sketch (built by hand) contribute counts, min and max but no percentiles.
+     */
+    public static AggregateReportParser.SamplerStats combine(String label, Collection<AggregateReportParser.SamplerStats> rows) {
+        AggregateReportParser.SamplerStats combined = new AggregateReportParser.SamplerStats();
+        combined.setLabel(label);
+
+        int totalSamples = 0;
+        int totalErrors = 0;
+        long totalBytes = 0;
+        long totalSentBytes = 0;
+        long firstTimeStamp = Long.MAX_VALUE;
+        long lastEndTime = Long.MIN_VALUE;
+        LatencyHistogram merged = null;
+        LatencyBreakdown breakdown = null;
+        LatencyHistogram corrected = null;
+        boolean anyCorrected = rows.stream().anyMatch(row -> row.getCorrectedHistogram() != null);
+        boolean complete = true;
+        boolean timed = true;
+        for (AggregateReportParser.SamplerStats row : rows) {
+            if (row.getSamples() == 0) {
+                continue;
+            }
+            totalSamples += row.getSamples();
+            totalErrors += row.getErrorCount();
+            totalBytes += row.getTotalBytes();
+            totalSentBytes += row.getTotalSentBytes();
+            firstTimeStamp = Math.min(firstTimeStamp, row.getFirstTimeStamp());
+            lastEndTime = Math.max(lastEndTime, row.getLastEndTime());
+            timed &= row.getFirstTimeStamp() != 0 || row.getLastEndTime() != 0;
+            if (row.getHistogram() == null) {
+                complete = false;
+            } else if (merged == null) {
+                merged = row.getHistogram().copy();
+            } else {
+                merged.add(row.getHistogram());
+            }
+            // Rows run without a schedule had nothing to correct: their raw latencies stand as they are
+            LatencyHistogram rowCorrected = row.getCorrectedHistogram() != null ? row.getCorrectedHistogram() : row.getHistogram();
+            if (anyCorrected && rowCorrected != null) {
+                if (corrected == null) {
+                    corrected = rowCorrected.copy();
+                } else {
+                    corrected.add(rowCorrected);
+                }
+            }
+            if (row.getBreakdown() != null) {
+                if (breakdown == null) {
+                    breakdown = row.getBreakdown().copy();
+                } else {
+                    breakdown.add(row.getBreakdown());
+                }
+            }
+        }
+        if (totalSamples == 0) {
+            return combined;
+        }
+
+        combined.setSamples(totalSamples);
+        combined.setErrorCount(totalErrors);
+        combined.setErrorPercentage((double) totalErrors / totalSamples * 100);
+        combined.setTotalBytes(totalBytes);
+        combined.setTotalSentBytes(totalSentBytes);
+        combined.setBreakdown(breakdown);
+
+        if (merged != null && complete) {
+            applyLatencies(combined, merged);
+            if (corrected != null) {
+                applyCorrectedLatencies(combined, corrected);
+            }
+        } else {
+            // No sketch for every row: exact count, min, max and weighted mean only
+            combined.setAverage(rows.stream().mapToDouble(s -> s.getAverage() * s.getSamples()).sum() / totalSamples);
+            combined.setMin(rows.stream().filter(s -> s.getSamples() > 0).mapToDouble(AggregateReportParser.SamplerStats::getMin).min().orElse(0));
+            combined.setMax(rows.stream().mapToDouble(AggregateReportParser.SamplerStats::getMax).max().orElse(0));
+        }
+
+        if (timed) {
+            applyRates(combined, firstTimeStamp, lastEndTime);
+        } else {
+            // Rows without a time span: fall back to summing the per-row rates
+            combined.setThroughput(rows.stream().mapToDouble(AggregateReportParser.SamplerStats::getThroughput).sum());
+            combined.setReceivedKBPerSec(rows.stream().mapToDouble(AggregateReportParser.SamplerStats::getReceivedKBPerSec).sum());
+            combined.setSentKBPerSec(rows.stream().mapToDouble(AggregateReportParser.SamplerStats::getSentKBPerSec).sum());
+        }
+        return combined;
+    }
+
+    /** Sets the latency columns of {@code stats} from {@code histogram} and keeps it as the row's sketch. */
+    static void applyLatencies(AggregateReportParser.SamplerStats stats, LatencyHistogram histogram) {
+        stats.setHistogram(histogram);
+        stats.setMin(histogram.getMinValue());
+        stats.setMax(histogram.getMaxValue());
+        stats.setAverage(histogram.getMean());
+        stats.setMedian(histogram.getValueAtPercentile(50));
+        stats.setPercentile90(histogram.getValueAtPercentile(90));
+        stats.setPercentile95(histogram.getValueAtPercentile(95));
+        stats.setPercentile99(histogram.getValueAtPercentile(99));
+        stats.setPercentile999(histogram.getValueAtPercentile(99.9));
+        stats.setPercentile9999(histogram.getValueAtPercentile(99.99));
+    }
+
+    /** Sets the corrected-latency columns of {@code stats} from {@code histogram} and keeps it. */
+    static void applyCorrectedLatencies(AggregateReportParser.SamplerStats stats, LatencyHistogram histogram) {
+        stats.setCorrectedHistogram(histogram);
+        stats.setCorrectedPercentile90(histogram.getValueAtPercentile(90));
+        stats.setCorrectedPercentile95(histogram.getValueAtPercentile(95));
+        stats.setCorrectedPercentile99(histogram.getValueAtPercentile(99));
+        stats.setCorrectedPercentile999(histogram.getValueAtPercentile(99.9));
+        stats.setCorrectedMax(histogram.getMaxValue());
+    }
+
+    /** Sets the time span and the per-second rates of {@code stats}, whose counts are already set. */
+    static void applyRates(AggregateReportParser.SamplerStats stats, long firstTimeStamp, long lastEndTime) {
+        stats.setFirstTimeStamp(firstTimeStamp);
+        stats.setLastEndTime(lastEndTime);
+        double durationSeconds = (lastEndTime - firstTimeStamp) / 1000.0;
+        if (durationSeconds > 0) {
+            stats.setThroughput(stats.getSamples() / durationSeconds);
+            stats.setReceivedKBPerSec((stats.getTotalBytes() / 1024.0) / durationSeconds);
+            stats.setSentKBPerSec((stats.getTotalSentBytes() / 1024.0) / durationSeconds);
+        }
+    }
+}
@@ -7,8 +7,9 @@ package org.perf.reporting;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class AggregateReportParser {
     
@@ -20,6 +21,8 @@ public class AggregateReportParser {
         private double percentile90;
         private double percentile95;
         private double percentile99;
+        private double percentile999;
+        private double percentile9999;
         private double min;
         private double max;
         private double errorPercentage;
@@ -29,6 +32,19 @@ public class AggregateReportParser {
         private long totalBytes;
         private long totalSentBytes;
         private int errorCount;
+        private long firstTimeStamp;
+        private long lastEndTime;
+        // Mergeable latency sketch behind the percentiles, so rows can be combined without the samples
+        private LatencyHistogram histogram;
+        // Connect / server / download split; null when the samplers measure no latency
+        private LatencyBreakdown breakdown;
+        // Latencies corrected for coordinated omission; null when the run had no schedule to correct against
+        private LatencyHistogram correctedHistogram;
+        private double correctedPercentile90;
+        private double correctedPercentile95;
+        private double correctedPercentile99;
+        private double correctedPercentile999;
+        private double correctedMax;
         
         // Getters and setters
         public String getLabel() { return label; }
@@ -52,6 +68,12 @@ public class AggregateReportParser {
         public double getPercentile99() { return percentile99; }
         public void setPercentile99(double percentile99) { this.percentile99 = percentile99; }
         
+        public double getPercentile999() { return percentile999; }
+        public void setPercentile999(double percentile999) { this.percentile999 = percentile999; }
+        
+        public double getPercentile9999() { return percentile9999; }
+        public void setPercentile9999(double percentile9999) { this.percentile9999 = percentile9999; }
+        
         public double getMin() { return min; }
         public void setMin(double min) { this.min = min; }
         
@@ -78,140 +100,103 @@ public class AggregateReportParser {
         
         public int getErrorCount() { return errorCount; }
         public void setErrorCount(int errorCount) { this.errorCount = errorCount; }
+        
+        public long getFirstTimeStamp() { return firstTimeStamp; }
+        public void setFirstTimeStamp(long firstTimeStamp) { this.firstTimeStamp = firstTimeStamp; }
+        
+        public long getLastEndTime() { return lastEndTime; }
+        public void setLastEndTime(long lastEndTime) { this.lastEndTime = lastEndTime; }
+        
+        public LatencyHistogram getHistogram() { return histogram; }
+        public void setHistogram(LatencyHistogram histogram) { this.histogram = histogram; }
+        
+        public LatencyBreakdown getBreakdown() { return breakdown; }
+        public void setBreakdown(LatencyBreakdown breakdown) { this.breakdown = breakdown; }
+        
+        public LatencyHistogram getCorrectedHistogram() { return correctedHistogram; }
+        public void setCorrectedHistogram(LatencyHistogram correctedHistogram) { this.correctedHistogram = correctedHistogram; }
+        
+        public double getCorrectedPercentile90() { return correctedPercentile90; }
+        public void setCorrectedPercentile90(double correctedPercentile90) { this.correctedPercentile90 = correctedPercentile90; }
+        
+        public double getCorrectedPercentile95() { return correctedPercentile95; }
+        public void setCorrectedPercentile95(double correctedPercentile95) { this.correctedPercentile95 = correctedPercentile95; }
+        
+        public double getCorrectedPercentile99() { return correctedPercentile99; }
+        public void setCorrectedPercentile99(double correctedPercentile99) { this.correctedPercentile99 = correctedPercentile99; }
+        
+        public double getCorrectedPercentile999() { return correctedPercentile999; }
+        public void setCorrectedPercentile999(double correctedPercentile999) { this.correctedPercentile999 = correctedPercentile999; }
+        
+        public double getCorrectedMax() { return correctedMax; }
+        public void setCorrectedMax(double correctedMax) { this.correctedMax = correctedMax; }
     }
 
 
     public static List<SamplerStats> parseJtlFile(Path jtlFile) throws IOException {
+        return parseJtlFile(jtlFile, LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS);
+    }
+    
+    public static List<SamplerStats> parseJtlFile(Path jtlFile, int significantDigits) throws IOException {
+        return parseJtlFile(jtlFile, significantDigits, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Parses a JTL into Aggregate Report rows. Files larger than a few MB are split into chunks and
+     * aggregated in parallel on {@code pool}; the result is the same as a sequential parse.
+     */
+    public static List<SamplerStats> parseJtlFile(Path jtlFile, int significantDigits, ForkJoinPool pool) throws IOException {
         if (!Files.exists(jtlFile)) {
             System.err.println("JTL file does not exist: " + jtlFile);
             return new ArrayList<>();
         }
         
-        List<String> lines = Files.readAllLines(jtlFile);
-        if (lines.size() <= 1) {
-            System.err.println("JTL file is empty or has only header: " + jtlFile);
-            return new ArrayList<>();
+        if (ColumnarResultReader.isColumnar(jtlFile)) {
+            return parseColumnarFile(jtlFile, significantDigits, pool);
         }
         
+        JtlScanner scanner = JtlScanner.open(jtlFile);
         try {
-            // Parse header to get column indices
-            String header = lines.get(0);
-            System.out.println("JTL Header: " + header);
-            
-            String[] headerColumns = header.split(",");
-            Map<String, Integer> columnMap = new HashMap<>();
-            for (int i = 0; i < headerColumns.length; i++) {
-                columnMap.put(headerColumns[i].trim(), i);
+            if (!scanner.hasData()) {
+                System.err.println("JTL file is empty or has only header: " + jtlFile);
+                return new ArrayList<>();
             }
             
-            System.out.println("Available columns: " + columnMap.keySet());
+            System.out.println("JTL Header: " + String.join(",", scanner.getHeader()));
+            System.out.println("Available columns: " + scanner.getHeader());
             
             // Verify required columns exist
-            if (!columnMap.containsKey("label") || !columnMap.containsKey("elapsed")) {
+            if (!scanner.hasColumn("label") || !scanner.hasColumn("elapsed")) {
                 System.err.println("JTL file missing required columns (label or elapsed)");
                 return new ArrayList<>();
             }
             
-            // Group data by label (sampler name)
-            Map<String, List<SampleRecord>> samplerGroups = new HashMap<>();
-            int parsedLines = 0;
-            int skippedLines = 0;
-            
-            for (int i = 1; i < lines.size(); i++) {
-                String line = lines.get(i);
-                if (line.trim().isEmpty()) {
-                    skippedLines++;
-                    continue;
-                }
-                
-                String[] columns = line.split(",");
-                
-                if (columns.length >= headerColumns.length - 2) { // Allow some tolerance
-                    SampleRecord record = parseSampleRecord(columns, columnMap);
-                    if (record != null && record.label != null && !record.label.trim().isEmpty()) {
-                        samplerGroups.computeIfAbsent(record.label, k -> new ArrayList<>()).add(record);
-                        parsedLines++;
-                    } else {
-                        skippedLines++;
-                    }
-                } else {
-                    skippedLines++;
-                }
-            }
-            
-            System.out.println("Parsed " + parsedLines + " lines, skipped " + skippedLines + " lines");
-            System.out.println("Found " + samplerGroups.size() + " unique samplers: " + samplerGroups.keySet());
+            // Feed each record into its label's running aggregate, chunk by chunk in parallel
+            AggregateCollector collector = JtlChunkTask.aggregate(scanner, pool, significantDigits);
             
-            // Calculate aggregate statistics for each sampler
-            List<SamplerStats> aggregateStats = new ArrayList<>();
-            for (Map.Entry<String, List<SampleRecord>> entry : samplerGroups.entrySet()) {
-                SamplerStats stats = calculateAggregateStats(entry.getKey(), entry.getValue());
-                aggregateStats.add(stats);
-            }
+            System.out.println("Parsed " + scanner.getParsedLines() + " lines, skipped " + scanner.getSkippedLines() + " lines");
+            System.out.println("Found " + collector.getLabelCount() + " unique samplers");
             
-            // Sort by label name
-            aggregateStats.sort(Comparator.comparing(SamplerStats::getLabel));
-            
-            // Add TOTAL row if multiple samplers
-            if (aggregateStats.size() > 1) {
-                SamplerStats totalStats = calculateTotalStats(aggregateStats);
-                aggregateStats.add(totalStats);
-            }
-            
-            return aggregateStats;
+            // Sorted by label, with a TOTAL row if multiple samplers
+            return collector.getSamplerStats();
             
         } catch (Exception e) {
             System.err.println("Error parsing JTL file: " + e.getMessage());
             e.printStackTrace();
             throw new IOException("Failed to parse JTL file", e);
+        } finally {
+            scanner.close();
         }
     }
-    
-    private static SampleRecord parseSampleRecord(String[] columns, Map<String, Integer> columnMap) {
-        try {
-            SampleRecord record = new SampleRecord();
-            
-            record.timeStamp = getLongValue(columns, columnMap, "timeStamp");
-            record.elapsed = getIntValue(columns, columnMap, "elapsed");
-            record.label = getStringValue(columns, columnMap, "label");
-            record.responseCode = getStringValue(columns, columnMap, "responseCode");
-            record.success = getBooleanValue(columns, columnMap, "success");
-            record.bytes = getLongValue(columns, columnMap, "bytes");
-            record.sentBytes = getLongValue(columns, columnMap, "sentBytes");
-            record.latency = getIntValue(columns, columnMap, "latency");
-            
-            return record;
-        } catch (Exception e) {
-            System.err.println("Error parsing sample record: " + e.getMessage());
-            return null;
-        }
-    }
-    
-    private static String getStringValue(String[] columns, Map<String, Integer> columnMap, String columnName) {
-        Integer index = columnMap.get(columnName);
-        if (index != null && index < columns.length) {
-            return columns[index].trim().replaceAll("\"", ""); // Remove quotes
-        }
-        return "";
-    }
-    
-    private static long getLongValue(String[] columns, Map<String, Integer> columnMap, String columnName) {
-        String value = getStringValue(columns, columnMap, columnName);
-        try {
-            return value.isEmpty() ? 0 : Long.parseLong(value);
-        } catch (NumberFormatException e) {
-            return 0;
+
+    private static List<SamplerStats> parseColumnarFile(Path resultsFile, int significantDigits, ForkJoinPool pool) throws IOException {
+        try (ColumnarResultReader reader = ColumnarResultReader.open(resultsFile)) {
+            System.out.println("Columnar results: " + reader.getBlocks().size() + " blocks, " + reader.getSampleCount() + " samples");
+            AggregateCollector collector = reader.aggregate(pool, significantDigits);
+            System.out.println("Found " + collector.getLabelCount() + " unique samplers");
+            return collector.getSamplerStats();
         }
     }
-    
-    private static int getIntValue(String[] columns, Map<String, Integer> columnMap, String columnName) {
-        return (int) getLongValue(columns, columnMap, columnName);
-    }
-    
-    private static boolean getBooleanValue(String[] columns, Map<String, Integer> columnMap, String columnName) {
-        String value = getStringValue(columns, columnMap, columnName);
-        return "true".equalsIgnoreCase(value);
-    }
 
     // public static List<SamplerStats> parseJtlFile(Path jtlFile) throws IOException {
     //     if (!Files.exists(jtlFile)) {
@@ -310,111 +295,4 @@ public class AggregateReportParser {
     //     String value = getStringValue(columns, columnMap, columnName);
     //     return "true".equalsIgnoreCase(value);
     // }
-    
-    private static SamplerStats calculateAggregateStats(String label, List<SampleRecord> records) {
-        SamplerStats stats = new SamplerStats();
-        stats.setLabel(label);
-        
-        if (records.isEmpty()) {
-            return stats;
-        }
-        
-        // Basic counts
-        stats.setSamples(records.size());
-        long errorCount = records.stream().mapToLong(r -> r.success ? 0 : 1).sum();
-        stats.setErrorCount((int) errorCount);
-        stats.setErrorPercentage(records.size() > 0 ? (double) errorCount / records.size() * 100 : 0);
-        
-        // Response time statistics
-        List<Integer> responseTimes = records.stream().map(r -> r.elapsed).collect(Collectors.toList());
-        Collections.sort(responseTimes);
-        
-        stats.setMin(responseTimes.get(0));
-        stats.setMax(responseTimes.get(responseTimes.size() - 1));
-        stats.setAverage(responseTimes.stream().mapToDouble(Integer::doubleValue).average().orElse(0));
-        stats.setMedian(calculatePercentile(responseTimes, 50));
-        stats.setPercentile90(calculatePercentile(responseTimes, 90));
-        stats.setPercentile95(calculatePercentile(responseTimes, 95));
-        stats.setPercentile99(calculatePercentile(responseTimes, 99));
-        
-        // Throughput and data transfer statistics
-        long totalBytes = records.stream().mapToLong(r -> r.bytes).sum();
-        long totalSentBytes = records.stream().mapToLong(r -> r.sentBytes).sum();
-        stats.setTotalBytes(totalBytes);
-        stats.setTotalSentBytes(totalSentBytes);
-        
-        // Calculate throughput (requests per second)
-        if (!records.isEmpty()) {
-            long minTime = records.stream().mapToLong(r -> r.timeStamp).min().orElse(0);
-            long maxTime = records.stream().mapToLong(r -> r.timeStamp + r.elapsed).max().orElse(0);
-            double durationSeconds = (maxTime - minTime) / 1000.0;
-            
-            if (durationSeconds > 0) {
-                stats.setThroughput(records.size() / durationSeconds);
-                stats.setReceivedKBPerSec((totalBytes / 1024.0) / durationSeconds);
-                stats.setSentKBPerSec((totalSentBytes / 1024.0) / durationSeconds);
-            }
-        }
-        
-        return stats;
-    }
-    
-    private static double calculatePercentile(List<Integer> sortedValues, double percentile) {
-        if (sortedValues.isEmpty()) return 0;
-        
-        double index = (percentile / 100.0) * (sortedValues.size() - 1);
-        int lowerIndex = (int) Math.floor(index);
-        int upperIndex = (int) Math.ceil(index);
-        
-        if (lowerIndex == upperIndex) {
-            return sortedValues.get(lowerIndex);
-        }
-        
-        double weight = index - lowerIndex;
-        return sortedValues.get(lowerIndex) * (1 - weight) + sortedValues.get(upperIndex) * weight;
-    }
-    
-    private static SamplerStats calculateTotalStats(List<SamplerStats> allStats) {
-        SamplerStats totalStats = new SamplerStats();
-        totalStats.setLabel("TOTAL");
-        
-        int totalSamples = allStats.stream().mapToInt(SamplerStats::getSamples).sum();
-        int totalErrors = allStats.stream().mapToInt(SamplerStats::getErrorCount).sum();
-        long totalBytes = allStats.stream().mapToLong(SamplerStats::getTotalBytes).sum();
-        long totalSentBytes = allStats.stream().mapToLong(SamplerStats::getTotalSentBytes).sum();
-        
-        totalStats.setSamples(totalSamples);
-        totalStats.setErrorCount(totalErrors);
-        totalStats.setErrorPercentage(totalSamples > 0 ? (double) totalErrors / totalSamples * 100 : 0);
-        totalStats.setTotalBytes(totalBytes);
-        totalStats.setTotalSentBytes(totalSentBytes);
-        
-        // Weighted averages
-        double weightedAverage = allStats.stream()
-            .mapToDouble(s -> s.getAverage() * s.getSamples())
-            .sum() / totalSamples;
-        totalStats.setAverage(weightedAverage);
-        
-        // Min/Max across all samplers
-        totalStats.setMin(allStats.stream().mapToDouble(SamplerStats::getMin).min().orElse(0));
-        totalStats.setMax(allStats.stream().mapToDouble(SamplerStats::getMax).max().orElse(0));
-        
-        // Sum throughputs
-        totalStats.setThroughput(allStats.stream().mapToDouble(SamplerStats::getThroughput).sum());
-        totalStats.setReceivedKBPerSec(allStats.stream().mapToDouble(SamplerStats::getReceivedKBPerSec).sum());
-        totalStats.setSentKBPerSec(allStats.stream().mapToDouble(SamplerStats::getSentKBPerSec).sum());
-        
-        return totalStats;
-    }
-    
-    private static class SampleRecord {
-        long timeStamp;
-        int elapsed;
-        String label;
-        String responseCode;
-        boolean success;
-        long bytes;
-        long sentBytes;
-        int latency;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package org.perf.reporting;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Output stream that collects bytes into large buffers and hands full buffers to a background
+ * thread, which compresses and writes them. Sampler threads writing results therefore only pay
+ * for a memory copy; compression and disk I/O happen elsewhere.
+ * <p>
+ * At most {@value #QUEUE_DEPTH} buffers wait for the compressor. If it falls further behind,
+ * writers block until a buffer is free, so memory stays bounded. Not thread safe; callers
+ * serialize writes (as {@link JtlCsvWriter} does).
+ */
+class BackgroundCompressingOutputStream extends OutputStream {
+    static final int BUFFER_SIZE = 256 * 1024;
+    private static final int QUEUE_DEPTH = 8;
+
+    private record Chunk(byte[] data, int length) {}
+    private static final Chunk END = new Chunk(new byte[0], -1);
+
+    private final BlockingQueue<Chunk> pending = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+    private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(QUEUE_DEPTH + 2);
+    private final OutputStream compressed;
+    private final Thread compressor;
+    private volatile IOException failure;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int count;
+    private boolean closed;
+
+    BackgroundCompressingOutputStream(Path file, CompressionCodec codec) throws IOException {
+        // Opened here so a bad path fails the caller, not the background thread
+        this.compressed = codec.compress(new BufferedOutputStream(ResultFormat.newFile(file), 64 * 1024));
+        this.compressor = Thread.ofPlatform()
+            .name("result-compressor-" + file.getFileName())
+            .daemon()
+            .start(this::compressLoop);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            handOff();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (count == buffer.length) {
+                handOff();
+            }
+            int n = Math.min(length, buffer.length - count);
+            System.arraycopy(bytes, offset, buffer, count, n);
+            count += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (count > 0) {
+            handOff();
+        }
+        putUninterruptibly(END);
+        try {
+            compressor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while finishing compressed results", e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void handOff() throws IOException {
+        if (failure != null) {
+            throw new IOException("Result compression failed", failure);
+        }
+        putUninterruptibly(new Chunk(buffer, count));
+        byte[] recycled = free.poll();
+        buffer = recycled != null ? recycled : new byte[BUFFER_SIZE];
+        count = 0;
+    }
+
+    private void putUninterruptibly(Chunk chunk) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                pending.put(chunk);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void compressLoop() {
+        while (true) {
+            Chunk chunk;
+            try {
+                chunk = pending.take();
+            } catch (InterruptedException e) {
+                continue; // only close() ends the loop, so writers never wait on a dead thread
+            }
+            if (chunk == END) {
+                break;
+            }
+            if (failure == null) {
+                try {
+                    compressed.write(chunk.data(), 0, chunk.length());
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            free.offer(chunk.data());
+        }
+        try {
+            compressed.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package org.perf.reporting;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.perf.reporting.ColumnarResultWriter.*;
+
+/**
+ * Reads files written by {@link ColumnarResultWriter}. Blocks are self-contained, so the block
+ * index is built from the block lengths and footers alone and blocks can be decoded in parallel;
+ * aggregation only decodes the columns the Aggregate Report and the latency breakdown use.
+ */
+public class ColumnarResultReader implements Closeable {
+    private final FileChannel channel;
+    private final String hostname;
+    private final List<BlockInfo> blocks = new ArrayList<>();
+
+    private ColumnarResultReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            byte[] head = new byte[MAGIC.length + 1 + 10];
+            int headLength = read(0, head, (int) Math.min(head.length, channel.size()));
+            Source source = new Source(head, headLength);
+            for (byte b : MAGIC) {
+                if (source.readByte() != b) {
+                    throw new IOException("Not a columnar result file: " + file);
+                }
+            }
+            int version = source.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported columnar result version " + version + ": " + file);
+            }
+            int hostnameLength = (int) source.readVarint();
+            byte[] hostnameBytes = new byte[hostnameLength];
+            read(source.position(), hostnameBytes, hostnameLength);
+            this.hostname = new String(hostnameBytes, StandardCharsets.UTF_8);
+            indexBlocks(source.position() + hostnameLength);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static ColumnarResultReader open(Path file) throws IOException {
+        return new ColumnarResultReader(file);
+    }
+
+    /** True if the file starts with the columnar format's magic bytes. */
+    public static boolean isColumnar(Path file) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) < MAGIC.length) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        }
+    }
+
+    public String getHostname() {
+        return hostname;
+    }
+
+    public List<BlockInfo> getBlocks() {
+        return blocks;
+    }
+
+    public long getSampleCount() {
+        return blocks.stream().mapToLong(BlockInfo::getRows).sum();
+    }
+
+    /** Writes the samples as a CSV JTL, for tools that only read CSV. */
+    public void convertToCsv(Path csvFile) throws IOException {
+        try (JtlCsvWriter writer = new JtlCsvWriter(csvFile)) {
+            forEachRow(writer::write);
+        }
+    }
+
+    /** Calls {@code consumer} for every row in file order; the row instance is reused. */
+    void forEachRow(RowConsumer consumer) throws IOException {
+        ResultRow row = new ResultRow();
+        row.hostname = hostname;
+        for (BlockInfo block : blocks) {
+            DecodedBlock decoded = decode(block, true);
+            for (int i = 0; i < decoded.rows; i++) {
+                decoded.fill(row, i);
+                consumer.accept(row);
+            }
+        }
+    }
+
+    /** Aggregates all blocks on {@code pool}, one partial collector per block, merged at the end. */
+    AggregateCollector aggregate(ForkJoinPool pool, int significantDigits) throws IOException {
+        try {
+            return pool.submit(() -> blocks.parallelStream()
+                .map(block -> aggregateBlock(block, significantDigits))
+                .reduce((left, right) -> {
+                    left.merge(right);
+                    return left;
+                })
+                .orElseGet(() -> new AggregateCollector(significantDigits))).join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private AggregateCollector aggregateBlock(BlockInfo block, int significantDigits) {
+        AggregateCollector partial = new AggregateCollector(significantDigits);
+        try {
+            DecodedBlock decoded = decode(block, false);
+            for (int i = 0; i < decoded.rows; i++) {
+                partial.add(decoded.dictionary[decoded.strings[LABEL][i]], decoded.numeric[TIMESTAMP][i],
+                    decoded.numeric[ELAPSED][i], decoded.success[i], decoded.numeric[BYTES][i], decoded.numeric[SENT_BYTES][i],
+                    decoded.numeric[LATENCY][i], decoded.numeric[CONNECT][i], decoded.numeric[IDLE_TIME][i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return partial;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void indexBlocks(long position) throws IOException {
+        long size = channel.size();
+        byte[] length = new byte[4];
+        byte[] footer = new byte[FOOTER_SIZE];
+        while (position + 4 <= size) {
+            read(position, length, 4);
+            int blockLength = ByteBuffer.wrap(length).getInt();
+            if (blockLength < FOOTER_SIZE || position + 4 + blockLength > size) {
+                System.err.println("⚠️ Ignoring truncated block at offset " + position + " of columnar results");
+                break;
+            }
+            read(position + 4 + blockLength - FOOTER_SIZE, footer, FOOTER_SIZE);
+            ByteBuffer f = ByteBuffer.wrap(footer);
+            blocks.add(new BlockInfo(position + 4, blockLength, f.getLong(), f.getLong(), f.getLong(), f.getLong(), f.getInt(), f.getInt()));
+            position += 4 + blockLength;
+        }
+    }
+
+    private DecodedBlock decode(BlockInfo block, boolean allColumns) throws IOException {
+        byte[] bytes = new byte[block.length - FOOTER_SIZE];
+        read(block.offset, bytes, bytes.length);
+        Source source = new Source(bytes, bytes.length);
+
+        DecodedBlock decoded = new DecodedBlock((int) source.readVarint());
+        decoded.dictionary = new String[(int) source.readVarint()];
+        for (int i = 0; i < decoded.dictionary.length; i++) {
+            decoded.dictionary[i] = source.readString();
+        }
+        for (int column = 0; column < NUMERIC_COLUMNS; column++) {
+            int sectionEnd = (int) source.readVarint() + source.position();
+            if (allColumns || column == TIMESTAMP || column == ELAPSED || column == BYTES || column == SENT_BYTES
+                || column == LATENCY || column == CONNECT || column == IDLE_TIME) {
+                long[] values = decoded.numeric[column];
+                long previous = 0;
+                for (int i = 0; i < decoded.rows; i++) {
+                    long value = unZigZag(source.readVarint());
+                    values[i] = column == TIMESTAMP ? previous + value : value;
+                    previous = values[i];
+                }
+            }
+            source.seek(sectionEnd);
+        }
+        int successEnd = (int) source.readVarint() + source.position();
+        for (int i = 0; i < decoded.rows; i += 8) {
+            int bits = source.readByte();
+            for (int bit = 0; bit < 8 && i + bit < decoded.rows; bit++) {
+                decoded.success[i + bit] = (bits & (1 << bit)) != 0;
+            }
+        }
+        source.seek(successEnd);
+        for (int column = 0; column < STRING_COLUMNS; column++) {
+            int sectionEnd = (int) source.readVarint() + source.position();
+            if (allColumns || column == LABEL) {
+                int[] ids = decoded.strings[column];
+                for (int i = 0; i < decoded.rows; i++) {
+                    ids[i] = (int) source.readVarint();
+                }
+            }
+            source.seek(sectionEnd);
+        }
+        return decoded;
+    }
+
+    private int read(long position, byte[] target, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(target, 0, length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of columnar result file");
+            }
+        }
+        return length;
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    interface RowConsumer {
+        void accept(ResultRow row) throws IOException;
+    }
+
+    /** Location and footer summary of one block. */
+    public static class BlockInfo {
+        private final long offset;
+        private final int length;
+        private final long minTimeStamp;
+        private final long maxTimeStamp;
+        private final long minElapsed;
+        private final long maxElapsed;
+        private final int rows;
+        private final int errors;
+
+        BlockInfo(long offset, int length, long minTimeStamp, long maxTimeStamp,
+                  long minElapsed, long maxElapsed, int rows, int errors) {
+            this.offset = offset;
+            this.length = length;
+            this.minTimeStamp = minTimeStamp;
+            this.maxTimeStamp = maxTimeStamp;
+            this.minElapsed = minElapsed;
+            this.maxElapsed = maxElapsed;
+            this.rows = rows;
+            this.errors = errors;
+        }
+
+        public long getMinTimeStamp() { return minTimeStamp; }
+        public long getMaxTimeStamp() { return maxTimeStamp; }
+        public long getMinElapsed() { return minElapsed; }
+        public long getMaxElapsed() { return maxElapsed; }
+        public int getRows() { return rows; }
+        public int getErrors() { return errors; }
+    }
+
+    private static final class DecodedBlock {
+        final int rows;
+        final long[][] numeric;
+        final int[][] strings;
+        final boolean[] success;
+        String[] dictionary;
+
+        DecodedBlock(int rows) {
+            this.rows = rows;
+            this.numeric = new long[NUMERIC_COLUMNS][rows];
+            this.strings = new int[STRING_COLUMNS][rows];
+            this.success = new boolean[rows];
+        }
+
+        void fill(ResultRow row, int i) {
+            row.timeStamp = numeric[TIMESTAMP][i];
+            row.elapsed = numeric[ELAPSED][i];
+            row.latency = numeric[LATENCY][i];
+            row.connect = numeric[CONNECT][i];
+            row.idleTime = numeric[IDLE_TIME][i];
+            row.bytes = numeric[BYTES][i];
+            row.sentBytes = numeric[SENT_BYTES][i];
+            row.grpThreads = numeric[GRP_THREADS][i];
+            row.allThreads = numeric[ALL_THREADS][i];
+            row.sampleCount = numeric[SAMPLE_COUNT][i];
+            row.errorCount = numeric[ERROR_COUNT][i];
+            row.success = success[i];
+            row.label = dictionary[strings[LABEL][i]];
+            row.responseCode = dictionary[strings[RESPONSE_CODE][i]];
+            row.responseMessage = dictionary[strings[RESPONSE_MESSAGE][i]];
+            row.threadName = dictionary[strings[THREAD_NAME][i]];
+            row.dataType = dictionary[strings[DATA_TYPE][i]];
+            row.failureMessage = dictionary[strings[FAILURE_MESSAGE][i]];
+            row.url = dictionary[strings[URL][i]];
+            row.encoding = dictionary[strings[ENCODING][i]];
+        }
+    }
+
+    /** Cursor over a byte array with the format's decodings. */
+    private static final class Source {
+        private final byte[] bytes;
+        private final int limit;
+        private int position;
+
+        Source(byte[] bytes, int limit) {
+            this.bytes = bytes;
+            this.limit = limit;
+        }
+
+        int position() {
+            return position;
+        }
+
+        void seek(int position) {
+            this.position = position;
+        }
+
+        int readByte() throws IOException {
+            if (position >= limit) {
+                throw new EOFException("Corrupt columnar result block");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in columnar result block");
+        }
+
+        String readString() throws IOException {
+            int length = (int) readVarint();
+            if (position + length > limit) {
+                throw new EOFException("Corrupt columnar result block");
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.perf.reporting;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming codecs for compressed CSV result files, recognized by their magic bytes.
+ */
+enum CompressionCodec {
+    GZIP(new byte[] {(byte) 0x1F, (byte) 0x8B}),
+    ZSTD(new byte[] {(byte) 0x28, (byte) 0xB5, (byte) 0x2F, (byte) 0xFD});
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final byte[] magic;
+
+    CompressionCodec(byte[] magic) {
+        this.magic = magic;
+    }
+
+    OutputStream compress(OutputStream out) throws IOException {
+        return switch (this) {
+            case GZIP -> new GZIPOutputStream(out, BUFFER_SIZE);
+            case ZSTD -> new ZstdOutputStream(out);
+        };
+    }
+
+    InputStream decompress(InputStream in) throws IOException {
+        return switch (this) {
+            case GZIP -> new GZIPInputStream(in, BUFFER_SIZE);
+            case ZSTD -> new BufferedInputStream(new ZstdInputStream(in), BUFFER_SIZE);
+        };
+    }
+
+    /** The codec {@code file} was written with, or null for an uncompressed file. */
+    static CompressionCodec detect(Path file) throws IOException {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(file)) {
+            head = in.readNBytes(4);
+        }
+        for (CompressionCodec codec : values()) {
+            if (head.length >= codec.magic.length && startsWith(head, codec.magic)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    static InputStream openDecompressed(Path file, CompressionCodec codec) throws IOException {
+        return codec.decompress(Files.newInputStream(file));
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
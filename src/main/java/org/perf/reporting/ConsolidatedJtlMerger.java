@@ -0,0 +1,138 @@
+package org.perf.reporting;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Appends per-test result files to one consolidated CSV JTL. The data rows are copied with
+ * {@link FileChannel#transferTo} into a single channel kept open for the session, so the bytes are
+ * never decoded and merging millions of rows is bound by disk speed.
+ * <p>
+ * Rows are not rewritten to carry the test name; instead a side file next to the JTL
+ * ({@code <jtl>.tests.csv}) maps each test to the byte range its rows occupy.
+ */
+class ConsolidatedJtlMerger implements Closeable {
+    static final String TESTS_SUFFIX = ".tests.csv";
+    private static final byte[] HEADER_LINE = (JtlCsvWriter.HEADER + "\n").getBytes(StandardCharsets.UTF_8);
+
+    private final Path jtlFile;
+    private final FileChannel channel;
+    private final BufferedWriter tests;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    ConsolidatedJtlMerger(Path jtlFile) throws IOException {
+        this.jtlFile = jtlFile;
+        this.channel = FileChannel.open(jtlFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writeFully(ByteBuffer.wrap(HEADER_LINE));
+            this.tests = Files.newBufferedWriter(testsFile(jtlFile));
+            tests.write("testName,threadName,firstByte,endByte\n");
+            tests.flush();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** The side file listing the byte range of each test's rows in {@code jtlFile}. */
+    static Path testsFile(Path jtlFile) {
+        return jtlFile.resolveSibling(jtlFile.getFileName() + TESTS_SUFFIX);
+    }
+
+    /**
+     * Appends the data rows of {@code resultsFile} (any {@link ResultFormat}) and records their byte
+     * range under {@code testName}. Returns the number of bytes appended.
+     */
+    long append(String testName, String threadName, Path resultsFile) throws IOException {
+        Path csvFile = ResultFormat.expandToCsv(resultsFile);
+        try (FileChannel source = FileChannel.open(csvFile, StandardOpenOption.READ)) {
+            long size = source.size();
+            long dataStart = dataStart(source, resultsFile);
+            if (dataStart < 0 || dataStart >= size) {
+                return 0;
+            }
+            boolean endsWithNewline = byteAt(source, size - 1) == '\n';
+
+            lock.lock();
+            try {
+                long firstByte = channel.position();
+                for (long position = dataStart; position < size; ) {
+                    position += source.transferTo(position, size - position, channel);
+                }
+                if (!endsWithNewline) {
+                    writeFully(ByteBuffer.wrap(new byte[]{'\n'}));
+                }
+                long endByte = channel.position();
+                tests.write(csvField(testName) + "," + csvField(threadName) + "," + firstByte + "," + endByte + "\n");
+                tests.flush();
+                return endByte - firstByte;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            if (!csvFile.equals(resultsFile)) {
+                Files.deleteIfExists(csvFile);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            tests.close();
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Offset just past the header line, or -1 if the columns don't match the consolidated header. */
+    private long dataStart(FileChannel source, Path resultsFile) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(source.size(), 64 * 1024));
+        while (head.hasRemaining() && source.read(head, head.position()) > 0) {
+            // keep reading until the buffer is full or the file ends
+        }
+        head.flip();
+        for (int i = 0; i < head.limit(); i++) {
+            if (head.get(i) == '\n') {
+                int headerEnd = i > 0 && head.get(i - 1) == '\r' ? i - 1 : i;
+                String header = new String(head.array(), 0, headerEnd, StandardCharsets.UTF_8);
+                if (!header.equalsIgnoreCase(JtlCsvWriter.HEADER)) {
+                    System.err.println("⚠️ Not merging " + resultsFile + " into " + jtlFile.getFileName()
+                        + ": its columns differ from the consolidated header");
+                    return -1;
+                }
+                return i + 1;
+            }
+        }
+        return source.size();
+    }
+
+    private static int byteAt(FileChannel source, long position) throws IOException {
+        ByteBuffer one = ByteBuffer.allocate(1);
+        return source.read(one, position) == 1 ? one.get(0) : -1;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -5,11 +5,12 @@
 package org.perf.reporting;
 
 import org.perf.model.ExecutionResult;
+import org.perf.monitoring.ExecutorPhase;
+import org.perf.monitoring.ExecutorPhaseEvent;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -22,6 +23,7 @@ public class ConsolidatedReportManager {
     private final ReentrantLock reportLock = new ReentrantLock();
     private Path consolidatedReportDir;
     private Path consolidatedJtlFile;
+    private ConsolidatedJtlMerger jtlMerger;
     
     private ConsolidatedReportManager() {
         initializeReportDirectory();
@@ -38,9 +40,11 @@ public class ConsolidatedReportManager {
             Files.createDirectories(consolidatedReportDir);
             consolidatedJtlFile = consolidatedReportDir.resolve("consolidated-results.jtl");
             
-            // Create JTL header
-            String jtlHeader = "timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success,failureMessage,bytes,sentBytes,grpThreads,allThreads,URL,Filename,latency,encoding,SampleCount,ErrorCount,Hostname,IdleTime,Connect\n";
-            Files.write(consolidatedJtlFile, jtlHeader.getBytes(), StandardOpenOption.CREATE);
+            // One channel for the whole session; each test's rows are appended to it as they arrive
+            if (jtlMerger != null) {
+                jtlMerger.close();
+            }
+            jtlMerger = new ConsolidatedJtlMerger(consolidatedJtlFile);
             
             System.out.println("📊 Consolidated report directory: " + consolidatedReportDir);
         } catch (IOException e) {
@@ -65,18 +69,12 @@ public class ConsolidatedReportManager {
     
     private void appendToConsolidatedJtl(TestResultEntry entry) {
         try {
-            // Copy individual JTL content to consolidated file (skip header)
-            Path individualJtl = entry.result.getConfig().getResultsDirectory().resolve("results.jtl");
-            if (Files.exists(individualJtl)) {
-                List<String> lines = Files.readAllLines(individualJtl);
-                if (lines.size() > 1) { // Skip header line
-                    for (int i = 1; i < lines.size(); i++) {
-                        String line = lines.get(i);
-                        // Prefix each line with test name for identification
-                        String enhancedLine = line.replaceFirst("^([^,]+),", "$1," + entry.testName + "-");
-                        Files.write(consolidatedJtlFile, (enhancedLine + "\n").getBytes(), StandardOpenOption.APPEND);
-                    }
-                }
+            // Rows are copied as-is; the test each row belongs to is recorded in the side file
+            Path individualJtl = ResultFormat.findResultsFile(entry.result.getConfig().getResultsDirectory());
+            if (individualJtl != null) {
+                ExecutorPhaseEvent copyEvent = ExecutorPhaseEvent.begin(ExecutorPhase.REPORT_COPY, entry.testName);
+                jtlMerger.append(entry.testName, entry.threadName, individualJtl);
+                copyEvent.commit();
             }
         } catch (IOException e) {
             System.err.println("Failed to append to consolidated JTL: " + e.getMessage());
@@ -169,26 +167,27 @@ public class ConsolidatedReportManager {
     
     private void generateConsolidatedHtmlReport() {
         try {
-            // Generate JMeter HTML report from consolidated JTL
-            String jmeterHome = System.getProperty("jmeter.home", "/usr/local/bin/jmeter");
+            // Dashboard over every test, rendered in process from the merged aggregates
             Path htmlReportDir = consolidatedReportDir.resolve("jmeter-html-report");
-            
-            ProcessBuilder pb = new ProcessBuilder(
-                jmeterHome + "/bin/jmeter",
-                "-g", consolidatedJtlFile.toString(),
-                "-o", htmlReportDir.toString()
-            );
-            
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-            
-            if (exitCode == 0) {
-                System.out.println("📊 JMeter HTML report generated: " + htmlReportDir);
+            ExecutorPhaseEvent aggregateEvent = ExecutorPhaseEvent.begin(ExecutorPhase.REPORT_AGGREGATION, null);
+            AggregateCollector merged = new AggregateCollector();
+            for (TestResultEntry entry : allResults) {
+                if (entry.result.getAggregates() != null) {
+                    merged.merge(entry.result.getAggregates());
+                }
+            }
+            TimeSeriesCollector timeSeries = TimeSeriesCollector.fromResults(consolidatedJtlFile, TimeSeriesCollector.DEFAULT_BUCKET_MILLIS);
+            aggregateEvent.commit();
+            ExecutorPhaseEvent renderEvent = ExecutorPhaseEvent.begin(ExecutorPhase.REPORT_RENDERING, null);
+            if (merged.getSampleCount() > 0) {
+                HtmlDashboardGenerator.generate(htmlReportDir, "Consolidated Results", merged, timeSeries);
             } else {
-                System.out.println("⚠️ JMeter HTML report generation skipped (JMeter not found or error occurred)");
+                HtmlDashboardGenerator.generateFromResults(htmlReportDir, "Consolidated Results", consolidatedJtlFile);
             }
+            renderEvent.commit();
+            System.out.println("📊 HTML dashboard generated: " + htmlReportDir);
         } catch (Exception e) {
-            System.out.println("⚠️ JMeter HTML report generation skipped: " + e.getMessage());
+            System.out.println("⚠️ HTML dashboard generation skipped: " + e.getMessage());
         }
     }
     
@@ -1,23 +1,45 @@
 package org.perf.reporting;
 
 import org.perf.model.ExecutionResult;
+import org.perf.monitoring.ExecutorPhase;
+import org.perf.monitoring.ExecutorPhaseEvent;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class EnhancedConsolidatedReportManager {
     private static final EnhancedConsolidatedReportManager INSTANCE = new EnhancedConsolidatedReportManager();
     private final List<TestResultEntry> allResults = new CopyOnWriteArrayList<>();
     private final ReentrantLock reportLock = new ReentrantLock();
+    private static final int REPORT_THREADS = 4;
+    private static final int REPORT_QUEUE_SIZE = 64;
+    // Copying, aggregation and rendering run here so addTestResult returns straight away
+    private final ExecutorService reportExecutor = newReportExecutor();
+    private final Queue<Future<?>> pendingReports = new ConcurrentLinkedQueue<>();
     private Path consolidatedReportDir;
     private Path consolidatedJtlFile;
+    private ConsolidatedJtlMerger jtlMerger;
     private final String sessionTimestamp;
     
     private EnhancedConsolidatedReportManager() {
@@ -35,12 +57,16 @@ public class EnhancedConsolidatedReportManager {
             Files.createDirectories(consolidatedReportDir);
             Files.createDirectories(consolidatedReportDir.resolve("individual-reports"));
             Files.createDirectories(consolidatedReportDir.resolve("consolidated-report"));
+            // Linked by every page of the session rather than inlined into each
+            HtmlTemplate.writeStylesheet(consolidatedReportDir);
             
             consolidatedJtlFile = consolidatedReportDir.resolve("consolidated-report").resolve("all-tests-combined.jtl");
             
-            // Create JTL header
-            String jtlHeader = "timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success,failureMessage,bytes,sentBytes,grpThreads,allThreads,URL,Filename,latency,encoding,SampleCount,ErrorCount,Hostname,IdleTime,Connect\n";
-            Files.write(consolidatedJtlFile, jtlHeader.getBytes(), StandardOpenOption.CREATE);
+            // One channel for the whole session; each test's rows are appended to it as they arrive
+            if (jtlMerger != null) {
+                jtlMerger.close();
+            }
+            jtlMerger = new ConsolidatedJtlMerger(consolidatedJtlFile);
             
             System.out.println("📊 Test session directory: " + consolidatedReportDir);
         } catch (IOException e) {
@@ -48,7 +74,13 @@ public class EnhancedConsolidatedReportManager {
         }
     }
     
-    public synchronized void addTestResult(String testName, ExecutionResult result) {
+    /**
+     * Records a finished test and returns straight away: the result files are hard-linked into the
+     * test's report directory, and the summary, HTML report and consolidated JTL merge run on the
+     * report executor, as do copies of any file that could not be linked.
+     * {@link #generateConsolidatedReport()} waits for them.
+     */
+    public void addTestResult(String testName, ExecutionResult result) {
         TestResultEntry entry = new TestResultEntry(
             testName,
             Thread.currentThread().getName(),
@@ -57,390 +89,596 @@ public class EnhancedConsolidatedReportManager {
         );
         allResults.add(entry);
         
-        copyIndividualReport(entry);
-        appendToConsolidatedJtl(entry);
+        Path targetDir = individualReportDir(entry);
+        List<PendingCopy> copies;
+        try {
+            copies = snapshotResults(entry.result.getConfig().getResultsDirectory(), targetDir);
+        } catch (IOException e) {
+            System.err.println("Failed to copy individual report for " + entry.testName + ": " + e.getMessage());
+            return;
+        }
+        pendingReports.add(reportExecutor.submit(() -> {
+            if (finishCopies(entry, copies)) {
+                processTestResult(entry, targetDir);
+            }
+        }));
         
-        System.out.println("📈 Added result for: " + testName + " | Reports: ✅ | Total tests: " + allResults.size());
+        System.out.println("📈 Queued result for: " + testName + " | Total tests: " + allResults.size());
     }
     
-    private void copyIndividualReport(TestResultEntry entry) {
-        try {
-            Path sourceDir = entry.result.getConfig().getResultsDirectory();
-            String safeTestName = entry.testName.replaceAll("[^a-zA-Z0-9-_]", "-");
-            Path targetDir = consolidatedReportDir.resolve("individual-reports")
-                .resolve(safeTestName + "-" + entry.threadName.replaceAll("[^a-zA-Z0-9-_]", "-"));
+    private void processTestResult(TestResultEntry entry, Path targetDir) {
+        if (Files.exists(targetDir)) {
+            ExecutorPhaseEvent renderEvent = ExecutorPhaseEvent.begin(ExecutorPhase.REPORT_RENDERING, entry.testName);
+            // Dashboard first, so the summary can link to it
+            generateIndividualHtmlReport(entry, targetDir);
             
-            if (Files.exists(sourceDir)) {
-                copyDirectory(sourceDir, targetDir);
-
-                //Add delay for Jtl file to be completly written
-                Path jtlFile = targetDir.resolve("results.jtl");
-                if(Files.exists(jtlFile)) {
-                    // wait for file to be flushed
-                    try {
-                        Thread.sleep(2000);    
-                    } catch (
-                     InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-
-                    try {
-                            // Re-check the file after waiting
-                            long fileSize = Files.size(jtlFile);
-                            List<String> lines = Files.readAllLines(jtlFile);
-                            System.out.println("JTL file size: " + fileSize + " bytes, lines: " + lines.size());
-                    } catch (Exception e) {
-                        System.err.println("Warning: Could not verify JTL file: " + e.getMessage());
-                    }
-                }
-
+            try {
                 createEnhancedIndividualTestSummary(entry, targetDir);
-                
-                // NEW: Generate individual HTML report post-execution (safe from conflicts)
-                generateIndividualHtmlReport(entry, targetDir);
-                
-                System.out.println("📄 Enhanced individual report created: " + targetDir.getFileName());
+            } catch (IOException e) {
+                System.err.println("Failed to create individual report for " + entry.testName + ": " + e.getMessage());
+            }
+            renderEvent.commit();
+            
+            System.out.println("📄 Enhanced individual report created: " + targetDir.getFileName());
+        }
+        appendToConsolidatedJtl(entry, targetDir);
+    }
+    
+    private Path individualReportDir(TestResultEntry entry) {
+        String safeTestName = entry.testName.replaceAll("[^a-zA-Z0-9-_]", "-");
+        return consolidatedReportDir.resolve("individual-reports")
+            .resolve(safeTestName + "-" + entry.threadName.replaceAll("[^a-zA-Z0-9-_]", "-"));
+    }
+    
+    /**
+     * Snapshots the test's results directory so the background work never sees a later run reusing
+     * it. Files are hard-linked, which costs the same however big they are; result writers replace
+     * their file instead of truncating it, so a rerun leaves the linked content alone. Where the file
+     * system cannot link, the file is opened now and returned for the report executor to copy: the
+     * open channel keeps this run's content even if a rerun replaces the file meanwhile.
+     */
+    private List<PendingCopy> snapshotResults(Path sourceDir, Path targetDir) throws IOException {
+        List<PendingCopy> copies = new ArrayList<>();
+        if (!Files.exists(sourceDir)) {
+            return copies;
+        }
+        try (java.util.stream.Stream<Path> paths = Files.walk(sourceDir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path targetPath = targetDir.resolve(sourceDir.relativize(path));
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(targetPath);
+                    continue;
+                }
+                // The same test on the same thread replaces its previous snapshot
+                Files.deleteIfExists(targetPath);
+                try {
+                    Files.createLink(targetPath, path);
+                } catch (IOException | UnsupportedOperationException e) {
+                    copies.add(new PendingCopy(FileChannel.open(path, StandardOpenOption.READ), targetPath));
+                }
             }
         } catch (IOException e) {
-            System.err.println("Failed to copy individual report for " + entry.testName + ": " + e.getMessage());
+            for (PendingCopy copy : copies) {
+                copy.source.close();
+            }
+            throw e;
+        }
+        return copies;
+    }
+    
+    /** Copies the files the snapshot could not link; false if one failed and the test is skipped. */
+    private boolean finishCopies(TestResultEntry entry, List<PendingCopy> copies) {
+        if (copies.isEmpty()) {
+            return true;
         }
+        ExecutorPhaseEvent copyEvent = ExecutorPhaseEvent.begin(ExecutorPhase.REPORT_COPY, entry.testName);
+        boolean copied = true;
+        for (PendingCopy copy : copies) {
+            try (FileChannel source = copy.source;
+                 FileChannel target = FileChannel.open(copy.target, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long size = source.size();
+                for (long position = 0; position < size; ) {
+                    position += source.transferTo(position, size - position, target);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to copy individual report for " + entry.testName + ": " + e.getMessage());
+                copied = false;
+            }
+        }
+        copyEvent.commit();
+        return copied;
     }
     
-    // NEW METHOD: Generate individual HTML report post-execution
+    /** Blocks until every queued test result has been processed. */
+    private void awaitPendingReports() {
+        for (Future<?> pending : pendingReports) {
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                System.err.println("⚠️ Report task failed: " + e.getCause());
+            }
+            pendingReports.remove(pending);
+        }
+    }
+    
+    private static ExecutorService newReportExecutor() {
+        int threads = Math.max(1, Math.min(REPORT_THREADS, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(REPORT_QUEUE_SIZE),
+            runnable -> {
+                Thread thread = new Thread(runnable, "report-worker-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // A full queue pushes the work back onto the test thread instead of growing without bound
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    // Dashboard per test, rendered in process from the aggregates collected during the run
     private void generateIndividualHtmlReport(TestResultEntry entry, Path targetDir) {
         try {
-            Path jtlFile = targetDir.resolve("results.jtl");
-            if (Files.exists(jtlFile) && Files.size(jtlFile) > 100) { // Check if JTL has content
-                Path htmlReportDir = targetDir.resolve("html-report");
-                Files.createDirectories(htmlReportDir);
-                
-                System.out.println("📊 [" + entry.threadName + "] Generating HTML report for: " + entry.testName);
-                
-                // Use JMeter command line tool to generate HTML report (if available)
-                generateHtmlReportFromJtl(jtlFile, htmlReportDir);
+            Path htmlReportDir = targetDir.resolve("html-report");
+            long start = System.nanoTime();
+            AggregateCollector aggregates = entry.result.getAggregates();
+            if (aggregates != null && aggregates.getSampleCount() > 0) {
+                HtmlDashboardGenerator.generate(htmlReportDir, entry.testName, aggregates, entry.result.getTimeSeries());
+            } else {
+                // No live aggregates (e.g. a result loaded from disk): build it from the results file
+                Path resultsFile = ResultFormat.findResultsFile(targetDir);
+                if (resultsFile == null || Files.size(resultsFile) == 0) {
+                    return;
+                }
+                HtmlDashboardGenerator.generateFromResults(htmlReportDir, entry.testName, resultsFile);
             }
+            System.out.println("📊 [" + entry.threadName + "] HTML dashboard for " + entry.testName + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
         } catch (Exception e) {
             System.err.println("⚠️ Could not generate HTML report for " + entry.testName + ": " + e.getMessage());
             // This is non-critical, continue without HTML report
         }
     }
     
-    // NEW METHOD: Generate HTML report from JTL using external JMeter CLI
-    private void generateHtmlReportFromJtl(Path jtlFile, Path htmlReportDir) {
+    private static final HtmlTemplate PAGE_HEAD = HtmlTemplate.compile(
+        "<!DOCTYPE html><html><head><meta charset='UTF-8'><title>{{title}}</title>"
+        + "<link rel='stylesheet' href='{{stylesheet}}'></head><body class='{{page}}'>");
+    private static final HtmlTemplate PAGE_FOOTER = HtmlTemplate.compile(
+        "<hr><p class='footer'><i>{{note}}</i></p></div></body></html>");
+    private static final HtmlTemplate TABLE_END = HtmlTemplate.compile("</table></div>");
+    private static final HtmlTemplate MESSAGE = HtmlTemplate.compile("<p class='{{cssClass}}'><i>{{message}}</i></p>");
+    private static final HtmlTemplate LINK = HtmlTemplate.compile("<li><a href='{{href}}'>{{text}}</a></li>");
+    
+    private static final HtmlTemplate TEST_HEADER = HtmlTemplate.compile(
+        "<div class='container'>"
+        + "<a href='../consolidated-report/consolidated-summary.html' class='back-link'>← Back to Consolidated Report</a>"
+        + "<h1>🎯 {{testName}} - Detailed Analysis</h1>"
+        + "<div class='info-box'><p><strong>ℹ️ Parallel Execution Note:</strong> This report and the HTML dashboard are built "
+        + "after the test finishes, off the test thread. All raw data is available in the results file for analysis.</p></div>"
+        + "<table><tr><th colspan='2'>Test Configuration</th></tr>"
+        + "<tr><td><strong>Thread Name</strong></td><td>{{threadName}}</td></tr>"
+        + "<tr><td><strong>Execution Time</strong></td><td>{{executionTime}}</td></tr>"
+        + "<tr><td><strong>Base URL</strong></td><td>{{baseUrl}}</td></tr>"
+        + "<tr><td><strong>Connection Timeout</strong></td><td>{{connectionTimeout}}s</td></tr>"
+        + "<tr><td><strong>Response Timeout</strong></td><td>{{responseTimeout}}s</td></tr>"
+        + "</table>");
+    private static final HtmlTemplate TEST_INVALID = HtmlTemplate.compile(
+        "<div class='invalid-box'><p><strong>⛔ Run invalid:</strong> {{verdict}}. The latencies below reflect the load "
+        + "generator, not the target; rerun with fewer users per generator or more generators.</p></div>");
+    private static final HtmlTemplate TEST_METRICS = HtmlTemplate.compile(
+        "<h2>📊 Key Metrics</h2><div class='metric-grid'>"
+        + "<div class='metric-card'><div class='metric-value'>{{samples}}</div><div class='metric-label'>Total Samples</div></div>"
+        + "<div class='metric-card'><div class='metric-value {{errorClass}}'>{{errors}}</div><div class='metric-label'>Total Errors</div></div>"
+        + "<div class='metric-card'><div class='metric-value'>{{mean}}ms</div><div class='metric-label'>Mean Response Time</div></div>"
+        + "<div class='metric-card'><div class='metric-value {{errorClass}}'>{{errorRate}}</div><div class='metric-label'>Error Rate</div></div>"
+        + "</div>"
+        + "<h2>⏱️ Response Time Analysis</h2>"
+        + "<table><tr><th>Metric</th><th class='numeric'>Value (ms)</th></tr>"
+        + "<tr><td>Minimum Response Time</td><td class='numeric'>{{min}}</td></tr>"
+        + "<tr><td>Mean Response Time</td><td class='numeric'>{{mean}}</td></tr>"
+        + "<tr><td>Median Response Time</td><td class='numeric'>{{median}}</td></tr>"
+        + "<tr><td>Maximum Response Time</td><td class='numeric'>{{max}}</td></tr>"
+        + "</table>"
+        + "<h2>📈 Aggregate Report</h2>"
+        + "<p><i>Detailed statistics for each sampler (similar to JMeter's Aggregate Report listener)</i></p>");
+    private static final HtmlTemplate JTL_FILE = HtmlTemplate.compile("<p><strong>JTL File:</strong> {{fileName}} ({{size}} bytes)</p>");
+    private static final HtmlTemplate AGGREGATE_TABLE = HtmlTemplate.compile(
+        "<div class='table-scroll'><table><tr><th>Sampler</th><th class='numeric'>Samples</th>"
+        + "<th class='numeric'>Average (ms)</th><th class='numeric'>Median (ms)</th><th class='numeric'>90% Line (ms)</th>"
+        + "<th class='numeric'>95% Line (ms)</th><th class='numeric'>99% Line (ms)</th><th class='numeric'>99.9% Line (ms)</th>"
+        + "<th class='numeric'>99.99% Line (ms)</th><th class='numeric'>Min (ms)</th><th class='numeric'>Max (ms)</th>"
+        + "<th class='numeric'>Error %</th><th class='numeric'>Throughput (/sec)</th><th class='numeric'>Received KB/sec</th>"
+        + "<th class='numeric'>Sent KB/sec</th></tr>");
+    private static final HtmlTemplate AGGREGATE_ROW = HtmlTemplate.compile(
+        "<tr class='{{rowClass}}'><td><strong>{{label}}</strong></td><td class='numeric'>{{samples}}</td>"
+        + "<td class='numeric'>{{average}}</td><td class='numeric'>{{median}}</td><td class='numeric'>{{p90}}</td>"
+        + "<td class='numeric'>{{p95}}</td><td class='numeric'>{{p99}}</td><td class='numeric'>{{p999}}</td>"
+        + "<td class='numeric'>{{p9999}}</td><td class='numeric'>{{min}}</td><td class='numeric'>{{max}}</td>"
+        + "<td class='numeric {{errorClass}}'>{{errorRate}}</td><td class='numeric'>{{throughput}}</td>"
+        + "<td class='numeric'>{{receivedKB}}</td><td class='numeric'>{{sentKB}}</td></tr>");
+    private static final HtmlTemplate DETAILS_START = HtmlTemplate.compile("<details><summary>{{summary}}</summary><pre>");
+    private static final HtmlTemplate DETAILS_LINE = HtmlTemplate.compile("{{line}}\n");
+    private static final HtmlTemplate DETAILS_END = HtmlTemplate.compile("</pre></details>");
+    private static final HtmlTemplate PARSE_ERROR = HtmlTemplate.compile(
+        "<p class='error'><i>Error parsing aggregate data: {{message}}</i></p>"
+        + "<p><strong>Debug Info:</strong> Error Type: {{errorType}}</p>");
+    private static final HtmlTemplate HEALTH_TABLE = HtmlTemplate.compile(
+        "<h2>🩺 Load Generator Health</h2><p class='{{verdictClass}}'><i>{{verdict}}</i></p>"
+        + "<table><tr><th>Metric</th><th class='numeric'>Peak</th><th class='numeric'>Limit</th></tr>"
+        + "<tr><td>Process CPU</td><td class='numeric'>{{cpu}}</td><td class='numeric'>{{cpuLimit}}</td></tr>"
+        + "<tr><td>GC Pauses (total ms)</td><td class='numeric'>{{gcPause}}</td><td class='numeric'>{{gcLimit}}</td></tr>"
+        + "<tr><td>Heap Live After GC (MB)</td><td class='numeric'>{{heapUsed}} of {{heapMax}}</td><td class='numeric'>{{heapLimit}}</td></tr>"
+        + "<tr><td>Live Threads</td><td class='numeric'>{{threads}}</td><td class='numeric'>-</td></tr>"
+        + "<tr><td>Open Sockets</td><td class='numeric'>{{sockets}}</td><td class='numeric'>-</td></tr>"
+        + "<tr><td>Scheduling Lag (ms)</td><td class='numeric'>{{lag}}</td><td class='numeric'>{{lagLimit}}</td></tr>"
+        + "</table>");
+    private static final HtmlTemplate ARRIVALS_TABLE = HtmlTemplate.compile(
+        "<h2>🚪 Open-Model Arrivals</h2><p class='{{noteClass}}'><i>{{note}}</i></p>"
+        + "<table><tr><th>Metric</th><th class='numeric'>Count</th></tr>"
+        + "<tr><td>Dropped Arrivals</td><td class='numeric'>{{dropped}}</td></tr>"
+        + "<tr><td>Late Arrivals</td><td class='numeric'>{{late}}</td></tr>"
+        + "</table>");
+    private static final int SLOWEST_ROWS = 20;
+    private static final HtmlTemplate SLOWEST_TABLE = HtmlTemplate.compile(
+        "<h2>🐢 Slowest Samples</h2><p><i>{{summary}}</i></p>"
+        + "<div class='table-scroll'><table><tr><th>Sampler</th><th>Started</th><th>Code</th>"
+        + "<th class='numeric'>Elapsed (ms)</th><th class='numeric'>Latency (ms)</th><th class='numeric'>Connect (ms)</th>"
+        + "<th class='numeric'>Bytes</th></tr>");
+    private static final HtmlTemplate SLOWEST_ROW = HtmlTemplate.compile(
+        "<tr class='{{rowClass}}'><td><strong>{{label}}</strong></td><td>{{started}}</td><td>{{code}}</td>"
+        + "<td class='numeric'>{{elapsed}}</td><td class='numeric'>{{latency}}</td><td class='numeric'>{{connect}}</td>"
+        + "<td class='numeric'>{{bytes}}</td></tr>");
+    private static final HtmlTemplate TEST_LINKS = HtmlTemplate.compile("<h2>🔗 Additional Reports</h2><ul>");
+    private static final HtmlTemplate TEST_LINKS_END = HtmlTemplate.compile(
+        "<li><a href='../consolidated-report/consolidated-summary.html'>📋 Consolidated Report</a></li>"
+        + "<li><a href='../index.html'>🏠 Session Index</a></li></ul>");
+    
+    private void createEnhancedIndividualTestSummary(TestResultEntry entry, Path reportDir) throws IOException {
+        ExecutionResult result = entry.result;
+        // Rendered straight to the file; only the current row is ever held in memory
+        try (Writer out = Files.newBufferedWriter(reportDir.resolve("test-summary.html"))) {
+            PAGE_HEAD.render(out, entry.testName + " - Individual Report", "../../" + HtmlTemplate.STYLESHEET, "test-summary");
+            TEST_HEADER.render(out, entry.testName, entry.threadName,
+                entry.executionTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
+                result.getConfig().getBaseUrl(),
+                result.getConfig().getConnectionTimeout().toSeconds(),
+                result.getConfig().getResponseTimeout().toSeconds());
+            if (!result.isValid()) {
+                TEST_INVALID.render(out, result.getGeneratorHealth().getVerdict());
+            }
+            String errorClass = result.getErrorCount() == 0 ? "success" : "error";
+            TEST_METRICS.render(out, result.getTotalSamples(), errorClass, result.getErrorCount(),
+                result.getMeanResponseTime().toMillis(), String.format("%.2f%%", result.getErrorPercentage()),
+                result.getMinResponseTime().toMillis(), result.getMedianResponseTime().toMillis(), result.getMaxResponseTime().toMillis());
+            
+            writeAggregateReport(entry, reportDir, out);
+            writeOverTime(entry, reportDir, out);
+            writeArrivals(result, out);
+            writeGeneratorHealth(entry, reportDir, out);
+            writeSlowestSamples(entry, out);
+            
+            TEST_LINKS.render(out);
+            Path rawResults = ResultFormat.findResultsFile(reportDir);
+            if (rawResults != null) {
+                LINK.render(out, rawResults.getFileName(), "📊 Raw JTL Results Data");
+            }
+            if (Files.exists(reportDir.resolve("timeseries.csv"))) {
+                LINK.render(out, "timeseries.csv", "⏱️ Per-Interval Series (CSV)");
+            }
+            if (Files.exists(reportDir.resolve("generator-health.csv"))) {
+                LINK.render(out, "generator-health.csv", "🩺 Load Generator Health (CSV)");
+            }
+            if (Files.exists(reportDir.resolve("html-report").resolve("index.html"))) {
+                LINK.render(out, "html-report/index.html", "📈 HTML Dashboard");
+            }
+            TEST_LINKS_END.render(out);
+            PAGE_FOOTER.render(out, "Enhanced individual report with aggregate analysis - Generated by JMeter DSL Framework");
+        }
+    }
+    
+    private void writeAggregateReport(TestResultEntry entry, Path reportDir, Writer out) throws IOException {
         try {
-            // Try to find JMeter installation
-            String[] possibleJMeterPaths = {
-                System.getenv("JMETER_HOME"),
-                "/usr/local/bin/jmeter",
-                "/opt/jmeter/bin/jmeter",
-                "C:\\apache-jmeter\\bin\\jmeter.bat"
-            };
+            Path jtlFile = ResultFormat.findResultsFile(reportDir);
+            boolean hasJtl = jtlFile != null && Files.size(jtlFile) > 0;
+            if (hasJtl) {
+                JTL_FILE.render(out, jtlFile.getFileName(), Files.size(jtlFile));
+            }
             
-            String jmeterPath = null;
-            for (String path : possibleJMeterPaths) {
-                if (path != null && (Files.exists(Paths.get(path)) || Files.exists(Paths.get(path + "/bin/jmeter")) || Files.exists(Paths.get(path + "\\bin\\jmeter.bat")))) {
-                    jmeterPath = path.endsWith("jmeter") ? path : path + (System.getProperty("os.name").toLowerCase().contains("windows") ? "\\bin\\jmeter.bat" : "/bin/jmeter");
-                    break;
-                }
+            // Aggregates were collected while the test ran; only re-read the JTL when they are missing
+            List<AggregateReportParser.SamplerStats> aggregateStats = entry.result.getSamplerStats();
+            if (aggregateStats.isEmpty() && hasJtl) {
+                ExecutorPhaseEvent parseEvent = ExecutorPhaseEvent.begin(ExecutorPhase.REPORT_AGGREGATION, entry.testName);
+                aggregateStats = AggregateReportParser.parseJtlFile(jtlFile);
+                parseEvent.commit();
             }
             
-            if (jmeterPath != null && Files.exists(Paths.get(jmeterPath))) {
-                ProcessBuilder pb = new ProcessBuilder(
-                    jmeterPath,
-                    "-g", jtlFile.toString(),
-                    "-o", htmlReportDir.toString()
-                );
-                
-                Process process = pb.start();
-                int exitCode = process.waitFor();
+            if (!aggregateStats.isEmpty()) {
+                AGGREGATE_TABLE.render(out);
+                for (AggregateReportParser.SamplerStats stats : aggregateStats) {
+                    AGGREGATE_ROW.render(out,
+                        "TOTAL".equals(stats.getLabel()) ? "total-row" : "",
+                        stats.getLabel(),
+                        stats.getSamples(),
+                        String.format("%.0f", stats.getAverage()),
+                        String.format("%.0f", stats.getMedian()),
+                        String.format("%.0f", stats.getPercentile90()),
+                        String.format("%.0f", stats.getPercentile95()),
+                        String.format("%.0f", stats.getPercentile99()),
+                        String.format("%.0f", stats.getPercentile999()),
+                        String.format("%.0f", stats.getPercentile9999()),
+                        String.format("%.0f", stats.getMin()),
+                        String.format("%.0f", stats.getMax()),
+                        stats.getErrorPercentage() == 0 ? "success" : "error",
+                        String.format("%.2f%%", stats.getErrorPercentage()),
+                        String.format("%.2f", stats.getThroughput()),
+                        String.format("%.2f", stats.getReceivedKBPerSec()),
+                        String.format("%.2f", stats.getSentKBPerSec()));
+                }
+                TABLE_END.render(out);
+                writeLatencyBreakdown(aggregateStats, out);
+                writeCorrectedLatencies(aggregateStats, out);
+            } else if (hasJtl && jtlFile.getFileName().toString().equals(ResultFormat.CSV.getFileName())) {
+                MESSAGE.render(out, "warning", "No sampler statistics found in JTL file. The file may be in an unexpected format or empty.");
                 
-                if (exitCode == 0) {
-                    System.out.println("✅ HTML report generated successfully");
-                } else {
-                    System.out.println("⚠️ JMeter HTML report generation failed (exit code: " + exitCode + ")");
+                // Add JTL file preview for debugging
+                DETAILS_START.render(out, "JTL File Preview (first 5 lines)");
+                try (java.util.stream.Stream<String> lines = Files.lines(jtlFile)) {
+                    for (String line : (Iterable<String>) lines.limit(5)::iterator) {
+                        DETAILS_LINE.render(out, line);
+                    }
                 }
+                DETAILS_END.render(out);
+            } else if (hasJtl) {
+                MESSAGE.render(out, "warning", "No sampler statistics found in " + jtlFile.getFileName() + ".");
             } else {
-                System.out.println("ℹ️ JMeter CLI not found, skipping HTML report generation");
-                createPlaceholderHtmlReport(htmlReportDir);
+                MESSAGE.render(out, "warning", "No samples were recorded for this test.");
             }
         } catch (Exception e) {
-            System.err.println("⚠️ HTML report generation error: " + e.getMessage());
-            createPlaceholderHtmlReport(htmlReportDir);
+            PARSE_ERROR.render(out, e.getMessage(), e.getClass().getSimpleName());
+            
+            // Add stack trace for debugging
+            DETAILS_START.render(out, "Technical Details");
+            DETAILS_LINE.render(out, "Exception: " + e);
+            if (e.getCause() != null) {
+                DETAILS_LINE.render(out, "Cause: " + e.getCause());
+            }
+            DETAILS_END.render(out);
         }
     }
     
-    // NEW METHOD: Create placeholder HTML report when JMeter CLI is unavailable
-    private void createPlaceholderHtmlReport(Path htmlReportDir) {
-        try {
-            Files.createDirectories(htmlReportDir);
-            String placeholder = "<!DOCTYPE html><html><head><title>HTML Report Unavailable</title></head><body>" +
-                "<h1>HTML Report Generation Skipped</h1>" +
-                "<p>JMeter CLI not available for HTML report generation.</p>" +
-                "<p>JTL file contains all raw data for manual analysis.</p>" +
-                "<p><a href='../results.jtl'>View Raw JTL Results</a></p>" +
-                "</body></html>";
-            Files.write(htmlReportDir.resolve("index.html"), placeholder.getBytes());
-        } catch (IOException e) {
-            System.err.println("Could not create placeholder HTML report: " + e.getMessage());
+    private static final HtmlTemplate CORRECTED_TABLE = HtmlTemplate.compile(
+        "<h2>📏 Coordinated Omission</h2>"
+        + "<p><i>Corrected: measured from when each request should have started, by the pacing or arrival rate</i></p>"
+        + "<div class='table-scroll'><table><tr><th>Sampler</th><th class='numeric'>Samples</th>"
+        + "<th class='numeric'>90% (ms)</th><th class='numeric'>Corrected 90% (ms)</th>"
+        + "<th class='numeric'>95% (ms)</th><th class='numeric'>Corrected 95% (ms)</th>"
+        + "<th class='numeric'>99% (ms)</th><th class='numeric'>Corrected 99% (ms)</th>"
+        + "<th class='numeric'>99.9% (ms)</th><th class='numeric'>Corrected 99.9% (ms)</th>"
+        + "<th class='numeric'>Max (ms)</th><th class='numeric'>Corrected Max (ms)</th></tr>");
+    private static final HtmlTemplate CORRECTED_ROW = HtmlTemplate.compile(
+        "<tr class='{{rowClass}}'><td><strong>{{label}}</strong></td><td class='numeric'>{{samples}}</td>"
+        + "<td class='numeric'>{{p90}}</td><td class='numeric'>{{correctedP90}}</td>"
+        + "<td class='numeric'>{{p95}}</td><td class='numeric'>{{correctedP95}}</td>"
+        + "<td class='numeric'>{{p99}}</td><td class='numeric'>{{correctedP99}}</td>"
+        + "<td class='numeric'>{{p999}}</td><td class='numeric'>{{correctedP999}}</td>"
+        + "<td class='numeric'>{{max}}</td><td class='numeric'>{{correctedMax}}</td></tr>");
+    
+    /** Raw and coordinated-omission-corrected percentiles side by side, for runs that were corrected. */
+    private void writeCorrectedLatencies(List<AggregateReportParser.SamplerStats> aggregateStats, Writer out) throws IOException {
+        if (aggregateStats.stream().noneMatch(stats -> stats.getCorrectedHistogram() != null)) {
+            return;
         }
+        CORRECTED_TABLE.render(out);
+        for (AggregateReportParser.SamplerStats stats : aggregateStats) {
+            if (stats.getCorrectedHistogram() == null) {
+                continue;
+            }
+            CORRECTED_ROW.render(out,
+                "TOTAL".equals(stats.getLabel()) ? "total-row" : "",
+                stats.getLabel(),
+                stats.getSamples(),
+                String.format("%.0f", stats.getPercentile90()),
+                String.format("%.0f", stats.getCorrectedPercentile90()),
+                String.format("%.0f", stats.getPercentile95()),
+                String.format("%.0f", stats.getCorrectedPercentile95()),
+                String.format("%.0f", stats.getPercentile99()),
+                String.format("%.0f", stats.getCorrectedPercentile99()),
+                String.format("%.0f", stats.getPercentile999()),
+                String.format("%.0f", stats.getCorrectedPercentile999()),
+                String.format("%.0f", stats.getMax()),
+                String.format("%.0f", stats.getCorrectedMax()));
+        }
+        TABLE_END.render(out);
     }
     
-    // MODIFIED: Enhanced individual test summary with parallel execution note
-    private void createEnhancedIndividualTestSummary(TestResultEntry entry, Path reportDir) throws IOException {
-        StringBuilder summary = new StringBuilder();
-        summary.append("<!DOCTYPE html><html><head><title>").append(entry.testName).append(" - Individual Report</title>");
-        summary.append("<!DOCTYPE html><html><head><title>").append(entry.testName).append(" - Individual Report</title>");
-        summary.append("<style>");
-        summary.append("body { font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; margin: 20px; background: #f5f7fa; }");
-        summary.append(".container { max-width: 1400px; margin: 0 auto; background: white; padding: 30px; border-radius: 15px; box-shadow: 0 5px 20px rgba(0,0,0,0.1); }");
-        summary.append("h1 { color: #2c3e50; border-bottom: 4px solid #3498db; padding-bottom: 15px; margin-bottom: 25px; }");
-        summary.append("h2 { color: #34495e; border-bottom: 2px solid #bdc3c7; padding-bottom: 10px; margin-top: 40px; }");
-        summary.append(".metric-card { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 20px; margin: 10px 5px; border-radius: 12px; text-align: center; }");
-        summary.append(".metric-value { font-size: 28px; font-weight: bold; margin-bottom: 5px; }");
-        summary.append(".metric-label { font-size: 14px; opacity: 0.9; }");
-        summary.append(".success { color: #27ae60; font-weight: bold; }");
-        summary.append(".error { color: #e74c3c; font-weight: bold; }");
-        summary.append(".warning { color: #f39c12; font-weight: bold; }");
-        summary.append("table { width: 100%; border-collapse: collapse; margin: 25px 0; box-shadow: 0 2px 8px rgba(0,0,0,0.1); }");
-        summary.append("th { background: linear-gradient(135deg, #3498db, #2980b9); color: white; padding: 15px 10px; text-align: left; font-weight: 600; }");
-        summary.append("td { padding: 12px 10px; border-bottom: 1px solid #ecf0f1; }");
-        summary.append("tbody tr:nth-child(even) { background-color: #f8f9fa; }");
-        summary.append("tbody tr:hover { background-color: #e8f4fd; }");
-        summary.append(".total-row { background: linear-gradient(135deg, #2c3e50, #34495e) !important; color: white; font-weight: bold; }");
-        summary.append(".total-row td { border-bottom: none; }");
-        summary.append(".numeric { text-align: right; font-family: 'Courier New', monospace; }");
-        summary.append(".back-link { display: inline-block; margin-bottom: 20px; padding: 10px 20px; background: #95a5a6; color: white; text-decoration: none; border-radius: 25px; transition: all 0.3s; }");
-        summary.append(".back-link:hover { background: #7f8c8d; transform: translateY(-2px); }");
-        // NEW: Info box styling for parallel execution note
-        summary.append(".info-box { background: #e8f6ff; border-left: 4px solid #3498db; padding: 15px; margin: 20px 0; border-radius: 0 8px 8px 0; }");
-        summary.append("</style></head><body>");
-        
-        summary.append("<div class='container'>");
-        summary.append("<a href='../consolidated-report/consolidated-summary.html' class='back-link'>← Back to Consolidated Report</a>");
-        summary.append("<h1>🎯 ").append(entry.testName).append(" - Detailed Analysis</h1>");
-        
-        // NEW: Parallel execution note
-        summary.append("<div class='info-box'>");
-        summary.append("<p><strong>ℹ️ Parallel Execution Note:</strong> HTML dashboard generation was moved to post-execution phase to avoid conflicts during parallel test execution. All raw data is available in the JTL file for analysis.</p>");
-        summary.append("</div>");
-        
-        // Test metadata (keeping your existing structure)
-        summary.append("<table>");
-        summary.append("<tr><th colspan='2'>Test Configuration</th></tr>");
-        summary.append("<tr><td><strong>Thread Name</strong></td><td>").append(entry.threadName).append("</td></tr>");
-        summary.append("<tr><td><strong>Execution Time</strong></td><td>").append(entry.executionTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))).append("</td></tr>");
-        summary.append("<tr><td><strong>Base URL</strong></td><td>").append(entry.result.getConfig().getBaseUrl()).append("</td></tr>");
-        summary.append("<tr><td><strong>Connection Timeout</strong></td><td>").append(entry.result.getConfig().getConnectionTimeout().toSeconds()).append("s</td></tr>");
-        summary.append("<tr><td><strong>Response Timeout</strong></td><td>").append(entry.result.getConfig().getResponseTimeout().toSeconds()).append("s</td></tr>");
-        summary.append("</table>");
-        
-        // Key metrics with cards (keeping your existing structure)
-        summary.append("<h2>📊 Key Metrics</h2>");
-        summary.append("<div style='display: grid; grid-template-columns: repeat(auto-fit, minmax(220px, 1fr)); gap: 15px; margin: 20px 0;'>");
-        
-        summary.append("<div class='metric-card'>");
-        summary.append("<div class='metric-value'>").append(entry.result.getTotalSamples()).append("</div>");
-        summary.append("<div class='metric-label'>Total Samples</div>");
-        summary.append("</div>");
-        
-        summary.append("<div class='metric-card'>");
-        summary.append("<div class='metric-value ").append(entry.result.getErrorCount() == 0 ? "success" : "error").append("'>").append(entry.result.getErrorCount()).append("</div>");
-        summary.append("<div class='metric-label'>Total Errors</div>");
-        summary.append("</div>");
-        
-        summary.append("<div class='metric-card'>");
-        summary.append("<div class='metric-value'>").append(entry.result.getMeanResponseTime().toMillis()).append("ms</div>");
-        summary.append("<div class='metric-label'>Mean Response Time</div>");
-        summary.append("</div>");
-        
-        summary.append("<div class='metric-card'>");
-        summary.append("<div class='metric-value ").append(entry.result.getErrorPercentage() == 0 ? "success" : "error").append("'>").append(String.format("%.2f%%", entry.result.getErrorPercentage())).append("</div>");
-        summary.append("<div class='metric-label'>Error Rate</div>");
-        summary.append("</div>");
-        
-        summary.append("</div>");
-        
-        // Response time analysis (keeping your existing structure)
-        summary.append("<h2>⏱️ Response Time Analysis</h2>");
-        summary.append("<table>");
-        summary.append("<tr><th>Metric</th><th class='numeric'>Value (ms)</th></tr>");
-        summary.append("<tr><td>Minimum Response Time</td><td class='numeric'>").append(entry.result.getMinResponseTime().toMillis()).append("</td></tr>");
-        summary.append("<tr><td>Mean Response Time</td><td class='numeric'>").append(entry.result.getMeanResponseTime().toMillis()).append("</td></tr>");
-        summary.append("<tr><td>Median Response Time</td><td class='numeric'>").append(entry.result.getMedianResponseTime().toMillis()).append("</td></tr>");
-        summary.append("<tr><td>Maximum Response Time</td><td class='numeric'>").append(entry.result.getMaxResponseTime().toMillis()).append("</td></tr>");
-        summary.append("</table>");
-        
-        // Aggregate Report Section (keeping your existing structure)
-        summary.append("<h2>📈 Aggregate Report</h2>");
-        summary.append("<p><i>Detailed statistics for each sampler (similar to JMeter's Aggregate Report listener)</i></p>");
-        
-        // try {
-        //     Path jtlFile = reportDir.resolve("results.jtl");
-        //     List<AggregateReportParser.SamplerStats> aggregateStats = AggregateReportParser.parseJtlFile(jtlFile);
-            
-        //     if (!aggregateStats.isEmpty()) {
-        //         summary.append("<div style='overflow-x: auto;'>");
-        //         summary.append("<table>");
-        //         summary.append("<tr>");
-        //         summary.append("<th>Sampler</th>");
-        //         summary.append("<th class='numeric'>Samples</th>");
-        //         summary.append("<th class='numeric'>Average (ms)</th>");
-        //         summary.append("<th class='numeric'>Median (ms)</th>");
-        //         summary.append("<th class='numeric'>90% Line (ms)</th>");
-        //         summary.append("<th class='numeric'>95% Line (ms)</th>");
-        //         summary.append("<th class='numeric'>99% Line (ms)</th>");
-        //         summary.append("<th class='numeric'>Min (ms)</th>");
-        //         summary.append("<th class='numeric'>Max (ms)</th>");
-        //         summary.append("<th class='numeric'>Error %</th>");
-        //         summary.append("<th class='numeric'>Throughput (/sec)</th>");
-        //         summary.append("<th class='numeric'>Received KB/sec</th>");
-        //         summary.append("<th class='numeric'>Sent KB/sec</th>");
-        //         summary.append("</tr>");
-                
-        //         for (AggregateReportParser.SamplerStats stats : aggregateStats) {
-        //             String rowClass = "TOTAL".equals(stats.getLabel()) ? "total-row" : "";
-        //             summary.append("<tr class='").append(rowClass).append("'>");
-        //             summary.append("<td><strong>").append(stats.getLabel()).append("</strong></td>");
-        //             summary.append("<td class='numeric'>").append(stats.getSamples()).append("</td>");
-        //             summary.append("<td class='numeric'>").append(String.format("%.0f", stats.getAverage())).append("</td>");
-        //             summary.append("<td class='numeric'>").append(String.format("%.0f", stats.getMedian())).append("</td>");
-        //             summary.append("<td class='numeric'>").append(String.format("%.0f", stats.getPercentile90())).append("</td>");
-        //             summary.append("<td class='numeric'>").append(String.format("%.0f", stats.getPercentile95())).append("</td>");
-        //             summary.append("<td class='numeric'>").append(String.format("%.0f", stats.getPercentile99())).append("</td>");
-        //             summary.append("<td class='numeric'>").append(String.format("%.0f", stats.getMin())).append("</td>");
-        //             summary.append("<td class='numeric'>").append(String.format("%.0f", stats.getMax())).append("</td>");
-                    
-        //             String errorClass = stats.getErrorPercentage() == 0 ? "success" : "error";
-        //             summary.append("<td class='numeric ").append(errorClass).append("'>").append(String.format("%.2f%%", stats.getErrorPercentage())).append("</td>");
-                    
-        //             summary.append("<td class='numeric'>").append(String.format("%.2f", stats.getThroughput())).append("</td>");
-        //             summary.append("<td class='numeric'>").append(String.format("%.2f", stats.getReceivedKBPerSec())).append("</td>");
-        //             summary.append("<td class='numeric'>").append(String.format("%.2f", stats.getSentKBPerSec())).append("</td>");
-        //             summary.append("</tr>");
-        //         }
-                
-        //         summary.append("</table>");
-        //         summary.append("</div>");
-        //     } else {
-        //         summary.append("<p><i>No detailed sampler data available. This may occur if the JTL file is empty or has formatting issues.</i></p>");
-        //     }
-        // } catch (Exception e) {
-        //     summary.append("<p class='error'><i>Error parsing aggregate data: ").append(e.getMessage()).append("</i></p>");
-        // }
-
+    private static final HtmlTemplate BREAKDOWN_TABLE = HtmlTemplate.compile(
+        "<h2>🔬 Latency Breakdown</h2>"
+        + "<p><i>Connect: TCP/TLS setup | Server: time to first byte once connected | Download: rest of the response</i></p>"
+        + "<div class='table-scroll'><table><tr><th>Sampler</th><th class='numeric'>Samples</th>"
+        + "<th class='numeric'>Connect Avg (ms)</th><th class='numeric'>Connect 95% (ms)</th><th class='numeric'>Connect 99% (ms)</th>"
+        + "<th class='numeric'>Server Avg (ms)</th><th class='numeric'>Server 95% (ms)</th><th class='numeric'>Server 99% (ms)</th>"
+        + "<th class='numeric'>Download Avg (ms)</th><th class='numeric'>Download 95% (ms)</th><th class='numeric'>Download 99% (ms)</th>"
+        + "<th class='numeric'>Idle Avg (ms)</th></tr>");
+    private static final HtmlTemplate BREAKDOWN_ROW = HtmlTemplate.compile(
+        "<tr class='{{rowClass}}'><td><strong>{{label}}</strong></td><td class='numeric'>{{samples}}</td>"
+        + "<td class='numeric'>{{connectAvg}}</td><td class='numeric'>{{connect95}}</td><td class='numeric'>{{connect99}}</td>"
+        + "<td class='numeric'>{{serverAvg}}</td><td class='numeric'>{{server95}}</td><td class='numeric'>{{server99}}</td>"
+        + "<td class='numeric'>{{downloadAvg}}</td><td class='numeric'>{{download95}}</td><td class='numeric'>{{download99}}</td>"
+        + "<td class='numeric'>{{idleAvg}}</td></tr>");
+    private static final HtmlTemplate BREAKDOWN_UNSPLIT = HtmlTemplate.compile(
+        "<p><i>{{unsplit}} samples have no connect time (virtual-thread engine): their time to first byte"
+        + " is not split into connect and server, and they count towards download and idle only.</i></p>");
+    
+    /** Where each sampler's time went, for the rows whose samplers measured connect and latency. */
+    private void writeLatencyBreakdown(List<AggregateReportParser.SamplerStats> aggregateStats, Writer out) throws IOException {
+        if (aggregateStats.stream().noneMatch(stats -> stats.getBreakdown() != null)) {
+            return;
+        }
+        BREAKDOWN_TABLE.render(out);
+        for (AggregateReportParser.SamplerStats stats : aggregateStats) {
+            LatencyBreakdown breakdown = stats.getBreakdown();
+            if (breakdown == null) {
+                continue;
+            }
+            // Connect and server stay blank for samplers that cannot tell connection setup from server time
+            boolean split = breakdown.isSplit();
+            BREAKDOWN_ROW.render(out,
+                "TOTAL".equals(stats.getLabel()) ? "total-row" : "",
+                stats.getLabel(),
+                breakdown.getSamples(),
+                split ? String.format("%.0f", breakdown.getConnect().getMean()) : "n/a",
+                split ? breakdown.getConnect().getValueAtPercentile(95) : "n/a",
+                split ? breakdown.getConnect().getValueAtPercentile(99) : "n/a",
+                split ? String.format("%.0f", breakdown.getServer().getMean()) : "n/a",
+                split ? breakdown.getServer().getValueAtPercentile(95) : "n/a",
+                split ? breakdown.getServer().getValueAtPercentile(99) : "n/a",
+                String.format("%.0f", breakdown.getDownload().getMean()),
+                breakdown.getDownload().getValueAtPercentile(95),
+                breakdown.getDownload().getValueAtPercentile(99),
+                String.format("%.0f", breakdown.getMeanIdle()));
+        }
+        TABLE_END.render(out);
+        long unsplit = aggregateStats.stream().filter(stats -> "TOTAL".equals(stats.getLabel()) && stats.getBreakdown() != null)
+            .mapToLong(stats -> stats.getBreakdown().getUnsplitSamples()).sum();
+        if (unsplit > 0) {
+            BREAKDOWN_UNSPLIT.render(out, unsplit);
+        }
+    }
+    
+    private static final int CHART_WIDTH = 900, CHART_HEIGHT = 220, CHART_PAD = 40;
+    private static final HtmlTemplate OVER_TIME_START = HtmlTemplate.compile(
+        "<h2>📈 Throughput and Latency over Time</h2><p>{{intervals}} intervals of {{bucketMillis}} ms{{lateSamples}}</p>"
+        + "<svg viewBox='0 0 " + CHART_WIDTH + " " + CHART_HEIGHT + "' class='over-time'>"
+        + "<line x1='" + CHART_PAD + "' y1='" + (CHART_HEIGHT - CHART_PAD) + "' x2='" + (CHART_WIDTH - CHART_PAD)
+        + "' y2='" + (CHART_HEIGHT - CHART_PAD) + "' stroke='#999'/>"
+        + "<polyline fill='none' stroke='#3498db' stroke-width='2' points='");
+    private static final HtmlTemplate OVER_TIME_P95 = HtmlTemplate.compile(
+        "'/><polyline fill='none' stroke='#e74c3c' stroke-width='2' points='");
+    private static final HtmlTemplate OVER_TIME_END = HtmlTemplate.compile(
+        "'/><text x='" + CHART_PAD + "' y='20' fill='#3498db' font-size='12'>Throughput (max {{maxThroughput}}/sec)</text>"
+        + "<text x='" + (CHART_WIDTH - CHART_PAD) + "' y='20' fill='#e74c3c' font-size='12' text-anchor='end'>95% Line (max {{maxP95}} ms)</text>"
+        + "<text x='" + CHART_PAD + "' y='" + (CHART_HEIGHT - 12) + "' fill='#7f8c8d' font-size='11'>0 s</text>"
+        + "<text x='" + (CHART_WIDTH - CHART_PAD) + "' y='" + (CHART_HEIGHT - 12)
+        + "' fill='#7f8c8d' font-size='11' text-anchor='end'>{{duration}} s</text></svg>");
+    
+    /** Throughput and p95 per interval as an inline chart, plus the full series as timeseries.csv. */
+    private void writeOverTime(TestResultEntry entry, Path reportDir, Writer out) throws IOException {
+        TimeSeriesCollector timeSeries;
+        TimeSeries total;
         try {
-            Path jtlFile = reportDir.resolve("results.jtl");
-            
-            // Better debugging and error handling
-            if (!Files.exists(jtlFile)) {
-                summary.append("<p class='warning'><i>JTL file not found: ").append(jtlFile.toString()).append("</i></p>");
-            } else if (Files.size(jtlFile) == 0) {
-                summary.append("<p class='warning'><i>JTL file is empty</i></p>");
-            } else {
-                summary.append("<p><strong>JTL File:</strong> ").append(jtlFile.getFileName()).append(" (").append(Files.size(jtlFile)).append(" bytes)</p>");
-                
-                List<AggregateReportParser.SamplerStats> aggregateStats = AggregateReportParser.parseJtlFile(jtlFile);
-                
-                if (!aggregateStats.isEmpty()) {
-                    summary.append("<div style='overflow-x: auto;'>");
-                    summary.append("<table>");
-                    summary.append("<tr>");
-                    summary.append("<th>Sampler</th>");
-                    summary.append("<th class='numeric'>Samples</th>");
-                    summary.append("<th class='numeric'>Average (ms)</th>");
-                    summary.append("<th class='numeric'>Median (ms)</th>");
-                    summary.append("<th class='numeric'>90% Line (ms)</th>");
-                    summary.append("<th class='numeric'>95% Line (ms)</th>");
-                    summary.append("<th class='numeric'>99% Line (ms)</th>");
-                    summary.append("<th class='numeric'>Min (ms)</th>");
-                    summary.append("<th class='numeric'>Max (ms)</th>");
-                    summary.append("<th class='numeric'>Error %</th>");
-                    summary.append("<th class='numeric'>Throughput (/sec)</th>");
-                    summary.append("<th class='numeric'>Received KB/sec</th>");
-                    summary.append("<th class='numeric'>Sent KB/sec</th>");
-                    summary.append("</tr>");
-                    
-                    for (AggregateReportParser.SamplerStats stats : aggregateStats) {
-                        String rowClass = "TOTAL".equals(stats.getLabel()) ? "total-row" : "";
-                        summary.append("<tr class='").append(rowClass).append("'>");
-                        summary.append("<td><strong>").append(stats.getLabel()).append("</strong></td>");
-                        summary.append("<td class='numeric'>").append(stats.getSamples()).append("</td>");
-                        summary.append("<td class='numeric'>").append(String.format("%.0f", stats.getAverage())).append("</td>");
-                        summary.append("<td class='numeric'>").append(String.format("%.0f", stats.getMedian())).append("</td>");
-                        summary.append("<td class='numeric'>").append(String.format("%.0f", stats.getPercentile90())).append("</td>");
-                        summary.append("<td class='numeric'>").append(String.format("%.0f", stats.getPercentile95())).append("</td>");
-                        summary.append("<td class='numeric'>").append(String.format("%.0f", stats.getPercentile99())).append("</td>");
-                        summary.append("<td class='numeric'>").append(String.format("%.0f", stats.getMin())).append("</td>");
-                        summary.append("<td class='numeric'>").append(String.format("%.0f", stats.getMax())).append("</td>");
-                        
-                        String errorClass = stats.getErrorPercentage() == 0 ? "success" : "error";
-                        summary.append("<td class='numeric ").append(errorClass).append("'>").append(String.format("%.2f%%", stats.getErrorPercentage())).append("</td>");
-                        
-                        summary.append("<td class='numeric'>").append(String.format("%.2f", stats.getThroughput())).append("</td>");
-                        summary.append("<td class='numeric'>").append(String.format("%.2f", stats.getReceivedKBPerSec())).append("</td>");
-                        summary.append("<td class='numeric'>").append(String.format("%.2f", stats.getSentKBPerSec())).append("</td>");
-                        summary.append("</tr>");
-                    }
-                    
-                    summary.append("</table>");
-                    summary.append("</div>");
-                } else {
-                    summary.append("<p class='warning'><i>No sampler statistics found in JTL file. The file may be in an unexpected format or empty.</i></p>");
-                    
-                    // Add JTL file preview for debugging
-                    List<String> firstFewLines = Files.readAllLines(jtlFile).stream().limit(5).collect(java.util.stream.Collectors.toList());
-                    summary.append("<details><summary>JTL File Preview (first 5 lines)</summary><pre>");
-                    for (String line : firstFewLines) {
-                        summary.append(line).append("\n");
-                    }
-                    summary.append("</pre></details>");
-                }
+            // Collected live; a JTL-only result (e.g. an older session) is replayed instead
+            timeSeries = entry.result.getTimeSeries();
+            Path resultsFile = ResultFormat.findResultsFile(reportDir);
+            if (timeSeries == null && resultsFile != null && Files.size(resultsFile) > 0) {
+                timeSeries = TimeSeriesCollector.fromResults(resultsFile, TimeSeriesCollector.DEFAULT_BUCKET_MILLIS);
             }
-        } catch (Exception e) {
-                summary.append("<p class='error'><i>Error parsing aggregate data: ").append(e.getMessage()).append("</i></p>");
-                summary.append("<p><strong>Debug Info:</strong> Error Type: ").append(e.getClass().getSimpleName()).append("</p>");
-                
-                // Add stack trace for debugging
-                summary.append("<details><summary>Technical Details</summary><pre>");
-                summary.append("Exception: ").append(e.toString()).append("\n");
-                if (e.getCause() != null) {
-                    summary.append("Cause: ").append(e.getCause().toString()).append("\n");
-                }
-                summary.append("</pre></details>");
+            total = timeSeries != null ? timeSeries.getTotal() : null;
+            if (total == null || total.size() < 2) {
+                return;
             }
+            timeSeries.writeCsv(reportDir.resolve("timeseries.csv"));
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not build time series for " + entry.testName + ": " + e.getMessage());
+            return;
+        }
         
-        // Links to other reports (keeping your existing structure)
-        summary.append("<h2>🔗 Additional Reports</h2>");
-        summary.append("<ul>");
-        if (Files.exists(reportDir.resolve("results.jtl"))) {
-            summary.append("<li><a href='results.jtl'>📊 Raw JTL Results Data</a></li>");
-        }
-        if (Files.exists(reportDir.resolve("html-report").resolve("index.html"))) {
-            summary.append("<li><a href='html-report/index.html'>📈 JMeter HTML Dashboard</a> ").append("(Generated post-execution)</li>");
-        }
-        summary.append("<li><a href='../consolidated-report/consolidated-summary.html'>📋 Consolidated Report</a></li>");
-        summary.append("<li><a href='../index.html'>🏠 Session Index</a></li>");
-        summary.append("</ul>");
-        
-        summary.append("<hr><p style='text-align: center; color: #7f8c8d;'><i>Enhanced individual report with aggregate analysis - Generated by JMeter DSL Framework</i></p>");
-        summary.append("</div></body></html>");
-        
-        Files.write(reportDir.resolve("test-summary.html"), summary.toString().getBytes());
+        double maxThroughput = 0;
+        long maxP95 = 0;
+        for (int i = 0; i < total.size(); i++) {
+            maxThroughput = Math.max(maxThroughput, total.getThroughput(i));
+            maxP95 = Math.max(maxP95, total.getPercentile95(i));
+        }
+        String lateSamples = timeSeries.getLateSamples() > 0
+            ? " | " + timeSeries.getLateSamples() + " late samples counted without percentiles" : "";
+        OVER_TIME_START.render(out, total.size(), total.getBucketMillis(), lateSamples);
+        for (int i = 0; i < total.size(); i++) {
+            writePoint(out, total, i, maxThroughput > 0 ? total.getThroughput(i) / maxThroughput : 0);
+        }
+        OVER_TIME_P95.render(out);
+        for (int i = 0; i < total.size(); i++) {
+            writePoint(out, total, i, maxP95 > 0 ? (double) total.getPercentile95(i) / maxP95 : 0);
+        }
+        OVER_TIME_END.render(out, String.format("%.1f", maxThroughput), maxP95,
+            total.size() * total.getBucketMillis() / 1000.0);
     }
     
-    private void appendToConsolidatedJtl(TestResultEntry entry) {
+    /** Arrivals the concurrency pool could not take on time, when there were any or the engine could not count them. */
+    private void writeArrivals(ExecutionResult result, Writer out) throws IOException {
+        if (!result.hasArrivalCounts()) {
+            ARRIVALS_TABLE.render(out, "warning",
+                "The JMeter engine queues arrivals without counting them; run on virtual threads to see dropped and late arrivals",
+                "unknown", "unknown");
+        } else if (result.getDroppedArrivals() > 0 || result.getLateArrivals() > 0) {
+            ARRIVALS_TABLE.render(out, "error", "The concurrency pool was exhausted; the target saw less load than offered",
+                result.getDroppedArrivals(), result.getLateArrivals());
+        }
+    }
+    
+    /** Peaks of the load generator's own resources next to their limits, plus every interval as generator-health.csv. */
+    private void writeGeneratorHealth(TestResultEntry entry, Path reportDir, Writer out) throws IOException {
+        GeneratorHealth health = entry.result.getGeneratorHealth();
+        if (health == null || health.size() == 0) {
+            return;
+        }
         try {
-            Path individualJtl = entry.result.getConfig().getResultsDirectory().resolve("results.jtl");
-            if (Files.exists(individualJtl)) {
-                List<String> lines = Files.readAllLines(individualJtl);
-                if (lines.size() > 1) {
-                    for (int i = 1; i < lines.size(); i++) {
-                        String line = lines.get(i);
-                        // Enhance each line with test name prefix
-                        String enhancedLine = line.replaceFirst("^([^,]+),", "$1," + entry.testName + "-");
-                        Files.write(consolidatedJtlFile, (enhancedLine + "\n").getBytes(), StandardOpenOption.APPEND);
-                    }
-                }
+            health.writeCsv(reportDir.resolve("generator-health.csv"));
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not write generator health for " + entry.testName + ": " + e.getMessage());
+        }
+        String verdictClass = !health.isValid() ? "error" : health.getSaturatedBuckets() > 0 ? "warning" : "success";
+        HEALTH_TABLE.render(out, verdictClass, health.getVerdict(),
+            String.format("%.0f%%", health.getPeakCpu() * 100), String.format("%.0f%%", GeneratorHealth.CPU_LIMIT * 100),
+            health.getTotalGcPauseMillis(),
+            String.format("%.0f%% of an interval", GeneratorHealth.GC_PAUSE_LIMIT * 100),
+            health.getPeakHeapUsed() >> 20, health.getHeapMax() >> 20,
+            String.format("%.0f%%", GeneratorHealth.HEAP_LIMIT * 100),
+            health.getPeakThreads(), health.getPeakSockets() < 0 ? "n/a" : health.getPeakSockets(),
+            health.getPeakLagMillis(), GeneratorHealth.LAG_LIMIT_MILLIS);
+    }
+    
+    /** The individual samples behind the worst percentiles, when the run kept a sample store. */
+    private void writeSlowestSamples(TestResultEntry entry, Writer out) throws IOException {
+        SampleStore store = entry.result.getSampleStore();
+        if (store == null || store.size() == 0) {
+            return;
+        }
+        long bytes = store.getOffHeapBytes();
+        String size = bytes >= 1 << 20 ? (bytes >> 20) + " MB" : ((bytes + 1023) >> 10) + " KB";
+        String summary = store.size() + " samples kept off-heap (" + size + ")"
+            + (store.getOverflow() > 0 ? ", " + store.getOverflow() + " more after the store filled up" : "")
+            + (store.getOtherLabelSamples() > 0 ? ", " + store.getOtherLabelSamples() + " under label " + SampleStore.OTHER : "")
+            + (store.getOtherResponseCodeSamples() > 0
+                ? ", " + store.getOtherResponseCodeSamples() + " under response code " + SampleStore.OTHER : "");
+        SLOWEST_TABLE.render(out, summary);
+        DateTimeFormatter started = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+        for (SampleStore.StoredSample sample : store.slowest(null, SLOWEST_ROWS)) {
+            SLOWEST_ROW.render(out, sample.isSuccess() ? "" : "error", sample.getLabel(),
+                started.format(Instant.ofEpochMilli(sample.getTimeStamp())), sample.getResponseCode(),
+                sample.getElapsed(), sample.getLatency(),
+                sample.getConnect() == LatencyBreakdown.CONNECT_UNKNOWN ? "n/a" : sample.getConnect(), sample.getBytes());
+        }
+        TABLE_END.render(out);
+    }
+    
+    private static void writePoint(Writer out, TimeSeries total, int i, double fraction) throws IOException {
+        double x = CHART_PAD + (double) i / (total.size() - 1) * (CHART_WIDTH - 2 * CHART_PAD);
+        double y = CHART_HEIGHT - CHART_PAD - fraction * (CHART_HEIGHT - 2 * CHART_PAD);
+        out.write(String.format(java.util.Locale.ROOT, "%.1f,%.1f ", x, y));
+    }
+    
+    private void appendToConsolidatedJtl(TestResultEntry entry, Path reportDir) {
+        try {
+            // Rows are copied as-is; the test each row belongs to is recorded in the side file
+            Path individualJtl = ResultFormat.findResultsFile(reportDir);
+            if (individualJtl != null) {
+                ExecutorPhaseEvent copyEvent = ExecutorPhaseEvent.begin(ExecutorPhase.REPORT_COPY, entry.testName);
+                jtlMerger.append(entry.testName, entry.threadName, individualJtl);
+                copyEvent.commit();
             }
         } catch (IOException e) {
             System.err.println("Failed to append to consolidated JTL: " + e.getMessage());
@@ -448,6 +686,7 @@ public class EnhancedConsolidatedReportManager {
     }
     
     public synchronized void generateConsolidatedReport() {
+        awaitPendingReports();
         reportLock.lock();
         try {
             if (allResults.isEmpty()) {
@@ -455,12 +694,15 @@ public class EnhancedConsolidatedReportManager {
                 return;
             }
             
+            ExecutorPhaseEvent renderEvent = ExecutorPhaseEvent.begin(ExecutorPhase.REPORT_RENDERING, null);
             try {
                 generateConsolidatedSummary();
                 generateConsolidatedCsv();
                 generateSessionIndex();
             } catch (IOException e) {
                 System.err.println("Failed to generate consolidated report: " + e.getMessage());
+            } finally {
+                renderEvent.commit();
             }
             
             System.out.println("\n" + "=".repeat(100));
@@ -479,173 +721,151 @@ public class EnhancedConsolidatedReportManager {
         }
     }
     
-    // Keep all your existing methods unchanged
+    private static final HtmlTemplate INDEX_HEADER = HtmlTemplate.compile(
+        "<div class='header'><h1>🚀 Enhanced Test Session Report</h1>"
+        + "<p>Session: {{session}} | Tests Executed: {{tests}} | Individual Reports with Aggregate Analysis</p></div>"
+        + "<div class='container'>"
+        + "<div class='card'><h2>📊 Session Overview</h2><div class='grid'>"
+        + "<div class='metric-card'><div class='metric-value'>{{tests}}</div><div>Tests Executed</div></div>"
+        + "<div class='metric-card'><div class='metric-value'>{{samples}}</div><div>Total Requests</div></div>"
+        + "<div class='metric-card'><div class='metric-value'>{{errors}}</div><div>Total Errors</div></div>"
+        + "<div class='metric-card'><div class='metric-value'>{{average}}ms</div><div>Avg Response Time</div></div>"
+        + "</div></div>"
+        + "<div class='card'><h2>🎯 Quick Access</h2><div class='quick-access'>"
+        + "<a href='consolidated-report/consolidated-summary.html' class='btn btn-success'>📊 Consolidated Report</a>"
+        + "<a href='consolidated-report/consolidated-results.csv' class='btn btn-info'>📋 Download CSV</a>"
+        + "<a href='consolidated-report/all-tests-combined.jtl' class='btn btn-secondary'>📈 Raw JTL Data</a>"
+        + "<a href='consolidated-report/all-tests-combined.jtl" + ConsolidatedJtlMerger.TESTS_SUFFIX
+        + "' class='btn btn-secondary'>🗂️ Test Row Ranges</a>"
+        + "</div></div>"
+        + "<div class='card'><h2>📂 Individual Test Reports with Aggregate Analysis</h2>"
+        + "<p><i>Each report now includes detailed sampler statistics similar to JMeter's Aggregate Report listener</i></p>");
+    private static final HtmlTemplate INDEX_TEST = HtmlTemplate.compile(
+        "<div class='individual-test'><h3>{{testName}}{{{validity}}}</h3>"
+        + "<p><strong>Thread:</strong> {{threadName}} | <strong>Execution:</strong> {{executionTime}}</p>"
+        + "<div class='test-stats'>"
+        + "<div class='stat'><div class='stat-value'>{{samples}}</div><div class='stat-label'>Samples</div></div>"
+        + "<div class='stat'><div class='stat-value'>{{errors}}</div><div class='stat-label'>Errors</div></div>"
+        + "<div class='stat'><div class='stat-value'>{{errorRate}}</div><div class='stat-label'>Error Rate</div></div>"
+        + "<div class='stat'><div class='stat-value'>{{mean}}ms</div><div class='stat-label'>Mean Time</div></div>"
+        + "<div class='stat'><div class='stat-value'>{{min}}ms</div><div class='stat-label'>Min Time</div></div>"
+        + "<div class='stat'><div class='stat-value'>{{max}}ms</div><div class='stat-label'>Max Time</div></div>"
+        + "</div>"
+        + "<a href='individual-reports/{{dirName}}/test-summary.html' class='btn'>📄 View Enhanced Report with Aggregate Analysis</a>"
+        + "</div>");
+    private static final HtmlTemplate INDEX_END = HtmlTemplate.compile("</div></div></body></html>");
+    
     private void generateSessionIndex() throws IOException {
-        // Your existing implementation stays exactly the same
-        // Just keeping the structure as-is
-        StringBuilder index = new StringBuilder();
-        index.append("<!DOCTYPE html><html><head><title>Test Session Report - ").append(sessionTimestamp).append("</title>");
-        index.append("<style>");
-        index.append("body { font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; margin: 0; background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); min-height: 100vh; }");
-        index.append(".header { background: rgba(255,255,255,0.1); padding: 40px; text-align: center; color: white; }");
-        index.append(".container { max-width: 1200px; margin: 20px auto; padding: 0 20px; }");
-        index.append(".card { background: white; border-radius: 15px; padding: 30px; margin: 20px 0; box-shadow: 0 8px 32px rgba(0,0,0,0.1); }");
-        index.append(".grid { display: grid; grid-template-columns: repeat(auto-fit, minmax(300px, 1fr)); gap: 20px; }");
-        index.append(".metric-card { background: linear-gradient(135deg, #f093fb 0%, #f5576c 100%); color: white; text-align: center; padding: 25px; border-radius: 15px; }");
-        index.append(".metric-value { font-size: 2.8em; font-weight: bold; margin-bottom: 10px; }");
-        index.append(".btn { display: inline-block; padding: 15px 30px; background: #3498db; color: white; text-decoration: none; border-radius: 30px; margin: 10px; transition: all 0.3s; font-weight: 600; }");
-        index.append(".btn:hover { background: #2980b9; transform: translateY(-3px); box-shadow: 0 8px 25px rgba(0,0,0,0.2); }");
-        index.append(".btn-success { background: #27ae60; } .btn-success:hover { background: #229954; }");
-        index.append(".btn-info { background: #17a2b8; } .btn-info:hover { background: #138496; }");
-        index.append(".btn-secondary { background: #6c757d; } .btn-secondary:hover { background: #5a6268; }");
-        index.append("h1 { margin: 0; font-size: 3em; text-shadow: 2px 2px 4px rgba(0,0,0,0.3); }");
-        index.append("h2 { color: #2c3e50; border-bottom: 3px solid #3498db; padding-bottom: 15px; }");
-        index.append(".individual-test { background: #f8f9fa; padding: 20px; margin: 15px 0; border-radius: 12px; border-left: 5px solid #3498db; transition: all 0.3s; }");
-        index.append(".individual-test:hover { box-shadow: 0 5px 15px rgba(0,0,0,0.1); transform: translateY(-2px); }");
-        index.append(".test-stats { display: grid; grid-template-columns: repeat(auto-fit, minmax(120px, 1fr)); gap: 10px; margin: 10px 0; }");
-        index.append(".stat { text-align: center; padding: 8px; background: white; border-radius: 8px; }");
-        index.append(".stat-value { font-weight: bold; font-size: 1.1em; color: #2c3e50; }");
-        index.append(".stat-label { font-size: 0.85em; color: #7f8c8d; }");
-        index.append("</style></head><body>");
-        
-        index.append("<div class='header'>");
-        index.append("<h1>🚀 Enhanced Test Session Report</h1>");
-        index.append("<p style='font-size: 1.2em; margin-top: 15px;'>Session: ").append(sessionTimestamp).append(" | Tests Executed: ").append(allResults.size()).append(" | Individual Reports with Aggregate Analysis</p>");
-        index.append("</div>");
-        
-        index.append("<div class='container'>");
-        
-        // Overall metrics (keeping your existing calculation logic)
         long totalSamples = allResults.stream().mapToLong(e -> e.result.getTotalSamples()).sum();
         long totalErrors = allResults.stream().mapToLong(e -> e.result.getErrorCount()).sum();
         double avgResponseTime = allResults.stream().mapToDouble(e -> e.result.getMeanResponseTime().toMillis()).average().orElse(0.0);
         
-        index.append("<div class='card'>");
-        index.append("<h2>📊 Session Overview</h2>");
-        index.append("<div class='grid'>");
-        index.append("<div class='metric-card'><div class='metric-value'>").append(allResults.size()).append("</div><div>Tests Executed</div></div>");
-        index.append("<div class='metric-card'><div class='metric-value'>").append(totalSamples).append("</div><div>Total Requests</div></div>");
-        index.append("<div class='metric-card'><div class='metric-value'>").append(totalErrors).append("</div><div>Total Errors</div></div>");
-        index.append("<div class='metric-card'><div class='metric-value'>").append(String.format("%.0f", avgResponseTime)).append("ms</div><div>Avg Response Time</div></div>");
-        index.append("</div>");
-        index.append("</div>");
-        
-        // Quick navigation (keeping your existing structure)
-        index.append("<div class='card'>");
-        index.append("<h2>🎯 Quick Access</h2>");
-        index.append("<div style='text-align: center;'>");
-        index.append("<a href='consolidated-report/consolidated-summary.html' class='btn btn-success'>📊 Consolidated Report</a>");
-        index.append("<a href='consolidated-report/consolidated-results.csv' class='btn btn-info'>📋 Download CSV</a>");
-        index.append("<a href='consolidated-report/all-tests-combined.jtl' class='btn btn-secondary'>📈 Raw JTL Data</a>");
-        index.append("</div>");
-        index.append("</div>");
-        
-        // Individual test links with enhanced details (keeping your existing structure)
-        index.append("<div class='card'>");
-        index.append("<h2>📂 Individual Test Reports with Aggregate Analysis</h2>");
-        index.append("<p><i>Each report now includes detailed sampler statistics similar to JMeter's Aggregate Report listener</i></p>");
-        
-        for (TestResultEntry entry : allResults) {
-            String safeTestName = entry.testName.replaceAll("[^a-zA-Z0-9-_]", "-");
-            String dirName = safeTestName + "-" + entry.threadName.replaceAll("[^a-zA-Z0-9-_]", "-");
-            
-            index.append("<div class='individual-test'>");
-            index.append("<h3 style='margin-top: 0; color: #2c3e50;'>").append(entry.testName).append("</h3>");
-            index.append("<p><strong>Thread:</strong> ").append(entry.threadName).append(" | <strong>Execution:</strong> ").append(entry.executionTime.format(DateTimeFormatter.ofPattern("HH:mm:ss"))).append("</p>");
-            
-            index.append("<div class='test-stats'>");
-            index.append("<div class='stat'><div class='stat-value'>").append(entry.result.getTotalSamples()).append("</div><div class='stat-label'>Samples</div></div>");
-            index.append("<div class='stat'><div class='stat-value'>").append(entry.result.getErrorCount()).append("</div><div class='stat-label'>Errors</div></div>");
-            index.append("<div class='stat'><div class='stat-value'>").append(String.format("%.2f%%", entry.result.getErrorPercentage())).append("</div><div class='stat-label'>Error Rate</div></div>");
-            index.append("<div class='stat'><div class='stat-value'>").append(entry.result.getMeanResponseTime().toMillis()).append("ms</div><div class='stat-label'>Mean Time</div></div>");
-            index.append("<div class='stat'><div class='stat-value'>").append(entry.result.getMinResponseTime().toMillis()).append("ms</div><div class='stat-label'>Min Time</div></div>");
-            index.append("<div class='stat'><div class='stat-value'>").append(entry.result.getMaxResponseTime().toMillis()).append("ms</div><div class='stat-label'>Max Time</div></div>");
-            index.append("</div>");
-            
-            index.append("<a href='individual-reports/").append(dirName).append("/test-summary.html' class='btn'>📄 View Enhanced Report with Aggregate Analysis</a>");
-            index.append("</div>");
+        try (Writer out = Files.newBufferedWriter(consolidatedReportDir.resolve("index.html"))) {
+            PAGE_HEAD.render(out, "Test Session Report - " + sessionTimestamp, HtmlTemplate.STYLESHEET, "session-index");
+            INDEX_HEADER.render(out, sessionTimestamp, allResults.size(), totalSamples, totalErrors,
+                String.format("%.0f", avgResponseTime));
+            for (TestResultEntry entry : allResults) {
+                INDEX_TEST.render(out, entry.testName,
+                    entry.result.isValid() ? "" : " <span class='invalid-badge'>⛔ INVALID: load generator saturated</span>",
+                    entry.threadName,
+                    entry.executionTime.format(DateTimeFormatter.ofPattern("HH:mm:ss")),
+                    entry.result.getTotalSamples(), entry.result.getErrorCount(),
+                    String.format("%.2f%%", entry.result.getErrorPercentage()),
+                    entry.result.getMeanResponseTime().toMillis(), entry.result.getMinResponseTime().toMillis(),
+                    entry.result.getMaxResponseTime().toMillis(), individualReportDir(entry).getFileName());
+            }
+            INDEX_END.render(out);
         }
-        index.append("</div>");
-        
-        index.append("</div>");
-        index.append("</body></html>");
-        
-        Files.write(consolidatedReportDir.resolve("index.html"), index.toString().getBytes());
     }
     
-    // Keep all your existing methods exactly as they are
+    private static final HtmlTemplate SUMMARY_HEADER = HtmlTemplate.compile(
+        "<div class='container'><a href='../index.html' class='back-link'>← Back to Session Index</a>"
+        + "<h1>📊 Consolidated Performance Test Report</h1>"
+        + "<p><strong>Generated:</strong> {{generated}}</p>"
+        + "<p><strong>Total Tests:</strong> {{tests}} | <strong>Enhancement:</strong> Individual reports now include detailed aggregate analysis</p>"
+        + "<div class='summary-card'><h2>🎯 Overall Summary</h2><div class='summary-grid'>"
+        + "<div><div class='summary-value'>{{samples}}</div><div>Total Samples</div></div>"
+        + "<div><div class='summary-value'>{{errors}}</div><div>Total Errors</div></div>"
+        + "<div><div class='summary-value'>{{errorRate}}</div><div>Error Rate</div></div>"
+        + "<div><div class='summary-value'>{{average}}ms</div><div>Avg Response</div></div>"
+        + "</div></div>"
+        + "<h2>📋 Individual Test Results</h2><div class='table-scroll'><table>"
+        + "<tr><th>Test Name</th><th>Thread</th><th>Execution Time</th><th>Samples</th><th>Errors</th><th>Error Rate</th>"
+        + "<th>Mean Response Time</th><th>Min Time</th><th>Max Time</th><th>Status</th><th>Enhanced Report</th></tr>");
+    private static final HtmlTemplate SUMMARY_ROW = HtmlTemplate.compile(
+        "<tr><td><strong>{{testName}}</strong></td><td>{{threadName}}</td><td>{{executionTime}}</td><td>{{samples}}</td>"
+        + "<td><span class='{{statusClass}}'>{{errors}}</span></td><td><span class='{{statusClass}}'>{{errorRate}}</span></td>"
+        + "<td>{{mean}}ms</td><td>{{min}}ms</td><td>{{max}}ms</td><td><span class='{{statusClass}}'>{{status}}</span></td>"
+        + "<td><a href='../individual-reports/{{dirName}}/test-summary.html'>📈 View Aggregate Analysis</a></td></tr>");
+    
     private void generateConsolidatedSummary() throws IOException {
-        StringBuilder summary = new StringBuilder();
-        summary.append("<!DOCTYPE html><html><head><title>Consolidated Test Report</title>");
-        summary.append("<style>");
-        summary.append("body { font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; margin: 20px; background: #f8f9fa; }");
-        summary.append(".container { max-width: 1400px; margin: 0 auto; background: white; padding: 30px; border-radius: 15px; box-shadow: 0 5px 15px rgba(0,0,0,0.1); }");
-        summary.append("h1 { color: #2c3e50; border-bottom: 4px solid #3498db; padding-bottom: 15px; }");
-        summary.append("table { border-collapse: collapse; width: 100%; margin: 20px 0; }");
-        summary.append("th, td { border: 1px solid #ddd; padding: 12px; text-align: left; }");
-        summary.append("th { background: linear-gradient(135deg, #3498db, #2980b9); color: white; font-weight: bold; }");
-        summary.append("tr:nth-child(even) { background-color: #f2f2f2; }");
-        summary.append("tr:hover { background-color: #e8f4fd; }");
-        summary.append(".success { color: #27ae60; font-weight: bold; }");
-        summary.append(".error { color: #e74c3c; font-weight: bold; }");
-        summary.append(".summary-card { background: linear-gradient(135deg, #f093fb 0%, #f5576c 100%); color: white; padding: 25px; margin: 20px 0; border-radius: 15px; text-align: center; }");
-        summary.append(".back-link { display: inline-block; margin: 20px 0; padding: 12px 25px; background: #6c757d; color: white; text-decoration: none; border-radius: 25px; transition: all 0.3s; }");
-        summary.append(".back-link:hover { background: #5a6268; transform: translateY(-2px); }");
-        summary.append("</style></head><body>");
-        
-        summary.append("<div class='container'>");
-        summary.append("<a href='../index.html' class='back-link'>← Back to Session Index</a>");
-        summary.append("<h1>📊 Consolidated Performance Test Report</h1>");
-        summary.append("<p><strong>Generated:</strong> ").append(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))).append("</p>");
-        summary.append("<p><strong>Total Tests:</strong> ").append(allResults.size()).append(" | <strong>Enhancement:</strong> Individual reports now include detailed aggregate analysis</p>");
-        
-        // Overall summary (keeping your existing calculation logic)
         long totalSamples = allResults.stream().mapToLong(e -> e.result.getTotalSamples()).sum();
         long totalErrors = allResults.stream().mapToLong(e -> e.result.getErrorCount()).sum();
         double avgResponseTime = allResults.stream().mapToDouble(e -> e.result.getMeanResponseTime().toMillis()).average().orElse(0.0);
         
-        summary.append("<div class='summary-card'>");
-        summary.append("<h2>🎯 Overall Summary</h2>");
-        summary.append("<div style='display: grid; grid-template-columns: repeat(auto-fit, minmax(200px, 1fr)); gap: 20px; margin-top: 20px;'>");
-        summary.append("<div><div style='font-size: 2.5em; margin-bottom: 8px;'>").append(totalSamples).append("</div><div>Total Samples</div></div>");
-        summary.append("<div><div style='font-size: 2.5em; margin-bottom: 8px;'>").append(totalErrors).append("</div><div>Total Errors</div></div>");
-        summary.append("<div><div style='font-size: 2.5em; margin-bottom: 8px;'>").append(String.format("%.2f%%", totalSamples > 0 ? (double) totalErrors / totalSamples * 100 : 0)).append("</div><div>Error Rate</div></div>");
-        summary.append("<div><div style='font-size: 2.5em; margin-bottom: 8px;'>").append(String.format("%.0f", avgResponseTime)).append("ms</div><div>Avg Response</div></div>");
-        summary.append("</div></div>");
-        
-        // Individual test results table (keeping your existing structure)
-        summary.append("<h2>📋 Individual Test Results</h2>");
-        summary.append("<div style='overflow-x: auto;'>");
-        summary.append("<table>");
-        summary.append("<tr><th>Test Name</th><th>Thread</th><th>Execution Time</th><th>Samples</th><th>Errors</th><th>Error Rate</th><th>Mean Response Time</th><th>Min Time</th><th>Max Time</th><th>Status</th><th>Enhanced Report</th></tr>");
-        
-        for (TestResultEntry entry : allResults) {
-            String status = entry.result.getErrorCount() == 0 ? "✅ PASSED" : "❌ FAILED";
-            String statusClass = entry.result.getErrorCount() == 0 ? "success" : "error";
-            String safeTestName = entry.testName.replaceAll("[^a-zA-Z0-9-_]", "-");
-            String dirName = safeTestName + "-" + entry.threadName.replaceAll("[^a-zA-Z0-9-_]", "-");
+        Path summaryFile = consolidatedReportDir.resolve("consolidated-report").resolve("consolidated-summary.html");
+        try (Writer out = Files.newBufferedWriter(summaryFile)) {
+            PAGE_HEAD.render(out, "Consolidated Test Report", "../" + HtmlTemplate.STYLESHEET, "consolidated-summary");
+            SUMMARY_HEADER.render(out, LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
+                allResults.size(), totalSamples, totalErrors,
+                String.format("%.2f%%", totalSamples > 0 ? (double) totalErrors / totalSamples * 100 : 0),
+                String.format("%.0f", avgResponseTime));
+            for (TestResultEntry entry : allResults) {
+                boolean passed = entry.result.getErrorCount() == 0;
+                String statusClass = passed ? "success" : "error";
+                SUMMARY_ROW.render(out, entry.testName, entry.threadName,
+                    entry.executionTime.format(DateTimeFormatter.ofPattern("HH:mm:ss")), entry.result.getTotalSamples(),
+                    statusClass, entry.result.getErrorCount(), String.format("%.2f%%", entry.result.getErrorPercentage()),
+                    entry.result.getMeanResponseTime().toMillis(), entry.result.getMinResponseTime().toMillis(),
+                    entry.result.getMaxResponseTime().toMillis(), passed ? "✅ PASSED" : "❌ FAILED",
+                    individualReportDir(entry).getFileName());
+            }
+            TABLE_END.render(out);
             
-            summary.append("<tr>");
-            summary.append("<td><strong>").append(entry.testName).append("</strong></td>");
-            summary.append("<td>").append(entry.threadName).append("</td>");
-            summary.append("<td>").append(entry.executionTime.format(DateTimeFormatter.ofPattern("HH:mm:ss"))).append("</td>");
-            summary.append("<td>").append(entry.result.getTotalSamples()).append("</td>");
-            summary.append("<td><span class='").append(statusClass).append("'>").append(entry.result.getErrorCount()).append("</span></td>");
-            summary.append("<td><span class='").append(statusClass).append("'>").append(String.format("%.2f%%", entry.result.getErrorPercentage())).append("</span></td>");
-            summary.append("<td>").append(entry.result.getMeanResponseTime().toMillis()).append("ms</td>");
-            summary.append("<td>").append(entry.result.getMinResponseTime().toMillis()).append("ms</td>");
-            summary.append("<td>").append(entry.result.getMaxResponseTime().toMillis()).append("ms</td>");
-            summary.append("<td><span class='").append(statusClass).append("'>").append(status).append("</span></td>");
-            summary.append("<td><a href='../individual-reports/").append(dirName).append("/test-summary.html'>📈 View Aggregate Analysis</a></td>");
-            summary.append("</tr>");
+            writeSessionPercentiles(out);
+            PAGE_FOOTER.render(out, "Enhanced consolidated report with individual aggregate analysis - Generated by JMeter DSL Framework");
         }
-        
-        summary.append("</table>");
-        summary.append("</div>");
-        summary.append("<hr><p style='text-align: center; color: #7f8c8d;'><i>Enhanced consolidated report with individual aggregate analysis - Generated by JMeter DSL Framework</i></p>");
-        summary.append("</div></body></html>");
-        
-        Files.write(consolidatedReportDir.resolve("consolidated-report").resolve("consolidated-summary.html"), summary.toString().getBytes());
+    }
+    
+    private static final HtmlTemplate PERCENTILES_TABLE = HtmlTemplate.compile(
+        "<h2>📐 Latency Percentiles</h2><div class='table-scroll'><table>"
+        + "<tr><th>Test</th><th>Samples</th><th>Average (ms)</th><th>Median (ms)</th><th>90% Line (ms)</th><th>95% Line (ms)</th>"
+        + "<th>99% Line (ms)</th><th>99.9% Line (ms)</th><th>Max (ms)</th><th>Throughput (/sec)</th></tr>");
+    private static final HtmlTemplate PERCENTILES_ROW = HtmlTemplate.compile(
+        "<tr class='{{rowClass}}'><td>{{label}}</td><td>{{samples}}</td><td>{{average}}</td><td>{{median}}</td><td>{{p90}}</td>"
+        + "<td>{{p95}}</td><td>{{p99}}</td><td>{{p999}}</td><td>{{max}}</td><td>{{throughput}}</td></tr>");
+    
+    /** Latency percentiles per test plus a session row, all from merged sketches rather than averages. */
+    private void writeSessionPercentiles(Writer out) throws IOException {
+        List<AggregateReportParser.SamplerStats> testRows = new ArrayList<>();
+        for (TestResultEntry entry : allResults) {
+            AggregateReportParser.SamplerStats overall = entry.result.getOverallStats();
+            if (overall != null) {
+                overall.setLabel(entry.testName + " (" + entry.threadName + ")");
+                testRows.add(overall);
+            }
+        }
+        if (testRows.isEmpty()) {
+            return;
+        }
+        testRows.add(AggregateCollector.combine("SESSION", testRows));
+        
+        PERCENTILES_TABLE.render(out);
+        for (AggregateReportParser.SamplerStats stats : testRows) {
+            PERCENTILES_ROW.render(out,
+                "SESSION".equals(stats.getLabel()) ? "session-row" : "",
+                stats.getLabel(),
+                stats.getSamples(),
+                String.format("%.0f", stats.getAverage()),
+                String.format("%.0f", stats.getMedian()),
+                String.format("%.0f", stats.getPercentile90()),
+                String.format("%.0f", stats.getPercentile95()),
+                String.format("%.0f", stats.getPercentile99()),
+                String.format("%.0f", stats.getPercentile999()),
+                String.format("%.0f", stats.getMax()),
+                String.format("%.2f", stats.getThroughput()));
+        }
+        TABLE_END.render(out);
     }
     
     private void generateConsolidatedCsv() throws IOException {
@@ -669,22 +889,6 @@ public class EnhancedConsolidatedReportManager {
         Files.write(consolidatedReportDir.resolve("consolidated-report").resolve("consolidated-results.csv"), csv.toString().getBytes());
     }
     
-    private void copyDirectory(Path source, Path target) throws IOException {
-        Files.walk(source).forEach(path -> {
-            try {
-                Path targetPath = target.resolve(source.relativize(path));
-                if (Files.isDirectory(path)) {
-                    Files.createDirectories(targetPath);
-                } else {
-                    Files.createDirectories(targetPath.getParent());
-                    Files.copy(path, targetPath);
-                }
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-        });
-    }
-    
     public Path getConsolidatedReportDir() {
         return consolidatedReportDir;
     }
@@ -694,10 +898,22 @@ public class EnhancedConsolidatedReportManager {
     }
     
     public void reset() {
+        awaitPendingReports();
         allResults.clear();
         initializeReportDirectory();
     }
     
+    // A results file opened at snapshot time, copied later on the report executor
+    private static class PendingCopy {
+        final FileChannel source;
+        final Path target;
+        
+        PendingCopy(FileChannel source, Path target) {
+            this.source = source;
+            this.target = target;
+        }
+    }
+    
     private static class TestResultEntry {
         final String testName;
         final String threadName;
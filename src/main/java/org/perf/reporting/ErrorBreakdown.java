@@ -0,0 +1,94 @@
+package org.perf.reporting;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts failed samples by error type and label, like the Errors and Top 5 Errors tables of the
+ * JMeter dashboard. The error type is the assertion failure message if there is one, otherwise
+ * {@code responseCode/responseMessage}.
+ * <p>
+ * Messages can embed ids or timestamps, so the number of distinct types is capped; failures of
+ * any further type are counted under {@value #OTHER}.
+ */
+public class ErrorBreakdown {
+    public static final int MAX_TYPES = 500;
+    public static final String OTHER = "Other errors";
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> byType = new ConcurrentHashMap<>();
+
+    public void add(SampleResult sample) {
+        if (!sample.isSuccessful()) {
+            add(sample.getSampleLabel(), errorType(sample), 1);
+        }
+    }
+
+    public void add(String label, String type, long count) {
+        String key = byType.containsKey(type) || byType.size() < MAX_TYPES ? type : OTHER;
+        byType.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(label, l -> new LongAdder())
+            .add(count);
+    }
+
+    public void merge(ErrorBreakdown other) {
+        other.byType.forEach((type, labels) ->
+            labels.forEach((label, count) -> add(label, type, count.sum())));
+    }
+
+    public long getErrorCount() {
+        return byType.values().stream()
+            .flatMap(labels -> labels.values().stream())
+            .mapToLong(LongAdder::sum)
+            .sum();
+    }
+
+    /** Error types with their total count, most frequent first. */
+    public List<ErrorType> getTypes() {
+        List<ErrorType> types = new ArrayList<>();
+        for (Map.Entry<String, ConcurrentHashMap<String, LongAdder>> entry : byType.entrySet()) {
+            long count = entry.getValue().values().stream().mapToLong(LongAdder::sum).sum();
+            types.add(new ErrorType(entry.getKey(), count));
+        }
+        types.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return types;
+    }
+
+    /** The most frequent error types of one label, at most {@code limit}. */
+    public List<ErrorType> getTopTypes(String label, int limit) {
+        List<ErrorType> types = new ArrayList<>();
+        for (Map.Entry<String, ConcurrentHashMap<String, LongAdder>> entry : byType.entrySet()) {
+            LongAdder count = entry.getValue().get(label);
+            if (count != null) {
+                types.add(new ErrorType(entry.getKey(), count.sum()));
+            }
+        }
+        types.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return types.size() > limit ? types.subList(0, limit) : types;
+    }
+
+    static String errorType(SampleResult sample) {
+        String assertionFailure = sample.getFirstAssertionFailureMessage();
+        if (assertionFailure != null && !assertionFailure.isEmpty()) {
+            return assertionFailure;
+        }
+        return sample.getResponseCode() + "/" + sample.getResponseMessage();
+    }
+
+    public static class ErrorType {
+        private final String type;
+        private final long count;
+
+        ErrorType(String type, long count) {
+            this.type = type;
+            this.count = count;
+        }
+
+        public String getType() { return type; }
+        public long getCount() { return count; }
+    }
+}
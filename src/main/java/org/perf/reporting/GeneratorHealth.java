@@ -0,0 +1,221 @@
+package org.perf.reporting;
+
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * How busy the load generator's own JVM was, per time bucket: process CPU, GC pause time, heap,
+ * threads, open sockets and scheduling lag. Buckets line up with the run's
+ * {@link TimeSeriesCollector} buckets.
+ * <p>
+ * A bucket where the generator hit one of the limits below is <em>saturated</em>: latencies from it
+ * say more about the generator than about the target. If at least {@value #INVALID_FRACTION} of the
+ * buckets, and more than one, are saturated, the run is invalid; a lone spike such as JIT warm-up
+ * in a short run only warns.
+ */
+public class GeneratorHealth {
+    /** Process CPU across all cores, 0-1. */
+    public static final double CPU_LIMIT = 0.90;
+    /** Share of a bucket spent in stop-the-world GC pauses. */
+    public static final double GC_PAUSE_LIMIT = 0.10;
+    /** Heap left live by the latest GC over max heap. */
+    public static final double HEAP_LIMIT = 0.90;
+    /** Largest wake-up delay of a timer or user (ms). */
+    public static final long LAG_LIMIT_MILLIS = 100;
+    public static final double INVALID_FRACTION = 0.10;
+    public static final int MIN_INVALID_BUCKETS = 2;
+
+    private final long bucketMillis;
+    private final List<Bucket> buckets = new ArrayList<>();
+    private long originBucket = Long.MIN_VALUE;
+
+    public GeneratorHealth(long bucketMillis) {
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("Bucket width must be positive: " + bucketMillis);
+        }
+        this.bucketMillis = bucketMillis;
+    }
+
+    /**
+     * Folds one reading taken at {@code timestamp} into its bucket. CPU is averaged; GC pause time
+     * adds up; everything else keeps the bucket's peak. {@code heapUsed} is what the latest GC left
+     * live, not the heap's current usage. A negative socket count means unknown.
+     */
+    public synchronized void record(long timestamp, double cpu, long gcPauseMillis, long heapUsed, long heapMax,
+                                    int threads, int sockets, long timerLagMillis, long startLagMillis) {
+        Bucket bucket = bucketAt(Math.floorDiv(timestamp, bucketMillis));
+        bucket.cpuSum += Math.max(0, cpu);
+        bucket.readings++;
+        bucket.gcPauseMillis += gcPauseMillis;
+        bucket.heapUsed = Math.max(bucket.heapUsed, heapUsed);
+        bucket.heapMax = Math.max(bucket.heapMax, heapMax);
+        bucket.threads = Math.max(bucket.threads, threads);
+        bucket.sockets = Math.max(bucket.sockets, sockets);
+        bucket.timerLagMillis = Math.max(bucket.timerLagMillis, timerLagMillis);
+        bucket.startLagMillis = Math.max(bucket.startLagMillis, startLagMillis);
+    }
+
+    private Bucket bucketAt(long bucket) {
+        if (originBucket == Long.MIN_VALUE) {
+            originBucket = bucket;
+        }
+        // Readings come from one thread in time order; a reading from before the origin joins the first bucket
+        int index = (int) Math.max(0, bucket - originBucket);
+        while (buckets.size() <= index) {
+            buckets.add(new Bucket());
+        }
+        return buckets.get(index);
+    }
+
+    public long getBucketMillis() { return bucketMillis; }
+    public synchronized int size() { return buckets.size(); }
+    public synchronized long getBucketStart(int i) { return (originBucket + i) * bucketMillis; }
+    public synchronized double getCpu(int i) { return buckets.get(i).cpu(); }
+    public synchronized long getGcPauseMillis(int i) { return buckets.get(i).gcPauseMillis; }
+    public synchronized long getHeapUsed(int i) { return buckets.get(i).heapUsed; }
+    public synchronized long getHeapMax(int i) { return buckets.get(i).heapMax; }
+    public synchronized int getThreads(int i) { return buckets.get(i).threads; }
+    public synchronized int getSockets(int i) { return buckets.get(i).sockets; }
+    public synchronized long getTimerLagMillis(int i) { return buckets.get(i).timerLagMillis; }
+    public synchronized long getStartLagMillis(int i) { return buckets.get(i).startLagMillis; }
+
+    // Whole-run peaks for summaries; -1 sockets when they could not be counted
+    public synchronized double getPeakCpu() { return buckets.stream().mapToDouble(Bucket::cpu).max().orElse(0); }
+    public synchronized long getTotalGcPauseMillis() { return buckets.stream().mapToLong(b -> b.gcPauseMillis).sum(); }
+    public synchronized long getPeakHeapUsed() { return buckets.stream().mapToLong(b -> b.heapUsed).max().orElse(0); }
+    public synchronized long getHeapMax() { return buckets.stream().mapToLong(b -> b.heapMax).max().orElse(0); }
+    public synchronized int getPeakThreads() { return buckets.stream().mapToInt(b -> b.threads).max().orElse(0); }
+    public synchronized int getPeakSockets() { return buckets.stream().mapToInt(b -> b.sockets).max().orElse(-1); }
+    public synchronized long getPeakLagMillis() {
+        return buckets.stream().mapToLong(b -> Math.max(b.timerLagMillis, b.startLagMillis)).max().orElse(0);
+    }
+
+    /** Why bucket {@code i} counts as saturated, or an empty list if it does not. */
+    public synchronized List<String> getSaturationReasons(int i) {
+        Bucket bucket = buckets.get(i);
+        List<String> reasons = new ArrayList<>();
+        if (bucket.cpu() >= CPU_LIMIT) {
+            reasons.add(String.format(Locale.ROOT, "CPU %.0f%%", bucket.cpu() * 100));
+        }
+        if (bucket.gcPauseMillis >= GC_PAUSE_LIMIT * bucketMillis) {
+            reasons.add("GC pauses " + bucket.gcPauseMillis + " ms");
+        }
+        if (bucket.heapMax > 0 && bucket.heapUsed >= HEAP_LIMIT * bucket.heapMax) {
+            reasons.add(String.format(Locale.ROOT, "heap %.0f%%", 100.0 * bucket.heapUsed / bucket.heapMax));
+        }
+        long lag = Math.max(bucket.timerLagMillis, bucket.startLagMillis);
+        if (lag >= LAG_LIMIT_MILLIS) {
+            reasons.add("scheduling lag " + lag + " ms");
+        }
+        return reasons;
+    }
+
+    public synchronized int getSaturatedBuckets() {
+        int saturated = 0;
+        for (int i = 0; i < buckets.size(); i++) {
+            if (!getSaturationReasons(i).isEmpty()) {
+                saturated++;
+            }
+        }
+        return saturated;
+    }
+
+    /** False when the generator was saturated for too much of the run to trust its latencies. */
+    public synchronized boolean isValid() {
+        int saturated = getSaturatedBuckets();
+        return saturated < MIN_INVALID_BUCKETS || saturated < INVALID_FRACTION * buckets.size();
+    }
+
+    /** One line on how saturated the generator was and by what, for logs and reports. */
+    public synchronized String getVerdict() {
+        int saturated = getSaturatedBuckets();
+        if (saturated == 0) {
+            return "Load generator healthy in all " + buckets.size() + " intervals";
+        }
+        List<String> causes = new ArrayList<>();
+        for (int i = 0; i < buckets.size(); i++) {
+            for (String reason : getSaturationReasons(i)) {
+                String cause = reason.replaceFirst(" [0-9].*$", ""); // "GC pauses 170 ms" -> "GC pauses"
+                if (!causes.contains(cause)) {
+                    causes.add(cause);
+                }
+            }
+        }
+        return "Load generator saturated in " + saturated + " of " + buckets.size() + " intervals ("
+            + String.join(", ", causes) + ")";
+    }
+
+    public synchronized void writeCsv(Path csvFile) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(csvFile)) {
+            writer.write("bucketStart,cpu,gcPauseMs,heapUsedMB,heapMaxMB,threads,sockets,timerLagMs,startLagMs,saturated\n");
+            for (int i = 0; i < buckets.size(); i++) {
+                Bucket bucket = buckets.get(i);
+                writer.write(String.format(Locale.ROOT, "%d,%.3f,%d,%d,%d,%d,%d,%d,%d,%s\n",
+                    getBucketStart(i), bucket.cpu(), bucket.gcPauseMillis, bucket.heapUsed >> 20, bucket.heapMax >> 20,
+                    bucket.threads, bucket.sockets, bucket.timerLagMillis, bucket.startLagMillis,
+                    String.join(" + ", getSaturationReasons(i))));
+            }
+        }
+    }
+
+    /** Writes the buckets for {@link #read}; forked workers send their health this way. */
+    public synchronized void write(DataOutputStream out) throws IOException {
+        out.writeLong(bucketMillis);
+        out.writeLong(originBucket);
+        out.writeInt(buckets.size());
+        for (Bucket bucket : buckets) {
+            out.writeDouble(bucket.cpuSum);
+            out.writeInt(bucket.readings);
+            out.writeLong(bucket.gcPauseMillis);
+            out.writeLong(bucket.heapUsed);
+            out.writeLong(bucket.heapMax);
+            out.writeInt(bucket.threads);
+            out.writeInt(bucket.sockets);
+            out.writeLong(bucket.timerLagMillis);
+            out.writeLong(bucket.startLagMillis);
+        }
+    }
+
+    public static GeneratorHealth read(DataInputStream in) throws IOException {
+        GeneratorHealth health = new GeneratorHealth(in.readLong());
+        health.originBucket = in.readLong();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            Bucket bucket = new Bucket();
+            bucket.cpuSum = in.readDouble();
+            bucket.readings = in.readInt();
+            bucket.gcPauseMillis = in.readLong();
+            bucket.heapUsed = in.readLong();
+            bucket.heapMax = in.readLong();
+            bucket.threads = in.readInt();
+            bucket.sockets = in.readInt();
+            bucket.timerLagMillis = in.readLong();
+            bucket.startLagMillis = in.readLong();
+            health.buckets.add(bucket);
+        }
+        return health;
+    }
+
+    private static final class Bucket {
+        double cpuSum;
+        int readings;
+        long gcPauseMillis;
+        long heapUsed;
+        long heapMax;
+        int threads;
+        int sockets = -1;
+        long timerLagMillis;
+        long startLagMillis;
+
+        double cpu() {
+            return readings == 0 ? 0 : cpuSum / readings;
+        }
+    }
+}
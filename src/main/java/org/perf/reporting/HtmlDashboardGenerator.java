@@ -0,0 +1,423 @@
+package org.perf.reporting;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes a self-contained HTML dashboard (statistics, over-time charts, errors) from the streaming
+ * aggregates, in process. It replaces running the JMeter CLI's {@code -g} report generator per
+ * test: no JMeter install, no extra JVM, and it takes milliseconds because the numbers are
+ * already aggregated. Charts are inline SVG, so the page works offline and without scripts.
+ */
+public class HtmlDashboardGenerator {
+    public static final String INDEX_FILE = "index.html";
+    // Over-time charts draw one line per label up to this many labels
+    private static final int MAX_CHART_LABELS = 10;
+    // Saturated intervals listed on the dashboard; generator-health.csv has them all
+    private static final int MAX_SATURATED_ROWS = 20;
+    private static final int TOP_ERRORS = 5;
+    private static final String[] COLORS = {
+        "#3498db", "#e74c3c", "#2ecc71", "#9b59b6", "#f39c12", "#1abc9c", "#34495e", "#e67e22", "#16a085", "#c0392b"
+    };
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private HtmlDashboardGenerator() {
+    }
+
+    /** Dashboard of a finished run from its live aggregates; {@code timeSeries} may be null. */
+    public static Path generate(Path outputDir, String title, AggregateCollector aggregates,
+                                TimeSeriesCollector timeSeries) throws IOException {
+        return generate(outputDir, title, aggregates.getSamplerStats(), timeSeries, aggregates.getErrors());
+    }
+
+    /** Dashboard from a results file in any {@link ResultFormat}; the error breakdown is not available. */
+    public static Path generateFromResults(Path outputDir, String title, Path resultsFile) throws IOException {
+        return generate(outputDir, title, AggregateReportParser.parseJtlFile(resultsFile),
+            TimeSeriesCollector.fromResults(resultsFile, TimeSeriesCollector.DEFAULT_BUCKET_MILLIS), null);
+    }
+
+    /**
+     * Writes {@code outputDir/index.html}. {@code stats} are Aggregate Report rows (a TOTAL row is
+     * derived if missing); {@code timeSeries} and {@code errors} may be null.
+     */
+    public static Path generate(Path outputDir, String title, List<AggregateReportParser.SamplerStats> stats,
+                                TimeSeriesCollector timeSeries, ErrorBreakdown errors) throws IOException {
+        Files.createDirectories(outputDir);
+        List<AggregateReportParser.SamplerStats> labels = new ArrayList<>();
+        AggregateReportParser.SamplerStats total = null;
+        for (AggregateReportParser.SamplerStats row : stats) {
+            if ("TOTAL".equals(row.getLabel())) {
+                total = row;
+            } else {
+                labels.add(row);
+            }
+        }
+        if (total == null) {
+            total = AggregateCollector.combine("TOTAL", labels);
+        }
+
+        Path index = outputDir.resolve(INDEX_FILE);
+        try (BufferedWriter out = Files.newBufferedWriter(index)) {
+            writeHead(out, title);
+            GeneratorHealth health = timeSeries != null ? timeSeries.getGeneratorHealth() : null;
+            writeSummary(out, title, total);
+            if (health != null && !health.isValid()) {
+                out.write("<p class='error'>⛔ Run invalid: " + HtmlTemplate.escape(health.getVerdict())
+                    + ". These latencies reflect the load generator, not the target.</p>");
+            }
+            writeStatistics(out, labels, total);
+            writeBreakdown(out, labels, total);
+            writeCorrected(out, labels, total);
+            if (timeSeries != null) {
+                writeCharts(out, timeSeries);
+            }
+            if (health != null) {
+                writeGeneratorHealth(out, health);
+            }
+            if (errors != null) {
+                writeErrors(out, errors, labels, total);
+            }
+            out.write("<p class='footer'>Generated by JMeter DSL Framework</p></div></body></html>\n");
+        }
+        return index;
+    }
+
+    private static void writeHead(Writer out, String title) throws IOException {
+        out.write("<!DOCTYPE html><html><head><meta charset='UTF-8'><title>");
+        out.write(HtmlTemplate.escape(title));
+        out.write(" - Dashboard</title><style>");
+        out.write("body { font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; margin: 20px; background: #f8f9fa; color: #2c3e50; }");
+        out.write(".container { max-width: 1400px; margin: 0 auto; background: white; padding: 30px; border-radius: 15px; box-shadow: 0 5px 15px rgba(0,0,0,0.1); }");
+        out.write("h1 { border-bottom: 4px solid #3498db; padding-bottom: 15px; } h2 { margin-top: 35px; }");
+        out.write(".tiles { display: grid; grid-template-columns: repeat(auto-fit, minmax(160px, 1fr)); gap: 15px; }");
+        out.write(".tile { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 18px; border-radius: 10px; text-align: center; }");
+        out.write(".tile .value { font-size: 1.8em; font-weight: bold; } .tile .name { opacity: 0.9; }");
+        out.write("table { border-collapse: collapse; width: 100%; margin: 15px 0; font-size: 0.92em; }");
+        out.write("th, td { border: 1px solid #ddd; padding: 8px; } th { background: #3498db; color: white; } td.num { text-align: right; }");
+        out.write("tr:nth-child(even) { background: #f2f2f2; } tr.total { font-weight: bold; background: #e8f4fd; }");
+        out.write(".chart { margin: 10px 0 25px; } .chart svg { width: 100%; max-width: 1100px; background: #fff; border: 1px solid #ddd; }");
+        out.write(".legend span { display: inline-block; margin-right: 15px; font-size: 0.9em; } .legend i { display: inline-block; width: 12px; height: 12px; margin-right: 5px; vertical-align: middle; }");
+        out.write(".error { color: #e74c3c; } .footer { text-align: center; color: #7f8c8d; margin-top: 30px; }");
+        out.write("</style></head><body><div class='container'>");
+    }
+
+    private static void writeSummary(Writer out, String title, AggregateReportParser.SamplerStats total) throws IOException {
+        out.write("<h1>📊 ");
+        out.write(HtmlTemplate.escape(title));
+        out.write("</h1><p>");
+        if (total.getSamples() > 0 && total.getFirstTimeStamp() > 0) {
+            out.write("<strong>Start:</strong> " + formatTime(total.getFirstTimeStamp())
+                + " | <strong>End:</strong> " + formatTime(total.getLastEndTime()) + " | ");
+        }
+        out.write("<strong>Generated:</strong> " + LocalDateTime.now().format(TIME_FORMAT) + "</p>");
+        out.write("<div class='tiles'>");
+        tile(out, String.valueOf(total.getSamples()), "Samples");
+        tile(out, format("%.2f%%", total.getErrorPercentage()), "Errors");
+        tile(out, format("%.2f/s", total.getThroughput()), "Throughput");
+        tile(out, format("%.0f ms", total.getAverage()), "Average");
+        tile(out, format("%.0f ms", total.getPercentile95()), "95% Line");
+        tile(out, format("%.0f ms", total.getPercentile99()), "99% Line");
+        out.write("</div>");
+    }
+
+    private static void tile(Writer out, String value, String name) throws IOException {
+        out.write("<div class='tile'><div class='value'>" + value + "</div><div class='name'>" + name + "</div></div>");
+    }
+
+    private static void writeStatistics(Writer out, List<AggregateReportParser.SamplerStats> labels,
+                                        AggregateReportParser.SamplerStats total) throws IOException {
+        out.write("<h2>📋 Statistics</h2><div style='overflow-x: auto;'><table><tr><th>Label</th><th>Samples</th><th>Errors</th><th>Error %</th>"
+            + "<th>Average</th><th>Min</th><th>Median</th><th>90% Line</th><th>95% Line</th><th>99% Line</th><th>99.9% Line</th><th>Max</th>"
+            + "<th>Throughput (/s)</th><th>Received KB/s</th><th>Sent KB/s</th></tr>");
+        for (AggregateReportParser.SamplerStats row : labels) {
+            writeStatisticsRow(out, row, "");
+        }
+        writeStatisticsRow(out, total, "total");
+        out.write("</table></div>");
+    }
+
+    private static void writeStatisticsRow(Writer out, AggregateReportParser.SamplerStats row, String rowClass) throws IOException {
+        out.write("<tr class='" + rowClass + "'><td>" + HtmlTemplate.escape(row.getLabel()) + "</td>");
+        out.write("<td class='num'>" + row.getSamples() + "</td><td class='num'>" + row.getErrorCount() + "</td>");
+        out.write(format("<td class='num'>%.2f%%</td><td class='num'>%.0f</td><td class='num'>%.0f</td><td class='num'>%.0f</td>",
+            row.getErrorPercentage(), row.getAverage(), row.getMin(), row.getMedian()));
+        out.write(format("<td class='num'>%.0f</td><td class='num'>%.0f</td><td class='num'>%.0f</td><td class='num'>%.0f</td><td class='num'>%.0f</td>",
+            row.getPercentile90(), row.getPercentile95(), row.getPercentile99(), row.getPercentile999(), row.getMax()));
+        out.write(format("<td class='num'>%.2f</td><td class='num'>%.2f</td><td class='num'>%.2f</td></tr>",
+            row.getThroughput(), row.getReceivedKBPerSec(), row.getSentKBPerSec()));
+    }
+
+    /** Connect, server and download time per label; skipped when no sampler measured latency. */
+    private static void writeBreakdown(Writer out, List<AggregateReportParser.SamplerStats> labels,
+                                       AggregateReportParser.SamplerStats total) throws IOException {
+        if (total.getBreakdown() == null) {
+            return;
+        }
+        out.write("<h2>🔬 Latency Breakdown (ms)</h2><p>Connect: TCP/TLS setup | Server: time to first byte once connected"
+            + " | Download: rest of the response</p><div style='overflow-x: auto;'><table><tr><th>Label</th><th>Samples</th>"
+            + "<th>Connect avg</th><th>Connect 95%</th><th>Connect 99%</th><th>Server avg</th><th>Server 95%</th><th>Server 99%</th>"
+            + "<th>Download avg</th><th>Download 95%</th><th>Download 99%</th><th>Idle avg</th></tr>");
+        for (AggregateReportParser.SamplerStats row : labels) {
+            writeBreakdownRow(out, row.getLabel(), row.getBreakdown(), "");
+        }
+        writeBreakdownRow(out, total.getLabel(), total.getBreakdown(), "total");
+        out.write("</table></div>");
+        if (total.getBreakdown().getUnsplitSamples() > 0) {
+            out.write("<p>" + total.getBreakdown().getUnsplitSamples() + " samples have no connect time (virtual-thread engine):"
+                + " their time to first byte is not split into connect and server, and they count towards download and idle only.</p>");
+        }
+    }
+
+    private static void writeBreakdownRow(Writer out, String label, LatencyBreakdown breakdown, String rowClass) throws IOException {
+        if (breakdown == null) {
+            return;
+        }
+        out.write("<tr class='" + rowClass + "'><td>" + HtmlTemplate.escape(label) + "</td><td class='num'>" + breakdown.getSamples() + "</td>");
+        if (!breakdown.isSplit()) {
+            out.write("<td class='num'>n/a</td><td class='num'>n/a</td><td class='num'>n/a</td>".repeat(2));
+        }
+        for (LatencyHistogram phase : breakdown.isSplit()
+                ? List.of(breakdown.getConnect(), breakdown.getServer(), breakdown.getDownload())
+                : List.of(breakdown.getDownload())) {
+            out.write(format("<td class='num'>%.0f</td><td class='num'>%d</td><td class='num'>%d</td>",
+                phase.getMean(), phase.getValueAtPercentile(95), phase.getValueAtPercentile(99)));
+        }
+        out.write(format("<td class='num'>%.0f</td></tr>", breakdown.getMeanIdle()));
+    }
+
+    /** Raw next to coordinated-omission-corrected percentiles; skipped when the run was not corrected. */
+    private static void writeCorrected(Writer out, List<AggregateReportParser.SamplerStats> labels,
+                                       AggregateReportParser.SamplerStats total) throws IOException {
+        if (total.getCorrectedHistogram() == null) {
+            return;
+        }
+        out.write("<h2>📏 Coordinated Omission (ms)</h2><p>Corrected: measured from when each request should have started,"
+            + " by the pacing or arrival rate</p><div style='overflow-x: auto;'><table><tr><th>Label</th><th>Samples</th>"
+            + "<th>90%</th><th>Corrected 90%</th><th>95%</th><th>Corrected 95%</th><th>99%</th><th>Corrected 99%</th>"
+            + "<th>99.9%</th><th>Corrected 99.9%</th><th>Max</th><th>Corrected Max</th></tr>");
+        for (AggregateReportParser.SamplerStats row : labels) {
+            writeCorrectedRow(out, row, "");
+        }
+        writeCorrectedRow(out, total, "total");
+        out.write("</table></div>");
+    }
+
+    private static void writeCorrectedRow(Writer out, AggregateReportParser.SamplerStats row, String rowClass) throws IOException {
+        if (row.getCorrectedHistogram() == null) {
+            return;
+        }
+        out.write("<tr class='" + rowClass + "'><td>" + HtmlTemplate.escape(row.getLabel()) + "</td><td class='num'>" + row.getSamples() + "</td>");
+        out.write(format("<td class='num'>%.0f</td><td class='num'>%.0f</td><td class='num'>%.0f</td><td class='num'>%.0f</td>",
+            row.getPercentile90(), row.getCorrectedPercentile90(), row.getPercentile95(), row.getCorrectedPercentile95()));
+        out.write(format("<td class='num'>%.0f</td><td class='num'>%.0f</td><td class='num'>%.0f</td><td class='num'>%.0f</td>",
+            row.getPercentile99(), row.getCorrectedPercentile99(), row.getPercentile999(), row.getCorrectedPercentile999()));
+        out.write(format("<td class='num'>%.0f</td><td class='num'>%.0f</td></tr>", row.getMax(), row.getCorrectedMax()));
+    }
+
+    /** Whole-run peaks of the load generator, then every interval in which it was saturated. */
+    private static void writeGeneratorHealth(Writer out, GeneratorHealth health) throws IOException {
+        if (health.size() == 0) {
+            return;
+        }
+        out.write("<h2>🩺 Load Generator Health</h2><p>" + HtmlTemplate.escape(health.getVerdict()) + "</p>");
+        out.write("<table><tr><th>Peak CPU</th><th>GC Pauses (ms)</th><th>Peak Live Heap (MB)</th><th>Max Heap (MB)</th>"
+            + "<th>Peak Threads</th><th>Peak Sockets</th><th>Peak Scheduling Lag (ms)</th></tr>");
+        out.write(format("<tr><td class='num'>%.0f%%</td><td class='num'>%d</td><td class='num'>%d</td><td class='num'>%d</td>"
+                + "<td class='num'>%d</td><td class='num'>%s</td><td class='num'>%d</td></tr></table>",
+            health.getPeakCpu() * 100, health.getTotalGcPauseMillis(), health.getPeakHeapUsed() >> 20, health.getHeapMax() >> 20,
+            health.getPeakThreads(), health.getPeakSockets() < 0 ? "n/a" : String.valueOf(health.getPeakSockets()),
+            health.getPeakLagMillis()));
+        if (health.getSaturatedBuckets() == 0) {
+            return;
+        }
+        out.write("<table><tr><th>Interval Start</th><th>Saturated By</th></tr>");
+        int listed = 0;
+        for (int i = 0; i < health.size() && listed < MAX_SATURATED_ROWS; i++) {
+            List<String> reasons = health.getSaturationReasons(i);
+            if (!reasons.isEmpty()) {
+                out.write("<tr><td>" + formatTime(health.getBucketStart(i)) + "</td><td class='error'>"
+                    + HtmlTemplate.escape(String.join(", ", reasons)) + "</td></tr>");
+                listed++;
+            }
+        }
+        out.write("</table>");
+    }
+
+    private static void writeCharts(Writer out, TimeSeriesCollector timeSeries) throws IOException {
+        TimeSeries total = timeSeries.getTotal();
+        if (total == null || total.size() == 0) {
+            return;
+        }
+        List<TimeSeries> labels = timeSeries.getSeries();
+        if (labels.size() > MAX_CHART_LABELS) {
+            labels = labels.subList(0, MAX_CHART_LABELS);
+        }
+        out.write("<h2>📈 Over Time</h2><p>Interval: " + total.getBucketMillis() + " ms");
+        if (timeSeries.getLateSamples() > 0) {
+            out.write(" | " + timeSeries.getLateSamples() + " late samples are counted without percentiles");
+        }
+        out.write("</p>");
+
+        List<Line> throughput = new ArrayList<>();
+        List<Line> errorRate = new ArrayList<>();
+        List<Line> labelP95 = new ArrayList<>();
+        throughput.add(new Line(total, TimeSeries::getThroughput));
+        errorRate.add(new Line(total, HtmlDashboardGenerator::errorsPerSecond));
+        for (TimeSeries label : labels) {
+            throughput.add(new Line(label, TimeSeries::getThroughput));
+            errorRate.add(new Line(label, HtmlDashboardGenerator::errorsPerSecond));
+            labelP95.add(new Line(label, TimeSeries::getPercentile95));
+        }
+        chart(out, "Throughput (samples/s)", total, throughput);
+        chart(out, "Response Time Percentiles, all labels (ms)", total, List.of(
+            new Line("Median", total, TimeSeries::getMedian),
+            new Line("90% Line", total, TimeSeries::getPercentile90),
+            new Line("95% Line", total, TimeSeries::getPercentile95),
+            new Line("99% Line", total, TimeSeries::getPercentile99)));
+        chart(out, "95% Line per Label (ms)", total, labelP95);
+        chart(out, "Errors per Second", total, errorRate);
+    }
+
+    private static double errorsPerSecond(TimeSeries series, int i) {
+        return series.getErrors(i) * 1000.0 / series.getBucketMillis();
+    }
+
+    /** Line chart over the buckets of {@code axis}, one polyline per line, the first one drawn bolder. */
+    private static void chart(Writer out, String title, TimeSeries axis, List<Line> lines) throws IOException {
+        int width = 1100, height = 260, left = 60, right = 20, top = 15, bottom = 30;
+        int buckets = axis.size();
+        double max = 0;
+        for (Line line : lines) {
+            for (int i = 0; i < Math.min(buckets, line.series.size()); i++) {
+                max = Math.max(max, line.metric.value(line.series, i));
+            }
+        }
+        double yMax = max > 0 ? niceCeiling(max) : 1;
+        double plotWidth = width - left - right, plotHeight = height - top - bottom;
+
+        out.write("<div class='chart'><h3>" + HtmlTemplate.escape(title) + "</h3>");
+        out.write("<svg viewBox='0 0 " + width + " " + height + "'>");
+        for (int g = 0; g <= 4; g++) {
+            double y = top + plotHeight - g * plotHeight / 4;
+            out.write(format("<line x1='%d' y1='%.1f' x2='%d' y2='%.1f' stroke='#eee'/>", left, y, width - right, y));
+            out.write(format("<text x='%d' y='%.1f' font-size='11' fill='#7f8c8d' text-anchor='end'>%s</text>",
+                left - 6, y + 4, formatAxis(yMax * g / 4)));
+        }
+        double seconds = buckets * axis.getBucketMillis() / 1000.0;
+        for (int g = 0; g <= 4; g++) {
+            double x = left + g * plotWidth / 4;
+            out.write(format("<text x='%.1f' y='%d' font-size='11' fill='#7f8c8d' text-anchor='middle'>%ss</text>",
+                x, height - 8, formatAxis(seconds * g / 4)));
+        }
+        for (int k = 0; k < lines.size(); k++) {
+            Line line = lines.get(k);
+            out.write("<polyline fill='none' stroke-width='" + (k == 0 && lines.size() > 1 ? "2.5" : "1.5")
+                + "' stroke='" + COLORS[k % COLORS.length] + "' points='");
+            for (int i = 0; i < Math.min(buckets, line.series.size()); i++) {
+                double x = left + (buckets > 1 ? (double) i / (buckets - 1) : 0.5) * plotWidth;
+                double y = top + plotHeight - line.metric.value(line.series, i) / yMax * plotHeight;
+                out.write(format("%.1f,%.1f ", x, y));
+            }
+            out.write("'/>");
+        }
+        out.write("</svg><div class='legend'>");
+        for (int k = 0; k < lines.size(); k++) {
+            out.write("<span><i style='background: " + COLORS[k % COLORS.length] + "'></i>" + HtmlTemplate.escape(lines.get(k).name) + "</span>");
+        }
+        out.write("</div></div>");
+    }
+
+    private static void writeErrors(Writer out, ErrorBreakdown errors, List<AggregateReportParser.SamplerStats> labels,
+                                    AggregateReportParser.SamplerStats total) throws IOException {
+        List<ErrorBreakdown.ErrorType> types = errors.getTypes();
+        out.write("<h2>❌ Errors</h2>");
+        if (types.isEmpty()) {
+            out.write("<p>No errors.</p>");
+            return;
+        }
+        long errorCount = errors.getErrorCount();
+        out.write("<table><tr><th>Type of error</th><th>Number of errors</th><th>% in errors</th><th>% in all samples</th></tr>");
+        for (ErrorBreakdown.ErrorType type : types) {
+            out.write("<tr><td class='error'>" + HtmlTemplate.escape(type.getType()) + "</td><td class='num'>" + type.getCount() + "</td>");
+            out.write(format("<td class='num'>%.2f%%</td><td class='num'>%.2f%%</td></tr>",
+                100.0 * type.getCount() / errorCount, total.getSamples() > 0 ? 100.0 * type.getCount() / total.getSamples() : 0));
+        }
+        out.write("</table>");
+
+        out.write("<h2>🔝 Top " + TOP_ERRORS + " Errors by Label</h2><div style='overflow-x: auto;'><table><tr><th>Label</th><th>Samples</th><th>Errors</th>");
+        for (int i = 1; i <= TOP_ERRORS; i++) {
+            out.write("<th>Error " + i + "</th><th>#</th>");
+        }
+        out.write("</tr>");
+        for (AggregateReportParser.SamplerStats row : labels) {
+            if (row.getErrorCount() == 0) {
+                continue;
+            }
+            List<ErrorBreakdown.ErrorType> top = errors.getTopTypes(row.getLabel(), TOP_ERRORS);
+            out.write("<tr><td>" + HtmlTemplate.escape(row.getLabel()) + "</td><td class='num'>" + row.getSamples()
+                + "</td><td class='num'>" + row.getErrorCount() + "</td>");
+            for (int i = 0; i < TOP_ERRORS; i++) {
+                if (i < top.size()) {
+                    out.write("<td class='error'>" + HtmlTemplate.escape(top.get(i).getType()) + "</td><td class='num'>" + top.get(i).getCount() + "</td>");
+                } else {
+                    out.write("<td></td><td></td>");
+                }
+            }
+            out.write("</tr>");
+        }
+        out.write("</table></div>");
+    }
+
+    private interface Metric {
+        double value(TimeSeries series, int bucket);
+    }
+
+    /** One plotted line: a metric of a series, named after the series unless given a name. */
+    private static final class Line {
+        final String name;
+        final TimeSeries series;
+        final Metric metric;
+
+        Line(TimeSeries series, Metric metric) {
+            this(series.getLabel(), series, metric);
+        }
+
+        Line(String name, TimeSeries series, Metric metric) {
+            this.name = name;
+            this.series = series;
+            this.metric = metric;
+        }
+    }
+
+    private static double niceCeiling(double value) {
+        double magnitude = Math.pow(10, Math.floor(Math.log10(value)));
+        for (double step : new double[]{1, 2, 2.5, 5, 10}) {
+            if (step * magnitude >= value) {
+                return step * magnitude;
+            }
+        }
+        return 10 * magnitude;
+    }
+
+    private static String formatAxis(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : format("%.1f", value);
+    }
+
+    private static String formatTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()).format(TIME_FORMAT);
+    }
+
+    private static String format(String pattern, Object... args) {
+        return String.format(Locale.ROOT, pattern, args);
+    }
+}
@@ -0,0 +1,151 @@
+package org.perf.reporting;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An HTML fragment with {@code {{name}}} slots, split into literal and slot parts once when the
+ * template is compiled, so rendering is just a sequence of writes to the page's {@link Writer}.
+ * Slot values are HTML-escaped as they are written; {@code {{{name}}}} writes the value as-is.
+ * <p>
+ * Values are passed in the order the slot names first appear; a name used again repeats its value.
+ * Templates are meant to be compiled into static fields.
+ */
+final class HtmlTemplate {
+    /** Stylesheet shared by the session pages, written once per session directory. */
+    static final String STYLESHEET = "report.css";
+
+    private final String[] literals;
+    private final List<String> names;
+    private final int[] slots;
+    private final boolean[] raw;
+
+    private HtmlTemplate(String[] literals, List<String> names, int[] slots, boolean[] raw) {
+        this.literals = literals;
+        this.names = names;
+        this.slots = slots;
+        this.raw = raw;
+    }
+
+    static HtmlTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<Boolean> raw = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf("{{", position);
+            if (open < 0) {
+                break;
+            }
+            boolean unescaped = source.startsWith("{{{", open);
+            String close = unescaped ? "}}}" : "}}";
+            int nameStart = open + (unescaped ? 3 : 2);
+            int end = source.indexOf(close, nameStart);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed slot at " + open + " in template: " + source);
+            }
+            literals.add(source.substring(position, open));
+            String name = source.substring(nameStart, end).trim();
+            if (!names.contains(name)) {
+                names.add(name);
+            }
+            slots.add(names.indexOf(name));
+            raw.add(unescaped);
+            position = end + close.length();
+        }
+        literals.add(source.substring(position));
+        int[] slotIndexes = new int[slots.size()];
+        boolean[] rawFlags = new boolean[raw.size()];
+        for (int i = 0; i < slotIndexes.length; i++) {
+            slotIndexes[i] = slots.get(i);
+            rawFlags[i] = raw.get(i);
+        }
+        return new HtmlTemplate(literals.toArray(new String[0]), List.copyOf(names), slotIndexes, rawFlags);
+    }
+
+    /** Writes the template with {@code values} filled into its slots, one value per slot name. */
+    void render(Writer out, Object... values) throws IOException {
+        if (values.length != names.size()) {
+            throw new IllegalArgumentException("Template expects " + names.size() + " values " + names
+                + " but got " + values.length);
+        }
+        for (int i = 0; i < slots.length; i++) {
+            out.write(literals[i]);
+            String value = String.valueOf(values[slots[i]]);
+            if (raw[i]) {
+                out.write(value);
+            } else {
+                escape(out, value);
+            }
+        }
+        out.write(literals[slots.length]);
+    }
+
+    /** Writes {@code value} HTML-escaped, copying runs of safe characters straight through. */
+    static void escape(Writer out, String value) throws IOException {
+        int runStart = 0;
+        for (int i = 0; i < value.length(); i++) {
+            String replacement = replacement(value.charAt(i));
+            if (replacement != null) {
+                out.write(value, runStart, i - runStart);
+                out.write(replacement);
+                runStart = i + 1;
+            }
+        }
+        out.write(value, runStart, value.length() - runStart);
+    }
+
+    /** {@code value} HTML-escaped, or "" for null; returns {@code value} itself when nothing needs escaping. */
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = replacement(c);
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped != null ? escaped.toString() : value;
+    }
+
+    private static String replacement(char c) {
+        return switch (c) {
+            case '<' -> "&lt;";
+            case '>' -> "&gt;";
+            case '&' -> "&amp;";
+            case '"' -> "&quot;";
+            case '\'' -> "&#39;";
+            default -> null;
+        };
+    }
+
+    /** Copies the shared stylesheet into {@code dir}; pages link to it instead of inlining their CSS. */
+    static void writeStylesheet(Path dir) {
+        try (InputStream css = HtmlTemplate.class.getResourceAsStream(STYLESHEET)) {
+            if (css == null) {
+                throw new IllegalStateException("Missing resource " + STYLESHEET);
+            }
+            Files.copy(css, dir.resolve(STYLESHEET), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.perf.reporting;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * Aggregates a JTL file on a {@link ForkJoinPool}. The data section is cut into chunks at record
+ * boundaries, each chunk is parsed into its own partial {@link AggregateCollector}, and partials
+ * are merged pairwise as the task tree joins.
+ * <p>
+ * Boundaries are quote-aware: the quotes before each raw cut point are counted in parallel first,
+ * so a line break inside a quoted field is never taken as the end of a record.
+ */
+class JtlChunkTask extends RecursiveTask<AggregateCollector> {
+    // Serializable only through ForkJoinTask; tasks never leave the pool that runs them
+    private static final long serialVersionUID = 1L;
+    static final long MIN_CHUNK_SIZE = 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final transient JtlScanner scanner;
+    private final long[] boundaries;
+    private final int fromChunk;
+    private final int toChunk;
+    private final int significantDigits;
+
+    private JtlChunkTask(JtlScanner scanner, long[] boundaries, int fromChunk, int toChunk, int significantDigits) {
+        this.scanner = scanner;
+        this.boundaries = boundaries;
+        this.fromChunk = fromChunk;
+        this.toChunk = toChunk;
+        this.significantDigits = significantDigits;
+    }
+
+    /** Aggregates every record of {@code scanner}'s file and adds the line counts to {@code scanner}. */
+    static AggregateCollector aggregate(JtlScanner scanner, ForkJoinPool pool, int significantDigits) throws IOException {
+        long dataSize = scanner.getSize() - scanner.getDataStart();
+        int chunks = (int) Math.max(1, Math.min((long) pool.getParallelism() * CHUNKS_PER_THREAD, dataSize / MIN_CHUNK_SIZE));
+        if (chunks == 1 || scanner.isStreaming()) {
+            AggregateCollector collector = new AggregateCollector(significantDigits);
+            scanner.scan(collector::add);
+            return collector;
+        }
+
+        long[] boundaries = boundaries(scanner, pool, chunks);
+        JtlChunkTask task = new JtlChunkTask(scanner, boundaries, 0, chunks, significantDigits);
+        try {
+            return pool.invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static long[] boundaries(JtlScanner scanner, ForkJoinPool pool, int chunks) throws IOException {
+        long dataStart = scanner.getDataStart();
+        long chunkSize = (scanner.getSize() - dataStart) / chunks;
+        long[] rawStarts = new long[chunks + 1];
+        for (int i = 0; i <= chunks; i++) {
+            rawStarts[i] = i == chunks ? scanner.getSize() : dataStart + i * chunkSize;
+        }
+
+        long[] quotes;
+        try {
+            quotes = pool.submit(() -> IntStream.range(0, chunks).parallel()
+                .mapToLong(i -> countQuotes(scanner, rawStarts[i], rawStarts[i + 1]))
+                .toArray()).join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        long[] boundaries = new long[chunks + 1];
+        boundaries[0] = dataStart;
+        boundaries[chunks] = scanner.getSize();
+        long quotesBefore = 0;
+        for (int i = 1; i < chunks; i++) {
+            quotesBefore += quotes[i - 1];
+            long start = scanner.recordStartAfter(rawStarts[i], quotesBefore % 2 == 1);
+            boundaries[i] = Math.max(start, boundaries[i - 1]);
+        }
+        return boundaries;
+    }
+
+    private static long countQuotes(JtlScanner scanner, long from, long to) {
+        try {
+            return scanner.countQuotes(from, to);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected AggregateCollector compute() {
+        if (toChunk - fromChunk == 1) {
+            AggregateCollector partial = new AggregateCollector(significantDigits);
+            JtlScanner chunkScanner = scanner.fork();
+            try {
+                chunkScanner.scan(boundaries[fromChunk], boundaries[toChunk], partial::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            synchronized (scanner) {
+                scanner.addCounts(chunkScanner);
+            }
+            return partial;
+        }
+        int middle = (fromChunk + toChunk) >>> 1;
+        JtlChunkTask left = new JtlChunkTask(scanner, boundaries, fromChunk, middle, significantDigits);
+        JtlChunkTask right = new JtlChunkTask(scanner, boundaries, middle, toChunk, significantDigits);
+        left.fork();
+        AggregateCollector merged = right.compute();
+        merged.merge(left.join());
+        return merged;
+    }
+}
@@ -0,0 +1,124 @@
+package org.perf.reporting;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes samples as a CSV JTL with the same columns JMeter produces with {@code withAllFields(true)},
+ * so results from engines that do not run JMeter can be read by the existing report code.
+ * <p>
+ * Safe to call from many threads. A {@link ReentrantLock} is used rather than {@code synchronized}
+ * so virtual threads blocked on the writer do not pin their carrier thread.
+ */
+public class JtlCsvWriter implements ResultWriter {
+    public static final String HEADER = "timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success,failureMessage,bytes,sentBytes,grpThreads,allThreads,URL,Filename,latency,encoding,SampleCount,ErrorCount,Hostname,IdleTime,Connect";
+
+    static final String HOSTNAME = resolveHostname();
+
+    private final BufferedWriter writer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final StringBuilder line = new StringBuilder(256);
+    private final ResultRow row = new ResultRow();
+
+    public JtlCsvWriter(Path file) throws IOException {
+        this(ResultFormat.newFile(file));
+    }
+
+    /** Writes to {@code out}, e.g. a compressing stream; closing the writer closes it. */
+    JtlCsvWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(HEADER);
+        writer.newLine();
+    }
+
+    @Override
+    public void write(SampleResult sample) throws IOException {
+        lock.lock();
+        try {
+            writeRow(row.fill(sample, HOSTNAME));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void write(ResultRow resultRow) throws IOException {
+        lock.lock();
+        try {
+            writeRow(resultRow);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeRow(ResultRow row) throws IOException {
+        line.setLength(0);
+        line.append(row.timeStamp).append(',');
+        line.append(row.elapsed).append(',');
+        appendQuoted(row.label).append(',');
+        appendQuoted(row.responseCode).append(',');
+        appendQuoted(row.responseMessage).append(',');
+        appendQuoted(row.threadName).append(',');
+        appendQuoted(row.dataType).append(',');
+        line.append(row.success).append(',');
+        appendQuoted(row.failureMessage).append(',');
+        line.append(row.bytes).append(',');
+        line.append(row.sentBytes).append(',');
+        line.append(row.grpThreads).append(',');
+        line.append(row.allThreads).append(',');
+        appendQuoted(row.url).append(',');
+        line.append(',');
+        line.append(row.latency).append(',');
+        appendQuoted(row.encoding).append(',');
+        line.append(row.sampleCount).append(',');
+        line.append(row.errorCount).append(',');
+        appendQuoted(row.hostname).append(',');
+        line.append(row.idleTime).append(',');
+        line.append(row.connect);
+        writer.append(line);
+        writer.newLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            writer.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private StringBuilder appendQuoted(String value) {
+        if (value == null || value.isEmpty()) {
+            return line;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return line.append(value);
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        return line.append('"');
+    }
+
+    private static String resolveHostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "localhost";
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package org.perf.reporting;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Byte-level reader for CSV JTL files. The file is memory-mapped window by window and only the
+ * columns the Aggregate Report needs are decoded, straight from the mapped bytes: numbers are
+ * parsed digit by digit and each distinct label becomes a single String however often it occurs.
+ * Heap use is therefore independent of the file size.
+ * <p>
+ * Quoting follows RFC 4180: quoted fields may contain commas, newlines and doubled quotes.
+ * <p>
+ * Compressed files cannot be mapped; they are decompressed as a stream through a reusable heap
+ * buffer and parsed sequentially with the same record parser.
+ */
+class JtlScanner {
+    static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+    static final int STREAM_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    /** Receives one call per parsed sample. */
+    interface SampleSink {
+        void accept(String label, long timeStamp, long elapsed, boolean success, long bytes, long sentBytes,
+                    long latency, long connect, long idleTime);
+    }
+
+    private static final int TIMESTAMP = 0;
+    private static final int ELAPSED = 1;
+    private static final int LABEL = 2;
+    private static final int SUCCESS = 3;
+    private static final int BYTES = 4;
+    private static final int SENT_BYTES = 5;
+    private static final int LATENCY = 6;
+    private static final int CONNECT = 7;
+    private static final int IDLE_TIME = 8;
+    // Matched ignoring case: JMeter writes "Latency", JtlCsvWriter "latency"
+    private static final String[] NEEDED_COLUMNS = {"timeStamp", "elapsed", "label", "success", "bytes", "sentBytes",
+        "latency", "Connect", "IdleTime"};
+
+    private final FileChannel channel; // null when reading a decompressed stream
+    private final InputStream stream;
+    private final long size;
+    private final int windowSize;
+    private final List<String> header;
+    private final long dataStart;
+    // Maps a column position to the NEEDED_COLUMNS slot it fills, or -1
+    private final int[] columnSlots;
+
+    private long parsedLines;
+    private long skippedLines;
+
+    // Stream mode only: decompressed bytes not parsed yet
+    private ByteBuffer streamBuffer;
+    private int streamFilled;
+    private boolean streamEof;
+
+    private JtlScanner(FileChannel channel, int windowSize) throws IOException {
+        this.channel = channel;
+        this.stream = null;
+        this.size = channel.size();
+        this.windowSize = windowSize;
+
+        List<String> columns = new ArrayList<>();
+        if (size == 0) {
+            this.dataStart = 0;
+        } else {
+            long length = Math.min(size, 64 * 1024);
+            this.dataStart = readHeader(channel.map(FileChannel.MapMode.READ_ONLY, 0, length), (int) length, columns);
+        }
+        this.header = columns;
+        this.columnSlots = columnSlots(columns);
+    }
+
+    private JtlScanner(InputStream stream, int bufferSize) throws IOException {
+        this.channel = null;
+        this.stream = stream;
+        this.size = -1;
+        this.windowSize = bufferSize;
+        this.streamBuffer = ByteBuffer.allocate(bufferSize);
+
+        // Buffer at least the header line and, if there is one, the first byte after it
+        int lineEnd = -1;
+        while (lineEnd < 0 && fillStream()) {
+            lineEnd = indexOf(streamBuffer, '\n', streamFilled);
+        }
+        if (lineEnd >= 0 && lineEnd + 1 == streamFilled) {
+            fillStream();
+        }
+        List<String> columns = new ArrayList<>();
+        this.dataStart = streamFilled == 0 ? 0 : readHeader(streamBuffer, streamFilled, columns);
+        this.header = columns;
+        this.columnSlots = columnSlots(columns);
+    }
+
+    private JtlScanner(JtlScanner parent) {
+        this.channel = parent.channel;
+        this.stream = null;
+        this.size = parent.size;
+        this.windowSize = parent.windowSize;
+        this.header = parent.header;
+        this.dataStart = parent.dataStart;
+        this.columnSlots = parent.columnSlots;
+    }
+
+    static JtlScanner open(Path jtlFile) throws IOException {
+        return open(jtlFile, DEFAULT_WINDOW_SIZE);
+    }
+
+    static JtlScanner open(Path jtlFile, int windowSize) throws IOException {
+        CompressionCodec codec = CompressionCodec.detect(jtlFile);
+        if (codec != null) {
+            return new JtlScanner(CompressionCodec.openDecompressed(jtlFile, codec), STREAM_BUFFER_SIZE);
+        }
+        return new JtlScanner(FileChannel.open(jtlFile, StandardOpenOption.READ), windowSize);
+    }
+
+    private static int[] columnSlots(List<String> columns) {
+        int[] slots = new int[columns.size()];
+        Arrays.fill(slots, -1);
+        for (int slot = 0; slot < NEEDED_COLUMNS.length; slot++) {
+            for (int index = 0; index < columns.size(); index++) {
+                if (columns.get(index).equalsIgnoreCase(NEEDED_COLUMNS[slot])) {
+                    slots[index] = slot;
+                    break;
+                }
+            }
+        }
+        return slots;
+    }
+
+    List<String> getHeader() { return header; }
+    long getDataStart() { return dataStart; }
+    long getSize() { return size; }
+    long getParsedLines() { return parsedLines; }
+    long getSkippedLines() { return skippedLines; }
+
+    /** True for compressed files, which can only be read front to back. */
+    boolean isStreaming() {
+        return stream != null;
+    }
+
+    boolean hasData() {
+        return dataStart < (isStreaming() ? streamFilled : size);
+    }
+
+    boolean hasColumn(String name) {
+        return header.contains(name);
+    }
+
+    /** Parses every record after the header. */
+    void scan(SampleSink sink) throws IOException {
+        if (isStreaming()) {
+            scanStream(sink);
+        } else {
+            scan(dataStart, size, sink);
+        }
+    }
+
+    /**
+     * Parses the records that start in {@code [from, to)}; {@code from} must be the start of a
+     * record. A record that starts before {@code to} is read to its end even past {@code to}.
+     */
+    void scan(long from, long to, SampleSink sink) throws IOException {
+        Cursor cursor = new Cursor();
+        long windowStart = from;
+        while (windowStart < to) {
+            long windowLength = Math.min((long) windowSize, size - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+            boolean lastWindow = windowStart + windowLength == size;
+            int limit = (int) windowLength;
+            int pos = 0;
+            while (windowStart + pos < to) {
+                int end = cursor.parseRecord(window, pos, limit, lastWindow);
+                if (end < 0) {
+                    break; // record runs past this window
+                }
+                emit(cursor, sink);
+                pos = end;
+            }
+            if (pos == 0 && windowStart + pos < to) {
+                if (lastWindow) {
+                    break;
+                }
+                // A single record longer than the window: retry with a bigger one
+                rescanWithLargerWindow(windowStart, to, sink);
+                return;
+            }
+            windowStart += pos;
+        }
+    }
+
+    private void scanStream(SampleSink sink) throws IOException {
+        Cursor cursor = new Cursor();
+        int pos = (int) dataStart;
+        while (true) {
+            while (pos < streamFilled) {
+                int end = cursor.parseRecord(streamBuffer, pos, streamFilled, streamEof);
+                if (end < 0) {
+                    break; // record continues in bytes not read yet
+                }
+                emit(cursor, sink);
+                pos = end;
+            }
+            if (streamEof) {
+                return;
+            }
+            // Keep the unfinished record at the front and refill behind it
+            byte[] bytes = streamBuffer.array();
+            System.arraycopy(bytes, pos, bytes, 0, streamFilled - pos);
+            streamFilled -= pos;
+            pos = 0;
+            fillStream();
+        }
+    }
+
+    /** Reads more decompressed bytes, growing the buffer if it is full; false at end of stream. */
+    private boolean fillStream() throws IOException {
+        if (streamFilled == streamBuffer.capacity()) {
+            streamBuffer = ByteBuffer.wrap(Arrays.copyOf(streamBuffer.array(), streamFilled * 2));
+        }
+        int n = stream.read(streamBuffer.array(), streamFilled, streamBuffer.capacity() - streamFilled);
+        if (n < 0) {
+            streamEof = true;
+            return false;
+        }
+        streamFilled += n;
+        return true;
+    }
+
+    private static int indexOf(ByteBuffer buffer, char c, int limit) {
+        for (int i = 0; i < limit; i++) {
+            if (buffer.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void emit(Cursor cursor, SampleSink sink) {
+        if (cursor.fields > 0) {
+            if (cursor.complete(header.size())) {
+                sink.accept(cursor.label, cursor.timeStamp, cursor.elapsed, cursor.success, cursor.bytes, cursor.sentBytes,
+                    cursor.latency, cursor.connect, cursor.idleTime);
+                parsedLines++;
+            } else {
+                skippedLines++;
+            }
+        }
+    }
+
+    private void rescanWithLargerWindow(long from, long to, SampleSink sink) throws IOException {
+        JtlScanner wider = new JtlScanner(channel, (int) Math.min(Integer.MAX_VALUE - 8L, windowSize * 2L));
+        wider.scan(from, to, sink);
+        addCounts(wider);
+    }
+
+    /** Number of '"' bytes in {@code [from, to)}; its parity tells whether {@code to} is inside a quoted field. */
+    long countQuotes(long from, long to) throws IOException {
+        long quotes = 0;
+        for (long windowStart = from; windowStart < to; windowStart += windowSize) {
+            int windowLength = (int) Math.min(windowSize, to - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+            for (int i = 0; i < windowLength; i++) {
+                if (window.get(i) == '"') {
+                    quotes++;
+                }
+            }
+        }
+        return quotes;
+    }
+
+    /**
+     * Offset of the first record starting after {@code position}: the byte after the next line
+     * break that is outside quotes, given whether {@code position} itself is inside a quoted field.
+     */
+    long recordStartAfter(long position, boolean insideQuotes) throws IOException {
+        for (long windowStart = position; windowStart < size; windowStart += windowSize) {
+            int windowLength = (int) Math.min(windowSize, size - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+            for (int i = 0; i < windowLength; i++) {
+                byte b = window.get(i);
+                if (b == '"') {
+                    insideQuotes = !insideQuotes;
+                } else if (b == '\n' && !insideQuotes) {
+                    return windowStart + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    /** A scanner over the same file with its own line counters, for parsing chunks concurrently. */
+    JtlScanner fork() {
+        return new JtlScanner(this);
+    }
+
+    void addCounts(JtlScanner other) {
+        parsedLines += other.parsedLines;
+        skippedLines += other.skippedLines;
+    }
+
+    void close() throws IOException {
+        if (isStreaming()) {
+            stream.close();
+        } else {
+            channel.close();
+        }
+    }
+
+    private static int readHeader(ByteBuffer window, int length, List<String> columns) {
+        int pos = 0;
+        byte[] scratch = new byte[length];
+        while (pos < length) {
+            int fieldLength = 0;
+            boolean quoted = window.get(pos) == '"';
+            if (quoted) {
+                pos++;
+                while (pos < length) {
+                    byte b = window.get(pos++);
+                    if (b == '"') {
+                        if (pos < length && window.get(pos) == '"') {
+                            pos++;
+                        } else {
+                            break;
+                        }
+                    }
+                    scratch[fieldLength++] = b;
+                }
+            }
+            while (pos < length && window.get(pos) != ',' && window.get(pos) != '\n') {
+                scratch[fieldLength++] = window.get(pos++);
+            }
+            columns.add(new String(scratch, 0, fieldLength, StandardCharsets.UTF_8).trim());
+            if (pos >= length || window.get(pos++) == '\n') {
+                break;
+            }
+        }
+        return pos;
+    }
+
+    /** Values of the record being parsed, reused for every record. */
+    private final class Cursor {
+        private final LabelTable labels = new LabelTable();
+        private byte[] scratch = new byte[256];
+        private int fields;
+        private int found;
+        private String label;
+        private long timeStamp;
+        private long elapsed;
+        private boolean success;
+        private long bytes;
+        private long sentBytes;
+        private long latency;
+        private long connect;
+        private long idleTime;
+
+        boolean complete(int headerColumns) {
+            return fields >= headerColumns - 2 // tolerate a couple of missing trailing columns
+                && (found & (1 << LABEL)) != 0 && !label.isEmpty();
+        }
+
+        /** Returns the offset after the record's line break, or -1 if the record is not complete in the buffer. */
+        int parseRecord(ByteBuffer buf, int pos, int limit, boolean atEof) {
+            fields = 0;
+            found = 0;
+            label = "";
+            timeStamp = elapsed = bytes = sentBytes = latency = connect = idleTime = 0;
+            success = false;
+
+            if (isBlankLine(buf, pos, limit)) {
+                int end = lineEnd(buf, pos, limit);
+                return end < 0 ? (atEof ? limit : -1) : end;
+            }
+            while (true) {
+                int column = fields++;
+                int slot = column < columnSlots.length ? columnSlots[column] : -1;
+                int length = 0;
+                boolean quoted = pos < limit && buf.get(pos) == '"';
+                if (quoted) {
+                    pos++;
+                    while (true) {
+                        if (pos >= limit) {
+                            return atEof ? limit : -1;
+                        }
+                        byte b = buf.get(pos++);
+                        if (b == '"') {
+                            if (pos < limit && buf.get(pos) == '"') {
+                                pos++;
+                            } else if (pos >= limit && !atEof) {
+                                return -1; // cannot tell an escaped quote from a closing one yet
+                            } else {
+                                break;
+                            }
+                        }
+                        if (slot >= 0) {
+                            length = append(length, b);
+                        }
+                    }
+                }
+                while (pos < limit) {
+                    byte b = buf.get(pos);
+                    if (b == ',' || b == '\n') {
+                        break;
+                    }
+                    if (slot >= 0 && b != '\r') {
+                        length = append(length, b);
+                    }
+                    pos++;
+                }
+                if (slot >= 0) {
+                    store(slot, length);
+                }
+                if (pos >= limit) {
+                    return atEof ? limit : -1;
+                }
+                if (buf.get(pos++) == '\n') {
+                    return pos;
+                }
+            }
+        }
+
+        private int append(int length, byte b) {
+            if (length == scratch.length) {
+                scratch = Arrays.copyOf(scratch, length * 2);
+            }
+            scratch[length] = b;
+            return length + 1;
+        }
+
+        private void store(int slot, int length) {
+            int start = 0;
+            while (start < length && scratch[start] == ' ') {
+                start++;
+            }
+            while (length > start && scratch[length - 1] == ' ') {
+                length--;
+            }
+            found |= 1 << slot;
+            switch (slot) {
+                case LABEL -> label = labels.intern(scratch, start, length);
+                case SUCCESS -> success = length - start == 4
+                    && (scratch[start] | 0x20) == 't' && (scratch[start + 1] | 0x20) == 'r'
+                    && (scratch[start + 2] | 0x20) == 'u' && (scratch[start + 3] | 0x20) == 'e';
+                case TIMESTAMP -> timeStamp = parseLong(start, length);
+                case ELAPSED -> elapsed = parseLong(start, length);
+                case BYTES -> bytes = parseLong(start, length);
+                case SENT_BYTES -> sentBytes = parseLong(start, length);
+                case LATENCY -> latency = parseLong(start, length);
+                case CONNECT -> connect = parseLong(start, length);
+                case IDLE_TIME -> idleTime = parseLong(start, length);
+                default -> { }
+            }
+        }
+
+        // Malformed numbers count as 0, as the old String-based parser did
+        private long parseLong(int start, int end) {
+            if (start == end) {
+                return 0;
+            }
+            boolean negative = scratch[start] == '-';
+            int i = negative ? start + 1 : start;
+            if (i == end) {
+                return 0;
+            }
+            long value = 0;
+            for (; i < end; i++) {
+                int digit = scratch[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return 0;
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        private boolean isBlankLine(ByteBuffer buf, int pos, int limit) {
+            for (int i = pos; i < limit; i++) {
+                byte b = buf.get(i);
+                if (b == '\n') {
+                    return true;
+                }
+                if (b != ' ' && b != '\t' && b != '\r') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int lineEnd(ByteBuffer buf, int pos, int limit) {
+            for (int i = pos; i < limit; i++) {
+                if (buf.get(i) == '\n') {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /** Open-addressing table turning label bytes into one shared String per distinct label. */
+    private static final class LabelTable {
+        private byte[][] keys = new byte[64][];
+        private String[] values = new String[64];
+        private int count;
+
+        String intern(byte[] bytes, int from, int to) {
+            int hash = 1;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            int mask = keys.length - 1;
+            int index = mix(hash) & mask;
+            while (keys[index] != null) {
+                if (Arrays.equals(keys[index], 0, keys[index].length, bytes, from, to)) {
+                    return values[index];
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = Arrays.copyOfRange(bytes, from, to);
+            values[index] = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+            String value = values[index];
+            if (++count * 2 > keys.length) {
+                grow();
+            }
+            return value;
+        }
+
+        private void grow() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int index = mix(Arrays.hashCode(oldKeys[i])) & mask;
+                    while (keys[index] != null) {
+                        index = (index + 1) & mask;
+                    }
+                    keys[index] = oldKeys[i];
+                    values[index] = oldValues[i];
+                }
+            }
+        }
+
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.perf.reporting;
+
+/**
+ * Running aggregate for one sampler label, updated sample by sample while the test runs so the
+ * Aggregate Report row is ready as soon as the plan finishes.
+ * <p>
+ * Elapsed times go into a fixed-size {@link LatencyHistogram}, so memory does not grow with the
+ * number of samples. Connect, server and download times go into a {@link LatencyBreakdown}, created
+ * on the first sample that measures them. Latencies corrected for coordinated omission go into a
+ * second histogram, created when the first corrected value arrives.
+ */
+public class LabelAggregator {
+    private final String label;
+    private final LatencyHistogram elapsed;
+    private long errors;
+    private long totalBytes;
+    private long totalSentBytes;
+    private long firstTimeStamp = Long.MAX_VALUE;
+    private long lastEndTime = Long.MIN_VALUE;
+    private LatencyBreakdown breakdown;
+    private LatencyHistogram corrected;
+
+    public LabelAggregator(String label) {
+        this(label, LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    public LabelAggregator(String label, int significantDigits) {
+        this.label = label;
+        this.elapsed = new LatencyHistogram(significantDigits);
+    }
+
+    public void add(long timeStamp, long elapsedMillis, boolean success, long bytes, long sentBytes) {
+        add(timeStamp, elapsedMillis, success, bytes, sentBytes, 0, 0, 0);
+    }
+
+    public synchronized void add(long timeStamp, long elapsedMillis, boolean success, long bytes, long sentBytes,
+                                 long latency, long connect, long idleTime) {
+        elapsed.recordValue(elapsedMillis);
+        if (LatencyBreakdown.isMeasured(latency, connect)) {
+            if (breakdown == null) {
+                breakdown = new LatencyBreakdown();
+            }
+            breakdown.record(elapsedMillis, latency, connect, idleTime);
+        }
+        if (!success) {
+            errors++;
+        }
+        totalBytes += bytes;
+        totalSentBytes += sentBytes;
+        firstTimeStamp = Math.min(firstTimeStamp, timeStamp);
+        lastEndTime = Math.max(lastEndTime, timeStamp + elapsedMillis);
+    }
+
+    /**
+     * Records a latency corrected for coordinated omission: the time from the request's intended
+     * start, or its elapsed time back-filled for an expected interval (0 for none).
+     */
+    public synchronized void addCorrected(long correctedMillis, long expectedIntervalMillis) {
+        if (corrected == null) {
+            corrected = new LatencyHistogram(elapsed.getHighestTrackableValue(), elapsed.getSignificantDigits());
+        }
+        corrected.recordValueWithExpectedInterval(correctedMillis, expectedIntervalMillis);
+    }
+
+    /** Folds in another partial aggregate of the same label, e.g. from a different chunk of a JTL. */
+    public synchronized void merge(LabelAggregator other) {
+        synchronized (other) {
+            elapsed.add(other.elapsed);
+            errors += other.errors;
+            totalBytes += other.totalBytes;
+            totalSentBytes += other.totalSentBytes;
+            firstTimeStamp = Math.min(firstTimeStamp, other.firstTimeStamp);
+            lastEndTime = Math.max(lastEndTime, other.lastEndTime);
+            if (other.corrected != null) {
+                if (corrected == null) {
+                    corrected = new LatencyHistogram(elapsed.getHighestTrackableValue(), elapsed.getSignificantDigits());
+                }
+                corrected.add(other.corrected);
+            }
+            if (other.breakdown != null) {
+                if (breakdown == null) {
+                    breakdown = new LatencyBreakdown();
+                }
+                breakdown.add(other.breakdown);
+            }
+        }
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public synchronized long getSamples() {
+        return elapsed.getTotalCount();
+    }
+
+    public synchronized AggregateReportParser.SamplerStats toSamplerStats() {
+        AggregateReportParser.SamplerStats stats = new AggregateReportParser.SamplerStats();
+        stats.setLabel(label);
+        long samples = elapsed.getTotalCount();
+        if (samples == 0) {
+            return stats;
+        }
+
+        stats.setSamples((int) samples);
+        stats.setErrorCount((int) errors);
+        stats.setErrorPercentage((double) errors / samples * 100);
+
+        AggregateCollector.applyLatencies(stats, elapsed.copy());
+        if (breakdown != null) {
+            stats.setBreakdown(breakdown.copy());
+        }
+        if (corrected != null) {
+            AggregateCollector.applyCorrectedLatencies(stats, corrected.copy());
+        }
+
+        stats.setTotalBytes(totalBytes);
+        stats.setTotalSentBytes(totalSentBytes);
+        AggregateCollector.applyRates(stats, firstTimeStamp, lastEndTime);
+        return stats;
+    }
+}
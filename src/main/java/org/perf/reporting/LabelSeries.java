@@ -0,0 +1,126 @@
+package org.perf.reporting;
+
+import java.util.Arrays;
+
+/**
+ * Time buckets of one label. The newest {@code openBuckets} buckets stay open in a ring of
+ * preallocated slots (counters plus a latency histogram each), so samples that finish out of order
+ * still land in the right bucket; older buckets are closed into growable primitive columns and the
+ * slot is reused. Memory is the ring plus {@value TimeSeries#METRICS} longs per closed bucket.
+ * <p>
+ * A sample for a bucket that is already closed still counts towards its count, errors and bytes,
+ * but not its percentiles, and is reported as late.
+ */
+class LabelSeries {
+    private final String label;
+    private final long originBucket;
+    private final int openBuckets;
+    private final long[] slotErrors;
+    private final long[] slotBytes;
+    private final long[] slotSentBytes;
+    private final LatencyHistogram[] slotLatencies;
+
+    private long[][] closed = new long[TimeSeries.METRICS][64];
+    private int closedSize;
+    private long highestBucket;
+    private long lateSamples;
+
+    LabelSeries(String label, long originBucket, int openBuckets, int significantDigits) {
+        this.label = label;
+        this.originBucket = originBucket;
+        this.openBuckets = openBuckets;
+        this.slotErrors = new long[openBuckets];
+        this.slotBytes = new long[openBuckets];
+        this.slotSentBytes = new long[openBuckets];
+        this.slotLatencies = new LatencyHistogram[openBuckets];
+        for (int i = 0; i < openBuckets; i++) {
+            slotLatencies[i] = new LatencyHistogram(significantDigits);
+        }
+        this.highestBucket = originBucket - 1;
+    }
+
+    synchronized void add(long bucket, long elapsed, boolean success, long bytes, long sentBytes) {
+        bucket = Math.max(bucket, originBucket);
+        long openFrom = originBucket + closedSize;
+        if (bucket < openFrom) {
+            int index = (int) (bucket - originBucket);
+            closed[TimeSeries.COUNT][index]++;
+            closed[TimeSeries.ERRORS][index] += success ? 0 : 1;
+            closed[TimeSeries.BYTES][index] += bytes;
+            closed[TimeSeries.SENT_BYTES][index] += sentBytes;
+            closed[TimeSeries.ELAPSED_SUM][index] += elapsed;
+            lateSamples++;
+            return;
+        }
+        if (bucket >= openFrom + openBuckets) {
+            closeBefore(bucket - openBuckets + 1);
+        }
+        int slot = slot(bucket);
+        slotLatencies[slot].recordValue(elapsed);
+        slotErrors[slot] += success ? 0 : 1;
+        slotBytes[slot] += bytes;
+        slotSentBytes[slot] += sentBytes;
+        highestBucket = Math.max(highestBucket, bucket);
+    }
+
+    synchronized long getLateSamples() {
+        return lateSamples;
+    }
+
+    /** Closed buckets plus the open ones up to the newest sample, without closing anything. */
+    synchronized TimeSeries snapshot(long bucketMillis) {
+        int size = (int) (highestBucket - originBucket + 1);
+        long[][] values = new long[TimeSeries.METRICS][size];
+        for (int metric = 0; metric < TimeSeries.METRICS; metric++) {
+            System.arraycopy(closed[metric], 0, values[metric], 0, closedSize);
+        }
+        for (int index = closedSize; index < size; index++) {
+            summarize(slot(originBucket + index), values, index);
+        }
+        return new TimeSeries(label, originBucket * bucketMillis, bucketMillis, values, size);
+    }
+
+    private void closeBefore(long bucket) {
+        while (originBucket + closedSize < bucket) {
+            if (closedSize == closed[0].length) {
+                for (int metric = 0; metric < TimeSeries.METRICS; metric++) {
+                    closed[metric] = Arrays.copyOf(closed[metric], closedSize * 2);
+                }
+            }
+            int slot = slot(originBucket + closedSize);
+            summarize(slot, closed, closedSize);
+            if (slotLatencies[slot].getTotalCount() > 0) {
+                slotLatencies[slot].reset();
+                slotErrors[slot] = 0;
+                slotBytes[slot] = 0;
+                slotSentBytes[slot] = 0;
+            }
+            closedSize++;
+        }
+    }
+
+    private void summarize(int slot, long[][] target, int index) {
+        LatencyHistogram latencies = slotLatencies[slot];
+        long count = latencies.getTotalCount();
+        target[TimeSeries.COUNT][index] = count;
+        target[TimeSeries.ERRORS][index] = slotErrors[slot];
+        target[TimeSeries.BYTES][index] = slotBytes[slot];
+        target[TimeSeries.SENT_BYTES][index] = slotSentBytes[slot];
+        if (count > 0) {
+            target[TimeSeries.ELAPSED_SUM][index] = Math.round(latencies.getMean() * count);
+            target[TimeSeries.P50][index] = latencies.getValueAtPercentile(50);
+            target[TimeSeries.P90][index] = latencies.getValueAtPercentile(90);
+            target[TimeSeries.P95][index] = latencies.getValueAtPercentile(95);
+            target[TimeSeries.P99][index] = latencies.getValueAtPercentile(99);
+            target[TimeSeries.MAX][index] = latencies.getMaxValue();
+        } else {
+            for (int metric = TimeSeries.ELAPSED_SUM; metric < TimeSeries.METRICS; metric++) {
+                target[metric][index] = 0;
+            }
+        }
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) openBuckets);
+    }
+}
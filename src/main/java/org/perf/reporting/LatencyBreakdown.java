@@ -0,0 +1,86 @@
+package org.perf.reporting;
+
+/**
+ * Where the elapsed time of a label's samples went, from the JTL's {@code Connect}, {@code latency}
+ * and {@code IdleTime} columns:
+ * <ul>
+ *   <li>connect: TCP and TLS setup ({@code Connect}),</li>
+ *   <li>server: time to first byte once connected ({@code latency - Connect}),</li>
+ *   <li>download: transfer of the rest of the response ({@code elapsed - latency}).</li>
+ * </ul>
+ * Each phase has its own histogram, so a p99 regression can be traced to connection setup, the
+ * backend or payload size. Idle time is outside elapsed and only kept as a total.
+ * <p>
+ * Samplers that measure no latency (latency and connect both 0) are not recorded. Samples whose
+ * connect time is {@link #CONNECT_UNKNOWN} only count towards download and idle time: their time to
+ * first byte includes an unknown amount of connection setup, so it is not split into connect and server.
+ */
+public class LatencyBreakdown {
+    // Phase percentiles are for diagnosis; two digits keep the three extra histograms small
+    public static final int SIGNIFICANT_DIGITS = 2;
+    // Connect column of samplers that cannot see connection setup, e.g. the virtual-thread engine's HttpClient
+    public static final long CONNECT_UNKNOWN = -1;
+
+    private final LatencyHistogram connect;
+    private final LatencyHistogram server;
+    private final LatencyHistogram download;
+    private long totalIdle;
+    private long unsplit;
+
+    public LatencyBreakdown() {
+        this.connect = new LatencyHistogram(SIGNIFICANT_DIGITS);
+        this.server = new LatencyHistogram(SIGNIFICANT_DIGITS);
+        this.download = new LatencyHistogram(SIGNIFICANT_DIGITS);
+    }
+
+    private LatencyBreakdown(LatencyBreakdown source) {
+        this.connect = source.connect.copy();
+        this.server = source.server.copy();
+        this.download = source.download.copy();
+        this.totalIdle = source.totalIdle;
+        this.unsplit = source.unsplit;
+    }
+
+    /** True if the sample carries timings worth splitting up. */
+    public static boolean isMeasured(long latency, long connectTime) {
+        return latency > 0 || connectTime > 0;
+    }
+
+    public void record(long elapsed, long latency, long connectTime, long idleTime) {
+        if (connectTime == CONNECT_UNKNOWN) {
+            unsplit++;
+        } else {
+            connect.recordValue(Math.max(0, connectTime));
+            server.recordValue(Math.max(0, latency - connectTime));
+        }
+        download.recordValue(Math.max(0, elapsed - latency));
+        totalIdle += Math.max(0, idleTime);
+    }
+
+    public void add(LatencyBreakdown other) {
+        connect.add(other.connect);
+        server.add(other.server);
+        download.add(other.download);
+        totalIdle += other.totalIdle;
+        unsplit += other.unsplit;
+    }
+
+    public LatencyBreakdown copy() {
+        return new LatencyBreakdown(this);
+    }
+
+    public long getSamples() { return download.getTotalCount(); }
+    /** Samples recorded without a connect/server split, see {@link #CONNECT_UNKNOWN}. */
+    public long getUnsplitSamples() { return unsplit; }
+    /** True if some samples have connect and server times; otherwise those phases are empty. */
+    public boolean isSplit() { return unsplit < getSamples(); }
+    public LatencyHistogram getConnect() { return connect; }
+    public LatencyHistogram getServer() { return server; }
+    public LatencyHistogram getDownload() { return download; }
+    public long getTotalIdle() { return totalIdle; }
+
+    public double getMeanIdle() {
+        long samples = getSamples();
+        return samples == 0 ? 0 : (double) totalIdle / samples;
+    }
+}
@@ -0,0 +1,163 @@
+package org.perf.reporting;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+
+/**
+ * High-dynamic-range histogram of non-negative values (latencies in ms), backed by HdrHistogram's
+ * {@link Histogram}.
+ * <p>
+ * Values are kept to {@code significantDigits} decimal digits of precision across the whole range,
+ * so memory depends only on the range and precision, never on the sample count: at 3 digits and a
+ * one-hour range in ms it is about 100 KB however many samples are recorded. Recording never
+ * allocates. On top of HdrHistogram, values above the range are clamped into the top bucket
+ * instead of rejected, and count, min, max and mean are kept exact; percentiles are exact up to
+ * the precision.
+ * <p>
+ * Not thread safe; callers synchronize.
+ */
+public class LatencyHistogram {
+    public static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+    public static final long DEFAULT_HIGHEST_TRACKABLE_VALUE = 3_600_000; // one hour in ms
+
+    private final Histogram histogram;
+    private final long highestTrackableValue;
+    private final int significantDigits;
+
+    private long totalValue;
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue;
+
+    public LatencyHistogram() {
+        this(DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    public LatencyHistogram(int significantDigits) {
+        this(DEFAULT_HIGHEST_TRACKABLE_VALUE, significantDigits);
+    }
+
+    public LatencyHistogram(long highestTrackableValue, int significantDigits) {
+        if (significantDigits < 1 || significantDigits > 5) {
+            throw new IllegalArgumentException("Significant digits must be between 1 and 5: " + significantDigits);
+        }
+        if (highestTrackableValue < 2) {
+            throw new IllegalArgumentException("Highest trackable value must be at least 2: " + highestTrackableValue);
+        }
+        this.histogram = new Histogram(highestTrackableValue, significantDigits);
+        this.highestTrackableValue = highestTrackableValue;
+        this.significantDigits = significantDigits;
+    }
+
+    /** Records a value; values above the trackable range count in the top bucket but still set the exact max. */
+    public void recordValue(long value) {
+        recordValue(value, 1);
+    }
+
+    public void recordValue(long value, long count) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        histogram.recordValueWithCount(Math.min(value, highestTrackableValue), count);
+        totalValue += value * count;
+        minValue = Math.min(minValue, value);
+        maxValue = Math.max(maxValue, value);
+    }
+
+    /**
+     * Records {@code value} plus the values that requests issued every {@code expectedInterval}
+     * would have seen while this one stalled: {@code value - expectedInterval},
+     * {@code value - 2 * expectedInterval}, ... while still at least the interval. This is
+     * HdrHistogram's correction for coordinated omission, done here so the exact totals see the
+     * extra values too.
+     */
+    public void recordValueWithExpectedInterval(long value, long expectedInterval) {
+        recordValue(value);
+        if (expectedInterval <= 0) {
+            return;
+        }
+        for (long missing = value - expectedInterval; missing >= expectedInterval; missing -= expectedInterval) {
+            recordValue(missing);
+        }
+    }
+
+    /**
+     * Adds all counts from {@code other}. Histograms with the same range and precision merge bucket
+     * by bucket; otherwise each of {@code other}'s buckets is re-recorded at its lowest value, so the
+     * result has the coarser of the two precisions. Count, min, max and mean stay exact either way.
+     */
+    public void add(LatencyHistogram other) {
+        if (other.getTotalCount() == 0) {
+            return;
+        }
+        if (other.highestTrackableValue == highestTrackableValue && other.significantDigits == significantDigits) {
+            histogram.add(other.histogram);
+        } else {
+            for (HistogramIterationValue bucket : other.histogram.recordedValues()) {
+                long lowest = other.histogram.lowestEquivalentValue(bucket.getValueIteratedTo());
+                histogram.recordValueWithCount(Math.min(lowest, highestTrackableValue), bucket.getCountAtValueIteratedTo());
+            }
+        }
+        totalValue += other.totalValue;
+        minValue = Math.min(minValue, other.minValue);
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram(highestTrackableValue, significantDigits);
+        copy.add(this);
+        return copy;
+    }
+
+    public void reset() {
+        histogram.reset();
+        totalValue = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = 0;
+    }
+
+    public long getTotalCount() { return histogram.getTotalCount(); }
+    public long getMaxValue() { return maxValue; }
+    public long getMinValue() { return getTotalCount() == 0 ? 0 : minValue; }
+    public double getMean() { return getTotalCount() == 0 ? 0 : (double) totalValue / getTotalCount(); }
+    public int getSignificantDigits() { return significantDigits; }
+    public long getHighestTrackableValue() { return highestTrackableValue; }
+    public long getEstimatedFootprintInBytes() { return histogram.getEstimatedFootprintInBytes(); }
+
+    /** Equal when range, precision, every bucket count and the exact totals are. */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LatencyHistogram)) {
+            return false;
+        }
+        LatencyHistogram other = (LatencyHistogram) o;
+        return highestTrackableValue == other.highestTrackableValue
+            && significantDigits == other.significantDigits
+            && totalValue == other.totalValue
+            && getMinValue() == other.getMinValue()
+            && maxValue == other.maxValue
+            && histogram.equals(other.histogram);
+    }
+
+    @Override
+    public int hashCode() {
+        return histogram.hashCode();
+    }
+
+    /**
+     * Smallest recorded value such that {@code percentile}% of all values are at or below it
+     * (nearest rank), reported as the top of its bucket but never outside the exact min and max.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (getTotalCount() == 0) {
+            return 0;
+        }
+        if (percentile <= 0) {
+            return getMinValue();
+        }
+        long value = histogram.getValueAtPercentile(Math.min(percentile, 100));
+        return Math.max(getMinValue(), Math.min(value, maxValue));
+    }
+}
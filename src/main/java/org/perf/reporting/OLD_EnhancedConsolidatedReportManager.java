@@ -10,7 +10,6 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -23,6 +22,7 @@ public class OLD_EnhancedConsolidatedReportManager {
     private final ReentrantLock reportLock = new ReentrantLock();
     private Path consolidatedReportDir;
     private Path consolidatedJtlFile;
+    private ConsolidatedJtlMerger jtlMerger;
     private final String sessionTimestamp;
     
     private OLD_EnhancedConsolidatedReportManager() {
@@ -43,9 +43,11 @@ public class OLD_EnhancedConsolidatedReportManager {
             
             consolidatedJtlFile = consolidatedReportDir.resolve("consolidated-report").resolve("all-tests-combined.jtl");
             
-            // Create JTL header
-            String jtlHeader = "timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success,failureMessage,bytes,sentBytes,grpThreads,allThreads,URL,Filename,latency,encoding,SampleCount,ErrorCount,Hostname,IdleTime,Connect\n";
-            Files.write(consolidatedJtlFile, jtlHeader.getBytes(), StandardOpenOption.CREATE);
+            // One channel for the whole session; each test's rows are appended to it as they arrive
+            if (jtlMerger != null) {
+                jtlMerger.close();
+            }
+            jtlMerger = new ConsolidatedJtlMerger(consolidatedJtlFile);
             
             System.out.println("📊 Test session directory: " + consolidatedReportDir);
             System.out.println("📁 Individual reports: " + consolidatedReportDir.resolve("individual-reports"));
@@ -177,17 +179,10 @@ public class OLD_EnhancedConsolidatedReportManager {
     
     private void appendToConsolidatedJtl(TestResultEntry entry) {
         try {
-            Path individualJtl = entry.result.getConfig().getResultsDirectory().resolve("results.jtl");
-            if (Files.exists(individualJtl)) {
-                List<String> lines = Files.readAllLines(individualJtl);
-                if (lines.size() > 1) {
-                    for (int i = 1; i < lines.size(); i++) {
-                        String line = lines.get(i);
-                        // Enhance each line with test name prefix
-                        String enhancedLine = line.replaceFirst("^([^,]+),", "$1," + entry.testName + "-");
-                        Files.write(consolidatedJtlFile, (enhancedLine + "\n").getBytes(), StandardOpenOption.APPEND);
-                    }
-                }
+            // Rows are copied as-is; the test each row belongs to is recorded in the side file
+            Path individualJtl = ResultFormat.findResultsFile(entry.result.getConfig().getResultsDirectory());
+            if (individualJtl != null) {
+                jtlMerger.append(entry.testName, entry.threadName, individualJtl);
             }
         } catch (IOException e) {
             System.err.println("Failed to append to consolidated JTL: " + e.getMessage());
@@ -0,0 +1,91 @@
+package org.perf.reporting;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * On-disk formats for the raw sample results of a plan.
+ */
+public enum ResultFormat {
+    /** JMeter's CSV JTL with all fields; readable by JMeter and most external tools. */
+    CSV("results.jtl"),
+    /** Compact binary columnar layout, see {@link ColumnarResultWriter}. */
+    COLUMNAR("results.jtlc"),
+    /** CSV JTL compressed with gzip on a background thread. */
+    CSV_GZIP("results.jtl.gz"),
+    /** CSV JTL compressed with Zstandard on a background thread; faster than gzip at a similar ratio. */
+    CSV_ZSTD("results.jtl.zst");
+
+    private final String fileName;
+
+    ResultFormat(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Path resolve(Path resultsDirectory) {
+        return resultsDirectory.resolve(fileName);
+    }
+
+    public ResultWriter openWriter(Path resultsDirectory) throws IOException {
+        Path file = resolve(resultsDirectory);
+        return switch (this) {
+            case CSV -> new JtlCsvWriter(file);
+            case COLUMNAR -> new ColumnarResultWriter(file);
+            case CSV_GZIP -> new JtlCsvWriter(new BackgroundCompressingOutputStream(file, CompressionCodec.GZIP));
+            case CSV_ZSTD -> new JtlCsvWriter(new BackgroundCompressingOutputStream(file, CompressionCodec.ZSTD));
+        };
+    }
+
+    /**
+     * Opens {@code file} as a new file, replacing rather than truncating an existing one: a report
+     * snapshot hard-linked to the previous run's file keeps that run's content.
+     */
+    static OutputStream newFile(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.deleteIfExists(file);
+        return Files.newOutputStream(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    /** The results file in {@code resultsDirectory}, whichever format it was written in, or null. */
+    public static Path findResultsFile(Path resultsDirectory) {
+        for (ResultFormat format : values()) {
+            Path file = format.resolve(resultsDirectory);
+            if (Files.exists(file)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A plain CSV JTL with the samples of {@code resultsFile}, for tools that read nothing else:
+     * the file itself if it already is one, otherwise a temporary file the caller deletes.
+     */
+    public static Path expandToCsv(Path resultsFile) throws IOException {
+        if (ColumnarResultReader.isColumnar(resultsFile)) {
+            Path csvFile = Files.createTempFile("results-", ".jtl");
+            try (ColumnarResultReader reader = ColumnarResultReader.open(resultsFile)) {
+                reader.convertToCsv(csvFile);
+            }
+            return csvFile;
+        }
+        CompressionCodec codec = CompressionCodec.detect(resultsFile);
+        if (codec == null) {
+            return resultsFile;
+        }
+        Path csvFile = Files.createTempFile("results-", ".jtl");
+        try (InputStream in = CompressionCodec.openDecompressed(resultsFile, codec)) {
+            Files.copy(in, csvFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return csvFile;
+    }
+}
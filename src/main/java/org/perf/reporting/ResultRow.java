@@ -0,0 +1,60 @@
+package org.perf.reporting;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * One sample with the columns of a JTL written with {@code withAllFields(true)}. Instances are
+ * mutable and reused by the writers and readers to avoid an allocation per row.
+ */
+class ResultRow {
+    long timeStamp;
+    long elapsed;
+    String label = "";
+    String responseCode = "";
+    String responseMessage = "";
+    String threadName = "";
+    String dataType = "";
+    boolean success;
+    String failureMessage = "";
+    long bytes;
+    long sentBytes;
+    long grpThreads;
+    long allThreads;
+    String url = "";
+    long latency;
+    String encoding = "";
+    long sampleCount;
+    long errorCount;
+    String hostname = "";
+    long idleTime;
+    long connect;
+
+    ResultRow fill(SampleResult sample, String hostname) {
+        timeStamp = sample.getTimeStamp();
+        elapsed = sample.getTime();
+        label = nonNull(sample.getSampleLabel());
+        responseCode = nonNull(sample.getResponseCode());
+        responseMessage = nonNull(sample.getResponseMessage());
+        threadName = nonNull(sample.getThreadName());
+        dataType = nonNull(sample.getDataType());
+        success = sample.isSuccessful();
+        failureMessage = nonNull(sample.getFirstAssertionFailureMessage());
+        bytes = sample.getBytesAsLong();
+        sentBytes = sample.getSentBytes();
+        grpThreads = sample.getGroupThreads();
+        allThreads = sample.getAllThreads();
+        url = nonNull(sample.getUrlAsString());
+        latency = sample.getLatency();
+        encoding = nonNull(sample.getDataEncodingNoDefault());
+        sampleCount = sample.getSampleCount();
+        errorCount = sample.getErrorCount();
+        this.hostname = hostname;
+        idleTime = sample.getIdleTime();
+        connect = sample.getConnectTime();
+        return this;
+    }
+
+    private static String nonNull(String value) {
+        return value == null ? "" : value;
+    }
+}
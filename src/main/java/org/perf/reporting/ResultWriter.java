@@ -0,0 +1,15 @@
+package org.perf.reporting;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination for raw sample results in one of the {@link ResultFormat}s. Implementations are safe
+ * to call from many sampler threads.
+ */
+public interface ResultWriter extends Closeable {
+
+    void write(SampleResult sample) throws IOException;
+}
@@ -0,0 +1,412 @@
+package org.perf.reporting;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Every sample of a run kept off-heap for drill-down after the run: the slowest requests of a
+ * label, the samples that got a given response code, anything a scan can find. Aggregates and
+ * histograms answer "how slow", this answers "which ones".
+ * <p>
+ * Samples are fixed-width 24-byte records in {@link MemorySegment} chunks of a shared
+ * {@link Arena}, with labels and response codes replaced by ids into a small string dictionary, so
+ * fifty million samples take a little over 1 GB of native memory and no heap the collector has to
+ * walk. Appends come from one thread at a time (the result buffer's consumer); queries may run
+ * concurrently and see every sample appended before they started.
+ * <p>
+ * Each dictionary holds up to 32,767 distinct values. Labels or response codes first seen after that
+ * are stored as {@link #OTHER} and counted, so a run with unbounded labels (e.g. ids in them) keeps
+ * going.
+ */
+public final class SampleStore implements AutoCloseable {
+    public static final int RECORD_BYTES = 24;
+    /** Label or response code of samples whose own one came after its dictionary was full. */
+    public static final String OTHER = "(other)";
+    // Record layout; the timestamp is kept relative to the first sample, which covers 24 days
+    private static final long TIME_OFFSET = 0;
+    private static final long ELAPSED = 4;
+    private static final long LATENCY = 8;
+    private static final long CONNECT = 12;
+    private static final long BYTES = 16;
+    private static final long LABEL = 20;
+    private static final long CODE = 22; // low 15 bits the code id, top bit set for a failed sample
+    private static final int FAILED = 0x8000;
+    private static final int MAX_IDS = 0x7fff; // also the id reserved for OTHER
+
+    private static final int CHUNK_SHIFT = 20; // 1M records, 24 MB per chunk
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+    // Record indexes share a long with the elapsed time in top-K queries
+    private static final long MAX_CAPACITY = 0xffff_ffffL;
+    private static final int ANY = -1;
+    private static final int NO_MATCH = -2;
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final long capacity;
+    private final Arena arena;
+    private final Cleaner.Cleanable cleanable;
+    private final List<MemorySegment> chunks = new CopyOnWriteArrayList<>(); // grows once per million samples
+    private final Dictionary labels = new Dictionary();
+    private final Dictionary codes = new Dictionary();
+    private long baseTimestamp;
+    private volatile long size; // published after the record is written
+    private long overflow;
+    private volatile boolean closed;
+
+    /** @param capacity most samples to keep; later ones are only counted */
+    public SampleStore(long capacity) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Sample store capacity must be between 1 and 2^32 - 1: " + capacity);
+        }
+        this.capacity = capacity;
+        this.arena = Arena.ofShared();
+        // Native memory is freed on close(), or once the store is unreachable if nobody closes it
+        Arena owned = arena;
+        this.cleanable = CLEANER.register(this, owned::close);
+    }
+
+    /** Appends a sample; call from one thread at a time. Returns false once the store is full. */
+    public boolean add(SampleResult sample) {
+        long index = size;
+        if (index >= capacity || closed) {
+            overflow++;
+            return false;
+        }
+        if (index == 0) {
+            baseTimestamp = sample.getTimeStamp();
+        }
+        int chunk = (int) (index >>> CHUNK_SHIFT);
+        if (chunk == chunks.size()) {
+            long records = Math.min(CHUNK_RECORDS, capacity - index);
+            chunks.add(arena.allocate(records * RECORD_BYTES, Long.BYTES));
+        }
+        MemorySegment segment = chunks.get(chunk);
+        long offset = (index & (CHUNK_RECORDS - 1)) * RECORD_BYTES;
+        segment.set(ValueLayout.JAVA_INT, offset + TIME_OFFSET, clamp(sample.getTimeStamp() - baseTimestamp));
+        segment.set(ValueLayout.JAVA_INT, offset + ELAPSED, clamp(sample.getTime()));
+        segment.set(ValueLayout.JAVA_INT, offset + LATENCY, clamp(sample.getLatency()));
+        segment.set(ValueLayout.JAVA_INT, offset + CONNECT, clamp(sample.getConnectTime()));
+        segment.set(ValueLayout.JAVA_INT, offset + BYTES, clamp(sample.getBytesAsLong()));
+        segment.set(ValueLayout.JAVA_SHORT, offset + LABEL, (short) labels.id(sample.getSampleLabel()));
+        int code = codes.id(sample.getResponseCode()) | (sample.isSuccessful() ? 0 : FAILED);
+        segment.set(ValueLayout.JAVA_SHORT, offset + CODE, (short) code);
+        size = index + 1;
+        return true;
+    }
+
+    /**
+     * Visits every sample matching the label and response code (null for any) in arrival order and
+     * returns how many matched. The visitor gets a reused {@link StoredSample}; copy what it keeps.
+     */
+    public long scan(String label, String responseCode, SampleVisitor visitor) {
+        int labelId = filterId(labels, label);
+        int codeId = filterId(codes, responseCode);
+        if (labelId == NO_MATCH || codeId == NO_MATCH) {
+            return 0;
+        }
+        StoredSample cursor = new StoredSample();
+        long[] matched = new long[1];
+        forEachMatch(labelId, codeId, (segment, offset, index) -> {
+            matched[0]++;
+            if (visitor != null) {
+                visitor.visit(read(index, cursor));
+            }
+        });
+        return matched[0];
+    }
+
+    /** Samples matching the label and response code, null for any. */
+    public long count(String label, String responseCode) {
+        return scan(label, responseCode, null);
+    }
+
+    /** Failed samples of a label, or of the whole run when the label is null. */
+    public long countFailures(String label) {
+        int labelId = filterId(labels, label);
+        if (labelId == NO_MATCH) {
+            return 0;
+        }
+        long[] failed = new long[1];
+        forEachMatch(labelId, ANY, (segment, offset, index) -> {
+            if ((segment.get(ValueLayout.JAVA_SHORT, offset + CODE) & FAILED) != 0) {
+                failed[0]++;
+            }
+        });
+        return failed[0];
+    }
+
+    /** How many samples got each response code, for a label or the whole run when it is null. */
+    public Map<String, Long> countByResponseCode(String label) {
+        int labelId = filterId(labels, label);
+        long[] counts = new long[codes.size()];
+        if (labelId != NO_MATCH) {
+            forEachMatch(labelId, ANY, (segment, offset, index) -> {
+                int codeId = segment.get(ValueLayout.JAVA_SHORT, offset + CODE) & MAX_IDS;
+                if (codeId < counts.length) { // codes first seen after the query started are left out
+                    counts[codeId]++;
+                }
+            });
+        }
+        Map<String, Long> byCode = new HashMap<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                byCode.put(codes.name(id), counts[id]);
+            }
+        }
+        return byCode;
+    }
+
+    /**
+     * The n slowest samples of a label, or of the whole run when it is null, slowest first. One pass
+     * with a bounded min-heap of packed (elapsed, index) longs, so only the answer is allocated.
+     */
+    public List<StoredSample> slowest(String label, int n) {
+        return slowest(label, null, n);
+    }
+
+    /** The n slowest samples matching the label and response code (null for any), slowest first. */
+    public List<StoredSample> slowest(String label, String responseCode, int n) {
+        int labelId = filterId(labels, label);
+        int codeId = filterId(codes, responseCode);
+        if (n < 1 || labelId == NO_MATCH || codeId == NO_MATCH) {
+            return List.of();
+        }
+        long[] heap = new long[(int) Math.min(n, Math.max(size, 1))];
+        int[] heapSize = new int[1];
+        forEachMatch(labelId, codeId, (segment, offset, index) -> {
+            // Elapsed in the high bits orders by time; ties go to the later sample
+            long key = (long) Math.max(0, segment.get(ValueLayout.JAVA_INT, offset + ELAPSED)) << 32 | index;
+            if (heapSize[0] < heap.length) {
+                heap[heapSize[0]] = key;
+                siftUp(heap, heapSize[0]++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, heapSize[0]);
+            }
+        });
+        List<StoredSample> result = new ArrayList<>(heapSize[0]);
+        for (int i = 0; i < heapSize[0]; i++) {
+            result.add(read(heap[i] & 0xffff_ffffL, new StoredSample()));
+        }
+        result.sort((a, b) -> Long.compare(b.getElapsed(), a.getElapsed()));
+        return result;
+    }
+
+    /** Copies out one sample by its position in arrival order. */
+    public StoredSample get(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Sample " + index + " of " + size);
+        }
+        return read(index, new StoredSample());
+    }
+
+    /** Walks the records appended so far chunk by chunk and hands each match to the visitor. */
+    private void forEachMatch(int labelId, int codeId, RecordVisitor visitor) {
+        long end = size;
+        for (int chunk = 0; (long) chunk << CHUNK_SHIFT < end; chunk++) {
+            MemorySegment segment = segment((long) chunk << CHUNK_SHIFT);
+            long first = (long) chunk << CHUNK_SHIFT;
+            long records = Math.min(CHUNK_RECORDS, end - first);
+            for (long i = 0; i < records; i++) {
+                long offset = i * RECORD_BYTES;
+                if (matches(segment, offset, labelId, codeId)) {
+                    visitor.visit(segment, offset, first + i);
+                }
+            }
+        }
+    }
+
+    private static int filterId(Dictionary dictionary, String name) {
+        if (name == null) {
+            return ANY;
+        }
+        Integer id = dictionary.find(name);
+        return id != null ? id : NO_MATCH;
+    }
+
+    private static boolean matches(MemorySegment segment, long offset, int labelId, int codeId) {
+        return (labelId == ANY || segment.get(ValueLayout.JAVA_SHORT, offset + LABEL) == labelId)
+            && (codeId == ANY || (segment.get(ValueLayout.JAVA_SHORT, offset + CODE) & MAX_IDS) == codeId);
+    }
+
+    private StoredSample read(long index, StoredSample target) {
+        MemorySegment segment = segment(index);
+        long offset = offset(index);
+        int code = segment.get(ValueLayout.JAVA_SHORT, offset + CODE) & 0xffff;
+        target.index = index;
+        target.timeStamp = baseTimestamp + segment.get(ValueLayout.JAVA_INT, offset + TIME_OFFSET);
+        target.elapsed = segment.get(ValueLayout.JAVA_INT, offset + ELAPSED);
+        target.latency = segment.get(ValueLayout.JAVA_INT, offset + LATENCY);
+        target.connect = segment.get(ValueLayout.JAVA_INT, offset + CONNECT);
+        target.bytes = segment.get(ValueLayout.JAVA_INT, offset + BYTES);
+        target.label = labels.name(segment.get(ValueLayout.JAVA_SHORT, offset + LABEL));
+        target.responseCode = codes.name(code & MAX_IDS);
+        target.success = (code & FAILED) == 0;
+        return target;
+    }
+
+    private MemorySegment segment(long index) {
+        if (closed) {
+            throw new IllegalStateException("Sample store is closed");
+        }
+        return chunks.get((int) (index >>> CHUNK_SHIFT));
+    }
+
+    private static long offset(long index) {
+        return (index & (CHUNK_RECORDS - 1)) * RECORD_BYTES;
+    }
+
+    private static int clamp(long value) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= heap[i]) {
+                return;
+            }
+            swap(heap, parent, i);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (right < size && heap[right] < heap[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(heap, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(long[] heap, int a, int b) {
+        long t = heap[a];
+        heap[a] = heap[b];
+        heap[b] = t;
+    }
+
+    /** Frees the native memory; the store answers no queries afterwards. */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            cleanable.clean();
+        }
+    }
+
+    public long size() { return size; }
+    public long getCapacity() { return capacity; }
+    /** Samples that arrived after the store was full. */
+    public long getOverflow() { return overflow; }
+    /** Native memory reserved for records so far. */
+    public long getOffHeapBytes() { return chunks.stream().mapToLong(MemorySegment::byteSize).sum(); }
+    public List<String> getLabels() { return labels.names(); }
+    public List<String> getResponseCodes() { return codes.names(); }
+    /** Samples stored under the label {@link #OTHER} because the label dictionary was full. */
+    public long getOtherLabelSamples() { return labels.others(); }
+    /** Samples stored under the response code {@link #OTHER} because the code dictionary was full. */
+    public long getOtherResponseCodeSamples() { return codes.others(); }
+
+    private interface RecordVisitor {
+        void visit(MemorySegment segment, long offset, long index);
+    }
+
+    /** Receives each sample a {@link #scan} matches. */
+    @FunctionalInterface
+    public interface SampleVisitor {
+        void visit(StoredSample sample);
+    }
+
+    /** One sample copied out of the store. */
+    public static final class StoredSample {
+        private long index;
+        private long timeStamp;
+        private long elapsed;
+        private long latency;
+        private long connect;
+        private long bytes;
+        private String label;
+        private String responseCode;
+        private boolean success;
+
+        /** Position in arrival order, for {@link SampleStore#get}. */
+        public long getIndex() { return index; }
+        public long getTimeStamp() { return timeStamp; }
+        public long getElapsed() { return elapsed; }
+        public long getLatency() { return latency; }
+        public long getConnect() { return connect; }
+        public long getBytes() { return bytes; }
+        public String getLabel() { return label; }
+        public String getResponseCode() { return responseCode; }
+        public boolean isSuccess() { return success; }
+
+        @Override
+        public String toString() {
+            return label + " " + responseCode + " " + elapsed + " ms @" + timeStamp;
+        }
+    }
+
+    // Strings to dense ids; written by the appending thread, read by queries under the same lock.
+    // Ids below MAX_IDS are values of their own, MAX_IDS is OTHER once the dictionary is full
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private long others; // samples stored as OTHER
+
+        synchronized int id(String name) {
+            String key = name != null ? name : "";
+            Integer id = ids.get(key);
+            if (id == null) {
+                if (names.size() == MAX_IDS) {
+                    others++;
+                    return MAX_IDS;
+                }
+                id = names.size();
+                ids.put(key, id);
+                names.add(key);
+            }
+            return id;
+        }
+
+        synchronized Integer find(String name) {
+            Integer id = ids.get(name);
+            if (id == null && others > 0 && OTHER.equals(name)) {
+                return MAX_IDS;
+            }
+            return id;
+        }
+
+        synchronized String name(int id) { return id == MAX_IDS ? OTHER : names.get(id); }
+        synchronized int size() { return others > 0 ? MAX_IDS + 1 : names.size(); }
+        synchronized long others() { return others; }
+
+        synchronized List<String> names() {
+            List<String> all = new ArrayList<>(names);
+            if (others > 0) {
+                all.add(OTHER);
+            }
+            return Collections.unmodifiableList(all);
+        }
+    }
+}
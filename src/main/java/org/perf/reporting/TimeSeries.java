@@ -0,0 +1,71 @@
+package org.perf.reporting;
+
+/**
+ * Read-only per-bucket view of one label (or TOTAL) produced by {@link TimeSeriesCollector}.
+ * Bucket {@code i} covers {@code [getBucketStart(i), getBucketStart(i) + bucketMillis)}; buckets are
+ * contiguous, so a stall shows up as buckets with a count of zero rather than as a gap.
+ */
+public class TimeSeries {
+    static final int COUNT = 0;
+    static final int ERRORS = 1;
+    static final int BYTES = 2;
+    static final int SENT_BYTES = 3;
+    static final int ELAPSED_SUM = 4;
+    static final int P50 = 5;
+    static final int P90 = 6;
+    static final int P95 = 7;
+    static final int P99 = 8;
+    static final int MAX = 9;
+    static final int METRICS = 10;
+
+    private final String label;
+    private final long startMillis;
+    private final long bucketMillis;
+    private final long[][] values;
+    private final int size;
+
+    TimeSeries(String label, long startMillis, long bucketMillis, long[][] values, int size) {
+        this.label = label;
+        this.startMillis = startMillis;
+        this.bucketMillis = bucketMillis;
+        this.values = values;
+        this.size = size;
+    }
+
+    public String getLabel() { return label; }
+    public long getStartMillis() { return startMillis; }
+    public long getBucketMillis() { return bucketMillis; }
+    public int size() { return size; }
+
+    public long getBucketStart(int i) { return startMillis + i * bucketMillis; }
+    public long getCount(int i) { return values[COUNT][i]; }
+    public long getErrors(int i) { return values[ERRORS][i]; }
+    public long getBytes(int i) { return values[BYTES][i]; }
+    public long getSentBytes(int i) { return values[SENT_BYTES][i]; }
+    public long getMedian(int i) { return values[P50][i]; }
+    public long getPercentile90(int i) { return values[P90][i]; }
+    public long getPercentile95(int i) { return values[P95][i]; }
+    public long getPercentile99(int i) { return values[P99][i]; }
+    public long getMax(int i) { return values[MAX][i]; }
+
+    public double getMean(int i) {
+        return values[COUNT][i] == 0 ? 0 : (double) values[ELAPSED_SUM][i] / values[COUNT][i];
+    }
+
+    /** Samples per second in bucket {@code i}. */
+    public double getThroughput(int i) {
+        return values[COUNT][i] * 1000.0 / bucketMillis;
+    }
+
+    public double getErrorPercentage(int i) {
+        return values[COUNT][i] == 0 ? 0 : (double) values[ERRORS][i] / values[COUNT][i] * 100;
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += values[COUNT][i];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,179 @@
+package org.perf.reporting;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams samples into fixed-width time buckets per label plus a TOTAL series: count, errors, bytes
+ * and latency percentiles per bucket, for throughput and latency over time (warm-up, GC stalls,
+ * saturation). Fed live from the sampler threads or by replaying a results file; either way memory
+ * grows with the run's duration, not its sample count.
+ * <p>
+ * Samples are bucketed by their start timestamp, like JMeter's over-time graphs. All series share
+ * the first sample's bucket as origin, so bucket {@code i} is the same interval in every series;
+ * samples that started before the origin count in the first bucket.
+ */
+public class TimeSeriesCollector {
+    public static final long DEFAULT_BUCKET_MILLIS = 1000;
+    // Buckets still accepting samples; a sample finishing later than this after its start is "late"
+    public static final int DEFAULT_OPEN_BUCKETS = 10;
+    // Per-bucket percentiles only need to show the trend, so keep the open histograms small
+    static final int SIGNIFICANT_DIGITS = 2;
+    static final String TOTAL = "TOTAL";
+
+    private final long bucketMillis;
+    private final int openBuckets;
+    private final AtomicLong originBucket = new AtomicLong(Long.MIN_VALUE);
+    private final ConcurrentHashMap<String, LabelSeries> series = new ConcurrentHashMap<>();
+    private volatile LabelSeries total;
+    private volatile GeneratorHealth generatorHealth; // null unless the run watched its load generator
+
+    public TimeSeriesCollector() {
+        this(DEFAULT_BUCKET_MILLIS);
+    }
+
+    public TimeSeriesCollector(long bucketMillis) {
+        this(bucketMillis, DEFAULT_OPEN_BUCKETS);
+    }
+
+    public TimeSeriesCollector(long bucketMillis, int openBuckets) {
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("Bucket width must be positive: " + bucketMillis);
+        }
+        if (openBuckets < 1) {
+            throw new IllegalArgumentException("At least one open bucket is needed: " + openBuckets);
+        }
+        this.bucketMillis = bucketMillis;
+        this.openBuckets = openBuckets;
+    }
+
+    /** Replays a results file in any {@link ResultFormat}; rows are read in file order. */
+    public static TimeSeriesCollector fromResults(Path resultsFile, long bucketMillis) throws IOException {
+        TimeSeriesCollector collector = new TimeSeriesCollector(bucketMillis);
+        if (ColumnarResultReader.isColumnar(resultsFile)) {
+            try (ColumnarResultReader reader = ColumnarResultReader.open(resultsFile)) {
+                reader.forEachRow(row -> collector.add(row.label, row.timeStamp, row.elapsed, row.success, row.bytes, row.sentBytes));
+            }
+            return collector;
+        }
+        JtlScanner scanner = JtlScanner.open(resultsFile);
+        try {
+            if (scanner.hasData()) {
+                scanner.scan((label, timeStamp, elapsed, success, bytes, sentBytes, latency, connect, idleTime) ->
+                    collector.add(label, timeStamp, elapsed, success, bytes, sentBytes));
+            }
+        } finally {
+            scanner.close();
+        }
+        return collector;
+    }
+
+    public void add(SampleResult sample) {
+        add(sample.getSampleLabel(), sample.getTimeStamp(), sample.getTime(), sample.isSuccessful(),
+            sample.getBytesAsLong(), sample.getSentBytes());
+    }
+
+    public void add(String label, long timeStamp, long elapsed, boolean success, long bytes, long sentBytes) {
+        long bucket = Math.floorDiv(timeStamp, bucketMillis);
+        long origin = originBucket.get();
+        if (origin == Long.MIN_VALUE) {
+            origin = originBucket.compareAndExchange(Long.MIN_VALUE, bucket);
+            if (origin == Long.MIN_VALUE) {
+                origin = bucket;
+            }
+        }
+        long seriesOrigin = origin;
+        series.computeIfAbsent(label, l -> newSeries(l, seriesOrigin)).add(bucket, elapsed, success, bytes, sentBytes);
+        totalSeries(origin).add(bucket, elapsed, success, bytes, sentBytes);
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    /** How the load generator held up over the same buckets, or null if it was not watched. */
+    public GeneratorHealth getGeneratorHealth() {
+        return generatorHealth;
+    }
+
+    public void setGeneratorHealth(GeneratorHealth generatorHealth) {
+        this.generatorHealth = generatorHealth;
+    }
+
+    /** Per-label series sorted by label, each covering the same buckets up to its newest sample. */
+    public List<TimeSeries> getSeries() {
+        List<TimeSeries> snapshots = new ArrayList<>();
+        for (LabelSeries labelSeries : series.values()) {
+            snapshots.add(labelSeries.snapshot(bucketMillis));
+        }
+        snapshots.sort(Comparator.comparing(TimeSeries::getLabel));
+        return snapshots;
+    }
+
+    /** All labels together, or null before the first sample. */
+    public TimeSeries getTotal() {
+        LabelSeries totalSeries = total;
+        return totalSeries != null ? totalSeries.snapshot(bucketMillis) : null;
+    }
+
+    /** Samples that arrived after their bucket was closed; they are in the counts but not the percentiles. */
+    public long getLateSamples() {
+        LabelSeries totalSeries = total;
+        return totalSeries != null ? totalSeries.getLateSamples() : 0;
+    }
+
+    /** Writes one row per bucket and series: the TOTAL series first, then each label. */
+    public void writeCsv(Path csvFile) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(csvFile)) {
+            writer.write("bucketStart,label,count,errors,throughput,mean,p50,p90,p95,p99,max,receivedBytes,sentBytes\n");
+            TimeSeries totalSeries = getTotal();
+            if (totalSeries != null) {
+                writeCsvRows(writer, totalSeries);
+            }
+            for (TimeSeries labelSeries : getSeries()) {
+                writeCsvRows(writer, labelSeries);
+            }
+        }
+    }
+
+    private static void writeCsvRows(BufferedWriter writer, TimeSeries series) throws IOException {
+        String label = series.getLabel();
+        if (label.indexOf(',') >= 0 || label.indexOf('"') >= 0) {
+            label = '"' + label.replace("\"", "\"\"") + '"';
+        }
+        for (int i = 0; i < series.size(); i++) {
+            writer.write(String.format(Locale.ROOT, "%d,%s,%d,%d,%.2f,%.1f,%d,%d,%d,%d,%d,%d,%d\n",
+                series.getBucketStart(i), label, series.getCount(i), series.getErrors(i), series.getThroughput(i),
+                series.getMean(i), series.getMedian(i), series.getPercentile90(i), series.getPercentile95(i),
+                series.getPercentile99(i), series.getMax(i), series.getBytes(i), series.getSentBytes(i)));
+        }
+    }
+
+    private LabelSeries newSeries(String label, long origin) {
+        return new LabelSeries(label, origin, openBuckets, SIGNIFICANT_DIGITS);
+    }
+
+    private LabelSeries totalSeries(long origin) {
+        LabelSeries totalSeries = total;
+        if (totalSeries == null) {
+            synchronized (this) {
+                totalSeries = total;
+                if (totalSeries == null) {
+                    totalSeries = newSeries(TOTAL, origin);
+                    total = totalSeries;
+                }
+            }
+        }
+        return totalSeries;
+    }
+}
@@ -0,0 +1,93 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.builder.ArrivalProcess;
+import org.perf.builder.PerformanceTestBuilder;
+import org.perf.core.LoadEngine;
+import org.perf.core.TestConfiguration;
+import org.perf.model.ExecutionResult;
+import org.perf.reporting.EnhancedConsolidatedReportManager;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Open-model runs against a local server, so the offered load is not limited by the network.
+ */
+public class ArrivalRateTest {
+
+    @RegisterExtension
+    final LocalTestServer server = new LocalTestServer().route("/slow", 200, 500);
+
+    @Test
+    @DisplayName("Constant arrivals keep the offered rate")
+    public void constantArrivalRate() throws Exception {
+        ExecutionResult result = PerformanceTestBuilder.create(config("Constant Arrivals"))
+            .withArrivalRate(50, Duration.ofSeconds(2))
+            .addRequest()
+                .name("Fast")
+                .get("/fast")
+            .and()
+            .execute();
+
+        assertThat(result.getTotalSamples()).isBetween(95L, 100L);
+        assertThat(result.getErrorCount()).isEqualTo(0);
+        assertThat(result.getDroppedArrivals()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Arrivals beyond max concurrency are dropped, not queued")
+    public void exhaustedPoolDropsArrivals() throws Exception {
+        ExecutionResult result = PerformanceTestBuilder.create(config("Dropped Arrivals"))
+            .withArrivalRate(20, Duration.ofSeconds(2))
+            .withArrivalProcess(ArrivalProcess.POISSON)
+            .withMaxConcurrency(2)
+            .addRequest()
+                .name("Slow")
+                .get("/slow")
+            .and()
+            .execute();
+
+        // Two slots of 500ms each can serve about 8 of the ~40 arrivals
+        assertThat(result.getTotalSamples()).isLessThan(15);
+        assertThat(result.getDroppedArrivals()).isGreaterThan(20);
+        assertThat(result.getTotalSamples() + result.getDroppedArrivals()).isBetween(20L, 70L);
+    }
+
+    @Test
+    @DisplayName("The JMeter engine reports dropped and late arrivals as unknown, not as zero")
+    public void jmeterArrivalsUnknown() throws Exception {
+        String testName = "JMeter Arrivals";
+        ExecutionResult result = PerformanceTestBuilder.create(server.config(testName, LoadEngine.JMETER).build())
+            .withArrivalRate(10, Duration.ofSeconds(1))
+            .addRequest()
+                .name("Fast")
+                .get("/fast")
+            .and()
+            .execute();
+
+        assertThat(result.getTotalSamples()).isPositive();
+        assertThat(result.hasArrivalCounts()).isFalse();
+        assertThat(result.getDroppedArrivals()).isEqualTo(ExecutionResult.UNKNOWN);
+        assertThat(result.getLateArrivals()).isEqualTo(ExecutionResult.UNKNOWN);
+
+        EnhancedConsolidatedReportManager manager = EnhancedConsolidatedReportManager.getInstance();
+        manager.addTestResult(testName, result);
+        manager.generateConsolidatedReport();
+        Path testDir = manager.getConsolidatedReportDir().resolve("individual-reports")
+            .resolve(testName.replace(' ', '-') + "-" + Thread.currentThread().getName().replaceAll("[^a-zA-Z0-9-_]", "-"));
+        assertThat(Files.readString(testDir.resolve("test-summary.html")))
+            .contains("🚪 Open-Model Arrivals")
+            .contains("<td>Dropped Arrivals</td><td class='numeric'>unknown</td>");
+    }
+
+    private TestConfiguration config(String testName) throws Exception {
+        return server.config(testName, LoadEngine.VIRTUAL_THREADS).build();
+    }
+}
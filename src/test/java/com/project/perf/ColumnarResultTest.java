@@ -0,0 +1,113 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.builder.PerformanceTestBuilder;
+import org.perf.core.LoadEngine;
+import org.perf.core.TestConfiguration;
+import org.perf.model.ExecutionResult;
+import org.perf.reporting.AggregateReportParser;
+import org.perf.reporting.ColumnarResultReader;
+import org.perf.reporting.ColumnarResultWriter;
+import org.perf.reporting.ResultFormat;
+import org.perf.utils.FileUtils;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The columnar result format: what the engines write, what the reports read back, and its size.
+ */
+public class ColumnarResultTest {
+
+    @RegisterExtension
+    final LocalTestServer server = new LocalTestServer();
+
+    @Test
+    @DisplayName("Columnar results parse to the in-memory aggregates (virtual threads)")
+    public void columnarOnVirtualThreads() throws Exception {
+        assertColumnarMatches(LoadEngine.VIRTUAL_THREADS);
+    }
+
+    @Test
+    @DisplayName("Columnar results parse to the in-memory aggregates (JMeter engine)")
+    public void columnarOnJmeter() throws Exception {
+        assertColumnarMatches(LoadEngine.JMETER);
+    }
+
+    @Test
+    @DisplayName("Blocks carry footers and round-trip through CSV")
+    public void blocksRoundTripThroughCsv() throws Exception {
+        Path dir = FileUtils.createResultsDir("columnar-blocks");
+        Path columnar = dir.resolve("many.jtlc");
+        Random random = new Random(7);
+        try (ColumnarResultWriter writer = new ColumnarResultWriter(columnar)) {
+            for (int i = 0; i < 20_000; i++) {
+                SampleResult sample = new SampleResult();
+                sample.setSampleLabel(i % 2 == 0 ? "Home" : "Search, \"all\"");
+                sample.setStampAndTime(1_700_000_000_000L + i * 10L, random.nextInt(3_000));
+                sample.setSuccessful(i % 50 != 0);
+                sample.setResponseCode(i % 50 != 0 ? "200" : "500");
+                sample.setThreadName("Group 1-" + (i % 25));
+                sample.setBytes(1_000L + random.nextInt(500));
+                sample.setSentBytes(200);
+                writer.write(sample);
+            }
+        }
+
+        try (ColumnarResultReader reader = ColumnarResultReader.open(columnar)) {
+            assertThat(reader.getSampleCount()).isEqualTo(20_000);
+            assertThat(reader.getBlocks()).hasSize(3);
+            assertThat(reader.getBlocks().get(0).getRows()).isEqualTo(8192);
+            assertThat(reader.getBlocks().get(0).getErrors()).isEqualTo(164);
+            assertThat(reader.getBlocks().get(2).getMaxElapsed()).isLessThan(3_000);
+            reader.convertToCsv(dir.resolve("many.jtl"));
+        }
+
+        List<AggregateReportParser.SamplerStats> fromColumnar = AggregateReportParser.parseJtlFile(columnar);
+        List<AggregateReportParser.SamplerStats> fromCsv = AggregateReportParser.parseJtlFile(dir.resolve("many.jtl"));
+        assertThat(fromColumnar).usingRecursiveFieldByFieldElementComparator(HistogramComparison.BY_CONTENT).isEqualTo(fromCsv);
+        assertThat(fromColumnar.get(2).getSamples()).isEqualTo(20_000);
+        // About 22 bytes per sample; even this sparse CSV (no URLs or messages) is ~80
+        assertThat(Files.size(columnar) / 20_000).isLessThan(25);
+        assertThat(Files.size(columnar)).isLessThan(Files.size(dir.resolve("many.jtl")) / 3);
+    }
+
+    private void assertColumnarMatches(LoadEngine engine) throws Exception {
+        Path resultsDir = FileUtils.createResultsDir("columnar-" + engine.name().toLowerCase());
+        Files.deleteIfExists(resultsDir.resolve("results.jtl"));
+        TestConfiguration config = server.config("Columnar " + engine)
+            .resultsDirectory(resultsDir)
+            .engine(engine)
+            .resultFormat(ResultFormat.COLUMNAR)
+            .build();
+
+        ExecutionResult result = PerformanceTestBuilder.create(config)
+            .withThreads(2)
+            .withIterations(3)
+            .addRequest()
+                .name("Good")
+                .get("/ok")
+            .and()
+            .addRequest()
+                .name("Bad")
+                .get("/fail")
+            .and()
+            .execute();
+
+        Path resultsFile = ResultFormat.findResultsFile(resultsDir);
+        assertThat(resultsFile).isEqualTo(resultsDir.resolve("results.jtlc"));
+        assertThat(ColumnarResultReader.isColumnar(resultsFile)).isTrue();
+        assertThat(AggregateReportParser.parseJtlFile(resultsFile))
+            .usingRecursiveFieldByFieldElementComparator(HistogramComparison.BY_CONTENT)
+            .isEqualTo(result.getSamplerStats());
+    }
+}
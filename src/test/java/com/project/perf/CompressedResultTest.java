@@ -0,0 +1,104 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.builder.PerformanceTestBuilder;
+import org.perf.core.LoadEngine;
+import org.perf.core.TestConfiguration;
+import org.perf.model.ExecutionResult;
+import org.perf.reporting.AggregateReportParser;
+import org.perf.reporting.ResultFormat;
+import org.perf.utils.FileUtils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip and Zstandard result files: written by both engines, read back by the parser.
+ */
+public class CompressedResultTest {
+
+    @RegisterExtension
+    final LocalTestServer server = new LocalTestServer();
+
+    @Test
+    @DisplayName("Gzip results on virtual threads")
+    public void gzipOnVirtualThreads() throws Exception {
+        assertCompressedMatches(ResultFormat.CSV_GZIP, LoadEngine.VIRTUAL_THREADS);
+    }
+
+    @Test
+    @DisplayName("Zstandard results on the JMeter engine")
+    public void zstdOnJmeter() throws Exception {
+        assertCompressedMatches(ResultFormat.CSV_ZSTD, LoadEngine.JMETER);
+    }
+
+    @Test
+    @DisplayName("Compressed JTLs larger than the stream buffer parse like plain ones")
+    public void largeCompressedJtl() throws Exception {
+        StringBuilder content = new StringBuilder("timeStamp,elapsed,label,responseMessage,success,bytes,sentBytes\n");
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            content.append(1_700_000_000_000L + i).append(',').append(random.nextInt(2_000)).append(",Page ").append(i % 5)
+                .append(",\"quoted,\nmessage ").append("y".repeat(random.nextInt(30))).append("\",")
+                .append(i % 9 != 0).append(",2048,300\n");
+        }
+        Path dir = FileUtils.createResultsDir("compressed-large");
+        Path plain = dir.resolve("large.jtl");
+        Path gzip = dir.resolve("large.jtl.gz");
+        Files.writeString(plain, content);
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            out.write(content.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThat(Files.size(plain)).isGreaterThan(4 * 1024 * 1024);
+        assertThat(AggregateReportParser.parseJtlFile(gzip))
+            .usingRecursiveFieldByFieldElementComparator(HistogramComparison.BY_CONTENT)
+            .isEqualTo(AggregateReportParser.parseJtlFile(plain));
+    }
+
+    private void assertCompressedMatches(ResultFormat format, LoadEngine engine) throws Exception {
+        Path resultsDir = FileUtils.createResultsDir("compressed-" + format.name().toLowerCase() + "-" + engine.name().toLowerCase());
+        Files.deleteIfExists(resultsDir.resolve("results.jtl"));
+        TestConfiguration config = server.config("Compressed " + format)
+            .resultsDirectory(resultsDir)
+            .engine(engine)
+            .resultFormat(format)
+            .build();
+
+        ExecutionResult result = PerformanceTestBuilder.create(config)
+            .withThreads(2)
+            .withIterations(3)
+            .addRequest()
+                .name("Good")
+                .get("/ok")
+            .and()
+            .addRequest()
+                .name("Bad")
+                .get("/fail")
+            .and()
+            .execute();
+
+        Path resultsFile = ResultFormat.findResultsFile(resultsDir);
+        assertThat(resultsFile).isEqualTo(resultsDir.resolve(format.getFileName()));
+        assertThat(AggregateReportParser.parseJtlFile(resultsFile))
+            .usingRecursiveFieldByFieldElementComparator(HistogramComparison.BY_CONTENT)
+            .isEqualTo(result.getSamplerStats());
+
+        Path csv = ResultFormat.expandToCsv(resultsFile);
+        try {
+            assertThat(Files.readAllLines(csv)).hasSize(13);
+            assertThat(Files.size(resultsFile)).isLessThan(Files.size(csv));
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+    }
+}
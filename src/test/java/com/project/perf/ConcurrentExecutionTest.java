@@ -0,0 +1,83 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.perf.builder.PerformanceTestBuilder;
+import org.perf.core.PlanExecutionMode;
+import org.perf.core.TestConfiguration;
+import org.perf.model.ExecutionResult;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plans in {@link PlanExecutionMode#CONCURRENT} mode run on the JMeter engine at the same time
+ * instead of queueing behind the global execution lock, each with its own results.
+ */
+public class ConcurrentExecutionTest {
+
+    // Slow enough that two plans overlap for most of their run
+    @RegisterExtension
+    final LocalTestServer server = new LocalTestServer().route("/", 200, 100);
+
+    @Test
+    @DisplayName("Two concurrent plans overlap and each keeps its own samples and JTL")
+    public void plansOverlap() throws Exception {
+        TestConfiguration first = server.config("Concurrent A").executionMode(PlanExecutionMode.CONCURRENT).build();
+        TestConfiguration second = server.config("Concurrent B").executionMode(PlanExecutionMode.CONCURRENT).build();
+        Files.deleteIfExists(first.getResultsDirectory().resolve("results.jtl"));
+        Files.deleteIfExists(second.getResultsDirectory().resolve("results.jtl"));
+
+        CompletableFuture<ExecutionResult> a = CompletableFuture.supplyAsync(() -> run(first, 5));
+        CompletableFuture<ExecutionResult> b = CompletableFuture.supplyAsync(() -> run(second, 5));
+
+        assertThat(a.get(60, TimeUnit.SECONDS).getTotalSamples()).isEqualTo(10);
+        assertThat(b.get(60, TimeUnit.SECONDS).getTotalSamples()).isEqualTo(10);
+        // Each plan has two users; more than two requests at once means the plans ran side by side
+        assertThat(server.getMaxInFlight()).isGreaterThan(2);
+        assertThat(Files.readAllLines(first.getResultsDirectory().resolve("results.jtl"))).hasSize(11);
+        assertThat(Files.readAllLines(second.getResultsDirectory().resolve("results.jtl"))).hasSize(11);
+    }
+
+    @Test
+    @DisplayName("A concurrent plan may not write into the results directory of a running one")
+    public void sharedResultsDirectoryFailsFast() throws Exception {
+        TestConfiguration running = server.config("Concurrent Shared").executionMode(PlanExecutionMode.CONCURRENT).build();
+        CompletableFuture<ExecutionResult> first = CompletableFuture.supplyAsync(() -> run(running, 20));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (server.getRequests() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThatThrownBy(() -> PerformanceTestBuilder.create(running)
+                .withThreads(1)
+                .withIterations(1)
+                .addRequest().name("Clash").get("/clash").and()
+                .execute())
+            .hasStackTraceContaining("is already used by a running plan");
+        assertThat(first.get(60, TimeUnit.SECONDS).getTotalSamples()).isEqualTo(40);
+    }
+
+    private static ExecutionResult run(TestConfiguration config, int iterations) {
+        try {
+            return PerformanceTestBuilder.create(config)
+                .withThreads(2)
+                .withIterations(iterations)
+                .withRampUp(Duration.ZERO)
+                .addRequest()
+                    .name("Concurrent Ping")
+                    .get("/ping")
+                .and()
+                .execute();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
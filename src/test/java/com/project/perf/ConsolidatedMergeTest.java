@@ -0,0 +1,142 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.core.TestConfiguration;
+import org.perf.model.ExecutionResult;
+import org.perf.reporting.EnhancedConsolidatedReportManager;
+import org.perf.reporting.JtlCsvWriter;
+import org.perf.utils.FileUtils;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import us.abstracta.jmeter.javadsl.core.TestPlanStats;
+import us.abstracta.jmeter.javadsl.core.engines.EmbeddedStatsSummary;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The consolidated JTL gets each test's rows byte for byte, with the test recorded in the side
+ * file rather than spliced into the rows; per-test work runs after addTestResult returns.
+ */
+public class ConsolidatedMergeTest {
+
+    @Test
+    @DisplayName("Rows are merged unchanged and located through the side file")
+    public void rowsMergedUnchanged() throws Exception {
+        EnhancedConsolidatedReportManager manager = EnhancedConsolidatedReportManager.getInstance();
+        Path first = writeJtl("consolidated-merge-first", "Login", 20_000);
+        Path second = writeJtl("consolidated-merge-second", "Search, \"quoted\"", 5_000);
+
+        manager.addTestResult("Merge First", result(first.getParent()));
+        manager.addTestResult("Merge, Second", result(second.getParent()));
+        // Merging runs on the report executor; generating the report waits for it
+        manager.generateConsolidatedReport();
+
+        Path combined = manager.getConsolidatedReportDir().resolve("consolidated-report").resolve("all-tests-combined.jtl");
+        Path tests = combined.resolveSibling("all-tests-combined.jtl.tests.csv");
+        byte[] combinedBytes = Files.readAllBytes(combined);
+        List<String> ranges = Files.readAllLines(tests);
+
+        assertThat(ranges.get(0)).isEqualTo("testName,threadName,firstByte,endByte");
+        assertRange(combinedBytes, rangeOf(ranges, "Merge First,"), first);
+        assertRange(combinedBytes, rangeOf(ranges, "\"Merge, Second\","), second);
+        assertThat(new String(combinedBytes, 0, indexOfNewline(combinedBytes) + 1, StandardCharsets.UTF_8)).isEqualTo(JtlCsvWriter.HEADER + "\n");
+    }
+
+    @Test
+    @DisplayName("Queued results are fully processed once the consolidated report is generated")
+    public void reportWaitsForQueuedResults() throws Exception {
+        EnhancedConsolidatedReportManager manager = EnhancedConsolidatedReportManager.getInstance();
+        Path jtl = writeJtl("consolidated-merge-queued", "Queued", 1_000);
+
+        manager.addTestResult("Merge Queued", result(jtl.getParent()));
+        // The snapshot is independent of the source: a rerun may delete it right away
+        Files.delete(jtl);
+        manager.generateConsolidatedReport();
+
+        Path reportDir = manager.getConsolidatedReportDir().resolve("individual-reports")
+            .resolve("Merge-Queued-" + Thread.currentThread().getName().replaceAll("[^a-zA-Z0-9-_]", "-"));
+        assertThat(reportDir.resolve("results.jtl")).exists();
+        assertThat(reportDir.resolve("test-summary.html")).exists();
+        assertThat(manager.getConsolidatedReportDir().resolve("consolidated-report").resolve("consolidated-summary.html")).exists();
+    }
+
+    @Test
+    @DisplayName("The snapshot is a link taken at once, and a rerun writing the same results file does not change it")
+    public void snapshotSurvivesRewrite() throws Exception {
+        EnhancedConsolidatedReportManager manager = EnhancedConsolidatedReportManager.getInstance();
+        Path jtl = writeJtl("consolidated-merge-rewritten", "Original", 1_000);
+
+        manager.addTestResult("Merge Rewritten", result(jtl.getParent()));
+        Path snapshot = manager.getConsolidatedReportDir().resolve("individual-reports")
+            .resolve("Merge-Rewritten-" + Thread.currentThread().getName().replaceAll("[^a-zA-Z0-9-_]", "-"))
+            .resolve("results.jtl");
+        // Linked, not copied, so adding a result costs the same however big its file is
+        assertThat(Files.isSameFile(snapshot, jtl)).isTrue();
+
+        // Same file written again, as the next run of the test would
+        writeRows(jtl, "Rerun", 10);
+        manager.generateConsolidatedReport();
+
+        List<String> lines = Files.readAllLines(snapshot);
+        assertThat(lines).hasSize(1_001);
+        assertThat(lines.subList(1, lines.size())).allSatisfy(line -> assertThat(line).contains(",Original,"));
+        assertThat(Files.readAllLines(jtl)).hasSize(11);
+    }
+
+    private static Path writeJtl(String dirName, String label, int rows) throws Exception {
+        Path dir = FileUtils.createResultsDir(dirName);
+        Path jtl = dir.resolve("results.jtl");
+        Files.deleteIfExists(jtl);
+        writeRows(jtl, label, rows);
+        return jtl;
+    }
+
+    private static void writeRows(Path jtl, String label, int rows) throws Exception {
+        try (JtlCsvWriter writer = new JtlCsvWriter(jtl)) {
+            for (int i = 0; i < rows; i++) {
+                SampleResult sample = new SampleResult();
+                sample.setSampleLabel(label);
+                sample.setStampAndTime(1_700_000_000_000L + i, 10 + i % 90);
+                sample.setSuccessful(i % 17 != 0);
+                writer.write(sample);
+            }
+        }
+    }
+
+    private static ExecutionResult result(Path resultsDir) {
+        TestConfiguration config = TestConfiguration.builder().resultsDirectory(resultsDir).build();
+        return new ExecutionResult(new TestPlanStats(EmbeddedStatsSummary::new), config);
+    }
+
+    private static long[] rangeOf(List<String> ranges, String prefix) {
+        String line = ranges.stream().filter(l -> l.startsWith(prefix)).reduce((a, b) -> b).orElseThrow();
+        String[] fields = line.split(",");
+        return new long[]{Long.parseLong(fields[fields.length - 2]), Long.parseLong(fields[fields.length - 1])};
+    }
+
+    private static void assertRange(byte[] combined, long[] range, Path source) throws Exception {
+        byte[] sourceBytes = Files.readAllBytes(source);
+        int dataStart = indexOfNewline(sourceBytes) + 1;
+        byte[] expected = Arrays.copyOfRange(sourceBytes, dataStart, sourceBytes.length);
+        byte[] actual = Arrays.copyOfRange(combined, (int) range[0], (int) range[1]);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    private static int indexOfNewline(byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,117 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.builder.PerformanceTestBuilder;
+import org.perf.core.LoadEngine;
+import org.perf.core.TestConfiguration;
+import org.perf.model.ExecutionResult;
+import org.perf.reporting.AggregateCollector;
+import org.perf.reporting.AggregateReportParser;
+import org.perf.reporting.HtmlDashboardGenerator;
+import org.perf.utils.FileUtils;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.nio.file.Files;
+import java.time.Duration;
+
+/**
+ * Latencies corrected for coordinated omission: a stall is also charged to the requests it held
+ * back, either by back-filling an expected interval or by measuring from each intended start.
+ */
+public class CoordinatedOmissionTest {
+    private static final long START = 1_700_000_000_000L;
+
+    @RegisterExtension
+    final LocalTestServer server = new LocalTestServer();
+
+    @Test
+    @DisplayName("Expected-interval correction back-fills the requests a stall held back")
+    public void expectedIntervalBackFill() throws Exception {
+        AggregateCollector collector = new AggregateCollector();
+        collector.setExpectedInterval(100);
+        for (int i = 0; i < 99; i++) {
+            collector.add(sample("Paced", START + i * 100L, 10));
+        }
+        // One 1s stall: nine requests due every 100ms would have waited 900, 800, ... 100ms
+        collector.add(sample("Paced", START + 9_900, 1_000));
+
+        AggregateReportParser.SamplerStats stats = collector.getSamplerStats().get(0);
+        assertThat(stats.getSamples()).isEqualTo(100);
+        assertThat(stats.getHistogram().getTotalCount()).isEqualTo(100);
+        assertThat(stats.getCorrectedHistogram().getTotalCount()).isEqualTo(109);
+        assertThat(stats.getPercentile95()).isEqualTo(10);
+        assertThat(stats.getCorrectedPercentile95()).isGreaterThanOrEqualTo(500);
+        assertThat(stats.getCorrectedMax()).isEqualTo(stats.getMax());
+
+        AggregateReportParser.SamplerStats total = collector.getTotalStats();
+        assertThat(total.getCorrectedHistogram().getTotalCount()).isEqualTo(109);
+
+        String html = Files.readString(HtmlDashboardGenerator.generate(
+            FileUtils.createResultsDir("coordinated-omission-dashboard"), "Corrected", collector, null));
+        assertThat(html).contains("Coordinated Omission").contains("Corrected 99%");
+    }
+
+    @Test
+    @DisplayName("Intended starts charge the wait before a late request to its latency")
+    public void intendedStart() {
+        AggregateCollector collector = new AggregateCollector();
+        collector.add(sample("Late", START + 500, 10), START);
+        collector.add(sample("Late", START + 1_000, 10), START + 1_000);
+        // Unscheduled samples are only recorded raw
+        collector.add(sample("Unscheduled", START, 10), 0);
+
+        AggregateReportParser.SamplerStats late = collector.getSamplerStats().get(0);
+        assertThat(late.getMax()).isEqualTo(10);
+        assertThat(late.getCorrectedMax()).isEqualTo(510);
+        assertThat(late.getCorrectedHistogram().getValueAtPercentile(50)).isEqualTo(10);
+        assertThat(collector.getSamplerStats().get(1).getCorrectedHistogram()).isNull();
+
+        // The TOTAL row counts the unscheduled label's raw latencies as corrected ones
+        assertThat(collector.getTotalStats().getCorrectedHistogram().getTotalCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("A stall in a paced virtual-thread run is charged once, then corrected latencies return to baseline")
+    public void pacedRunOnVirtualThreads() throws Exception {
+        // The tenth request stalls for a second, well after warm-up; everything else is fast
+        server.stall(10, 1_000);
+        TestConfiguration config = server.config("Coordinated Omission")
+            .engine(LoadEngine.VIRTUAL_THREADS)
+            .writeJtl(false)
+            .coordinatedOmissionCorrection(true)
+            .build();
+        ExecutionResult result = PerformanceTestBuilder.create(config)
+            .withThreads(1)
+            .withRampUp(Duration.ZERO)
+            .withDuration(Duration.ofMillis(4_000))
+            .withPacing(Duration.ofMillis(100))
+            .addRequest()
+                .name("Ping")
+                .get("/ping")
+            .and()
+            .execute();
+
+        AggregateReportParser.SamplerStats total = result.getAggregates().getTotalStats();
+        // About 30 requests: the stalled one, the next one that started ~900ms late, and the rest
+        // back on a fresh pacing grid
+        assertThat(total.getSamples()).isGreaterThan(20);
+        assertThat(total.getHistogram().getValueAtPercentile(50)).isLessThan(200);
+        assertThat(total.getCorrectedHistogram().getValueAtPercentile(75)).isLessThan(200);
+        assertThat(total.getCorrectedMax()).isGreaterThanOrEqualTo(1_000);
+        assertThat(total.getCorrectedHistogram().getValueAtPercentile(95)).isGreaterThanOrEqualTo(800);
+    }
+
+    private static SampleResult sample(String label, long timeStamp, long elapsed) {
+        SampleResult sample = new SampleResult();
+        sample.setSampleLabel(label);
+        sample.setStampAndTime(timeStamp, elapsed);
+        sample.setSuccessful(true);
+        return sample;
+    }
+}
@@ -0,0 +1,123 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.perf.builder.ArrivalProcess;
+import org.perf.builder.PerformanceTestBuilder;
+import org.perf.core.BufferOverflowPolicy;
+import org.perf.core.PlanExecutionMode;
+import org.perf.model.ExecutionResult;
+import org.perf.reporting.AggregateReportParser;
+import org.perf.reporting.ErrorBreakdown;
+import org.perf.reporting.TimeSeries;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Plans in {@link PlanExecutionMode#FORKED} mode run in a worker JVM and are rebuilt in this one
+ * from the streamed samples, so they must report what the same plan reports in process.
+ */
+public class ForkedExecutionTest {
+
+    @RegisterExtension
+    final LocalTestServer server = new LocalTestServer();
+
+    @Test
+    @DisplayName("A forked plan reports the same counts, aggregates and time series as an in-process run")
+    public void matchesInProcessRun() throws Exception {
+        ExecutionResult local = run("Forked Baseline", PlanExecutionMode.SERIALIZED);
+        ExecutionResult forked = run("Forked Run", PlanExecutionMode.FORKED);
+
+        assertThat(forked.getTotalSamples()).isEqualTo(local.getTotalSamples()).isEqualTo(30);
+        assertThat(forked.getErrorCount()).isEqualTo(local.getErrorCount()).isEqualTo(10);
+        assertThat(samplesPerLabel(forked.getSamplerStats())).isEqualTo(samplesPerLabel(local.getSamplerStats()));
+        assertThat(forked.getAggregates().getSampleCount()).isEqualTo(30);
+        assertThat(forked.getAggregates().getErrors().getErrorCount()).isEqualTo(10);
+        assertThat(forked.getAggregates().getErrors().getTypes()).extracting(ErrorBreakdown.ErrorType::getType)
+            .isEqualTo(local.getAggregates().getErrors().getTypes().stream().map(ErrorBreakdown.ErrorType::getType).toList());
+
+        TimeSeries forkedTotal = forked.getTimeSeries().getTotal();
+        assertThat(forkedTotal.getTotalCount()).isEqualTo(local.getTimeSeries().getTotal().getTotalCount());
+        assertThat(forked.getTimeSeries().getSeries()).extracting(TimeSeries::getLabel)
+            .isEqualTo(local.getTimeSeries().getSeries().stream().map(TimeSeries::getLabel).toList());
+
+        // The worker writes the JTL into the same results directory the parent was given
+        Path jtl = forked.getConfig().getResultsDirectory().resolve("results.jtl");
+        assertThat(Files.readAllLines(jtl)).hasSize(31);
+    }
+
+    @Test
+    @DisplayName("A plan that fails inside the worker fails the caller and leaves the worker usable")
+    public void failedPlanInWorker() throws Exception {
+        // Built in the worker, where the JMeter engine rejects Poisson arrivals
+        assertThatThrownBy(() -> PerformanceTestBuilder.create(server.config("Forked Failure")
+                    .executionMode(PlanExecutionMode.FORKED)
+                    .build())
+                .withArrivalRate(10, Duration.ofSeconds(1))
+                .withArrivalProcess(ArrivalProcess.POISSON)
+                .addRequest().name("Forked Ping").get("/ping").and()
+                .execute())
+            .hasMessageContaining("in worker")
+            .hasMessageContaining("POISSON arrivals need LoadEngine.VIRTUAL_THREADS");
+
+        assertThat(run("Forked After Failure", PlanExecutionMode.FORKED).getTotalSamples()).isEqualTo(30);
+    }
+
+    @Test
+    @DisplayName("Strings longer than 64 KB, here a label, reach the parent intact")
+    public void longStrings() throws Exception {
+        String name = "Long " + "x".repeat(70_000);
+        ExecutionResult result = PerformanceTestBuilder.create(server.config("Forked Long Label")
+                    .executionMode(PlanExecutionMode.FORKED)
+                    .writeJtl(false)
+                    .build())
+            .withThreads(1)
+            .withIterations(3)
+            .addRequest().name(name).get("/ping").and()
+            .execute();
+
+        assertThat(result.getTotalSamples()).isEqualTo(3);
+        assertThat(result.getSamplerStats()).extracting(AggregateReportParser.SamplerStats::getLabel)
+            .singleElement().asString().startsWith(name + "-");
+    }
+
+    @Test
+    @DisplayName("DROP is refused for a forked plan, whose totals come from the samples that pass the buffer")
+    public void dropRefused() {
+        assertThatThrownBy(() -> server.config("Forked Drop")
+                .executionMode(PlanExecutionMode.FORKED)
+                .bufferOverflowPolicy(BufferOverflowPolicy.DROP)
+                .build())
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("FORKED");
+    }
+
+    private ExecutionResult run(String testName, PlanExecutionMode mode) throws Exception {
+        return PerformanceTestBuilder.create(server.config(testName).executionMode(mode).build())
+            .withThreads(2)
+            .withIterations(5)
+            .withRampUp(Duration.ZERO)
+            .addRequest().name("Forked Ping").get("/ping").and()
+            .addRequest().name("Forked Search").get("/search?q=fork").and()
+            .addRequest().name("Forked Failure").get("/fail").and()
+            .execute();
+    }
+
+    private static Map<String, Integer> samplesPerLabel(List<AggregateReportParser.SamplerStats> stats) {
+        Map<String, Integer> samples = new TreeMap<>();
+        for (AggregateReportParser.SamplerStats row : stats) {
+            samples.put(row.getLabel(), row.getSamples());
+        }
+        return samples;
+    }
+}
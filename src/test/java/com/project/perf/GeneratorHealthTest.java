@@ -0,0 +1,185 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.builder.PerformanceTestBuilder;
+import org.perf.core.LoadEngine;
+import org.perf.core.TestConfiguration;
+import org.perf.model.ExecutionResult;
+import org.perf.monitoring.GeneratorHealthSampler;
+import org.perf.reporting.AggregateCollector;
+import org.perf.reporting.EnhancedConsolidatedReportManager;
+import org.perf.reporting.GeneratorHealth;
+import org.perf.reporting.HtmlDashboardGenerator;
+import org.perf.reporting.TimeSeriesCollector;
+import org.perf.utils.FileUtils;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import us.abstracta.jmeter.javadsl.core.TestPlanStats;
+import us.abstracta.jmeter.javadsl.core.engines.EmbeddedStatsSummary;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * The load generator watches its own CPU, GC, heap, threads, sockets and scheduling lag, and a run
+ * where it was saturated for too long is reported as invalid.
+ */
+public class GeneratorHealthTest {
+    private static final long START = 1_700_000_000_000L;
+    private static final long HEAP = 1L << 30;
+
+    @RegisterExtension
+    final LocalTestServer server = new LocalTestServer();
+
+    @Test
+    @DisplayName("Saturated intervals are flagged and enough of them invalidate the run")
+    public void verdicts() throws Exception {
+        GeneratorHealth health = new GeneratorHealth(1000);
+        for (int second = 0; second < 20; second++) {
+            for (int tick = 0; tick < 4; tick++) {
+                health.record(START + second * 1000L + tick * 250L, 0.30, 5, HEAP / 4, HEAP, 40, 12, 2, 1);
+            }
+        }
+        assertThat(health.size()).isEqualTo(20);
+        assertThat(health.getCpu(0)).isEqualTo(0.30);
+        assertThat(health.getGcPauseMillis(0)).isEqualTo(20);
+        assertThat(health.getSaturatedBuckets()).isZero();
+        assertThat(health.isValid()).isTrue();
+
+        // One saturated second in twenty is a warning, two make the run invalid
+        health.record(START + 5_100, 0.30, 150, HEAP / 4, HEAP, 40, 12, 0, 0);
+        assertThat(health.getSaturationReasons(5)).containsExactly("GC pauses 170 ms");
+        assertThat(health.isValid()).isTrue();
+
+        health.record(START + 12_000, 0.30, 0, HEAP - 1, HEAP, 40, 12, 0, 250);
+        assertThat(health.getSaturationReasons(12)).containsExactly("heap 100%", "scheduling lag 250 ms");
+        assertThat(health.getSaturatedBuckets()).isEqualTo(2);
+        assertThat(health.isValid()).isFalse();
+        assertThat(health.getVerdict())
+            .isEqualTo("Load generator saturated in 2 of 20 intervals (GC pauses, heap, scheduling lag)");
+        assertThat(health.getPeakLagMillis()).isEqualTo(250);
+        assertThat(health.getPeakSockets()).isEqualTo(12);
+
+        // A lone spike in a short run, e.g. JIT warm-up, only warns
+        GeneratorHealth shortRun = new GeneratorHealth(1000);
+        for (int second = 0; second < 3; second++) {
+            shortRun.record(START + second * 1000L, second == 0 ? 1.0 : 0.30, 0, HEAP / 4, HEAP, 40, 12, 0, 0);
+        }
+        assertThat(shortRun.getSaturatedBuckets()).isEqualTo(1);
+        assertThat(shortRun.isValid()).isTrue();
+
+        // Forked workers send their health to the parent
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        health.write(new DataOutputStream(bytes));
+        GeneratorHealth copy = GeneratorHealth.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertThat(copy.size()).isEqualTo(20);
+        assertThat(copy.getBucketStart(12)).isEqualTo(health.getBucketStart(12));
+        assertThat(copy.getSaturationReasons(5)).isEqualTo(health.getSaturationReasons(5));
+        assertThat(copy.isValid()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Heap is read as what the latest GC left live, so garbage alone never reads as pressure")
+    public void heapAfterGc() throws Exception {
+        GeneratorHealthSampler sampler = new GeneratorHealthSampler(1000).start();
+        // Garbage the size of the whole heap would read as full if current usage were sampled
+        long garbage = 0;
+        for (long allocated = 0; allocated < Runtime.getRuntime().maxMemory(); allocated += 1 << 20) {
+            garbage += new byte[1 << 20].length;
+        }
+        System.gc();
+        Thread.sleep(2 * GeneratorHealthSampler.TICK_MILLIS);
+        GeneratorHealth health = sampler.stop();
+
+        assertThat(garbage).isGreaterThanOrEqualTo(health.getHeapMax());
+        assertThat(health.getPeakHeapUsed()).isPositive().isLessThan(health.getHeapMax());
+        for (int i = 0; i < health.size(); i++) {
+            assertThat(health.getSaturationReasons(i)).noneMatch(reason -> reason.startsWith("heap"));
+        }
+    }
+
+    @Test
+    @DisplayName("A virtual-thread run records the generator's health alongside its time series")
+    public void virtualThreadRun() throws Exception {
+        ExecutionResult result = PerformanceTestBuilder.create(server.config("Generator Health")
+                .engine(LoadEngine.VIRTUAL_THREADS)
+                .writeJtl(false)
+                .timeSeriesInterval(Duration.ofMillis(500))
+                .build())
+            .withThreads(2)
+            .withIterations(10)
+            .addRequest()
+                .name("Health Ping")
+                .get("/ping")
+                .thinkTime(Duration.ofMillis(50))
+            .and()
+            .execute();
+
+        GeneratorHealth health = result.getGeneratorHealth();
+        assertThat(health).isNotNull();
+        assertThat(health.getBucketMillis()).isEqualTo(500);
+        assertThat(health.size()).isGreaterThanOrEqualTo(2);
+        assertThat(health.getPeakThreads()).isGreaterThan(0);
+        assertThat(health.getHeapMax()).isGreaterThan(0);
+        assertThat(health.getPeakCpu()).isBetween(0.0, 1.0);
+        if (Files.isDirectory(Path.of("/proc/self/fd"))) {
+            assertThat(health.getPeakSockets()).isGreaterThan(0);
+        }
+    }
+
+    @Test
+    @DisplayName("An invalid run is marked in the session index, its summary and its dashboard")
+    public void invalidRunIsReported() throws Exception {
+        Path dir = FileUtils.createResultsDir("generator-health-report");
+        TestPlanStats stats = new TestPlanStats(EmbeddedStatsSummary::new);
+        AggregateCollector aggregates = new AggregateCollector();
+        TimeSeriesCollector timeSeries = new TimeSeriesCollector(1000);
+        GeneratorHealth health = new GeneratorHealth(1000);
+        for (int second = 0; second < 5; second++) {
+            SampleResult sample = new SampleResult();
+            sample.setSampleLabel("Saturated Ping");
+            sample.setStampAndTime(START + second * 1000L, 20);
+            sample.setSuccessful(true);
+            stats.addSampleResult(sample);
+            aggregates.add(sample);
+            timeSeries.add(sample);
+            health.record(START + second * 1000L, second < 2 ? 0.97 : 0.40, 0, HEAP / 4, HEAP, 30, 8, 0, 0);
+        }
+        timeSeries.setGeneratorHealth(health);
+        ExecutionResult result = new ExecutionResult(stats, TestConfiguration.builder().resultsDirectory(dir).build());
+        result.setAggregates(aggregates);
+        result.setTimeSeries(timeSeries);
+        assertThat(result.isValid()).isFalse();
+
+        String testName = "Saturated Generator";
+        EnhancedConsolidatedReportManager manager = EnhancedConsolidatedReportManager.getInstance();
+        manager.addTestResult(testName, result);
+        manager.generateConsolidatedReport();
+
+        Path session = manager.getConsolidatedReportDir();
+        Path testDir = session.resolve("individual-reports")
+            .resolve(testName.replace(' ', '-') + "-" + Thread.currentThread().getName().replaceAll("[^a-zA-Z0-9-_]", "-"));
+        assertThat(Files.readString(session.resolve("index.html"))).contains("invalid-badge");
+        assertThat(Files.readString(testDir.resolve("test-summary.html")))
+            .contains("invalid-box")
+            .contains("Load generator saturated in 2 of 5 intervals (CPU)")
+            .contains("generator-health.csv");
+        assertThat(Files.readAllLines(testDir.resolve("generator-health.csv")))
+            .hasSize(6)
+            .element(1).asString().endsWith("CPU 97%");
+
+        Path dashboard = HtmlDashboardGenerator.generate(dir.resolve("html-report"), testName, aggregates, timeSeries);
+        assertThat(Files.readString(dashboard)).contains("Run invalid").contains("🩺 Load Generator Health");
+    }
+}
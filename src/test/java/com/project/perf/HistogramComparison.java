@@ -0,0 +1,19 @@
+package com.project.perf;
+
+import org.perf.reporting.LatencyHistogram;
+
+import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
+
+/**
+ * Recursive comparison for results that carry latency histograms. AssertJ would otherwise walk into
+ * HdrHistogram's internals, such as its per-instance identity; histograms are compared by their
+ * buckets and exact totals instead.
+ */
+final class HistogramComparison {
+    static final RecursiveComparisonConfiguration BY_CONTENT = RecursiveComparisonConfiguration.builder()
+        .withEqualsForType(LatencyHistogram::equals, LatencyHistogram.class)
+        .build();
+
+    private HistogramComparison() {
+    }
+}
@@ -0,0 +1,77 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.reporting.AggregateCollector;
+import org.perf.reporting.HtmlDashboardGenerator;
+import org.perf.reporting.JtlCsvWriter;
+import org.perf.reporting.TimeSeriesCollector;
+import org.perf.utils.FileUtils;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The dashboard is rendered in process from the streaming aggregates: statistics, over-time charts
+ * and the error breakdown, with labels and messages escaped.
+ */
+public class HtmlDashboardTest {
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    @DisplayName("Dashboard from live aggregates has statistics, charts and errors")
+    public void dashboardFromAggregates() throws Exception {
+        AggregateCollector aggregates = new AggregateCollector();
+        TimeSeriesCollector timeSeries = new TimeSeriesCollector(1000);
+        for (int i = 0; i < 3_000; i++) {
+            SampleResult sample = sample(i % 2 == 0 ? "Home" : "<Search & Filter>", i);
+            aggregates.add(sample);
+            timeSeries.add(sample);
+        }
+
+        Path dir = FileUtils.createResultsDir("html-dashboard-live");
+        Path index = HtmlDashboardGenerator.generate(dir, "Dashboard \"Live\"", aggregates, timeSeries);
+        String html = Files.readString(index);
+
+        assertThat(html).contains("Dashboard &quot;Live&quot;");
+        assertThat(html).contains("Home").contains("&lt;Search &amp; Filter&gt;").doesNotContain("<Search & Filter>");
+        assertThat(html).contains("TOTAL").contains("<svg");
+        assertThat(html).contains("503/Service Unavailable").contains("500/Internal Server Error");
+        assertThat(html).contains("Top 5 Errors by Label");
+    }
+
+    @Test
+    @DisplayName("Dashboard can be built from a results file alone")
+    public void dashboardFromResults() throws Exception {
+        Path dir = FileUtils.createResultsDir("html-dashboard-file");
+        Path jtl = dir.resolve("results.jtl");
+        Files.deleteIfExists(jtl);
+        try (JtlCsvWriter writer = new JtlCsvWriter(jtl)) {
+            for (int i = 0; i < 2_000; i++) {
+                writer.write(sample("Checkout", i));
+            }
+        }
+
+        Path index = HtmlDashboardGenerator.generateFromResults(dir.resolve("html-report"), "From File", jtl);
+        String html = Files.readString(index);
+
+        assertThat(html).contains("Checkout").contains("TOTAL").contains("<svg");
+    }
+
+    private static SampleResult sample(String label, int i) {
+        SampleResult sample = new SampleResult();
+        sample.setSampleLabel(label);
+        sample.setStampAndTime(START + i * 3L, 20 + i % 200);
+        boolean failed = i % 25 == 0;
+        sample.setSuccessful(!failed);
+        sample.setResponseCode(failed ? (i % 50 == 0 ? "503" : "500") : "200");
+        sample.setResponseMessage(failed ? (i % 50 == 0 ? "Service Unavailable" : "Internal Server Error") : "OK");
+        sample.setBytes(1024L);
+        return sample;
+    }
+}
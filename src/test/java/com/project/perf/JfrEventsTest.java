@@ -0,0 +1,100 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.builder.PerformanceTestBuilder;
+import org.perf.core.LoadEngine;
+import org.perf.core.PlanExecutionMode;
+import org.perf.core.TestConfiguration;
+import org.perf.model.ExecutionResult;
+import org.perf.monitoring.RequestSampleEvent;
+import org.perf.reporting.EnhancedConsolidatedReportManager;
+import org.perf.reporting.ResultFormat;
+import org.perf.utils.FileUtils;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Executor phases and sampled requests show up as Flight Recorder events.
+ */
+public class JfrEventsTest {
+
+    @RegisterExtension
+    final LocalTestServer server = new LocalTestServer();
+
+    @Test
+    @DisplayName("Plan phases, reporting and sampled requests are recorded")
+    public void phasesAndSamples() throws Exception {
+        Path dir = FileUtils.createResultsDir("jfr-events");
+        Path recordingFile = dir.resolve("phases.jfr");
+        int previousRate = RequestSampleEvent.getSampleEvery();
+        RequestSampleEvent.setSampleEvery(1);
+        try (Recording recording = new Recording()) {
+            recording.enable("org.perf.ExecutorPhase");
+            recording.enable("org.perf.RequestSample");
+            recording.start();
+
+            for (LoadEngine engine : LoadEngine.values()) {
+                Path resultsDir = FileUtils.createResultsDir("jfr-events-" + engine.name().toLowerCase());
+                Files.deleteIfExists(ResultFormat.COLUMNAR.resolve(resultsDir));
+                TestConfiguration config = server.config("JFR " + engine)
+                    .resultsDirectory(resultsDir)
+                    .engine(engine)
+                    .executionMode(PlanExecutionMode.CONCURRENT)
+                    .resultFormat(ResultFormat.COLUMNAR)
+                    .build();
+                ExecutionResult result = PerformanceTestBuilder.create(config)
+                    .withThreads(1)
+                    .withIterations(5)
+                    .addRequest()
+                        .name("JFR Ping")
+                        .get("/ping")
+                    .and()
+                    .execute();
+                EnhancedConsolidatedReportManager.getInstance().addTestResult(config.getTestName(), result);
+            }
+            EnhancedConsolidatedReportManager.getInstance().generateConsolidatedReport();
+
+            recording.stop();
+            recording.dump(recordingFile);
+        } finally {
+            RequestSampleEvent.setSampleEvery(previousRate);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        Set<String> jmeterPhases = phasesOf(events, "JFR JMETER");
+        Set<String> virtualThreadPhases = phasesOf(events, "JFR VIRTUAL_THREADS");
+        assertThat(jmeterPhases).contains("Sampler tree build", "Plan run", "JTL flush", "Report copy", "Report rendering");
+        assertThat(virtualThreadPhases).contains("Plan run", "JTL flush", "Report copy", "Report rendering");
+
+        List<RecordedEvent> samples = events.stream()
+            .filter(event -> event.getEventType().getName().equals("org.perf.RequestSample"))
+            .filter(event -> event.getString("label").startsWith("JFR Ping"))
+            .toList();
+        assertThat(samples).hasSize(10);
+        assertThat(samples).allSatisfy(event -> {
+            assertThat(event.getString("responseCode")).isEqualTo("200");
+            assertThat(event.getBoolean("success")).isTrue();
+        });
+    }
+
+    private static Set<String> phasesOf(List<RecordedEvent> events, String testName) {
+        return events.stream()
+            .filter(event -> event.getEventType().getName().equals("org.perf.ExecutorPhase"))
+            .filter(event -> testName.equals(event.getString("testName")))
+            .map(event -> event.getString("phase"))
+            .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,122 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.reporting.AggregateReportParser;
+import org.perf.utils.FileUtils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * JTL parsing edge cases: CSV quoting, line endings and malformed rows.
+ */
+public class JtlParserTest {
+
+    private static final String HEADER = "timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success,failureMessage,bytes,sentBytes\n";
+
+    @Test
+    @DisplayName("Quoted labels keep their commas and quotes")
+    public void quotedFields() throws Exception {
+        Path jtl = writeJtl("quoted",
+            HEADER
+                + "1000,10,\"Search, then \"\"open\"\"\",200,OK,t 1-1,text,true,,100,50\n"
+                + "1010,30,\"Search, then \"\"open\"\"\",500,\"Server, error\",t 1-1,text,false,\"line one\nline two\",200,50\n"
+                + "1020,20,Login,200,OK,t 1-1,text,true,,300,60\n");
+
+        List<AggregateReportParser.SamplerStats> stats = AggregateReportParser.parseJtlFile(jtl);
+
+        assertThat(stats).extracting(AggregateReportParser.SamplerStats::getLabel)
+            .containsExactly("Login", "Search, then \"open\"", "TOTAL");
+        AggregateReportParser.SamplerStats search = stats.get(1);
+        assertThat(search.getSamples()).isEqualTo(2);
+        assertThat(search.getErrorCount()).isEqualTo(1);
+        assertThat(search.getMin()).isEqualTo(10);
+        assertThat(search.getMax()).isEqualTo(30);
+        assertThat(search.getTotalBytes()).isEqualTo(300);
+        assertThat(stats.get(2).getSamples()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("CRLF endings, blank lines and a missing final newline")
+    public void lineEndings() throws Exception {
+        Path jtl = writeJtl("line-endings",
+            HEADER.replace("\n", "\r\n")
+                + "1000,15,Home,200,OK,t 1-1,text,TRUE,,10,5\r\n"
+                + "\r\n"
+                + "1100,25,Home,200,OK,t 1-1,text,true,,10,5\r\n"
+                + "broken row\r\n"
+                + "1200,35,Home,200,OK,t 1-1,text,true,,10,5");
+
+        List<AggregateReportParser.SamplerStats> stats = AggregateReportParser.parseJtlFile(jtl);
+
+        assertThat(stats).hasSize(1);
+        assertThat(stats.get(0).getSamples()).isEqualTo(3);
+        assertThat(stats.get(0).getErrorCount()).isEqualTo(0);
+        assertThat(stats.get(0).getAverage()).isEqualTo(25);
+        assertThat(stats.get(0).getSentKBPerSec()).isGreaterThan(0);
+    }
+
+    @Test
+    @DisplayName("Chunked parallel parsing matches the records written")
+    public void parallelChunks() throws Exception {
+        // ~8 MB with quoted line breaks everywhere, so chunk cuts land inside quoted fields
+        StringBuilder content = new StringBuilder(HEADER);
+        long[] count = new long[3];
+        long[] errors = new long[3];
+        long[] elapsedSum = new long[3];
+        long[] max = new long[3];
+        Random random = new Random(42);
+        for (int i = 0; i < 60_000; i++) {
+            int label = i % 3;
+            int elapsed = random.nextInt(5_000);
+            boolean success = random.nextInt(10) != 0;
+            count[label]++;
+            elapsedSum[label] += elapsed;
+            max[label] = Math.max(max[label], elapsed);
+            errors[label] += success ? 0 : 1;
+            content.append(1_700_000_000_000L + i).append(',').append(elapsed).append(",\"Step ").append(label)
+                .append("\",200,\"multi\nline, \"\"message\"\"\n").append("x".repeat(random.nextInt(40)))
+                .append("\",t 1-1,text,").append(success).append(",,512,128\n");
+        }
+        Path jtl = writeJtl("parallel", content.toString());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<AggregateReportParser.SamplerStats> stats = AggregateReportParser.parseJtlFile(jtl, 3, pool);
+
+            assertThat(stats).hasSize(4);
+            for (int label = 0; label < 3; label++) {
+                AggregateReportParser.SamplerStats row = stats.get(label);
+                assertThat(row.getLabel()).isEqualTo("Step " + label);
+                assertThat(row.getSamples()).isEqualTo(count[label]);
+                assertThat(row.getErrorCount()).isEqualTo(errors[label]);
+                assertThat(row.getAverage()).isEqualTo((double) elapsedSum[label] / count[label]);
+                assertThat(row.getMax()).isEqualTo(max[label]);
+            }
+            assertThat(stats.get(3).getSamples()).isEqualTo(60_000);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Files without data rows yield no stats")
+    public void emptyFiles() throws Exception {
+        assertThat(AggregateReportParser.parseJtlFile(writeJtl("empty", ""))).isEmpty();
+        assertThat(AggregateReportParser.parseJtlFile(writeJtl("header-only", HEADER))).isEmpty();
+        assertThat(AggregateReportParser.parseJtlFile(writeJtl("no-label", "timeStamp,elapsed\n1000,10\n"))).isEmpty();
+    }
+
+    private Path writeJtl(String name, String content) throws Exception {
+        Path jtl = FileUtils.createResultsDir("jtl-parser").resolve(name + ".jtl");
+        Files.writeString(jtl, content);
+        return jtl;
+    }
+}
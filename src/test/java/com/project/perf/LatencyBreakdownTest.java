@@ -0,0 +1,158 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.reporting.AggregateCollector;
+import org.perf.reporting.AggregateReportParser;
+import org.perf.reporting.ColumnarResultWriter;
+import org.perf.reporting.HtmlDashboardGenerator;
+import org.perf.reporting.JtlCsvWriter;
+import org.perf.reporting.LatencyBreakdown;
+import org.perf.utils.FileUtils;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Elapsed time split into connect, server (TTFB) and download per label, collected live and read
+ * back from CSV (our header and JMeter's) and columnar results.
+ */
+public class LatencyBreakdownTest {
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    @DisplayName("Phases are split per label and merged into the TOTAL row")
+    public void phasesPerLabel() {
+        AggregateCollector collector = new AggregateCollector();
+        for (SampleResult sample : samples()) {
+            collector.add(sample);
+        }
+
+        List<AggregateReportParser.SamplerStats> stats = collector.getSamplerStats();
+        assertThat(stats).extracting(AggregateReportParser.SamplerStats::getLabel).containsExactly("Download", "Script", "Slow Connect", "TOTAL");
+
+        LatencyBreakdown download = stats.get(0).getBreakdown();
+        assertThat(download.getSamples()).isEqualTo(100);
+        assertThat(download.getConnect().getMean()).isEqualTo(2.0);
+        assertThat(download.getServer().getMean()).isEqualTo(10.0);
+        assertThat(download.getDownload().getMaxValue()).isEqualTo(300);
+        assertThat(download.getMeanIdle()).isEqualTo(5.0);
+
+        // No latency measured: no breakdown rather than everything counted as download
+        assertThat(stats.get(1).getBreakdown()).isNull();
+
+        LatencyBreakdown slowConnect = stats.get(2).getBreakdown();
+        assertThat(slowConnect.getConnect().getValueAtPercentile(95)).isEqualTo(250);
+        assertThat(slowConnect.getServer().getMean()).isEqualTo(20.0);
+        assertThat(slowConnect.getDownload().getMean()).isEqualTo(1.0);
+
+        LatencyBreakdown total = stats.get(3).getBreakdown();
+        assertThat(total.getSamples()).isEqualTo(200);
+        assertThat(total.getConnect().getMaxValue()).isEqualTo(250);
+        assertThat(total.getDownload().getMaxValue()).isEqualTo(300);
+    }
+
+    @Test
+    @DisplayName("Result files give the same breakdown as live collection")
+    public void breakdownFromResultFiles() throws Exception {
+        Path dir = FileUtils.createResultsDir("latency-breakdown");
+        Path csv = dir.resolve("results.jtl");
+        Path columnar = dir.resolve("results.jtlc");
+        Path jmeterCsv = dir.resolve("jmeter-results.jtl");
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(columnar);
+        AggregateCollector live = new AggregateCollector();
+        StringBuilder jmeterRows = new StringBuilder("timeStamp,elapsed,label,responseCode,success,bytes,sentBytes,Latency,IdleTime,Connect\n");
+        try (JtlCsvWriter csvWriter = new JtlCsvWriter(csv); ColumnarResultWriter columnarWriter = new ColumnarResultWriter(columnar)) {
+            for (SampleResult sample : samples()) {
+                live.add(sample);
+                csvWriter.write(sample);
+                columnarWriter.write(sample);
+                jmeterRows.append(sample.getTimeStamp()).append(',').append(sample.getTime()).append(',')
+                    .append(sample.getSampleLabel()).append(",200,true,100,10,").append(sample.getLatency()).append(',')
+                    .append(sample.getIdleTime()).append(',').append(sample.getConnectTime()).append('\n');
+            }
+        }
+        Files.writeString(jmeterCsv, jmeterRows);
+
+        LatencyBreakdown expected = live.getTotalStats().getBreakdown();
+        for (Path file : List.of(csv, columnar, jmeterCsv)) {
+            List<AggregateReportParser.SamplerStats> parsed = AggregateReportParser.parseJtlFile(file);
+            LatencyBreakdown total = parsed.get(parsed.size() - 1).getBreakdown();
+            assertThat(total).as(file.getFileName().toString()).usingRecursiveComparison(HistogramComparison.BY_CONTENT).isEqualTo(expected);
+        }
+
+        String html = Files.readString(HtmlDashboardGenerator.generateFromResults(dir.resolve("html-report"), "Breakdown", csv));
+        assertThat(html).contains("Latency Breakdown").contains("Slow Connect");
+    }
+
+    @Test
+    @DisplayName("Samples without a connect time count towards download but are not split into connect and server")
+    public void unknownConnect() throws Exception {
+        Path dir = FileUtils.createResultsDir("latency-breakdown-unknown-connect");
+        Path csv = dir.resolve("results.jtl");
+        Files.deleteIfExists(csv);
+        AggregateCollector live = new AggregateCollector();
+        try (JtlCsvWriter writer = new JtlCsvWriter(csv)) {
+            for (int i = 0; i < 50; i++) {
+                for (SampleResult sample : List.of(sample("Pooled", i, 40, 30, LatencyBreakdown.CONNECT_UNKNOWN, 0),
+                        sample("Download", i, 40, 12, 2, 0))) {
+                    live.add(sample);
+                    writer.write(sample);
+                }
+            }
+        }
+
+        List<AggregateReportParser.SamplerStats> stats = live.getSamplerStats();
+        LatencyBreakdown pooled = stats.get(1).getBreakdown();
+        assertThat(pooled.getSamples()).isEqualTo(50);
+        assertThat(pooled.getUnsplitSamples()).isEqualTo(50);
+        assertThat(pooled.isSplit()).isFalse();
+        assertThat(pooled.getConnect().getTotalCount()).isZero();
+        assertThat(pooled.getServer().getTotalCount()).isZero();
+        assertThat(pooled.getDownload().getMean()).isEqualTo(10.0);
+
+        // Connection setup of the pooled samples is not passed off as server time
+        LatencyBreakdown total = stats.get(2).getBreakdown();
+        assertThat(total.getSamples()).isEqualTo(100);
+        assertThat(total.getUnsplitSamples()).isEqualTo(50);
+        assertThat(total.getServer().getTotalCount()).isEqualTo(50);
+        assertThat(total.getServer().getMaxValue()).isEqualTo(10);
+
+        List<AggregateReportParser.SamplerStats> parsed = AggregateReportParser.parseJtlFile(csv);
+        assertThat(parsed.get(parsed.size() - 1).getBreakdown()).usingRecursiveComparison(HistogramComparison.BY_CONTENT).isEqualTo(total);
+
+        String html = Files.readString(HtmlDashboardGenerator.generateFromResults(dir.resolve("html-report"), "Unknown Connect", csv));
+        assertThat(html).contains("n/a").contains("50 samples have no connect time");
+    }
+
+    private static List<SampleResult> samples() {
+        List<SampleResult> samples = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            // Large payload: 2 ms connect, 10 ms to first byte, up to 300 ms download
+            samples.add(sample("Download", i, 12 + (i + 1) * 3, 12, 2, 5));
+            // Fresh TLS handshake on every request
+            samples.add(sample("Slow Connect", i, 271, 270, 250, 0));
+            samples.add(sample("Script", i, 5, 0, 0, 0));
+        }
+        return samples;
+    }
+
+    private static SampleResult sample(String label, int i, long elapsed, long latency, long connect, long idle) {
+        SampleResult sample = new SampleResult();
+        sample.setSampleLabel(label);
+        sample.setStampAndTime(START + i * 10L, elapsed);
+        sample.setLatency(latency);
+        sample.setConnectTime(connect);
+        sample.setIdleTime(idle);
+        sample.setSuccessful(true);
+        return sample;
+    }
+}
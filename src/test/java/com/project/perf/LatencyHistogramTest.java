@@ -0,0 +1,76 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import org.perf.reporting.LatencyHistogram;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Percentile accuracy, exact extremes and merging of the per-label latency histogram.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Percentiles stay within the configured precision")
+    public void percentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram(3);
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.recordValue(v);
+        }
+
+        assertThat(histogram.getTotalCount()).isEqualTo(100_000);
+        assertThat(histogram.getMinValue()).isEqualTo(1);
+        assertThat(histogram.getMaxValue()).isEqualTo(100_000);
+        assertThat(histogram.getMean()).isEqualTo(50_000.5);
+        assertThat((double) histogram.getValueAtPercentile(50)).isCloseTo(50_000, within(50.0));
+        assertThat((double) histogram.getValueAtPercentile(99)).isCloseTo(99_000, within(99.0));
+        assertThat((double) histogram.getValueAtPercentile(99.9)).isCloseTo(99_900, within(100.0));
+        assertThat((double) histogram.getValueAtPercentile(99.99)).isCloseTo(99_990, within(100.0));
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(100_000);
+    }
+
+    @Test
+    @DisplayName("Small values are exact and the max is never rounded")
+    public void exactSmallValuesAndMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 999; i++) {
+            histogram.recordValue(12);
+        }
+        histogram.recordValue(123_457);
+
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(12);
+        assertThat(histogram.getValueAtPercentile(99.9)).isEqualTo(12);
+        assertThat(histogram.getValueAtPercentile(99.99)).isEqualTo(123_457);
+        assertThat(histogram.getMaxValue()).isEqualTo(123_457);
+    }
+
+    @Test
+    @DisplayName("Merged histograms equal one histogram fed with all values")
+    public void mergeMatchesSingleHistogram() {
+        LatencyHistogram all = new LatencyHistogram();
+        LatencyHistogram even = new LatencyHistogram();
+        LatencyHistogram odd = new LatencyHistogram();
+        for (long v = 0; v < 20_000; v++) {
+            all.recordValue(v * 7);
+            (v % 2 == 0 ? even : odd).recordValue(v * 7);
+        }
+        even.add(odd);
+
+        assertThat(even.getTotalCount()).isEqualTo(all.getTotalCount());
+        assertThat(even.getMean()).isEqualTo(all.getMean());
+        for (double p : new double[] {0, 50, 90, 99, 99.9, 99.99, 100}) {
+            assertThat(even.getValueAtPercentile(p)).isEqualTo(all.getValueAtPercentile(p));
+        }
+    }
+
+    @Test
+    @DisplayName("Precision is validated")
+    public void rejectsInvalidPrecision() {
+        assertThatThrownBy(() -> new LatencyHistogram(6)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new LatencyHistogram(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
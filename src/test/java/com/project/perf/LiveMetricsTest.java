@@ -0,0 +1,172 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.builder.PerformanceTestBuilder;
+import org.perf.core.LoadEngine;
+import org.perf.core.PlanExecutionMode;
+import org.perf.core.TestConfiguration;
+import org.perf.model.ExecutionResult;
+import org.perf.monitoring.LiveMetrics;
+import org.perf.monitoring.LiveMetricsExporter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+/**
+ * Live metrics are served in Prometheus format and over JMX while a plan runs, and an abort
+ * request stops running plans early.
+ */
+// The exporter and aborts are JVM-wide, so these tests may not overlap
+@Execution(ExecutionMode.SAME_THREAD)
+public class LiveMetricsTest {
+
+    @RegisterExtension
+    final LocalTestServer server = new LocalTestServer().route("/", 200, 20).route("/fail", 500, 20);
+
+    private int metricsPort;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void start() throws Exception {
+        metricsPort = LiveMetricsExporter.start(0).getPort();
+    }
+
+    @AfterEach
+    void stop() {
+        LiveMetricsExporter.stop();
+    }
+
+    @Test
+    @DisplayName("The exporter listens on loopback only unless another bind address is configured")
+    public void loopbackByDefault() throws Exception {
+        assertThat(LiveMetricsExporter.start(0).getAddress().isLoopbackAddress()).isTrue();
+        TestConfiguration defaults = TestConfiguration.builder().liveMetricsPort(0).build();
+        assertThat(InetAddress.getByName(defaults.getLiveMetricsBindAddress()).isLoopbackAddress()).isTrue();
+
+        LiveMetricsExporter.stop();
+        TestConfiguration everywhere = TestConfiguration.builder().liveMetricsPort(0).liveMetricsBindAddress("0.0.0.0").build();
+        LiveMetricsExporter exporter = LiveMetricsExporter.start(everywhere.getLiveMetricsBindAddress(), everywhere.getLiveMetricsPort());
+        assertThat(exporter.getAddress().isAnyLocalAddress()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Per-label metrics are served in Prometheus format and as MBeans")
+    public void prometheusAndJmx() throws Exception {
+        PerformanceTestBuilder.create(config("Live Export", LoadEngine.VIRTUAL_THREADS))
+            .withThreads(2)
+            .withIterations(10)
+            .addRequest()
+                .name("Live Ping")
+                .get("/ping")
+            .and()
+            .addRequest()
+                .name("Live Fail")
+                .get("/fail")
+            .and()
+            .execute();
+
+        String label = "Live Ping-" + Thread.currentThread().getName();
+        String failLabel = "Live Fail-" + Thread.currentThread().getName();
+        String metrics = get("/metrics");
+        assertThat(metrics).contains("# TYPE perf_samples_total counter");
+        assertThat(metrics).contains("perf_samples_total{label=\"" + label + "\"} 20");
+        assertThat(metrics).contains("perf_errors_total{label=\"" + label + "\"} 0");
+        assertThat(metrics).contains("perf_errors_total{label=\"" + failLabel + "\"} 20");
+        assertThat(metrics).contains("perf_error_ratio{label=\"" + failLabel + "\"} 1");
+        assertThat(metrics).contains("perf_latency_seconds_bucket{label=\"" + label + "\",le=\"+Inf\"} 20");
+        assertThat(metrics).contains("perf_latency_seconds_count{label=\"" + label + "\"} 20");
+        assertThat(metrics).contains("perf_latency_quantile_seconds{label=\"" + label + "\",quantile=\"0.99\"}");
+
+        double p50 = LiveMetrics.getInstance().getLabel(label).getLatencyP50();
+        assertThat(p50).isBetween(10.0, 100.0);
+
+        ObjectName name = new ObjectName("org.perf:type=LiveMetrics,label=" + ObjectName.quote(label));
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Samples")).isEqualTo(20L);
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "ActiveThreads")).isIn(1, 2);
+    }
+
+    @Test
+    @DisplayName("POST /abort stops a virtual-thread run")
+    public void abortVirtualThreads() throws Exception {
+        assertAborted(LoadEngine.VIRTUAL_THREADS, PlanExecutionMode.SERIALIZED);
+    }
+
+    @Test
+    @DisplayName("POST /abort stops a JMeter run")
+    public void abortJmeter() throws Exception {
+        assertAborted(LoadEngine.JMETER, PlanExecutionMode.SERIALIZED);
+    }
+
+    @Test
+    @DisplayName("POST /abort stops a run in a forked worker")
+    public void abortForked() throws Exception {
+        assertAborted(LoadEngine.VIRTUAL_THREADS, PlanExecutionMode.FORKED);
+    }
+
+    private void assertAborted(LoadEngine engine, PlanExecutionMode mode) throws Exception {
+        CompletableFuture<ExecutionResult> run = CompletableFuture.supplyAsync(() -> {
+            try {
+                return PerformanceTestBuilder.create(config("Live Abort " + engine + " " + mode, engine, mode))
+                    .withThreads(2)
+                    .withRampUp(Duration.ZERO)
+                    .withDuration(Duration.ofSeconds(30))
+                    .addRequest()
+                        .name("Abort Ping")
+                        .get("/ping")
+                    .and()
+                    .execute();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        // Abort once requests flow (JMeter or a forked worker may still be starting before that)
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (server.getRequests() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        long abortedAt = System.nanoTime();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + metricsPort + "/abort"))
+            .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(202);
+
+        ExecutionResult result = run.get(10, TimeUnit.SECONDS);
+        assertThat(result.getTotalSamples()).isGreaterThan(0);
+        assertThat(Duration.ofNanos(System.nanoTime() - abortedAt)).isLessThan(Duration.ofSeconds(10));
+    }
+
+    private String get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + metricsPort + path)).build(),
+            HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private TestConfiguration config(String testName, LoadEngine engine) throws Exception {
+        return config(testName, engine, PlanExecutionMode.SERIALIZED);
+    }
+
+    private TestConfiguration config(String testName, LoadEngine engine, PlanExecutionMode mode) throws Exception {
+        return server.config(testName, engine)
+            .executionMode(mode)
+            .writeJtl(false)
+            .liveMetricsPort(0)
+            .build();
+    }
+}
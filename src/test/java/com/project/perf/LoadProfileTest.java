@@ -0,0 +1,107 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.builder.PerformanceTestBuilder;
+import org.perf.core.LoadEngine;
+import org.perf.core.TestConfiguration;
+import org.perf.model.ExecutionResult;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+
+/**
+ * Ramp-up, stage profiles, duration and pacing, checked against what a local server sees.
+ */
+public class LoadProfileTest {
+
+    // Every request takes 100ms, so overlapping requests show how many users were active
+    @RegisterExtension
+    final LocalTestServer server = new LocalTestServer().route("/", 200, 100);
+
+    @Test
+    @DisplayName("Ramp-up spreads user starts")
+    public void rampUpSpreadsUserStarts() throws Exception {
+        // 4 users over 2s start 500ms apart, each with one 100ms request: they never overlap
+        ExecutionResult result = PerformanceTestBuilder.create(config("Ramp Up", LoadEngine.VIRTUAL_THREADS))
+            .withThreads(4)
+            .withIterations(1)
+            .withRampUp(Duration.ofSeconds(2))
+            .addRequest()
+                .name("Ping")
+                .get("/ping")
+            .and()
+            .execute();
+
+        assertThat(result.getTotalSamples()).isEqualTo(4);
+        assertThat(server.getMaxInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Stages step up, hold and ramp down")
+    public void stagedProfile() throws Exception {
+        ExecutionResult result = runStagedProfile(LoadEngine.VIRTUAL_THREADS);
+
+        assertThat(result.getErrorCount()).isEqualTo(0);
+        assertThat(result.getTotalSamples()).isGreaterThan(40);
+        assertThat(server.getMaxInFlight()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Stages on the JMeter engine")
+    public void stagedProfileOnJmeter() throws Exception {
+        ExecutionResult result = runStagedProfile(LoadEngine.JMETER);
+
+        assertThat(result.getErrorCount()).isEqualTo(0);
+        assertThat(result.getTotalSamples()).isGreaterThan(40);
+        assertThat(server.getMaxInFlight()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Pacing absorbs think time in a duration-bound run")
+    public void pacedDurationRun() throws Exception {
+        assertThat(runPaced(LoadEngine.VIRTUAL_THREADS).getTotalSamples()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Pacing on the JMeter engine")
+    public void pacedDurationRunOnJmeter() throws Exception {
+        assertThat(runPaced(LoadEngine.JMETER).getTotalSamples()).isEqualTo(6);
+    }
+
+    private ExecutionResult runPaced(LoadEngine engine) throws Exception {
+        // Iterations take ~400ms; paced at 1s, 2 users fit 3 each into 2.5s instead of ~6
+        return PerformanceTestBuilder.create(config("Paced " + engine, engine))
+            .withThreads(2)
+            .withRampUp(Duration.ZERO)
+            .withDuration(Duration.ofMillis(2500))
+            .withPacing(Duration.ofSeconds(1))
+            .addRequest()
+                .name("Ping")
+                .get("/ping")
+                .thinkTime(Duration.ofMillis(300))
+            .and()
+            .execute();
+    }
+
+    private ExecutionResult runStagedProfile(LoadEngine engine) throws Exception {
+        return PerformanceTestBuilder.create(config("Stages " + engine, engine))
+            .stepTo(2)
+            .holdFor(Duration.ofSeconds(1))
+            .rampTo(5, Duration.ofSeconds(1))
+            .holdFor(Duration.ofSeconds(1))
+            .rampDown(Duration.ofMillis(500))
+            .addRequest()
+                .name("Ping")
+                .get("/ping")
+            .and()
+            .execute();
+    }
+
+    private TestConfiguration config(String testName, LoadEngine engine) throws Exception {
+        return server.config("Load Profile " + testName, engine).build();
+    }
+}
@@ -0,0 +1,138 @@
+package com.project.perf;
+
+import org.perf.core.LoadEngine;
+import org.perf.core.TestConfiguration;
+import org.perf.utils.FileUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP target for tests that run plans. Register it with {@code @RegisterExtension}; it
+ * listens on 127.0.0.1 from before each test until after it.
+ * <p>
+ * Every path answers 200 with a short body, except paths under {@code /fail}, which answer 500.
+ * Tests add routes with a status and a delay, or make one request stall. The server also counts
+ * requests and the most it served at once.
+ */
+public final class LocalTestServer implements BeforeEachCallback, AfterEachCallback {
+    private static final byte[] BODY = "{\"status\":\"ok\"}".getBytes();
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile int stalledRequest;
+    private volatile long stallMillis;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public LocalTestServer() {
+        route("/", 200, 0);
+        route("/fail", 500, 0);
+    }
+
+    /** Answers paths starting with the prefix with this status after the delay; the longest prefix wins. */
+    public LocalTestServer route(String pathPrefix, int status, long delayMillis) {
+        routes.put(pathPrefix, new Route(status, delayMillis));
+        return this;
+    }
+
+    /** Holds the n-th request (counting from 1) for the given time before it is answered. */
+    public LocalTestServer stall(int requestNumber, long millis) {
+        this.stalledRequest = requestNumber;
+        this.stallMillis = millis;
+        return this;
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int number = requests.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Route route = routeFor(exchange.getRequestURI().getPath());
+            long delay = route.delayMillis + (number == stalledRequest ? stallMillis : 0);
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            exchange.sendResponseHeaders(route.status, BODY.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(BODY);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private Route routeFor(String path) {
+        String best = "/";
+        for (String prefix : routes.keySet()) {
+            if (path.startsWith(prefix) && prefix.length() > best.length()) {
+                best = prefix;
+            }
+        }
+        return routes.get(best);
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Configuration aimed at this server, with results in target/ under a directory named after
+     * the test; callers override whatever else their test needs.
+     */
+    public TestConfiguration.Builder config(String testName) throws IOException {
+        return TestConfiguration.builder()
+            .testName(testName)
+            .baseUrl(getBaseUrl())
+            .resultsDirectory(FileUtils.createResultsDir(testName.replaceAll("[^A-Za-z0-9]+", "-").toLowerCase()));
+    }
+
+    public TestConfiguration.Builder config(String testName, LoadEngine engine) throws IOException {
+        return config(testName).engine(engine);
+    }
+
+    public int getRequests() { return requests.get(); }
+    public int getMaxInFlight() { return maxInFlight.get(); }
+
+    private static final class Route {
+        final int status;
+        final long delayMillis;
+
+        Route(int status, long delayMillis) {
+            this.status = status;
+            this.delayMillis = delayMillis;
+        }
+    }
+}
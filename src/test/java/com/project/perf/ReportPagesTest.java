@@ -0,0 +1,68 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.core.TestConfiguration;
+import org.perf.model.ExecutionResult;
+import org.perf.reporting.EnhancedConsolidatedReportManager;
+import org.perf.reporting.JtlCsvWriter;
+import org.perf.utils.FileUtils;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import us.abstracta.jmeter.javadsl.core.TestPlanStats;
+import us.abstracta.jmeter.javadsl.core.engines.EmbeddedStatsSummary;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Session pages are rendered from templates: names are escaped on the way out and the styles
+ * come from one shared stylesheet instead of being inlined in every page.
+ */
+public class ReportPagesTest {
+
+    @Test
+    @DisplayName("Pages escape test names and link the shared stylesheet")
+    public void pagesEscapeAndShareStylesheet() throws Exception {
+        EnhancedConsolidatedReportManager manager = EnhancedConsolidatedReportManager.getInstance();
+        Path dir = FileUtils.createResultsDir("report-pages");
+        Path jtl = dir.resolve("results.jtl");
+        Files.deleteIfExists(jtl);
+        try (JtlCsvWriter writer = new JtlCsvWriter(jtl)) {
+            for (int i = 0; i < 500; i++) {
+                SampleResult sample = new SampleResult();
+                sample.setSampleLabel(i % 2 == 0 ? "<Home>" : "Search & Browse");
+                sample.setStampAndTime(1_700_000_000_000L + i * 10L, 10 + i % 50);
+                sample.setSuccessful(true);
+                writer.write(sample);
+            }
+        }
+
+        String testName = "Pages <b>Bold</b> & 'Quoted'";
+        manager.addTestResult(testName, new ExecutionResult(new TestPlanStats(EmbeddedStatsSummary::new),
+            TestConfiguration.builder().resultsDirectory(dir).build()));
+        manager.generateConsolidatedReport();
+
+        Path session = manager.getConsolidatedReportDir();
+        String index = Files.readString(session.resolve("index.html"));
+        String summary = Files.readString(session.resolve("consolidated-report").resolve("consolidated-summary.html"));
+        Path testDir = session.resolve("individual-reports")
+            .resolve(testName.replaceAll("[^a-zA-Z0-9-_]", "-") + "-" + Thread.currentThread().getName().replaceAll("[^a-zA-Z0-9-_]", "-"));
+        String testSummary = Files.readString(testDir.resolve("test-summary.html"));
+
+        assertThat(session.resolve("report.css")).exists();
+        assertThat(index).contains("href='report.css'").doesNotContain("<style>");
+        assertThat(summary).contains("href='../report.css'").doesNotContain("<style>");
+        assertThat(testSummary).contains("href='../../report.css'").doesNotContain("<style>");
+
+        String escaped = "Pages &lt;b&gt;Bold&lt;/b&gt; &amp; &#39;Quoted&#39;";
+        assertThat(index).contains(escaped).doesNotContain("<b>Bold</b>");
+        assertThat(summary).contains(escaped).doesNotContain("<b>Bold</b>");
+        assertThat(testSummary).contains(escaped).doesNotContain("<b>Bold</b>");
+        assertThat(testSummary).contains("&lt;Home&gt;").contains("Search &amp; Browse").contains("html-report/index.html").contains("</html>");
+    }
+}
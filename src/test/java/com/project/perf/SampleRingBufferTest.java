@@ -0,0 +1,218 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.perf.core.BufferOverflowPolicy;
+import org.perf.core.SampleRingBuffer;
+
+import org.apache.jmeter.assertions.AssertionResult;
+import org.apache.jmeter.samplers.SampleResult;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The ring between sampler threads and the results writer delivers every sample once and in
+ * each producer's order, and applies its overflow policy when the writer falls behind.
+ */
+public class SampleRingBufferTest {
+
+    @Test
+    @DisplayName("Many producers through a small ring: every sample delivered once, in producer order")
+    public void manyProducers() throws Exception {
+        int producers = 8;
+        int perProducer = 50_000;
+        long[] lastSeen = new long[producers];
+        Arrays.fill(lastSeen, -1);
+        long[] delivered = new long[1];
+        boolean[] outOfOrder = new boolean[1];
+        SampleRingBuffer ring = new SampleRingBuffer("test", 1000, BufferOverflowPolicy.BLOCK, (sample, sequence) -> {
+            // The consumer runs on one thread, so plain fields are enough here
+            int producer = Integer.parseInt(sample.getSampleLabel());
+            if (sequence != lastSeen[producer] + 1) {
+                outOfOrder[0] = true;
+            }
+            lastSeen[producer] = sequence;
+            delivered[0]++;
+        });
+        assertThat(ring.getCapacity()).isEqualTo(1024);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            SampleResult sample = sample(String.valueOf(p));
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (long i = 0; i < perProducer; i++) {
+                    ring.publish(sample, i);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        ring.close();
+
+        assertThat(delivered[0]).isEqualTo((long) producers * perProducer);
+        assertThat(outOfOrder[0]).isFalse();
+        assertThat(lastSeen).containsOnly(perProducer - 1);
+        assertThat(ring.getPublished()).isEqualTo((long) producers * perProducer);
+        assertThat(ring.getDropped()).isZero();
+        assertThat(ring.getBatches()).isPositive();
+        assertThat(ring.getLargestBatch()).isBetween(1L, 1024L);
+    }
+
+    @Test
+    @DisplayName("DROP counts the samples that found the ring full")
+    public void dropWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<SampleResult> delivered = new ArrayList<>();
+        SampleRingBuffer ring = new SampleRingBuffer("drop", 4, BufferOverflowPolicy.DROP, (sample, intended) -> {
+            await(release);
+            delivered.add(sample);
+        });
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            accepted += ring.publish(sample("Drop " + i), 0) ? 1 : 0;
+        }
+        release.countDown();
+        ring.close();
+
+        assertThat(accepted).isEqualTo(4);
+        assertThat(ring.getDropped()).isEqualTo(6);
+        assertThat(delivered).extracting(SampleResult::getSampleLabel).containsExactly("Drop 0", "Drop 1", "Drop 2", "Drop 3");
+    }
+
+    @Test
+    @DisplayName("SPILL parks overflow samples and delivers them after the ring")
+    public void spillWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> delivered = new ArrayList<>();
+        SampleRingBuffer ring = new SampleRingBuffer("spill", 4, BufferOverflowPolicy.SPILL, (sample, intended) -> {
+            await(release);
+            delivered.add(sample.getSampleLabel());
+        });
+        for (int i = 0; i < 10; i++) {
+            assertThat(ring.publish(sample("Spill " + i), 0)).isTrue();
+        }
+        release.countDown();
+        ring.close();
+
+        assertThat(ring.getSpilled()).isEqualTo(6);
+        assertThat(ring.getDropped()).isZero();
+        assertThat(delivered).hasSize(10).startsWith("Spill 0", "Spill 1", "Spill 2", "Spill 3");
+    }
+
+    @Test
+    @DisplayName("BLOCK holds the producer until the consumer frees a slot")
+    public void blockWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> delivered = new ArrayList<>();
+        SampleRingBuffer ring = new SampleRingBuffer("block", 2, BufferOverflowPolicy.BLOCK, (sample, intended) -> {
+            await(release);
+            delivered.add(sample.getSampleLabel());
+        });
+        ring.publish(sample("Block 0"), 0);
+        ring.publish(sample("Block 1"), 0);
+        Thread producer = Thread.ofVirtual().start(() -> ring.publish(sample("Block 2"), 0));
+        producer.join(200);
+        assertThat(producer.isAlive()).isTrue();
+
+        release.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        ring.close();
+
+        assertThat(ring.getBlocked()).isEqualTo(1);
+        assertThat(ring.getBlockedMillis()).isGreaterThanOrEqualTo(100);
+        assertThat(delivered).containsExactly("Block 0", "Block 1", "Block 2");
+    }
+
+    @Test
+    @DisplayName("A failing consumer keeps draining and the failure surfaces on close")
+    public void consumerFailure() {
+        List<String> delivered = new ArrayList<>();
+        SampleRingBuffer ring = new SampleRingBuffer("fail", 8, BufferOverflowPolicy.BLOCK, (sample, intended) -> {
+            if (sample.getSampleLabel().equals("Fail 1")) {
+                throw new IllegalStateException("disk full");
+            }
+            delivered.add(sample.getSampleLabel());
+        });
+        for (int i = 0; i < 20; i++) {
+            ring.publish(sample("Fail " + i), 0);
+        }
+        assertThatThrownBy(ring::close).isInstanceOf(IllegalStateException.class).hasMessage("disk full");
+        assertThat(delivered).hasSize(19);
+    }
+
+    @Test
+    @DisplayName("Slots copy the result columns, so response data and subresults are not kept")
+    public void copiesResultColumns() throws Exception {
+        SampleResult original = new SampleResult(1_700_000_000_000L, 42);
+        original.setSampleLabel("Copy");
+        original.setResponseCode("500");
+        original.setResponseMessage("Internal Server Error");
+        original.setThreadName("Copy 1-1");
+        original.setDataType(SampleResult.TEXT);
+        original.setSuccessful(false);
+        AssertionResult assertion = new AssertionResult("Body");
+        assertion.setFailure(true);
+        assertion.setFailureMessage("missing id");
+        original.addAssertionResult(assertion);
+        original.setResponseData(new byte[1 << 20]);
+        original.setBytes(1024L);
+        original.setSentBytes(128);
+        original.setGroupThreads(3);
+        original.setAllThreads(5);
+        original.setURL(URI.create("http://127.0.0.1/copy?q=1").toURL());
+        original.setLatency(30);
+        original.setDataEncoding("UTF-8");
+        original.setErrorCount(1);
+        original.setIdleTime(2);
+        original.setConnectTime(4);
+        original.addSubResult(new SampleResult(1_700_000_000_000L, 10));
+
+        List<SampleResult> delivered = new ArrayList<>();
+        long[] intended = new long[1];
+        SampleRingBuffer ring = new SampleRingBuffer("copy", 4, BufferOverflowPolicy.BLOCK, (sample, intendedStart) -> {
+            delivered.add(sample);
+            intended[0] = intendedStart;
+        });
+        ring.publish(original, 1_699_999_999_990L);
+        ring.close();
+
+        SampleResult copy = delivered.get(0);
+        assertThat(copy).isNotSameAs(original);
+        assertThat(copy.getResponseData()).isEmpty();
+        assertThat(copy.getSubResults()).isEmpty();
+        // Whatever the sample's own getters make of it, the consumer sees the same
+        Function<SampleResult, List<Object>> columns = sample -> Arrays.asList(sample.getTimeStamp(), sample.getTime(),
+            sample.getSampleLabel(), sample.getResponseCode(), sample.getResponseMessage(), sample.getThreadName(),
+            sample.getDataType(), sample.isSuccessful(), sample.getFirstAssertionFailureMessage(), sample.getBytesAsLong(),
+            sample.getSentBytes(), sample.getGroupThreads(), sample.getAllThreads(), sample.getUrlAsString(),
+            sample.getLatency(), sample.getDataEncodingNoDefault(), sample.getSampleCount(), sample.getErrorCount(),
+            sample.getIdleTime(), sample.getConnectTime());
+        assertThat(columns.apply(copy)).isEqualTo(columns.apply(original)).contains("missing id", "http://127.0.0.1/copy?q=1");
+        assertThat(intended[0]).isEqualTo(1_699_999_999_990L);
+    }
+
+    private static SampleResult sample(String label) {
+        SampleResult sample = new SampleResult();
+        sample.setSampleLabel(label);
+        return sample;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.perf.builder.PerformanceTestBuilder;
+import org.perf.core.LoadEngine;
+import org.perf.core.TestConfiguration;
+import org.perf.model.ExecutionResult;
+import org.perf.reporting.EnhancedConsolidatedReportManager;
+import org.perf.reporting.SampleStore;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import us.abstracta.jmeter.javadsl.core.TestPlanStats;
+import us.abstracta.jmeter.javadsl.core.engines.EmbeddedStatsSummary;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The off-heap sample store keeps every sample of a run as a fixed-width record and answers
+ * drill-down queries such as the slowest samples of a label or those with a given response code.
+ */
+public class SampleStoreTest {
+    private static final long START = 1_700_000_000_000L;
+
+    @RegisterExtension
+    final LocalTestServer server = new LocalTestServer().route("/slow", 503, 50);
+
+    @Test
+    @DisplayName("Scans, counts and top-K queries filter by label and response code")
+    public void queries() {
+        try (SampleStore store = new SampleStore(100)) {
+            for (int i = 0; i < 60; i++) {
+                String label = i % 3 == 0 ? "Login" : "Search";
+                String code = i % 10 == 9 ? "500" : "200";
+                store.add(sample(label, START + i * 10L, 100 + i, code));
+            }
+            assertThat(store.size()).isEqualTo(60);
+            assertThat(store.getLabels()).containsExactly("Login", "Search");
+            assertThat(store.getResponseCodes()).containsExactly("200", "500");
+
+            assertThat(store.count("Login", null)).isEqualTo(20);
+            assertThat(store.count(null, "500")).isEqualTo(6);
+            assertThat(store.count("Login", "500")).isEqualTo(2);
+            assertThat(store.count("Checkout", null)).isZero();
+            assertThat(store.countFailures(null)).isEqualTo(6);
+            assertThat(store.countByResponseCode("Search")).isEqualTo(Map.of("200", 36L, "500", 4L));
+
+            List<SampleStore.StoredSample> slowest = store.slowest("Login", 3);
+            assertThat(slowest).extracting(SampleStore.StoredSample::getElapsed).containsExactly(157L, 154L, 151L);
+            assertThat(slowest.get(0).getTimeStamp()).isEqualTo(START + 570);
+            assertThat(slowest.get(0).getLatency()).isEqualTo(57);
+            assertThat(slowest.get(0).getConnect()).isEqualTo(5);
+            assertThat(slowest.get(0).getBytes()).isEqualTo(1024);
+            assertThat(store.slowest(null, "500", 2)).extracting(SampleStore.StoredSample::getElapsed).containsExactly(159L, 149L);
+            assertThat(store.slowest(null, "500", 2).get(0).isSuccess()).isFalse();
+            assertThat(store.slowest("Login", 100)).hasSize(20);
+
+            List<Long> failedAt = new ArrayList<>();
+            assertThat(store.scan(null, "500", sample -> failedAt.add(sample.getIndex()))).isEqualTo(6);
+            assertThat(failedAt).containsExactly(9L, 19L, 29L, 39L, 49L, 59L);
+            assertThat(store.get(19).getLabel()).isEqualTo("Search");
+        }
+    }
+
+    @Test
+    @DisplayName("Records span off-heap chunks and stop at the capacity; close frees them")
+    public void capacityAndChunks() {
+        int capacity = 1_200_000;
+        SampleStore store = new SampleStore(capacity);
+        for (int i = 0; i < capacity + 5; i++) {
+            store.add(sample("Bulk", START + i / 100, i % 1000 == 0 ? 5_000 + i / 1000 : 100, "200"));
+        }
+        assertThat(store.size()).isEqualTo(capacity);
+        assertThat(store.getOverflow()).isEqualTo(5);
+        assertThat(store.getOffHeapBytes()).isEqualTo((long) capacity * SampleStore.RECORD_BYTES);
+        assertThat(store.slowest("Bulk", 2)).extracting(SampleStore.StoredSample::getIndex).containsExactly(1_199_000L, 1_198_000L);
+        assertThat(store.get(capacity - 1).getTimeStamp()).isEqualTo(START + (capacity - 1) / 100);
+
+        store.close();
+        assertThatThrownBy(() -> store.count(null, null)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Labels past the dictionary limit are stored as (other) and counted instead of failing the run")
+    public void dictionaryOverflow() {
+        int distinct = 32_767;
+        try (SampleStore store = new SampleStore(distinct + 100)) {
+            for (int i = 0; i < distinct + 10; i++) {
+                assertThat(store.add(sample("Order " + i, START + i, 100 + i % 50, "200"))).isTrue();
+            }
+            store.add(sample("Order 5", START, 7_000, "200"));
+
+            assertThat(store.size()).isEqualTo(distinct + 11);
+            assertThat(store.getLabels()).hasSize(distinct + 1).endsWith(SampleStore.OTHER);
+            assertThat(store.getOtherLabelSamples()).isEqualTo(10);
+            assertThat(store.getOtherResponseCodeSamples()).isZero();
+            assertThat(store.count(SampleStore.OTHER, null)).isEqualTo(10);
+            assertThat(store.count("Order 5", null)).isEqualTo(2);
+            assertThat(store.count("Order " + (distinct + 3), null)).isZero();
+            assertThat(store.get(distinct).getLabel()).isEqualTo(SampleStore.OTHER);
+            assertThat(store.slowest(null, 1).get(0).getLabel()).isEqualTo("Order 5");
+        }
+    }
+
+    @Test
+    @DisplayName("A run with a sample store keeps every sample and shows the slowest in its summary")
+    public void virtualThreadRun() throws Exception {
+        ExecutionResult result = PerformanceTestBuilder.create(server.config("Sample Store")
+                .engine(LoadEngine.VIRTUAL_THREADS)
+                .writeJtl(false)
+                .sampleStore(1000)
+                .build())
+            .withThreads(2)
+            .withIterations(5)
+            .addRequest()
+                .name("Fast Ping")
+                .get("/ping")
+            .and()
+            .addRequest()
+                .name("Slow Ping")
+                .get("/slow")
+            .and()
+            .execute();
+
+        SampleStore store = result.getSampleStore();
+        assertThat(store.size()).isEqualTo(20);
+        assertThat(store.countByResponseCode(null)).isEqualTo(Map.of("200", 10L, "503", 10L));
+        SampleStore.StoredSample slowestError = store.slowest(null, "503", 1).get(0);
+        assertThat(slowestError.getLabel()).startsWith("Slow Ping");
+        assertThat(slowestError.getElapsed()).isGreaterThanOrEqualTo(50);
+        assertThat(store.slowest(null, 20)).hasSize(20).isSortedAccordingTo(
+            (a, b) -> Long.compare(b.getElapsed(), a.getElapsed()));
+
+        String testName = "Sample Store Drill-Down";
+        EnhancedConsolidatedReportManager manager = EnhancedConsolidatedReportManager.getInstance();
+        manager.addTestResult(testName, result);
+        manager.generateConsolidatedReport();
+        Path testDir = manager.getConsolidatedReportDir().resolve("individual-reports")
+            .resolve(testName.replace(' ', '-') + "-" + Thread.currentThread().getName().replaceAll("[^a-zA-Z0-9-_]", "-"));
+        assertThat(Files.readString(testDir.resolve("test-summary.html")))
+            .contains("🐢 Slowest Samples")
+            .contains("20 samples kept off-heap");
+    }
+
+    @Test
+    @DisplayName("Without a sample store a run keeps no samples")
+    public void offByDefault() {
+        TestConfiguration config = TestConfiguration.builder().build();
+        assertThat(config.hasSampleStore()).isFalse();
+        assertThat(new ExecutionResult(new TestPlanStats(EmbeddedStatsSummary::new), config).getSampleStore()).isNull();
+    }
+
+    private static SampleResult sample(String label, long timeStamp, long elapsed, String code) {
+        SampleResult sample = new SampleResult();
+        sample.setSampleLabel(label);
+        sample.setStampAndTime(timeStamp, elapsed);
+        sample.setLatency(elapsed - 100);
+        sample.setConnectTime(5);
+        sample.setBytes(1024L);
+        sample.setResponseCode(code);
+        sample.setSuccessful(!"500".equals(code));
+        return sample;
+    }
+}
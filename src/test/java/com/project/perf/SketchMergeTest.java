@@ -0,0 +1,128 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.perf.reporting.AggregateCollector;
+import org.perf.reporting.AggregateReportParser;
+import org.perf.reporting.LatencyHistogram;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * TOTAL, session and cross-node rows are built by merging the per-row latency sketches, so their
+ * percentiles must match those of one aggregate over all the samples.
+ */
+public class SketchMergeTest {
+
+    @Test
+    @DisplayName("TOTAL row has the percentiles of all samples together")
+    public void totalRowPercentiles() {
+        AggregateCollector perLabel = new AggregateCollector();
+        AggregateCollector together = new AggregateCollector();
+        Random random = new Random(13);
+        long timeStamp = 1_700_000_000_000L;
+        for (int i = 0; i < 20_000; i++) {
+            String label = i % 3 == 0 ? "Slow" : "Fast";
+            long elapsed = label.equals("Slow") ? 200 + random.nextInt(800) : 5 + random.nextInt(40);
+            boolean success = i % 50 != 0;
+            perLabel.add(label, timeStamp + i, elapsed, success, 100, 10);
+            together.add("All", timeStamp + i, elapsed, success, 100, 10);
+        }
+
+        List<AggregateReportParser.SamplerStats> rows = perLabel.getSamplerStats();
+        AggregateReportParser.SamplerStats total = rows.get(rows.size() - 1);
+        AggregateReportParser.SamplerStats expected = together.getSamplerStats().get(0);
+
+        assertThat(total.getLabel()).isEqualTo("TOTAL");
+        assertThat(total.getSamples()).isEqualTo(20_000);
+        assertThat(total.getErrorCount()).isEqualTo(expected.getErrorCount());
+        assertThat(total.getMedian()).isEqualTo(expected.getMedian());
+        assertThat(total.getPercentile90()).isEqualTo(expected.getPercentile90());
+        assertThat(total.getPercentile95()).isEqualTo(expected.getPercentile95());
+        assertThat(total.getPercentile99()).isEqualTo(expected.getPercentile99());
+        assertThat(total.getPercentile999()).isEqualTo(expected.getPercentile999());
+        assertThat(total.getAverage()).isCloseTo(expected.getAverage(), within(1e-9));
+        assertThat(total.getMin()).isEqualTo(expected.getMin());
+        assertThat(total.getMax()).isEqualTo(expected.getMax());
+        assertThat(total.getThroughput()).isCloseTo(expected.getThroughput(), within(1e-9));
+        assertThat(total.getHistogram().getTotalCount()).isEqualTo(20_000);
+    }
+
+    @Test
+    @DisplayName("Rows from separate runs combine into one session row")
+    public void sessionRowFromSeparateRuns() {
+        AggregateCollector nodeA = new AggregateCollector();
+        AggregateCollector nodeB = new AggregateCollector(2);
+        AggregateCollector together = new AggregateCollector(2);
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            long elapsed = 1 + random.nextInt(5_000);
+            (i % 2 == 0 ? nodeA : nodeB).add("Login", 1_000L + i, elapsed, true, 0, 0);
+            together.add("Login", 1_000L + i, elapsed, true, 0, 0);
+        }
+
+        AggregateReportParser.SamplerStats session = AggregateCollector.combine("SESSION",
+            List.of(nodeA.getTotalStats(), nodeB.getTotalStats()));
+        AggregateReportParser.SamplerStats expected = together.getTotalStats();
+
+        assertThat(session.getSamples()).isEqualTo(10_000);
+        assertThat(session.getMin()).isEqualTo(expected.getMin());
+        assertThat(session.getMax()).isEqualTo(expected.getMax());
+        assertThat(session.getAverage()).isCloseTo(expected.getAverage(), within(1e-9));
+        // Node B recorded at 2 digits, so the merge is only as precise as that
+        assertThat(session.getPercentile99()).isCloseTo(expected.getPercentile99(), within(expected.getPercentile99() * 0.02));
+        assertThat(session.getMedian()).isCloseTo(expected.getMedian(), within(expected.getMedian() * 0.02));
+    }
+
+    @Test
+    @DisplayName("Rows without a sketch still combine counts, min, max and mean")
+    public void rowsWithoutSketch() {
+        AggregateReportParser.SamplerStats first = new AggregateReportParser.SamplerStats();
+        first.setSamples(10);
+        first.setAverage(100);
+        first.setMin(50);
+        first.setMax(150);
+        first.setThroughput(2);
+        AggregateReportParser.SamplerStats second = new AggregateReportParser.SamplerStats();
+        second.setSamples(30);
+        second.setErrorCount(3);
+        second.setAverage(200);
+        second.setMin(80);
+        second.setMax(400);
+        second.setThroughput(3);
+
+        AggregateReportParser.SamplerStats combined = AggregateCollector.combine("TOTAL", List.of(first, second));
+
+        assertThat(combined.getSamples()).isEqualTo(40);
+        assertThat(combined.getErrorPercentage()).isCloseTo(7.5, within(1e-9));
+        assertThat(combined.getAverage()).isCloseTo(175, within(1e-9));
+        assertThat(combined.getMin()).isEqualTo(50);
+        assertThat(combined.getMax()).isEqualTo(400);
+        assertThat(combined.getThroughput()).isCloseTo(5, within(1e-9));
+        assertThat(combined.getHistogram()).isNull();
+    }
+
+    @Test
+    @DisplayName("Histograms of different precision merge at the coarser one")
+    public void mixedPrecisionMerge() {
+        LatencyHistogram fine = new LatencyHistogram(3);
+        LatencyHistogram coarse = new LatencyHistogram(1);
+        for (long v = 1; v <= 1000; v++) {
+            fine.recordValue(v);
+            coarse.recordValue(v + 1000);
+        }
+
+        coarse.add(fine);
+
+        assertThat(coarse.getTotalCount()).isEqualTo(2000);
+        assertThat(coarse.getMinValue()).isEqualTo(1);
+        assertThat(coarse.getMaxValue()).isEqualTo(2000);
+        assertThat(coarse.getMean()).isCloseTo(1000.5, within(1e-9));
+        assertThat(coarse.getValueAtPercentile(50)).isBetween(1000L, 1100L);
+    }
+}
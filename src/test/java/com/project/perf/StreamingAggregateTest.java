@@ -0,0 +1,90 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.builder.PerformanceTestBuilder;
+import org.perf.core.LoadEngine;
+import org.perf.core.TestConfiguration;
+import org.perf.model.ExecutionResult;
+import org.perf.reporting.AggregateReportParser;
+import org.perf.utils.FileUtils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Aggregates collected while the plan runs must match what the JTL parser computes afterwards.
+ */
+public class StreamingAggregateTest {
+
+    @RegisterExtension
+    final LocalTestServer server = new LocalTestServer();
+
+    @Test
+    @DisplayName("In-memory aggregates match the parsed JTL (JMeter engine)")
+    public void inMemoryMatchesJtlOnJmeter() throws Exception {
+        assertMatchesJtl(LoadEngine.JMETER);
+    }
+
+    @Test
+    @DisplayName("In-memory aggregates match the parsed JTL (virtual threads)")
+    public void inMemoryMatchesJtlOnVirtualThreads() throws Exception {
+        assertMatchesJtl(LoadEngine.VIRTUAL_THREADS);
+    }
+
+    @Test
+    @DisplayName("Aggregates are available without writing a JTL")
+    public void aggregatesWithoutJtl() throws Exception {
+        Path resultsDir = FileUtils.createResultsDir("streaming-aggregate-no-jtl");
+        Files.deleteIfExists(resultsDir.resolve("results.jtl"));
+        TestConfiguration config = server.config("No JTL")
+            .resultsDirectory(resultsDir)
+            .writeJtl(false)
+            .build();
+
+        ExecutionResult result = runPlan(config);
+
+        assertThat(resultsDir.resolve("results.jtl")).doesNotExist();
+        assertThat(result.getSamplerStats()).extracting(AggregateReportParser.SamplerStats::getLabel)
+            .contains("TOTAL");
+        assertThat(result.getSamplerStats().get(result.getSamplerStats().size() - 1).getSamples()).isEqualTo(12);
+    }
+
+    private void assertMatchesJtl(LoadEngine engine) throws Exception {
+        Path resultsDir = FileUtils.createResultsDir("streaming-aggregate-" + engine.name().toLowerCase());
+        // JMeter appends to an existing JTL, so clear what a previous run left behind
+        Files.deleteIfExists(resultsDir.resolve("results.jtl"));
+        TestConfiguration config = server.config("Streaming " + engine)
+            .resultsDirectory(resultsDir)
+            .engine(engine)
+            .build();
+
+        ExecutionResult result = runPlan(config);
+        List<AggregateReportParser.SamplerStats> inMemory = result.getSamplerStats();
+        List<AggregateReportParser.SamplerStats> parsed = AggregateReportParser.parseJtlFile(resultsDir.resolve("results.jtl"));
+
+        assertThat(inMemory).hasSize(3);
+        assertThat(inMemory).usingRecursiveFieldByFieldElementComparator(HistogramComparison.BY_CONTENT).isEqualTo(parsed);
+        assertThat(inMemory.get(0).getErrorCount() + inMemory.get(1).getErrorCount()).isEqualTo(6);
+    }
+
+    private ExecutionResult runPlan(TestConfiguration config) throws Exception {
+        return PerformanceTestBuilder.create(config)
+            .withThreads(2)
+            .withIterations(3)
+            .addRequest()
+                .name("Good")
+                .get("/ok")
+            .and()
+            .addRequest()
+                .name("Bad")
+                .get("/fail")
+            .and()
+            .execute();
+    }
+}
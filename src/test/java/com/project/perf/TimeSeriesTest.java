@@ -0,0 +1,117 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.reporting.JtlCsvWriter;
+import org.perf.reporting.TimeSeries;
+import org.perf.reporting.TimeSeriesCollector;
+import org.perf.utils.FileUtils;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Per-interval buckets: counts land in the bucket of the sample's start, idle intervals show up as
+ * zero buckets, and replaying the JTL gives the same series as collecting live.
+ */
+public class TimeSeriesTest {
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    @DisplayName("Samples are bucketed by start time with idle intervals kept")
+    public void bucketsPerSecond() {
+        TimeSeriesCollector collector = new TimeSeriesCollector(1000);
+        // Seconds 0 and 1 busy, 2-4 idle (a stall), 5 busy again
+        for (int i = 0; i < 100; i++) {
+            collector.add("Home", START + i * 10, 10 + i % 10, i % 10 != 0, 500, 50);
+            collector.add("Search", START + 1000 + i * 10, 200, true, 1000, 80);
+        }
+        collector.add("Home", START + 5500, 40, true, 500, 50);
+
+        TimeSeries total = collector.getTotal();
+        assertThat(total.size()).isEqualTo(6);
+        assertThat(total.getBucketStart(0)).isEqualTo(START);
+        assertThat(total.getCount(0)).isEqualTo(100);
+        assertThat(total.getErrors(0)).isEqualTo(10);
+        assertThat(total.getThroughput(1)).isEqualTo(100.0);
+        assertThat(total.getPercentile95(1)).isEqualTo(200);
+        assertThat(total.getCount(2)).isZero();
+        assertThat(total.getCount(4)).isZero();
+        assertThat(total.getCount(5)).isEqualTo(1);
+
+        List<TimeSeries> labels = collector.getSeries();
+        assertThat(labels).extracting(TimeSeries::getLabel).containsExactly("Home", "Search");
+        TimeSeries home = labels.get(0);
+        assertThat(home.getCount(0)).isEqualTo(100);
+        assertThat(home.getCount(1)).isZero();
+        assertThat(home.getMean(0)).isEqualTo(14.5);
+        assertThat(home.getMax(0)).isEqualTo(19);
+        assertThat(home.getBytes(0)).isEqualTo(50_000);
+        TimeSeries search = labels.get(1);
+        assertThat(search.getBucketStart(0)).isEqualTo(START);
+        assertThat(search.getCount(0)).isZero();
+        assertThat(search.getCount(1)).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Out-of-order samples land in their bucket while it is open")
+    public void outOfOrderSamples() {
+        TimeSeriesCollector collector = new TimeSeriesCollector(1000, 3);
+        collector.add("Slow", START, 100, true, 0, 0);
+        collector.add("Slow", START + 2500, 100, true, 0, 0);
+        // Started in bucket 1, finished later: bucket 1 is still open
+        collector.add("Slow", START + 1200, 1500, true, 0, 0);
+        collector.add("Slow", START + 6000, 100, true, 0, 0);
+        // Bucket 0 was closed by the sample above: counted, but late
+        collector.add("Slow", START + 10, 6000, false, 0, 0);
+
+        TimeSeries total = collector.getTotal();
+        assertThat(total.size()).isEqualTo(7);
+        assertThat(total.getCount(1)).isEqualTo(1);
+        assertThat(total.getMax(1)).isEqualTo(1500);
+        assertThat(total.getCount(0)).isEqualTo(2);
+        assertThat(total.getErrors(0)).isEqualTo(1);
+        assertThat(total.getMax(0)).isEqualTo(100);
+        assertThat(total.getTotalCount()).isEqualTo(5);
+        assertThat(collector.getLateSamples()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Replaying a JTL gives the same series as collecting live")
+    public void replayMatchesLive() throws Exception {
+        Path dir = FileUtils.createResultsDir("time-series");
+        Path jtl = dir.resolve("results.jtl");
+        Files.deleteIfExists(jtl);
+        TimeSeriesCollector live = new TimeSeriesCollector(500);
+        Random random = new Random(14);
+        try (JtlCsvWriter writer = new JtlCsvWriter(jtl)) {
+            for (int i = 0; i < 5_000; i++) {
+                SampleResult sample = new SampleResult();
+                sample.setSampleLabel(i % 3 == 0 ? "Checkout, step 1" : "Browse");
+                sample.setStampAndTime(START + i * 7L + random.nextInt(50), 5 + random.nextInt(900));
+                sample.setSuccessful(random.nextInt(40) != 0);
+                sample.setBytes(100L + random.nextInt(100));
+                live.add(sample);
+                writer.write(sample);
+            }
+        }
+
+        TimeSeriesCollector replayed = TimeSeriesCollector.fromResults(jtl, 500);
+
+        assertThat(replayed.getTotal()).usingRecursiveComparison().isEqualTo(live.getTotal());
+        assertThat(replayed.getSeries()).usingRecursiveFieldByFieldElementComparator().isEqualTo(live.getSeries());
+        assertThat(live.getTotal().getTotalCount()).isEqualTo(5_000);
+
+        live.writeCsv(dir.resolve("timeseries.csv"));
+        List<String> lines = Files.readAllLines(dir.resolve("timeseries.csv"));
+        assertThat(lines).hasSize(1 + 3 * live.getTotal().size());
+        assertThat(lines).anyMatch(line -> line.contains(",\"Checkout, step 1\","));
+    }
+}
@@ -0,0 +1,95 @@
+package com.project.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.perf.builder.ThreadGroupBuilder;
+import org.perf.core.LoadEngine;
+import org.perf.core.TestConfiguration;
+import org.perf.core.VirtualThreadEngine;
+import org.perf.model.ExecutionResult;
+import org.perf.model.TestStep;
+import org.perf.reporting.JtlCsvWriter;
+import org.perf.reporting.LatencyBreakdown;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The virtual-thread engine run on its own, without the builder or executor in front: what it
+ * records for each request and how it reports a target it cannot reach.
+ */
+public class VirtualThreadEngineTest {
+    private static final int URL_COLUMN = Arrays.asList(JtlCsvWriter.HEADER.split(",")).indexOf("URL");
+    private static final int CODE_COLUMN = Arrays.asList(JtlCsvWriter.HEADER.split(",")).indexOf("responseCode");
+    private static final int CONNECT_COLUMN = Arrays.asList(JtlCsvWriter.HEADER.split(",")).indexOf("Connect");
+
+    @RegisterExtension
+    final LocalTestServer server = new LocalTestServer();
+
+    @Test
+    @DisplayName("Every request becomes a sample with its URL, code and timings in the JTL")
+    public void recordsSamples() throws Exception {
+        TestConfiguration config = server.config("VT Engine", LoadEngine.VIRTUAL_THREADS).build();
+        List<TestStep> steps = List.of(
+            TestStep.builder().name("Search").get("/search?q=engine&page=2").build(),
+            TestStep.builder().name("Order").post("/orders", "{\"id\":1}", "application/json")
+                .header("X-Trace", "engine-test").build(),
+            TestStep.builder().name("Broken").get("/fail").build());
+
+        ExecutionResult result = new VirtualThreadEngine(config)
+            .run(new ThreadGroupBuilder().users(2).iterations(3).build(), steps);
+
+        assertThat(result.getTotalSamples()).isEqualTo(18);
+        assertThat(result.getErrorCount()).isEqualTo(6);
+        assertThat(server.getRequests()).isEqualTo(18);
+        assertThat(result.getAggregates().getLabelCount()).isEqualTo(3);
+
+        List<String[]> rows = jtlRows(config.getResultsDirectory());
+        assertThat(rows).hasSize(18);
+        assertThat(rows).extracting(row -> row[URL_COLUMN]).contains(
+            server.getBaseUrl() + "/search?q=engine&page=2",
+            server.getBaseUrl() + "/orders",
+            server.getBaseUrl() + "/fail");
+        assertThat(rows).extracting(row -> row[CODE_COLUMN]).containsOnly("200", "500");
+        // HttpClient does not report connection setup; 0 would count it as server time
+        assertThat(rows).extracting(row -> Long.parseLong(row[CONNECT_COLUMN])).containsOnly(LatencyBreakdown.CONNECT_UNKNOWN);
+    }
+
+    @Test
+    @DisplayName("A target that refuses connections gives failed samples, not a failed run")
+    public void unreachableTarget() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        TestConfiguration config = TestConfiguration.builder()
+            .testName("VT Engine Unreachable")
+            .baseUrl("http://127.0.0.1:" + closedPort)
+            .engine(LoadEngine.VIRTUAL_THREADS)
+            .connectionTimeout(Duration.ofSeconds(2))
+            .writeJtl(false)
+            .build();
+
+        ExecutionResult result = new VirtualThreadEngine(config).run(new ThreadGroupBuilder().users(1).iterations(2).build(),
+            List.of(TestStep.builder().name("Nowhere").get("/ping").build()));
+
+        assertThat(result.getTotalSamples()).isEqualTo(2);
+        assertThat(result.getErrorCount()).isEqualTo(2);
+        assertThat(result.getAggregates().getErrors().getTypes())
+            .allSatisfy(type -> assertThat(type.getType()).startsWith("Non HTTP response code: java.net.ConnectException"));
+    }
+
+    private static List<String[]> jtlRows(Path resultsDirectory) throws Exception {
+        List<String> lines = Files.readAllLines(resultsDirectory.resolve("results.jtl"));
+        assertThat(lines.get(0)).isEqualTo(JtlCsvWriter.HEADER);
+        return lines.subList(1, lines.size()).stream().map(line -> line.split(",", -1)).toList();
+    }
+}